@@ -0,0 +1,78 @@
+package de.blacktri.restapi.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.ProfilerConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the benchmarks so that every run can be compared with an earlier one.
+ * <p/>
+ * Takes the usual JMH command line, but unless given otherwise every benchmark is measured as throughput in
+ * operations per second, the {@code gc} profiler adds the allocation rate and the bytes allocated per operation,
+ * and the results are written as JSON to {@code benchmarks/results/<timestamp>.json}. Two such files are compared
+ * with {@link CompareResults}.
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar de.blacktri.restapi.benchmark.BenchmarkRunner [JMH options] [regex]
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+  static final String RESULTS = "benchmarks/results";
+
+  private BenchmarkRunner() {
+  }
+
+  public static void main(String[] args) throws RunnerException, IOException {
+    CommandLineOptions commandLine;
+    try {
+      commandLine = new CommandLineOptions(args);
+    } catch (CommandLineOptionException e) {
+      System.err.println(e.getMessage());
+      System.exit(1);
+      return;
+    }
+
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+    if (commandLine.getBenchModes().isEmpty()) {
+      options.mode(Mode.Throughput);
+    }
+    if (!commandLine.getTimeUnit().hasValue()) {
+      options.timeUnit(TimeUnit.SECONDS);
+    }
+    if (!hasGcProfiler(commandLine)) {
+      options.addProfiler(GCProfiler.class);
+    }
+    if (!commandLine.getResult().hasValue()) {
+      Path results = Paths.get(RESULTS);
+      Files.createDirectories(results);
+      String name = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json";
+      options.result(results.resolve(name).toString());
+      options.resultFormat(ResultFormatType.JSON);
+    }
+    new Runner(options.build()).run();
+  }
+
+  private static boolean hasGcProfiler(CommandLineOptions commandLine) {
+    for (ProfilerConfig profiler : commandLine.getProfilers()) {
+      if ("gc".equals(profiler.getKlass()) || GCProfiler.class.getName().equals(profiler.getKlass())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
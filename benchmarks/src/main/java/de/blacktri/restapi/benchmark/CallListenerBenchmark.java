@@ -0,0 +1,127 @@
+package de.blacktri.restapi.benchmark;
+
+import de.blacktri.restapi.httpclient.ABTestingRestConnector;
+import de.blacktri.restapi.httpclient.CallEvent;
+import de.blacktri.restapi.httpclient.CallListener;
+import de.blacktri.restapi.pojos.Project;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.execchain.ClientExecChain;
+import org.apache.http.message.BasicHttpResponse;
+import org.codehaus.jackson.type.TypeReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs a complete {@code callService} with no, one and three registered {@link CallListener}s.
+ * <p/>
+ * The connector answers from an in-memory client instead of the network, so the benchmark measures the
+ * connector's own work per call: building the request, the listener callbacks and decoding the response. Without
+ * listeners no {@link CallEvent} is created and the only cost is a {@code null} check; run with {@code -prof gc}
+ * to see that {@code listeners=0} allocates nothing for the listener support, while each call with listeners
+ * allocates one event.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CallListenerBenchmark {
+
+  private static final String PROJECT = "account/1/project/7";
+
+  private static final TypeReference<Project> PROJECT_TYPE = new TypeReference<Project>() {
+  };
+
+  @Param({"0", "1", "3"})
+  int listeners;
+
+  private ABTestingRestConnector connector;
+  private final LongAdder bytes = new LongAdder();
+
+  @Setup
+  public void setUp() {
+    final HttpClient client = new InMemoryClientBuilder(Payloads.project(7)).build();
+    connector = new ABTestingRestConnector() {
+      @Override
+      protected HttpClient getHttpClient() {
+        return client;
+      }
+    };
+    connector.setServiceEndpoint("http://localhost/api/v1/");
+    for (int i = 0; i < listeners; i++) {
+      connector.addCallListener(new CallListener() {
+        @Override
+        public void onResponseDecoded(CallEvent event) {
+          bytes.add(event.getResponseBytes());
+        }
+      });
+    }
+  }
+
+  @Benchmark
+  public Project getProject() {
+    return connector.callService(HttpMethod.GET, PROJECT, PROJECT_TYPE, null);
+  }
+
+  /**
+   * Builds a client that answers every request with {@code 200} and the same JSON body. The answer replaces the
+   * main execution stage, so no connection is ever leased or opened.
+   */
+  private static final class InMemoryClientBuilder extends HttpClientBuilder {
+
+    private final byte[] body;
+
+    private InMemoryClientBuilder(byte[] body) {
+      this.body = body;
+      disableRedirectHandling();
+      disableContentCompression();
+    }
+
+    @Override
+    protected ClientExecChain decorateMainExec(ClientExecChain mainExec) {
+      return new ClientExecChain() {
+        @Override
+        public CloseableHttpResponse execute(HttpRoute route, HttpRequestWrapper request, HttpClientContext context,
+                                             HttpExecutionAware execAware) {
+          Response response = new Response();
+          response.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
+          return response;
+        }
+      };
+    }
+  }
+
+  private static final class Response extends BasicHttpResponse implements CloseableHttpResponse {
+
+    private Response() {
+      super(HttpVersion.HTTP_1_1, 200, "OK");
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,96 @@
+package de.blacktri.restapi.benchmark;
+
+import de.blacktri.restapi.httpclient.ABTestingRestConnector;
+import de.blacktri.restapi.pojos.DataSet;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.Project;
+import org.codehaus.jackson.type.TypeReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The whole blocking {@code callService} path against a local {@link StubServer}: building the request, the
+ * round trip over loopback, status handling and decoding the body into pojos.
+ * <p/>
+ * The stub serves the same payloads as the decode benchmarks, so the difference to {@link JsonCodecBenchmark}
+ * is the cost of the connector and the transport. Run with {@code -prof gc} to see the bytes allocated per call.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CallServiceBenchmark {
+
+  private static final String PROJECT = "account/1/project/1000";
+  private static final String PROJECTS = "account/1/projects";
+  private static final String DECISIONS = "account/1/project/1000/decisions";
+  private static final String TREND = "account/1/project/1000/trend";
+
+  private StubServer server;
+  private ABTestingRestConnector connector;
+  private Map<String, Object> trendQuery;
+
+  @Setup
+  public void setUp() throws IOException {
+    server = new StubServer();
+    server.respond(PROJECT, Payloads.project(1000));
+    server.respond(PROJECTS, Payloads.projects(50));
+    server.respond(DECISIONS, Payloads.decisions(10));
+    server.respond(TREND, Payloads.trend(30, 5));
+    connector = new ABTestingRestConnector();
+    connector.setServiceEndpoint(server.getServiceEndpoint());
+    trendQuery = new LinkedHashMap<>();
+    trendQuery.put("end", "2015-06-30 23:59:59");
+    trendQuery.put("entries", 30);
+  }
+
+  @Benchmark
+  public Project getProject() {
+    return connector.callService(HttpMethod.GET, PROJECT, new TypeReference<Project>() {
+    }, null);
+  }
+
+  @Benchmark
+  public List<Project> getProjects() {
+    return connector.callService(HttpMethod.GET, PROJECTS, new TypeReference<List<Project>>() {
+    }, null);
+  }
+
+  @Benchmark
+  public List<Decision> getDecisions() {
+    return connector.callService(HttpMethod.GET, DECISIONS, new TypeReference<List<Decision>>() {
+    }, null);
+  }
+
+  @Benchmark
+  public Map<Calendar, Map<String, DataSet>> getTrend() {
+    return connector.callService(HttpMethod.GET, TREND, new TypeReference<Map<Calendar, Map<String, DataSet>>>() {
+    }, trendQuery, null);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    connector.close();
+    server.close();
+  }
+}
@@ -0,0 +1,108 @@
+package de.blacktri.restapi.benchmark;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JSON result files of JMH, e.g. written by {@link BenchmarkRunner}, and reports regressions.
+ * <p/>
+ * Benchmarks are matched by name, mode and parameters. A benchmark regresses when its score is worse than the
+ * baseline by more than the threshold, 10% by default, or when it allocates more bytes per operation by more than
+ * the threshold and at least 16 bytes. The process exits with {@code 1} if any benchmark regressed, so the
+ * comparison can fail a build.
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar de.blacktri.restapi.benchmark.CompareResults baseline.json current.json [threshold]
+ * </pre>
+ */
+public final class CompareResults {
+
+  private static final String ALLOCATION = "gc.alloc.rate.norm";
+  private static final double MIN_ALLOCATION_DELTA = 16;
+
+  private CompareResults() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("usage: CompareResults <baseline.json> <current.json> [threshold]");
+      System.exit(2);
+      return;
+    }
+    double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+    Map<String, JsonNode> baseline = read(new File(args[0]));
+    Map<String, JsonNode> current = read(new File(args[1]));
+
+    int regressions = 0;
+    System.out.printf("%-80s %14s %14s %8s %12s %12s%n", "Benchmark", "Baseline", "Current", "Change", "B/op base", "B/op now");
+    for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+      JsonNode before = baseline.get(entry.getKey());
+      JsonNode after = entry.getValue();
+      if (before == null) {
+        System.out.printf("%-80s %14s %14.3f%n", entry.getKey(), "-", score(after));
+        continue;
+      }
+      double oldScore = score(before);
+      double newScore = score(after);
+      double change = oldScore == 0 ? 0 : (newScore - oldScore) / oldScore;
+      boolean higherIsBetter = "thrpt".equals(after.path("mode").getTextValue());
+      boolean slower = higherIsBetter ? change < -threshold : change > threshold;
+
+      double oldBytes = allocation(before);
+      double newBytes = allocation(after);
+      boolean allocates = newBytes - oldBytes >= MIN_ALLOCATION_DELTA && newBytes > oldBytes * (1 + threshold);
+
+      String verdict = slower || allocates ? "  REGRESSION" + (slower ? " score" : "") + (allocates ? " alloc" : "") : "";
+      if (!verdict.isEmpty()) {
+        regressions++;
+      }
+      System.out.printf("%-80s %14.3f %14.3f %+7.1f%% %12.1f %12.1f%s%n", entry.getKey(), oldScore, newScore,
+              change * 100, oldBytes, newBytes, verdict);
+    }
+    for (String key : baseline.keySet()) {
+      if (!current.containsKey(key)) {
+        System.out.printf("%-80s missing in %s%n", key, args[1]);
+      }
+    }
+
+    System.out.printf("%n%d regression(s), threshold %.0f%%%n", regressions, threshold * 100);
+    if (regressions > 0) {
+      System.exit(1);
+    }
+  }
+
+  /**
+   * @return the results of the file, by benchmark, mode and parameters
+   */
+  static Map<String, JsonNode> read(File file) throws IOException {
+    Map<String, JsonNode> results = new LinkedHashMap<>();
+    for (JsonNode result : new ObjectMapper().readTree(file)) {
+      StringBuilder key = new StringBuilder(result.path("benchmark").getTextValue())
+              .append(' ').append(result.path("mode").getTextValue());
+      Map<String, String> params = new TreeMap<>();
+      for (Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").getFields(); fields.hasNext(); ) {
+        Map.Entry<String, JsonNode> param = fields.next();
+        params.put(param.getKey(), param.getValue().asText());
+      }
+      if (!params.isEmpty()) {
+        key.append(' ').append(params);
+      }
+      results.put(key.toString(), result);
+    }
+    return results;
+  }
+
+  private static double score(JsonNode result) {
+    return result.path("primaryMetric").path("score").asDouble();
+  }
+
+  private static double allocation(JsonNode result) {
+    return result.path("secondaryMetrics").path(ALLOCATION).path("score").asDouble();
+  }
+}
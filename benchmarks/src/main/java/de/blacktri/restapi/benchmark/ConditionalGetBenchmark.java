@@ -0,0 +1,77 @@
+package de.blacktri.restapi.benchmark;
+
+import de.blacktri.restapi.httpclient.ABTestingRestConnector;
+import de.blacktri.restapi.httpclient.cache.ValidatorCache;
+import de.blacktri.restapi.pojos.Project;
+import org.codehaus.jackson.type.TypeReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls an unchanged project list from a local {@link StubServer}, with and without a {@link ValidatorCache}.
+ * <p/>
+ * With validators the server answers {@code 304} and the connector returns the list it decoded before, so the
+ * difference shows the transfer and decoding cost saved per poll. The body bytes sent by the server per call are
+ * printed at the end of each trial; run with {@code -prof gc} to compare allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConditionalGetBenchmark {
+
+  private static final String PROJECTS = "account/1/projects";
+
+  @Param({"10", "200"})
+  int size;
+
+  @Param({"false", "true"})
+  boolean conditional;
+
+  private StubServer server;
+  private ABTestingRestConnector connector;
+  private long calls;
+
+  @Setup
+  public void setUp() throws IOException {
+    server = new StubServer();
+    server.respond(PROJECTS, Payloads.projects(size));
+    connector = new ABTestingRestConnector();
+    connector.setServiceEndpoint(server.getServiceEndpoint());
+    if (conditional) {
+      connector.setValidatorCache(new ValidatorCache());
+    }
+  }
+
+  @Benchmark
+  public List<Project> pollProjects() {
+    calls++;
+    return connector.callService(HttpMethod.GET, PROJECTS, new TypeReference<List<Project>>() {
+    }, null);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.out.printf("%nbody bytes per call: %d%n", calls == 0 ? 0 : server.getBodyBytes() / calls);
+    connector.close();
+    server.close();
+  }
+}
@@ -0,0 +1,92 @@
+package de.blacktri.restapi.benchmark;
+
+import de.blacktri.restapi.httpclient.JsonCodec;
+import de.blacktri.restapi.json.ApiDateFormat;
+import de.blacktri.restapi.json.DecimalParser;
+import de.blacktri.restapi.pojos.DataSet;
+import org.codehaus.jackson.type.TypeReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares ways of reading the {@code size} numbers of {@code DataSet.values}.
+ * <p/>
+ * {@code splitAndBox} is the usual {@code String.split} into a {@code List<Double>}, repeated on every access;
+ * {@code parseList} decodes the list into a {@code double[]} once, as the first access to a {@link DataSet} does;
+ * {@code cachedAccess} sums the values of a data set that has been decoded before, and {@code iterate} sums them
+ * while decoding, without keeping an array. Run with {@code -prof gc} to see the bytes allocated per access.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataSetValuesBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int size;
+
+  private String values;
+  private DataSet dataSet;
+
+  @Setup
+  public void setUp() throws IOException {
+    values = Payloads.values(size);
+    byte[] json = ("{\"name\":\"Variant 5000\",\"impressions\":1,\"conversions\":0,\"aggregatedcr\":0,\"values\":\""
+            + values + "\"}").getBytes(StandardCharsets.UTF_8);
+    dataSet = new JsonCodec(ApiDateFormat.getDefault()).read(new ByteArrayInputStream(json), new TypeReference<DataSet>() {
+    });
+    dataSet.getValueCount();
+  }
+
+  @Benchmark
+  public List<Double> splitAndBox() {
+    String[] parts = values.split(",");
+    List<Double> list = new ArrayList<>(parts.length);
+    for (String part : parts) {
+      list.add(Double.valueOf(part.trim()));
+    }
+    return list;
+  }
+
+  @Benchmark
+  public double[] parseList() {
+    return DecimalParser.parseList(values);
+  }
+
+  @Benchmark
+  public double cachedAccess() {
+    double sum = 0;
+    for (int i = 0, count = dataSet.getValueCount(); i < count; i++) {
+      sum += dataSet.getValue(i);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double iterate() {
+    double sum = 0;
+    for (PrimitiveIterator.OfDouble iterator = DecimalParser.iterator(values); iterator.hasNext(); ) {
+      sum += iterator.nextDouble();
+    }
+    return sum;
+  }
+}
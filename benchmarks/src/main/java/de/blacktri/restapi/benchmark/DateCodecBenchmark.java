@@ -0,0 +1,77 @@
+package de.blacktri.restapi.benchmark;
+
+import de.blacktri.restapi.json.ApiDateFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse and format throughput of the API timestamp codec under contention.
+ * <p/>
+ * {@code shared*} reproduces the former single static {@code SimpleDateFormat}, which needs a lock to be used from
+ * several threads at all, {@code cloned*} what Jackson does per call with a configured date format. The
+ * {@code codec*} methods use the immutable {@link ApiDateFormat} on a character buffer, as the Jackson module does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class DateCodecBenchmark {
+
+  private static final String TIMESTAMP = "2015-03-14 15:09:26";
+
+  private final DateFormat shared = new SimpleDateFormat(ApiDateFormat.PATTERN);
+  private final ApiDateFormat codec = ApiDateFormat.getDefault();
+  private final char[] buffer = ("\"createddate\":\"" + TIMESTAMP + "\"").toCharArray();
+  private long epochMilli;
+
+  @Setup
+  public void setUp() {
+    epochMilli = codec.parse(TIMESTAMP);
+  }
+
+  @Benchmark
+  public long sharedParse() throws ParseException {
+    synchronized (shared) {
+      return shared.parse(TIMESTAMP).getTime();
+    }
+  }
+
+  @Benchmark
+  public long clonedParse() throws ParseException {
+    return ((DateFormat) shared.clone()).parse(TIMESTAMP).getTime();
+  }
+
+  @Benchmark
+  public long codecParse() {
+    return codec.parse(buffer, 15, TIMESTAMP.length());
+  }
+
+  @Benchmark
+  public String sharedFormat() {
+    synchronized (shared) {
+      return shared.format(epochMilli);
+    }
+  }
+
+  @Benchmark
+  public String codecFormat() {
+    return codec.format(epochMilli);
+  }
+}
@@ -0,0 +1,124 @@
+package de.blacktri.restapi.benchmark;
+
+import de.blacktri.restapi.httpclient.ABTestingRestConnector;
+import de.blacktri.restapi.httpclient.JsonCodec;
+import de.blacktri.restapi.json.ApiDateFormat;
+import de.blacktri.restapi.pojos.DataSet;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.Project;
+import de.blacktri.restapi.pojos.TrendSeries;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.SerializationConfig;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+import org.codehaus.jackson.type.TypeReference;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former per-call {@link ObjectMapper} with the shared {@link JsonCodec} of the connector.
+ * <p/>
+ * The {@code perCallMapper*} methods reproduce what {@code callService} and {@code toJson} did before the codec was
+ * introduced. {@code sharedCodecDecodeTrend} decodes {@code size} days of a trend with five decisions, the shape
+ * {@code ABTest.getTrend} reads, and {@code sharedCodecDecodeTrendSeries} the same payload into the columnar
+ * {@link TrendSeries}. Run with {@code -prof gc} to see the allocation rate next to the CPU cost per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonCodecBenchmark {
+
+  private static final TypeReference<List<Project>> PROJECT_LIST = new TypeReference<List<Project>>() {
+  };
+
+  private static final TypeReference<List<Decision>> DECISION_LIST = new TypeReference<List<Decision>>() {
+  };
+
+  @Param({"1", "50"})
+  int size;
+
+  private byte[] projects;
+  private byte[] decisions;
+  private byte[] trend;
+  private Map<String, Object> projectBody;
+  private JsonCodec codec;
+
+  @Setup
+  public void setUp() {
+    projects = Payloads.projects(size);
+    decisions = Payloads.decisions(size);
+    trend = Payloads.trend(size, 5);
+    projectBody = new Project(Project.ProjectType.VISUAL, "http://www.example.com/", "*", "Benchmark").toMap();
+    codec = new JsonCodec(ApiDateFormat.getDefault());
+  }
+
+  @Benchmark
+  public List<Project> perCallMapperDecodeProjects() throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.setDateFormat(ABTestingRestConnector.DATE_FORMAT);
+    return mapper.readValue(new ByteArrayInputStream(projects), PROJECT_LIST);
+  }
+
+  @Benchmark
+  public List<Project> sharedCodecDecodeProjects() throws IOException {
+    return codec.read(new ByteArrayInputStream(projects), new TypeReference<List<Project>>() {
+    });
+  }
+
+  @Benchmark
+  public List<Decision> perCallMapperDecodeDecisions() throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.setDateFormat(ABTestingRestConnector.DATE_FORMAT);
+    return mapper.readValue(new ByteArrayInputStream(decisions), DECISION_LIST);
+  }
+
+  @Benchmark
+  public List<Decision> sharedCodecDecodeDecisions() throws IOException {
+    return codec.read(new ByteArrayInputStream(decisions), new TypeReference<List<Decision>>() {
+    });
+  }
+
+  @Benchmark
+  public Map<Calendar, Map<String, DataSet>> sharedCodecDecodeTrend() throws IOException {
+    return codec.read(new ByteArrayInputStream(trend), new TypeReference<Map<Calendar, Map<String, DataSet>>>() {
+    });
+  }
+
+  @Benchmark
+  public TrendSeries sharedCodecDecodeTrendSeries() throws IOException {
+    return codec.read(new ByteArrayInputStream(trend), new TypeReference<TrendSeries>() {
+    });
+  }
+
+  @Benchmark
+  public String perCallMapperEncodeBody() throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.setDateFormat(ABTestingRestConnector.DATE_FORMAT);
+    mapper.setSerializationInclusion(JsonSerialize.Inclusion.NON_NULL);
+    mapper.configure(SerializationConfig.Feature.FAIL_ON_EMPTY_BEANS, false);
+    return mapper.writeValueAsString(projectBody);
+  }
+
+  @Benchmark
+  public String sharedCodecEncodeBody() throws IOException {
+    return codec.writeAsString(projectBody);
+  }
+}
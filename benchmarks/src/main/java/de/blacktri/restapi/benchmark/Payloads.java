@@ -0,0 +1,146 @@
+package de.blacktri.restapi.benchmark;
+
+import de.blacktri.restapi.json.ApiDateFormat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates response bodies shaped like the ones returned by the BlackTri API, so the decode benchmarks see
+ * realistic field counts, string lengths and date values.
+ */
+public final class Payloads {
+
+  private Payloads() {
+  }
+
+  public static byte[] projects(int count) {
+    StringBuilder json = new StringBuilder(count * 700);
+    json.append('[');
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      appendProject(json, 1000 + i);
+    }
+    json.append(']');
+    return json.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  public static byte[] project(int id) {
+    StringBuilder json = new StringBuilder(700);
+    appendProject(json, id);
+    return json.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  public static byte[] decisions(int count) {
+    StringBuilder json = new StringBuilder(count * 500);
+    json.append('[');
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      appendDecision(json, 5000 + i, i == 0);
+    }
+    json.append(']');
+    return json.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * A trend of {@code days} entries, ending 2015-06-30, with one data set per decision and day.
+   */
+  public static byte[] trend(int days, int decisions) {
+    ApiDateFormat format = ApiDateFormat.getDefault();
+    long day = TimeUnit.DAYS.toMillis(1);
+    long first = format.parse("2015-06-30 00:00:00") - (days - 1) * day;
+    StringBuilder json = new StringBuilder(days * (40 + decisions * 110));
+    json.append('{');
+    for (int i = 0; i < days; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append('"').append(format.format(first + i * day)).append("\":{");
+      for (int j = 0; j < decisions; j++) {
+        if (j > 0) {
+          json.append(',');
+        }
+        int id = 5000 + j;
+        int impressions = 100 + (id * 31 + i * 17) % 900;
+        int conversions = impressions * (3 + j) / 100;
+        json.append('"').append(id).append("\":{")
+                .append("\"name\":\"Variant ").append(id).append("\"")
+                .append(",\"impressions\":").append(impressions)
+                .append(",\"conversions\":").append(conversions)
+                .append(",\"aggregatedcr\":").append((float) conversions / impressions)
+                .append('}');
+      }
+      json.append('}');
+    }
+    json.append('}');
+    return json.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * A list of {@code count} conversion rates in the form of {@code DataSet.values}, e.g. {@code 0.0413,0.0387}.
+   */
+  public static String values(int count) {
+    StringBuilder values = new StringBuilder(count * 12);
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        values.append(',');
+      }
+      int impressions = 100 + (i * 31) % 900;
+      values.append((float) (impressions * (3 + i % 5) / 100) / impressions);
+    }
+    return values.toString();
+  }
+
+  static void appendProject(StringBuilder json, int id) {
+    json.append("{\"id\":").append(id)
+            .append(",\"type\":\"VISUAL\"")
+            .append(",\"mainurl\":\"http://www.example.com/shop/category/").append(id).append("\"")
+            .append(",\"runpattern\":\"http://www.example.com/shop/*\"")
+            .append(",\"createddate\":\"2015-01-").append(two(1 + id % 28)).append(" 10:15:00\"")
+            .append(",\"startdate\":\"2015-02-").append(two(1 + id % 28)).append(" 00:00:00\"")
+            .append(",\"enddate\":\"2015-12-31 23:59:59\"")
+            .append(",\"restartdate\":\"2015-03-").append(two(1 + id % 28)).append(" 08:30:00\"")
+            .append(",\"remainingdays\":").append(id % 40)
+            .append(",\"name\":\"Checkout teaser test ").append(id).append("\"")
+            .append(",\"status\":\"RUNNING\"")
+            .append(",\"visitors\":").append(id * 37)
+            .append(",\"conversions\":").append(id * 3)
+            .append(",\"conversionrate\":0.0811")
+            .append(",\"result\":\"NONE\"")
+            .append(",\"originalid\":").append(id * 10)
+            .append(",\"winnerid\":\"\"")
+            .append(",\"uplift\":\"\"")
+            .append(",\"autopilot\":\"PAUSED\"")
+            .append(",\"allocation\":100")
+            .append(",\"ipblacklisting\":true")
+            .append(",\"personalizationmode\":\"NONE\"")
+            .append(",\"ruleid\":0")
+            .append(",\"winnername\":\"\"")
+            .append(",\"devicetype\":\"ALL\"}");
+  }
+
+  static void appendDecision(StringBuilder json, int id, boolean control) {
+    json.append("{\"id\":").append(id)
+            .append(",\"name\":\"Variant ").append(id).append("\"")
+            .append(",\"url\":\"\"")
+            .append(",\"previewurl\":\"http://www.example.com/preview?decision=").append(id).append("\"")
+            .append(",\"type\":\"").append(control ? "CONTROL" : "VARIANT").append("\"")
+            .append(",\"ruleid\":0")
+            .append(",\"result\":\"NONE\"")
+            .append(",\"visitors\":").append(id * 11)
+            .append(",\"conversions\":").append(id)
+            .append(",\"conversionrate\":0.0909")
+            .append(",\"confidence\":0.73")
+            .append(",\"distribution\":0.5")
+            .append(",\"jsinjection\":\"\"")
+            .append(",\"cssinjection\":\".cm-teaser--hero .cm-heading2--boxed {background-color: #00ff00;}\"}");
+  }
+
+  private static String two(int value) {
+    return value < 10 ? "0" + value : Integer.toString(value);
+  }
+}
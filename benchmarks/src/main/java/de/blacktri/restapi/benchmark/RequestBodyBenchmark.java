@@ -0,0 +1,81 @@
+package de.blacktri.restapi.benchmark;
+
+import de.blacktri.restapi.httpclient.JsonCodec;
+import de.blacktri.restapi.json.ApiDateFormat;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.Project;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures turning a pojo into a request body: {@code toMap()} alone and {@code toMap()} followed by encoding the
+ * map with the connector's {@link JsonCodec}, as {@code createProject}, {@code updateProject} and the decision
+ * calls do.
+ * <p/>
+ * The body is written into a reused buffer, like the pooled buffers of the connector, so the numbers contain the
+ * pojo and encoder cost only. Run with {@code -prof gc} to see the bytes allocated per body.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestBodyBenchmark {
+
+  private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+
+  private Project project;
+  private Decision decision;
+  private JsonCodec codec;
+
+  @Setup
+  public void setUp() {
+    project = new Project(Project.ProjectType.VISUAL, "http://www.example.com/shop/category/4711",
+            "http://www.example.com/shop/*", "Checkout teaser test 4711");
+    project.setAllocation(100);
+    project.setIpblacklisting(true);
+    decision = new Decision("Variant 5001");
+    decision.setUrl("http://www.example.com/shop/category/4711?variant=1");
+    decision.setCssinjection(".cm-teaser--hero .cm-heading2--boxed {background-color: #00ff00;}");
+    decision.setJsinjection("document.querySelector('.cm-teaser--hero').classList.add('variant');");
+    codec = new JsonCodec(ApiDateFormat.getDefault());
+  }
+
+  @Benchmark
+  public Map<String, Object> projectToMap() {
+    return project.toMap();
+  }
+
+  @Benchmark
+  public int projectToMapAndEncode() throws IOException {
+    buffer.reset();
+    codec.write(project.toMap(), buffer);
+    return buffer.size();
+  }
+
+  @Benchmark
+  public Map<String, Object> decisionToMap() {
+    return decision.toMap();
+  }
+
+  @Benchmark
+  public int decisionToMapAndEncode() throws IOException {
+    buffer.reset();
+    codec.write(decision.toMap(), buffer);
+    return buffer.size();
+  }
+}
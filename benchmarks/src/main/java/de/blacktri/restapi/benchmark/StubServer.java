@@ -0,0 +1,87 @@
+package de.blacktri.restapi.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal HTTP server on the loopback interface that answers GET requests with fixed JSON bodies.
+ * <p/>
+ * Every body is served with an {@code ETag}, and {@code If-None-Match} is honoured with {@code 304 Not Modified}.
+ * The number of body bytes written is counted so benchmarks can report the bandwidth of a call.
+ */
+public class StubServer implements AutoCloseable {
+
+  static {
+    // small responses would otherwise wait for the client's delayed ACK, about 40 ms per call on loopback
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+  }
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Map<String, byte[]> bodies = new ConcurrentHashMap<>();
+  private final AtomicLong bodyBytes = new AtomicLong();
+
+  public StubServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  /**
+   * Serves the body for the given path, relative to {@link #getServiceEndpoint()}.
+   */
+  public void respond(String path, byte[] body) {
+    bodies.put("/api/v1/" + path, body);
+  }
+
+  public String getServiceEndpoint() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1/";
+  }
+
+  public long getBodyBytes() {
+    return bodyBytes.get();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      byte[] body = bodies.get(exchange.getRequestURI().getPath());
+      if (body == null) {
+        exchange.sendResponseHeaders(404, -1);
+        return;
+      }
+      String etag = "\"" + Integer.toHexString(System.identityHashCode(body)) + "\"";
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.getResponseHeaders().set("ETag", etag);
+      if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+        exchange.sendResponseHeaders(304, -1);
+        return;
+      }
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+      bodyBytes.addAndGet(body.length);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,156 @@
+package de.blacktri.restapi.httpclient;
+
+import de.blacktri.restapi.pojos.Project;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.StringEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a request up to the point where it is handed to the http client, including writing the body
+ * as the client would. {@code build*Uri} measure {@code buildRequestUri} on its own.
+ * <p/>
+ * The {@code previous*} methods reproduce the former pipeline: {@code UriComponentsBuilder} per call, Base64
+ * encoding of the credentials per call and the body serialized into a {@code String} for a {@code StringEntity}.
+ * Lives in the connector's package because the request construction is package-private. Run with
+ * {@code -prof gc} to compare the bytes allocated per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestPipelineBenchmark {
+
+  private static final String ENDPOINT = "https://www.blacktri.com/api/v1/";
+  private static final String API_KEY = "cr_productdemo";
+  private static final String API_SECRET = "0123456789abcdef0123456789abcdef";
+
+  private final OutputStream discard = new OutputStream() {
+    @Override
+    public void write(int b) {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+    }
+  };
+
+  private ABTestingRestConnector connector;
+  private ClientContext context;
+  private BufferPool bufferPool;
+  private JsonCodec codec;
+  private Map<String, Object> projectBody;
+  private Map<String, Object> trendQuery;
+
+  @Setup
+  public void setUp() {
+    connector = new ABTestingRestConnector();
+    connector.setServiceEndpoint(ENDPOINT);
+    context = connector.createClientContext(API_KEY, API_SECRET);
+    bufferPool = new BufferPool(4, 256 * 1024);
+    codec = connector.getJsonCodec();
+    projectBody = new Project(Project.ProjectType.VISUAL, "http://www.example.com/shop/", "http://www.example.com/shop/*",
+            "Checkout teaser test").toMap();
+    trendQuery = new LinkedHashMap<>();
+    trendQuery.put("end", "2015-06-30 23:59:59");
+    trendQuery.put("entries", 30);
+  }
+
+  @Benchmark
+  public URI buildProjectUri() {
+    return connector.buildRequestUri("account/" + 4711 + "/project/" + 815, Collections.<String, Object>emptyMap());
+  }
+
+  @Benchmark
+  public URI buildTrendUri() {
+    return connector.buildRequestUri("account/" + 4711 + "/project/" + 815 + "/trend", trendQuery);
+  }
+
+  @Benchmark
+  public HttpUriRequest previousGetProject() {
+    URI uri = previousUri("account/" + 4711 + "/project/" + 815, Collections.<String, Object>emptyMap());
+    HttpGet request = new HttpGet(uri);
+    previousHeaders(request);
+    return request;
+  }
+
+  @Benchmark
+  public HttpUriRequest pipelineGetProject() {
+    URI uri = connector.buildRequestUri("account/" + 4711 + "/project/" + 815, Collections.<String, Object>emptyMap());
+    return connector.getRequest(context, uri, HttpMethod.GET, null, Collections.<String, String>emptyMap(), null);
+  }
+
+  @Benchmark
+  public HttpUriRequest previousGetTrend() {
+    URI uri = previousUri("account/" + 4711 + "/project/" + 815 + "/trend", trendQuery);
+    HttpGet request = new HttpGet(uri);
+    previousHeaders(request);
+    return request;
+  }
+
+  @Benchmark
+  public HttpUriRequest pipelineGetTrend() {
+    URI uri = connector.buildRequestUri("account/" + 4711 + "/project/" + 815 + "/trend", trendQuery);
+    return connector.getRequest(context, uri, HttpMethod.GET, null, Collections.<String, String>emptyMap(), null);
+  }
+
+  @Benchmark
+  public void previousUpdateProject(Blackhole blackhole) throws IOException {
+    URI uri = previousUri("account/" + 4711 + "/project/" + 815, Collections.<String, Object>emptyMap());
+    HttpPut request = new HttpPut(uri);
+    previousHeaders(request);
+    request.setEntity(new StringEntity(codec.writeAsString(projectBody)));
+    request.getEntity().writeTo(discard);
+    blackhole.consume(request);
+  }
+
+  @Benchmark
+  public void pipelineUpdateProject(Blackhole blackhole) throws IOException {
+    URI uri = connector.buildRequestUri("account/" + 4711 + "/project/" + 815, Collections.<String, Object>emptyMap());
+    BufferPool.Buffer body = bufferPool.acquire();
+    HttpUriRequest request = connector.getRequest(context, uri, HttpMethod.PUT, projectBody, Collections.<String, String>emptyMap(), body);
+    ((HttpEntityEnclosingRequest) request).getEntity().writeTo(discard);
+    bufferPool.release(body);
+    blackhole.consume(request);
+  }
+
+  private static URI previousUri(String relativeUrl, Map<String, Object> queryParameters) {
+    UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromUriString(ENDPOINT + relativeUrl);
+    for (Map.Entry<String, Object> entry : queryParameters.entrySet()) {
+      uriBuilder.queryParam(entry.getKey(), entry.getValue());
+    }
+    return uriBuilder.buildAndExpand().encode().toUri();
+  }
+
+  private static void previousHeaders(HttpUriRequest request) {
+    request.addHeader("Content-Type", "application/json");
+    String encoded = Base64.encodeBase64String((API_KEY + ":" + API_SECRET).getBytes());
+    request.addHeader("Authorization", "Basic " + encoded);
+    request.addHeader("Accept-Encoding", "gzip,deflate");
+  }
+}
@@ -0,0 +1,135 @@
+package de.blacktri.restapi.loadtest;
+
+import de.blacktri.restapi.ABTest;
+import de.blacktri.restapi.ABTestAsync;
+import de.blacktri.restapi.httpclient.ABTestingRestConnector;
+import de.blacktri.restapi.httpclient.pool.PoolSnapshot;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes the operations handed over by the load test's scheduler. {@link #submit(Operation, long)} must not wait
+ * for the operation, otherwise the arrival rate would depend on the response times.
+ */
+abstract class Driver implements AutoCloseable {
+
+  final ABTestingRestConnector connector;
+  final Fixture fixture;
+  final Recorder recorder;
+
+  Driver(ABTestingRestConnector connector, Fixture fixture, Recorder recorder) {
+    this.connector = connector;
+    this.fixture = fixture;
+    this.recorder = recorder;
+  }
+
+  static Driver create(String name, ABTestingRestConnector connector, String apiKey, String apiSecret, Fixture fixture,
+                       Recorder recorder, int threads) {
+    switch (name) {
+      case "threads":
+        return new Threads(new ABTest(apiKey, apiSecret, connector), connector, fixture, recorder, threads);
+      case "async":
+        return new Async(new ABTestAsync(apiKey, apiSecret, connector), connector, fixture, recorder);
+      default:
+        throw new IllegalArgumentException("Unknown driver: " + name);
+    }
+  }
+
+  /**
+   * Starts the operation scheduled for the given time; its completion is reported to the {@link Recorder}.
+   */
+  abstract void submit(Operation operation, long scheduledNanos);
+
+  /**
+   * State of the connection pool the driver's calls lease from.
+   */
+  abstract PoolSnapshot getPoolSnapshot();
+
+  @Override
+  public void close() {
+  }
+
+  /**
+   * Blocking calls through {@link ABTest} on a fixed number of threads. Operations wait in an unbounded queue when
+   * all threads are busy.
+   */
+  static final class Threads extends Driver {
+
+    private final ABTest api;
+    private final ExecutorService executor;
+
+    Threads(ABTest api, ABTestingRestConnector connector, Fixture fixture, Recorder recorder, int threads) {
+      super(connector, fixture, recorder);
+      this.api = api;
+      AtomicInteger counter = new AtomicInteger();
+      this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "load-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+
+    @Override
+    void submit(Operation operation, long scheduledNanos) {
+      executor.execute(() -> {
+        long started = System.nanoTime();
+        boolean error;
+        recorder.beginCall();
+        try {
+          operation.call(api, fixture, ThreadLocalRandom.current());
+          error = recorder.lastExchangeFailed();
+        } catch (RuntimeException e) {
+          error = true;
+        }
+        recorder.completed(operation, scheduledNanos, started, error);
+      });
+    }
+
+    @Override
+    PoolSnapshot getPoolSnapshot() {
+      return connector.getPoolSnapshot();
+    }
+
+    @Override
+    public void close() {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Non-blocking calls through {@link ABTestAsync}, issued from the scheduler thread.
+   */
+  static final class Async extends Driver {
+
+    private final ABTestAsync api;
+
+    Async(ABTestAsync api, ABTestingRestConnector connector, Fixture fixture, Recorder recorder) {
+      super(connector, fixture, recorder);
+      this.api = api;
+    }
+
+    @Override
+    void submit(Operation operation, long scheduledNanos) {
+      long started = System.nanoTime();
+      CompletableFuture<?> result;
+      try {
+        result = operation.callAsync(api, fixture, ThreadLocalRandom.current());
+      } catch (RuntimeException e) {
+        recorder.completed(operation, scheduledNanos, started, true);
+        return;
+      }
+      result.whenComplete((value, failure) -> recorder.completed(operation, scheduledNanos, started, failure != null));
+    }
+
+    @Override
+    PoolSnapshot getPoolSnapshot() {
+      return connector.getAsyncPoolMetrics().snapshot();
+    }
+  }
+}
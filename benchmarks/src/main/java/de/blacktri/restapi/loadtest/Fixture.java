@@ -0,0 +1,86 @@
+package de.blacktri.restapi.loadtest;
+
+import de.blacktri.restapi.ABTest;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.Project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The account the operations work on: projects with decisions, created through the API before the load starts.
+ * <p/>
+ * Decisions created by the load go to a separate sink project, so the lists and trends that are read do not grow
+ * during a run.
+ */
+class Fixture {
+
+  private final int clientId;
+  private final int[] projectIds;
+  private final int[][] decisionIds;
+  private final int sinkProjectId;
+
+  private Fixture(int clientId, int[] projectIds, int[][] decisionIds, int sinkProjectId) {
+    this.clientId = clientId;
+    this.projectIds = projectIds;
+    this.decisionIds = decisionIds;
+    this.sinkProjectId = sinkProjectId;
+  }
+
+  static Fixture create(ABTest api, int clientId, int projects, int decisionsPerProject) {
+    int[] projectIds = new int[projects];
+    int[][] decisionIds = new int[projects][];
+    for (int i = 0; i < projects; i++) {
+      projectIds[i] = createProject(api, clientId, "Load test " + i);
+      List<Integer> decisions = new ArrayList<>();
+      for (int j = 0; j < decisionsPerProject; j++) {
+        decisions.add(api.createDecision(clientId, projectIds[i], new Decision("Variant " + (j + 1))));
+      }
+      decisionIds[i] = new int[decisions.size()];
+      for (int j = 0; j < decisions.size(); j++) {
+        decisionIds[i][j] = decisions.get(j);
+      }
+    }
+    return new Fixture(clientId, projectIds, decisionIds, createProject(api, clientId, "Load test sink"));
+  }
+
+  private static int createProject(ABTest api, int clientId, String name) {
+    Integer projectId = api.createProject(clientId, project(name));
+    if (projectId == null) {
+      throw new IllegalStateException("Unable to create project " + name);
+    }
+    return projectId;
+  }
+
+  static Project project(String name) {
+    return new Project(Project.ProjectType.VISUAL, "http://www.example.com/shop/", "http://www.example.com/shop/*", name);
+  }
+
+  int getClientId() {
+    return clientId;
+  }
+
+  int getSinkProjectId() {
+    return sinkProjectId;
+  }
+
+  /**
+   * @return the index of a random project, for {@link #getProjectId(int)} and {@link #getDecisionId(int, Random)}
+   */
+  int nextProject(Random random) {
+    return random.nextInt(projectIds.length);
+  }
+
+  int getProjectId(int project) {
+    return projectIds[project];
+  }
+
+  /**
+   * @return a random decision of the project, -1 if it has none
+   */
+  int getDecisionId(int project, Random random) {
+    int[] decisions = decisionIds[project];
+    return decisions.length == 0 ? -1 : decisions[random.nextInt(decisions.length)];
+  }
+}
@@ -0,0 +1,273 @@
+package de.blacktri.restapi.loadtest;
+
+import de.blacktri.restapi.ABTest;
+import de.blacktri.restapi.httpclient.ABTestingRestConnector;
+import de.blacktri.restapi.httpclient.metrics.HistogramSnapshot;
+import de.blacktri.restapi.httpclient.pool.PoolSnapshot;
+import de.blacktri.restapi.simulator.ApiSimulator;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator for {@link ABTest} and {@link ABTestingRestConnector} against an in-process {@link ApiSimulator}.
+ * <p/>
+ * Operations arrive at a fixed rate, evenly spaced or as a Poisson process, independent of how fast earlier ones
+ * complete (open model), and are drawn from an {@link OperationMix}. They are executed by blocking calls on a pool
+ * of threads or by {@link de.blacktri.restapi.ABTestAsync}. Every interval a line with the offered and completed
+ * rate, errors, outstanding operations, latency percentiles and the state of the connection pool is printed, and
+ * optionally appended to a CSV file; a summary per operation follows at the end.
+ * <p/>
+ * The simulator runs in the same JVM and competes with the client for CPU; compare runs on the same machine only.
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar de.blacktri.restapi.loadtest.LoadTest --rate 2000 --mix read-heavy
+ * </pre>
+ * Options, with their defaults:
+ * <pre>
+ * --rate 1000              operations per second
+ * --duration 30            seconds measured, after
+ * --warmup 5               seconds not included in the summary
+ * --mix read-heavy         read-heavy, write-heavy, trend-heavy or e.g. getProject=80,getTrend=20
+ * --driver threads         threads or async
+ * --threads 64             threads of the threads driver
+ * --pool 200               connection pool size of the connector
+ * --arrival poisson        poisson or constant
+ * --max-outstanding 10000  operations in progress before new ones are dropped and counted as errors
+ * --projects 20            projects of the account
+ * --decisions 4            decisions per project, besides the original
+ * --latency 0:0            min:max milliseconds the simulator waits before answering
+ * --error-rate 0           share of requests the simulator answers with --error-status (503)
+ * --interval 1             seconds between report lines
+ * --csv                    file to write the report lines to
+ * </pre>
+ */
+public final class LoadTest {
+
+  private static final String API_KEY = "loadtest";
+  private static final String API_SECRET = "0123456789abcdef0123456789abcdef";
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+  private final Options options;
+  private final OperationMix mix;
+
+  private LoadTest(Options options) {
+    this.options = options;
+    this.mix = OperationMix.parse(options.get("mix"));
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options options;
+    try {
+      options = new Options(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.exit(2);
+      return;
+    }
+    new LoadTest(options).run();
+  }
+
+  private void run() throws IOException, InterruptedException {
+    double rate = options.getDouble("rate");
+    long warmupNanos = TimeUnit.MILLISECONDS.toNanos((long) (options.getDouble("warmup") * 1000));
+    long durationNanos = TimeUnit.MILLISECONDS.toNanos((long) (options.getDouble("duration") * 1000));
+    long intervalMillis = (long) (options.getDouble("interval") * 1000);
+    boolean poisson = "poisson".equals(options.get("arrival"));
+    long maxOutstanding = options.getInt("max-outstanding");
+
+    try (ApiSimulator simulator = new ApiSimulator();
+         PrintWriter csv = options.get("csv").isEmpty() ? null : new PrintWriter(new FileWriter(options.get("csv")))) {
+      int clientId = simulator.getStore().addClient(API_KEY, API_SECRET);
+      ABTestingRestConnector connector = new ABTestingRestConnector();
+      connector.setServiceEndpoint(simulator.getServiceEndpoint());
+      connector.setConnectionPoolSize(options.getInt("pool"));
+      Recorder recorder = new Recorder();
+      connector.addCallListener(recorder);
+
+      Fixture fixture = Fixture.create(new ABTest(API_KEY, API_SECRET, connector), clientId, options.getInt("projects"),
+              options.getInt("decisions"));
+      String[] latency = options.get("latency").split(":");
+      simulator.setLatency(Long.parseLong(latency[0]), Long.parseLong(latency[latency.length - 1]));
+      simulator.setErrorRate(options.getDouble("error-rate"), options.getInt("error-status"));
+
+      System.out.printf("%s driver, %.0f operations/s (%s), mix %s%n", options.get("driver"), rate,
+              options.get("arrival"), mix);
+      printHeader(csv);
+
+      ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+      long start = System.nanoTime();
+      long measureFrom = start + warmupNanos;
+      long end = measureFrom + durationNanos;
+      recorder.measureFrom(measureFrom);
+      try (Driver driver = Driver.create(options.get("driver"), connector, API_KEY, API_SECRET, fixture, recorder,
+              options.getInt("threads"))) {
+        reporter.scheduleAtFixedRate(() -> printInterval(recorder.nextInterval(), driver.getPoolSnapshot(), start,
+                measureFrom, intervalMillis, csv), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+
+        schedule(driver, recorder, rate, poisson, start, end, maxOutstanding);
+
+        long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (recorder.getOutstanding() > 0 && System.nanoTime() < drainUntil) {
+          Thread.sleep(10);
+        }
+        reporter.shutdown();
+        reporter.awaitTermination(1, TimeUnit.SECONDS);
+        printSummary(recorder, durationNanos, simulator);
+      } finally {
+        reporter.shutdownNow();
+        connector.close();
+      }
+    }
+  }
+
+  /**
+   * Hands operations to the driver at their scheduled time until the end of the run. Operations that are due are
+   * submitted at once, so a late wake-up does not lower the rate.
+   */
+  private void schedule(Driver driver, Recorder recorder, double rate, boolean poisson, long start, long end,
+                        long maxOutstanding) {
+    Random random = new Random();
+    double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+    double next = start;
+    while (next < end) {
+      long now = System.nanoTime();
+      if (next > now) {
+        LockSupport.parkNanos((long) next - now);
+        continue;
+      }
+      long scheduled = (long) next;
+      Operation operation = mix.next(random);
+      recorder.issued(scheduled);
+      if (recorder.getOutstanding() > maxOutstanding) {
+        recorder.dropped(operation, scheduled);
+      } else {
+        driver.submit(operation, scheduled);
+      }
+      next += poisson ? -Math.log(1 - random.nextDouble()) * meanIntervalNanos : meanIntervalNanos;
+    }
+  }
+
+  private static void printHeader(PrintWriter csv) {
+    System.out.printf("%7s %-7s %9s %9s %6s %7s %8s %8s %8s %8s %8s %8s %9s %7s%n", "time s", "phase", "offered/s",
+            "done/s", "err%", "outst", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99", "pool", "pending");
+    if (csv != null) {
+      csv.println("time_s,phase,offered_per_s,completed_per_s,errors,outstanding,p50_us,p90_us,p99_us,p999_us,max_us,"
+              + "service_p99_us,pool_leased,pool_max,pool_pending");
+    }
+  }
+
+  private static void printInterval(Recorder.Interval interval, PoolSnapshot pool, long start, long measureFrom,
+                                    long intervalMillis, PrintWriter csv) {
+    long now = System.nanoTime();
+    double seconds = intervalMillis / 1000.0;
+    String phase = now - TimeUnit.MILLISECONDS.toNanos(intervalMillis) < measureFrom ? "warmup" : "measure";
+    HistogramSnapshot latency = interval.latency;
+    System.out.printf("%7.1f %-7s %9.0f %9.0f %6.2f %7d %8.1f %8.1f %8.1f %8.1f %8.1f %8.1f %9s %7d%n",
+            (now - start) / 1e9, phase, interval.issued / seconds, interval.completed / seconds,
+            percent(interval.errors, interval.completed), interval.outstanding,
+            latency.getPercentile(50) / 1000.0, latency.getPercentile(90) / 1000.0, latency.getPercentile(99) / 1000.0,
+            latency.getPercentile(99.9) / 1000.0, latency.getMax() / 1000.0, interval.serviceTime.getPercentile(99) / 1000.0,
+            pool.getLeased() + "/" + pool.getMax(), pool.getPending());
+    if (csv != null) {
+      csv.printf("%.1f,%s,%.0f,%.0f,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d%n", (now - start) / 1e9, phase,
+              interval.issued / seconds, interval.completed / seconds, interval.errors, interval.outstanding,
+              latency.getPercentile(50), latency.getPercentile(90), latency.getPercentile(99), latency.getPercentile(99.9),
+              latency.getMax(), interval.serviceTime.getPercentile(99), pool.getLeased(), pool.getMax(), pool.getPending());
+      csv.flush();
+    }
+  }
+
+  private static void printSummary(Recorder recorder, long durationNanos, ApiSimulator simulator) {
+    HistogramSnapshot total = recorder.getLatency();
+    double seconds = durationNanos / 1e9;
+    System.out.printf("%nMeasured %.0f s: %d operations issued, %d completed (%.0f/s), %d errors (%.2f%%), "
+                    + "%.2f exchanges per operation, %d injected faults%n", seconds, recorder.getMeasuredIssued(),
+            total.getCount(), total.getCount() / seconds, recorder.getMeasuredErrors(),
+            percent(recorder.getMeasuredErrors(), recorder.getMeasuredIssued()),
+            recorder.getExchangesPerOperation(),
+            simulator.getInjectedFaultCount());
+    System.out.printf("%-16s %9s %7s %8s %8s %8s %8s %8s %8s%n", "operation", "count", "err%", "mean ms", "p50 ms",
+            "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+    for (Operation operation : Operation.values()) {
+      HistogramSnapshot latency = recorder.getLatency(operation);
+      long errors = recorder.getErrors(operation);
+      if (latency.getCount() > 0 || errors > 0) {
+        printRow(operation.getLabel(), latency, errors);
+      }
+    }
+    printRow("all", total, recorder.getMeasuredErrors());
+  }
+
+  private static void printRow(String label, HistogramSnapshot latency, long errors) {
+    System.out.printf("%-16s %9d %7.2f %8.2f", label, latency.getCount(), percent(errors, latency.getCount()),
+            latency.getMean() / 1000.0);
+    for (double percentile : PERCENTILES) {
+      System.out.printf(" %8.2f", latency.getPercentile(percentile) / 1000.0);
+    }
+    System.out.printf(" %8.2f%n", latency.getMax() / 1000.0);
+  }
+
+  private static double percent(long part, long total) {
+    return total == 0 ? 0 : 100.0 * part / total;
+  }
+
+  /**
+   * Command line of the form {@code --name value}, see the class comment for the names and defaults.
+   */
+  static final class Options {
+
+    private final Map<String, String> values = new LinkedHashMap<>();
+
+    Options(String... args) {
+      values.put("rate", "1000");
+      values.put("duration", "30");
+      values.put("warmup", "5");
+      values.put("mix", "read-heavy");
+      values.put("driver", "threads");
+      values.put("threads", "64");
+      values.put("pool", "200");
+      values.put("arrival", "poisson");
+      values.put("max-outstanding", "10000");
+      values.put("projects", "20");
+      values.put("decisions", "4");
+      values.put("latency", "0:0");
+      values.put("error-rate", "0");
+      values.put("error-status", "503");
+      values.put("interval", "1");
+      values.put("csv", "");
+      for (int i = 0; i < args.length; i += 2) {
+        String name = args[i].startsWith("--") ? args[i].substring(2) : args[i];
+        if (!values.containsKey(name) || i + 1 >= args.length) {
+          throw new IllegalArgumentException("Usage: LoadTest [--name value]..., valid names: " + values.keySet());
+        }
+        values.put(name, args[i + 1]);
+      }
+      if (getDouble("rate") <= 0 || getDouble("interval") <= 0 || getInt("projects") < 1 || getInt("decisions") < 1) {
+        throw new IllegalArgumentException("rate and interval must be positive, projects and decisions at least 1");
+      }
+      if (!"poisson".equals(get("arrival")) && !"constant".equals(get("arrival"))) {
+        throw new IllegalArgumentException("Unknown arrival: " + get("arrival"));
+      }
+    }
+
+    String get(String name) {
+      return values.get(name);
+    }
+
+    int getInt(String name) {
+      return Integer.parseInt(values.get(name));
+    }
+
+    double getDouble(String name) {
+      return Double.parseDouble(values.get(name));
+    }
+  }
+}
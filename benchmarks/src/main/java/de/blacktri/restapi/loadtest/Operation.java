@@ -0,0 +1,145 @@
+package de.blacktri.restapi.loadtest;
+
+import de.blacktri.restapi.ABTest;
+import de.blacktri.restapi.ABTestAsync;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.Project;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A call of the API as issued by the load test, in a blocking and a non-blocking variant.
+ */
+enum Operation {
+
+  GET_PROJECTS("getProjects") {
+    @Override
+    Object call(ABTest api, Fixture fixture, Random random) {
+      return api.getProjects(fixture.getClientId());
+    }
+
+    @Override
+    CompletableFuture<?> callAsync(ABTestAsync api, Fixture fixture, Random random) {
+      return api.getProjects(fixture.getClientId());
+    }
+  },
+
+  GET_PROJECT("getProject") {
+    @Override
+    Object call(ABTest api, Fixture fixture, Random random) {
+      return api.getProject(fixture.getClientId(), fixture.getProjectId(fixture.nextProject(random)));
+    }
+
+    @Override
+    CompletableFuture<?> callAsync(ABTestAsync api, Fixture fixture, Random random) {
+      return api.getProject(fixture.getClientId(), fixture.getProjectId(fixture.nextProject(random)));
+    }
+  },
+
+  GET_DECISIONS("getDecisions") {
+    @Override
+    Object call(ABTest api, Fixture fixture, Random random) {
+      return api.getDecisions(fixture.getClientId(), fixture.getProjectId(fixture.nextProject(random)), null, null);
+    }
+
+    @Override
+    CompletableFuture<?> callAsync(ABTestAsync api, Fixture fixture, Random random) {
+      return api.getDecisions(fixture.getClientId(), fixture.getProjectId(fixture.nextProject(random)), null, null);
+    }
+  },
+
+  GET_TREND("getTrend") {
+    @Override
+    Object call(ABTest api, Fixture fixture, Random random) {
+      return api.getTrend(fixture.getClientId(), fixture.getProjectId(fixture.nextProject(random)), null, TREND_ENTRIES, 0);
+    }
+
+    @Override
+    CompletableFuture<?> callAsync(ABTestAsync api, Fixture fixture, Random random) {
+      return api.getTrend(fixture.getClientId(), fixture.getProjectId(fixture.nextProject(random)), null, TREND_ENTRIES, 0);
+    }
+  },
+
+  UPDATE_PROJECT("updateProject") {
+    @Override
+    Object call(ABTest api, Fixture fixture, Random random) {
+      int project = fixture.nextProject(random);
+      api.updateProject(fixture.getClientId(), fixture.getProjectId(project), renamedProject(project, random));
+      return null;
+    }
+
+    @Override
+    CompletableFuture<?> callAsync(ABTestAsync api, Fixture fixture, Random random) {
+      int project = fixture.nextProject(random);
+      return api.updateProject(fixture.getClientId(), fixture.getProjectId(project), renamedProject(project, random));
+    }
+  },
+
+  CREATE_DECISION("createDecision") {
+    @Override
+    Object call(ABTest api, Fixture fixture, Random random) {
+      return api.createDecision(fixture.getClientId(), fixture.getSinkProjectId(), newDecision(random));
+    }
+
+    @Override
+    CompletableFuture<?> callAsync(ABTestAsync api, Fixture fixture, Random random) {
+      return api.createDecision(fixture.getClientId(), fixture.getSinkProjectId(), newDecision(random));
+    }
+  },
+
+  UPDATE_DECISION("updateDecision") {
+    @Override
+    Object call(ABTest api, Fixture fixture, Random random) {
+      int project = fixture.nextProject(random);
+      api.updateDecision(fixture.getClientId(), fixture.getProjectId(project), fixture.getDecisionId(project, random), -1,
+              newDecision(random));
+      return null;
+    }
+
+    @Override
+    CompletableFuture<?> callAsync(ABTestAsync api, Fixture fixture, Random random) {
+      int project = fixture.nextProject(random);
+      return api.updateDecision(fixture.getClientId(), fixture.getProjectId(project), fixture.getDecisionId(project, random),
+              newDecision(random));
+    }
+  };
+
+  private static final int TREND_ENTRIES = 30;
+
+  private final String label;
+
+  Operation(String label) {
+    this.label = label;
+  }
+
+  /**
+   * Name of the {@link ABTest} method, as used in operation mixes and reports.
+   */
+  String getLabel() {
+    return label;
+  }
+
+  abstract Object call(ABTest api, Fixture fixture, Random random);
+
+  abstract CompletableFuture<?> callAsync(ABTestAsync api, Fixture fixture, Random random);
+
+  static Operation forLabel(String label) {
+    for (Operation operation : values()) {
+      if (operation.label.equalsIgnoreCase(label)) {
+        return operation;
+      }
+    }
+    throw new IllegalArgumentException("Unknown operation: " + label);
+  }
+
+  private static Project renamedProject(int project, Random random) {
+    return Fixture.project("Load test " + project + " rev " + random.nextInt(1000));
+  }
+
+  private static Decision newDecision(Random random) {
+    Decision decision = new Decision("Variant " + random.nextInt(1000));
+    decision.setCssinjection(".cm-teaser--hero .cm-heading2--boxed {background-color: #00ff00;}");
+    return decision;
+  }
+}
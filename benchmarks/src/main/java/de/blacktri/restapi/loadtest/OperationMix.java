@@ -0,0 +1,89 @@
+package de.blacktri.restapi.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted choice of the next operation.
+ * <p/>
+ * Either one of the presets {@code read-heavy}, {@code write-heavy} and {@code trend-heavy}, or a list of weights
+ * like {@code getProject=70,getTrend=20,updateDecision=10}.
+ */
+class OperationMix {
+
+  private final String name;
+  private final Operation[] operations;
+  private final int[] cumulativeWeights;
+  private final int totalWeight;
+
+  private OperationMix(String name, Map<Operation, Integer> weights) {
+    this.name = name;
+    operations = new Operation[weights.size()];
+    cumulativeWeights = new int[weights.size()];
+    int total = 0;
+    int i = 0;
+    for (Map.Entry<Operation, Integer> entry : weights.entrySet()) {
+      if (entry.getValue() <= 0) {
+        throw new IllegalArgumentException("Weight of " + entry.getKey().getLabel() + " must be positive");
+      }
+      total += entry.getValue();
+      operations[i] = entry.getKey();
+      cumulativeWeights[i] = total;
+      i++;
+    }
+    if (total == 0) {
+      throw new IllegalArgumentException("Operation mix " + name + " is empty");
+    }
+    totalWeight = total;
+  }
+
+  static OperationMix parse(String mix) {
+    switch (mix) {
+      case "read-heavy":
+        return parse(mix, "getProjects=15,getProject=45,getDecisions=25,getTrend=10,updateDecision=5");
+      case "write-heavy":
+        return parse(mix, "getProject=20,getDecisions=10,updateProject=30,createDecision=10,updateDecision=30");
+      case "trend-heavy":
+        return parse(mix, "getProject=15,getDecisions=15,getTrend=70");
+      default:
+        return parse(mix, mix);
+    }
+  }
+
+  private static OperationMix parse(String name, String weights) {
+    Map<Operation, Integer> parsed = new EnumMap<>(Operation.class);
+    for (String weight : weights.split(",")) {
+      String[] parts = weight.trim().split("=");
+      if (parts.length != 2) {
+        throw new IllegalArgumentException("Expected operation=weight instead of " + weight);
+      }
+      parsed.merge(Operation.forLabel(parts[0].trim()), Integer.parseInt(parts[1].trim()), Integer::sum);
+    }
+    return new OperationMix(name, parsed);
+  }
+
+  Operation next(Random random) {
+    int value = random.nextInt(totalWeight);
+    for (int i = 0; i < cumulativeWeights.length; i++) {
+      if (value < cumulativeWeights[i]) {
+        return operations[i];
+      }
+    }
+    return operations[operations.length - 1];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder(name).append(" (");
+    int previous = 0;
+    for (int i = 0; i < operations.length; i++) {
+      if (i > 0) {
+        text.append(", ");
+      }
+      text.append(operations[i].getLabel()).append(' ').append((cumulativeWeights[i] - previous) * 100 / totalWeight).append('%');
+      previous = cumulativeWeights[i];
+    }
+    return text.append(')').toString();
+  }
+}
@@ -0,0 +1,199 @@
+package de.blacktri.restapi.loadtest;
+
+import de.blacktri.restapi.httpclient.CallEvent;
+import de.blacktri.restapi.httpclient.CallListener;
+import de.blacktri.restapi.httpclient.metrics.HistogramSnapshot;
+import de.blacktri.restapi.httpclient.metrics.LatencyHistogram;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts and times the operations of a load test, per reporting interval and for the measured part of the run.
+ * <p/>
+ * Latency is taken from the time an operation was scheduled to start, not from the time a thread got around to
+ * starting it, so a client that falls behind shows up in the percentiles instead of being hidden by the backlog
+ * (coordinated omission). The service time, from the actual start, is kept for the intervals to tell queueing in
+ * the load generator from time spent in the client and server. Operations scheduled before the end of the warmup
+ * only appear in the intervals.
+ * <p/>
+ * As a {@link CallListener} it counts the exchanges with the server, retries included, and tells a blocking caller
+ * whether the last exchange of its call failed; {@link de.blacktri.restapi.ABTest} itself returns {@code null} or
+ * nothing in that case.
+ */
+class Recorder implements CallListener {
+
+  private final ThreadLocal<boolean[]> exchangeFailed = ThreadLocal.withInitial(() -> new boolean[1]);
+
+  private final LatencyHistogram intervalLatency = new LatencyHistogram();
+  private final LatencyHistogram intervalServiceTime = new LatencyHistogram();
+  private final LongAdder issued = new LongAdder();
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+
+  private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+  private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private final LongAdder measuredIssued = new LongAdder();
+  private final LongAdder measuredErrors = new LongAdder();
+  private final LongAdder exchanges = new LongAdder();
+
+  private volatile long measureFrom = Long.MAX_VALUE;
+
+  private long reportedIssued;
+  private long reportedCompleted;
+  private long reportedErrors;
+
+  Recorder() {
+    for (Operation operation : Operation.values()) {
+      latencies.put(operation, new LatencyHistogram());
+      errors.put(operation, new LongAdder());
+    }
+  }
+
+  /**
+   * Operations scheduled from the given time on are included in the totals.
+   */
+  void measureFrom(long nanos) {
+    exchanges.reset();
+    measureFrom = nanos;
+  }
+
+  void issued(long scheduledNanos) {
+    issued.increment();
+    if (scheduledNanos >= measureFrom) {
+      measuredIssued.increment();
+    }
+  }
+
+  /**
+   * The operation was not started because too many were outstanding; counted as an error.
+   */
+  void dropped(Operation operation, long scheduledNanos) {
+    dropped.increment();
+    if (scheduledNanos >= measureFrom) {
+      errors.get(operation).increment();
+      measuredErrors.increment();
+    }
+  }
+
+  void completed(Operation operation, long scheduledNanos, long startedNanos, boolean error) {
+    long now = System.nanoTime();
+    intervalLatency.recordNanos(now - scheduledNanos);
+    intervalServiceTime.recordNanos(now - startedNanos);
+    if (error) {
+      failed.increment();
+    }
+    completed.increment();
+    if (scheduledNanos >= measureFrom) {
+      latencies.get(operation).recordNanos(now - scheduledNanos);
+      latency.recordNanos(now - scheduledNanos);
+      if (error) {
+        errors.get(operation).increment();
+        measuredErrors.increment();
+      }
+    }
+  }
+
+  /**
+   * Operations started but not completed.
+   */
+  long getOutstanding() {
+    return issued.sum() - dropped.sum() - completed.sum();
+  }
+
+  /**
+   * Prepares the current thread for a blocking call, see {@link #lastExchangeFailed()}.
+   */
+  void beginCall() {
+    exchangeFailed.get()[0] = false;
+  }
+
+  /**
+   * @return whether the last exchange made by the current thread since {@link #beginCall()} failed
+   */
+  boolean lastExchangeFailed() {
+    return exchangeFailed.get()[0];
+  }
+
+  @Override
+  public void onRequestBuilt(CallEvent event) {
+    exchangeFailed.get()[0] = false;
+  }
+
+  @Override
+  public void onRequestSent(CallEvent event) {
+    exchanges.increment();
+  }
+
+  @Override
+  public void onFailure(CallEvent event, Exception failure) {
+    exchangeFailed.get()[0] = true;
+  }
+
+  /**
+   * Returns the counts since the previous interval and starts a new one. Called by one thread only.
+   */
+  Interval nextInterval() {
+    long issuedNow = issued.sum();
+    long completedNow = completed.sum();
+    long errorsNow = failed.sum() + dropped.sum();
+    Interval interval = new Interval(issuedNow - reportedIssued, completedNow - reportedCompleted,
+            errorsNow - reportedErrors, getOutstanding(), intervalLatency.snapshotAndReset(),
+            intervalServiceTime.snapshotAndReset());
+    reportedIssued = issuedNow;
+    reportedCompleted = completedNow;
+    reportedErrors = errorsNow;
+    return interval;
+  }
+
+  HistogramSnapshot getLatency() {
+    return latency.snapshot();
+  }
+
+  HistogramSnapshot getLatency(Operation operation) {
+    return latencies.get(operation).snapshot();
+  }
+
+  long getErrors(Operation operation) {
+    return errors.get(operation).sum();
+  }
+
+  long getMeasuredIssued() {
+    return measuredIssued.sum();
+  }
+
+  long getMeasuredErrors() {
+    return measuredErrors.sum();
+  }
+
+  /**
+   * Exchanges with the server per completed operation, warmup included.
+   */
+  double getExchangesPerOperation() {
+    long operations = completed.sum();
+    return operations == 0 ? 0 : (double) exchanges.sum() / operations;
+  }
+
+  static final class Interval {
+
+    final long issued;
+    final long completed;
+    final long errors;
+    final long outstanding;
+    final HistogramSnapshot latency;
+    final HistogramSnapshot serviceTime;
+
+    private Interval(long issued, long completed, long errors, long outstanding, HistogramSnapshot latency,
+                     HistogramSnapshot serviceTime) {
+      this.issued = issued;
+      this.completed = completed;
+      this.errors = errors;
+      this.outstanding = outstanding;
+      this.latency = latency;
+      this.serviceTime = serviceTime;
+    }
+  }
+}
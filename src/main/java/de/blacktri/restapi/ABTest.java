@@ -1,6 +1,9 @@
 package de.blacktri.restapi;
 
 import de.blacktri.restapi.httpclient.ABTestingRestConnector;
+import de.blacktri.restapi.httpclient.ClientContext;
+import de.blacktri.restapi.httpclient.ResponseIterator;
+import de.blacktri.restapi.json.ApiDateFormat;
 import de.blacktri.restapi.pojos.Account;
 import de.blacktri.restapi.pojos.Condition;
 import de.blacktri.restapi.pojos.DataSet;
@@ -10,6 +13,7 @@ import de.blacktri.restapi.pojos.Goal;
 import de.blacktri.restapi.pojos.Project;
 import de.blacktri.restapi.pojos.Rule;
 import de.blacktri.restapi.pojos.Trend;
+import de.blacktri.restapi.pojos.TrendSeries;
 import org.codehaus.jackson.type.TypeReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +25,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Provides access to all available resources that can be found in the API
@@ -48,24 +53,29 @@ public class ABTest {
   public static final String CONDITION = "/condition/";
   public static final String DECISIONGROUPS = "/decisiongroups";
   public static final String DECISIONGROUP = "/decisiongroup/";
-  private ABTestingRestConnector restConnector;
-  private String apiKey;
-  private String apiSecret;
+  private final ABTestingRestConnector restConnector;
+  private final ClientContext clientContext;
 
+  /**
+   * The credentials are kept in a {@link ClientContext} of their own, so one connector can be shared by any number
+   * of instances for different API users.
+   */
   public ABTest(String apiKey, String apiSecret, ABTestingRestConnector restConnector) {
-    this.apiKey = apiKey;
-    this.apiSecret = apiSecret;
     this.restConnector = restConnector;
-    this.restConnector.setApiKey(apiKey);
-    this.restConnector.setApiSecret(apiSecret);
+    this.clientContext = restConnector.createClientContext(apiKey, apiSecret);
   }
 
+  /**
+   * @return the shared connector; its own call methods do not use the credentials of this instance
+   */
   public ABTestingRestConnector getRestConnector() {
-    restConnector.setApiKey(apiKey);
-    restConnector.setApiSecret(apiSecret);
     return restConnector;
   }
 
+  public ClientContext getClientContext() {
+    return clientContext;
+  }
+
   /**
    * Provides convenience login functionlality
    * <p/>
@@ -76,11 +86,11 @@ public class ABTest {
    */
   public int login(String data) {
     Map<String, Object> body = new HashMap<>();
-    body.put("apikey", getRestConnector().getApiKey());
-    body.put("apisecret", getRestConnector().getApiSecret());
+    body.put("apikey", clientContext.getApiKey());
+    body.put("apisecret", clientContext.getApiSecret());
     body.put("usertype", data);
 
-    return getRestConnector().callService(HttpMethod.POST, "login", new TypeReference<Integer>() {
+    return clientContext.callService(HttpMethod.POST, "login", new TypeReference<Integer>() {
     }, body);
   }
 
@@ -103,7 +113,7 @@ public class ABTest {
    * @return Object Containing all the details for the specified account
    */
   public Account getAccount(int clientId) {
-    return getRestConnector().callService(HttpMethod.GET, ACCOUNT + clientId, new TypeReference<Account>() {
+    return clientContext.callService(HttpMethod.GET, ACCOUNT + clientId, new TypeReference<Account>() {
     }, null);
   }
 
@@ -131,6 +141,51 @@ public class ABTest {
   }
 
   public List<Project> getProjects(int clientId, String type, String status, String sort, List<String> fields) {
+    Map<String, Object> queryParameters = getProjectsQueryParameters(type, status, sort, fields);
+    return clientContext.callService(HttpMethod.GET, ACCOUNT + clientId + "/projects", new TypeReference<List<Project>>() {
+    }, queryParameters, null);
+  }
+
+  /**
+   * Streaming variant of {@link #getProjects(int, String, String, String, List)}.
+   * <p/>
+   * Projects are decoded one at a time while the response is read, so large accounts do not need to be held in
+   * memory as a whole. The iterator has to be closed when it is not consumed completely.
+   *
+   * @param clientId - the user account id to retrieve the data for
+   * @return Iterator over the projects of the account
+   */
+  public ResponseIterator<Project> iterateProjects(int clientId, String type, String status, String sort, List<String> fields) {
+    Map<String, Object> queryParameters = getProjectsQueryParameters(type, status, sort, fields);
+    return clientContext.callServiceStreaming(HttpMethod.GET, ACCOUNT + clientId + "/projects", new TypeReference<Project>() {
+    }, queryParameters);
+  }
+
+  /**
+   * Passes every project of the account to the given handler as soon as it is decoded.
+   *
+   * @param clientId - the user account id to retrieve the data for
+   * @param handler  receives the projects in response order
+   * @return the number of projects handled
+   */
+  public int forEachProject(int clientId, Consumer<? super Project> handler) {
+    return forEachProject(clientId, null, null, null, Collections.<String>emptyList(), handler);
+  }
+
+  /**
+   * Passes the projects of the account that match the filters to the given handler as soon as each one is decoded,
+   * see {@link #getProjects(int, String, String, String, List)}.
+   *
+   * @return the number of projects handled
+   */
+  public int forEachProject(int clientId, String type, String status, String sort, List<String> fields,
+                            Consumer<? super Project> handler) {
+    Map<String, Object> queryParameters = getProjectsQueryParameters(type, status, sort, fields);
+    return clientContext.callServiceStreaming(HttpMethod.GET, ACCOUNT + clientId + "/projects", new TypeReference<Project>() {
+    }, queryParameters, handler);
+  }
+
+  static Map<String, Object> getProjectsQueryParameters(String type, String status, String sort, List<String> fields) {
     Map<String, Object> queryParameters = new HashMap<>();
     if (StringUtils.hasText(type)) {
       queryParameters.put("type", type);
@@ -153,8 +208,7 @@ public class ABTest {
       queryParameters.put("fields", stringBuilder.toString());
     }
 
-    return getRestConnector().callService(HttpMethod.GET, ACCOUNT + clientId + "/projects", new TypeReference<List<Project>>() {
-    }, queryParameters, null);
+    return queryParameters;
   }
 
   /**
@@ -169,8 +223,9 @@ public class ABTest {
    */
   public Integer createProject(int clientId, Project project) {
     LOG.info("Creating project with name " + project.getName());
-    Integer projectId = getRestConnector().callService(HttpMethod.POST, ACCOUNT + clientId + "/project", new TypeReference<Integer>() {
+    Integer projectId = clientContext.callService(HttpMethod.POST, ACCOUNT + clientId + "/project", new TypeReference<Integer>() {
     }, project.toMap());
+    invalidateProjects(getRestConnector(), clientId);
     LOG.info("Created project '" + project.getName() + "' with id " + projectId);
     return projectId;
   }
@@ -187,7 +242,7 @@ public class ABTest {
    * @return Object Containing the details for the specified project
    */
   public Project getProject(int clientId, int projectId) {
-    return getRestConnector().callService(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId, new TypeReference<Project>() {
+    return clientContext.callService(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId, new TypeReference<Project>() {
     }, null);
   }
 
@@ -199,7 +254,8 @@ public class ABTest {
    */
   public void deleteProject(int clientId, int projectId) {
     LOG.info("Deleting project with id " + projectId);
-    getRestConnector().callService(HttpMethod.DELETE, ACCOUNT + clientId + PROJECT + projectId, null, null);
+    clientContext.callService(HttpMethod.DELETE, ACCOUNT + clientId + PROJECT + projectId, null, null);
+    invalidateProject(getRestConnector(), clientId, projectId);
     LOG.info("Project with id " + projectId + " has been deleted");
   }
 
@@ -214,7 +270,8 @@ public class ABTest {
    * @param project   contains all edited fields to be updated
    */
   public void updateProject(int clientId, int projectId, Project project) {
-    getRestConnector().callService(HttpMethod.PUT, ACCOUNT + clientId + PROJECT + projectId, null, project.toMap());
+    clientContext.callService(HttpMethod.PUT, ACCOUNT + clientId + PROJECT + projectId, null, project.toMap());
+    invalidateProject(getRestConnector(), clientId, projectId);
   }
 
   /**
@@ -226,8 +283,10 @@ public class ABTest {
    * @return Object Containing  the response from the server after trying to start the project
    */
   public Boolean startProject(int clientId, int projectId) {
-    return getRestConnector().callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + START, new TypeReference<Boolean>() {
+    Boolean result = clientContext.callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + START, new TypeReference<Boolean>() {
     }, null);
+    invalidateProject(getRestConnector(), clientId, projectId);
+    return result;
   }
 
   /**
@@ -239,8 +298,10 @@ public class ABTest {
    * @return Object Containing the response from the server after trying to stop the project
    */
   public Boolean stopProject(int clientId, int projectId) {
-    return getRestConnector().callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + STOP, new TypeReference<Boolean>() {
+    Boolean result = clientContext.callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + STOP, new TypeReference<Boolean>() {
     }, null);
+    invalidateProject(getRestConnector(), clientId, projectId);
+    return result;
   }
 
   /**
@@ -252,8 +313,10 @@ public class ABTest {
    * @return Object Containing  the response from the server after trying to restart the project
    */
   public Boolean restartProject(int clientId, int projectId) {
-    return getRestConnector().callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + RESTART, new TypeReference<Boolean>() {
+    Boolean result = clientContext.callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + RESTART, new TypeReference<Boolean>() {
     }, null);
+    invalidateProject(getRestConnector(), clientId, projectId);
+    return result;
   }
 
   /**
@@ -264,8 +327,10 @@ public class ABTest {
    * @return Object Containing the response from the server after trying to start the autopilot for the project
    */
   public Object startAutopilot(int clientId, int projectId) {
-    return getRestConnector().callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + AUTOPILOT + START, new TypeReference<Boolean>() {
+    Object result = clientContext.callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + AUTOPILOT + START, new TypeReference<Boolean>() {
     }, null);
+    invalidateProject(getRestConnector(), clientId, projectId);
+    return result;
   }
 
   /**
@@ -276,8 +341,10 @@ public class ABTest {
    * @return Object Containing the response from the server after trying to stop the atopilot for the project
    */
   public Object stopAutopilot(int clientId, int projectId) {
-    return getRestConnector().callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + AUTOPILOT + STOP, new TypeReference<Boolean>() {
+    Object result = clientContext.callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + AUTOPILOT + STOP, new TypeReference<Boolean>() {
     }, null);
+    invalidateProject(getRestConnector(), clientId, projectId);
+    return result;
   }
 
 
@@ -292,7 +359,7 @@ public class ABTest {
    * @return Object containig the list of created decision groups
    */
   public List<DecisionGroup> getDecisionGroups(int clientId, int projectId, String filter) {
-    return getRestConnector().callService(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUPS, new TypeReference<List<DecisionGroup>>() {
+    return clientContext.callService(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUPS, new TypeReference<List<DecisionGroup>>() {
     }, null);
   }
 
@@ -308,7 +375,7 @@ public class ABTest {
    * @return Object Containing the details for the specified project
    */
   public DecisionGroup getDecisionGroup(int clientId, int projectId, int decisionGroupId) {
-    return getRestConnector().callService(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId, new TypeReference<DecisionGroup>() {
+    return clientContext.callService(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId, new TypeReference<DecisionGroup>() {
     }, null);
   }
 
@@ -324,8 +391,10 @@ public class ABTest {
    * @return The new decision group ID
    */
   public Integer createDecisionGroup(int clientId, int projectId, DecisionGroup decisionGroup) {
-    return getRestConnector().callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP, new TypeReference<Integer>() {
+    Integer result = clientContext.callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP, new TypeReference<Integer>() {
     }, decisionGroup.toMap());
+    invalidateDecisionGroups(getRestConnector(), clientId, projectId);
+    return result;
   }
 
   /**
@@ -340,7 +409,9 @@ public class ABTest {
    * @return The new decision group ID
    */
   public Object updateDecisionGroup(int clientId, int projectId, int decisionGroupId, DecisionGroup decisionGroup) {
-    return getRestConnector().callService(HttpMethod.PUT, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId, null, decisionGroup.toMap());
+    Object result = clientContext.callService(HttpMethod.PUT, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId, null, decisionGroup.toMap());
+    invalidateDecisionGroup(getRestConnector(), clientId, projectId, decisionGroupId);
+    return result;
   }
 
   /**
@@ -352,7 +423,9 @@ public class ABTest {
    * @return Object Containing the response from the server after trying to delete the given decision
    */
   public Object deleteDecisionGroup(int clientId, int projectId, int decisionGroupId) {
-    return getRestConnector().callService(HttpMethod.DELETE, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId, null, null);
+    Object result = clientContext.callService(HttpMethod.DELETE, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId, null, null);
+    invalidateDecisionGroup(getRestConnector(), clientId, projectId, decisionGroupId);
+    return result;
   }
 
   /**
@@ -365,8 +438,10 @@ public class ABTest {
    * @return Object Containing  the response from the server after trying to start the group
    */
   public Object startDecisionGroup(int clientId, int projectId, int decisionGroupId) {
-    return getRestConnector().callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId + START, new TypeReference<Boolean>() {
+    Object result = clientContext.callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId + START, new TypeReference<Boolean>() {
     }, null);
+    invalidateDecisionGroup(getRestConnector(), clientId, projectId, decisionGroupId);
+    return result;
   }
 
   /**
@@ -379,8 +454,10 @@ public class ABTest {
    * @return Object Containing the response from the server after trying to stop the group
    */
   public Object stopDecisionGroup(int clientId, int projectId, int decisionGroupId) {
-    return getRestConnector().callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId + STOP, new TypeReference<Boolean>() {
+    Object result = clientContext.callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId + STOP, new TypeReference<Boolean>() {
     }, null);
+    invalidateDecisionGroup(getRestConnector(), clientId, projectId, decisionGroupId);
+    return result;
   }
 
   /**
@@ -392,12 +469,14 @@ public class ABTest {
    * @return Object Containing  the response from the server after trying to restart the group
    */
   public Object restartDecisionGroup(int clientId, int projectId, int decisionGroupId) {
-    return getRestConnector().callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId + RESTART, new TypeReference<Boolean>() {
+    Object result = clientContext.callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId + RESTART, new TypeReference<Boolean>() {
     }, null);
+    invalidateDecisionGroup(getRestConnector(), clientId, projectId, decisionGroupId);
+    return result;
   }
 
 
-  private String getDecisionBasePath(int clientId, int projectId, int decisionsGroupId) {
+  static String getDecisionBasePath(int clientId, int projectId, int decisionsGroupId) {
     String path = ACCOUNT + clientId + PROJECT + projectId;
     if (decisionsGroupId != -1) {
       path += DECISIONGROUP + decisionsGroupId;
@@ -422,18 +501,59 @@ public class ABTest {
    * @return Object Containing the list of decisions with their respective details for the given project
    */
   public List<Decision> getDecisions(int clientId, int projectId, int decisionGroupId, String sort, String filter) {
-    Map<String, Object> queryParameters = new HashMap<>();
-    if (StringUtils.hasText(sort)) {
-      queryParameters.put("sort", sort);
-    }
-    return getRestConnector().callService(HttpMethod.GET, getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISIONS, new TypeReference<List<Decision>>() {
-    }, queryParameters, null);
+    return clientContext.callService(HttpMethod.GET, getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISIONS, new TypeReference<List<Decision>>() {
+    }, getSortQueryParameters(sort), null);
   }
 
   public List<Decision> getDecisions(int clientId, int projectId, String sort, String filter) {
     return getDecisions(clientId, projectId, -1, sort, filter);
   }
 
+  /**
+   * Streaming variant of {@link #getDecisions(int, int, int, String, String)}.
+   * <p/>
+   * The iterator has to be closed when it is not consumed completely.
+   *
+   * @param clientId        - the user account id to retrieve the data for
+   * @param projectId       The id of the project to retrieve all decisions from
+   * @param decisionGroupId the decision group or -1 for the decisions of the project
+   * @param sort            - URL parameters to sort results ( sort=-id )
+   * @return Iterator over the decisions
+   */
+  public ResponseIterator<Decision> iterateDecisions(int clientId, int projectId, int decisionGroupId, String sort) {
+    return clientContext.callServiceStreaming(HttpMethod.GET, getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISIONS, new TypeReference<Decision>() {
+    }, getSortQueryParameters(sort));
+  }
+
+  /**
+   * Passes every decision of the project or decision group to the given handler as soon as it is decoded.
+   *
+   * @return the number of decisions handled
+   */
+  public int forEachDecision(int clientId, int projectId, int decisionGroupId, Consumer<? super Decision> handler) {
+    return forEachDecision(clientId, projectId, decisionGroupId, null, handler);
+  }
+
+  /**
+   * Passes every decision of the project or decision group to the given handler as soon as it is decoded, in the
+   * given order.
+   *
+   * @param sort - URL parameters to sort results ( sort=-id )
+   * @return the number of decisions handled
+   */
+  public int forEachDecision(int clientId, int projectId, int decisionGroupId, String sort, Consumer<? super Decision> handler) {
+    return clientContext.callServiceStreaming(HttpMethod.GET, getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISIONS, new TypeReference<Decision>() {
+    }, getSortQueryParameters(sort), handler);
+  }
+
+  static Map<String, Object> getSortQueryParameters(String sort) {
+    Map<String, Object> queryParameters = new HashMap<>();
+    if (StringUtils.hasText(sort)) {
+      queryParameters.put("sort", sort);
+    }
+    return queryParameters;
+  }
+
   /**
    * Returns all data given a decision id
    * <p/>
@@ -446,7 +566,7 @@ public class ABTest {
    * @return Object Containing all details for the specified decision for the given project
    */
   public Decision getDecision(int clientId, int projectId, int decisionGroupId, int decisionId) {
-    return getRestConnector().callService(HttpMethod.GET, getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISION + decisionId, new TypeReference<Decision>() {
+    return clientContext.callService(HttpMethod.GET, getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISION + decisionId, new TypeReference<Decision>() {
     }, null);
   }
 
@@ -463,8 +583,10 @@ public class ABTest {
    * @return Object Containing the new created decision id
    */
   public int createDecision(int clientId, int projectId, int decisionGroupId, Decision decision) {
-    return getRestConnector().callService(HttpMethod.POST, getDecisionBasePath(clientId, projectId, decisionGroupId) + "/decision", new TypeReference<Integer>() {
+    int result = clientContext.callService(HttpMethod.POST, getDecisionBasePath(clientId, projectId, decisionGroupId) + "/decision", new TypeReference<Integer>() {
     }, decision.toMap());
+    invalidateDecisions(getRestConnector(), clientId, projectId, decisionGroupId);
+    return result;
   }
 
   public int createDecision(int clientId, int projectId, Decision decision) {
@@ -480,11 +602,12 @@ public class ABTest {
    * @param decision   - contains all required fields to be updated in the DB
    */
   public void updateDecision(int clientId, int projectId, int decisionId, int decisionGroupId, Decision decision) {
-    getRestConnector().callService(HttpMethod.PUT, ACCOUNT + getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISION + decisionId, null, decision.toMap());
+    clientContext.callService(HttpMethod.PUT, getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISION + decisionId, null, decision.toMap());
+    invalidateDecision(getRestConnector(), clientId, projectId, decisionGroupId, decisionId);
   }
 
-  public void updateDecision(int clientId, int projectId, int decisionGroupId, Decision decision) {
-    updateDecision(clientId, projectId, -1, decisionGroupId, decision);
+  public void updateDecision(int clientId, int projectId, int decisionId, Decision decision) {
+    updateDecision(clientId, projectId, decisionId, -1, decision);
   }
 
   /**
@@ -495,7 +618,8 @@ public class ABTest {
    * @param decisionId The ID of the decision to be deleted
    */
   public void deleteDecision(int clientId, int projectId, int decisionGroupId, int decisionId) {
-    getRestConnector().callService(HttpMethod.DELETE, getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISION + decisionId, null, null);
+    clientContext.callService(HttpMethod.DELETE, getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISION + decisionId, null, null);
+    invalidateDecision(getRestConnector(), clientId, projectId, decisionGroupId, decisionId);
   }
 
   public void deleteDecision(int clientId, int projectId, int decisionId) {
@@ -511,7 +635,7 @@ public class ABTest {
    */
   public List<Goal> getGoals(int clientId, int projectId) {
     Map<String, Object> queryParameters = new HashMap<>();
-    return getRestConnector().callService(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + "/goals", new TypeReference<List<Goal>>() {
+    return clientContext.callService(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + "/goals", new TypeReference<List<Goal>>() {
     }, queryParameters, null);
   }
 
@@ -524,7 +648,7 @@ public class ABTest {
    * @return Object Containing all details for the specified goal for the given project
    */
   public Goal getGoal(int clientId, int projectId, int goalId) {
-    return getRestConnector().callService(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + GOAL + goalId, new TypeReference<Goal>() {
+    return clientContext.callService(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + GOAL + goalId, new TypeReference<Goal>() {
     }, null);
   }
 
@@ -537,8 +661,10 @@ public class ABTest {
    * @return Object Containing  the new created goal id
    */
   public int createGoal(int clientId, int projectId, Goal goal) {
-    return getRestConnector().callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + "/goal", new TypeReference<Integer>() {
+    int result = clientContext.callService(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + "/goal", new TypeReference<Integer>() {
     }, goal.getGoalForRemoteCreation());
+    invalidateGoals(getRestConnector(), clientId, projectId);
+    return result;
   }
 
   /**
@@ -550,7 +676,8 @@ public class ABTest {
    * @param goal      Contains all required data for the goal
    */
   public void updateGoal(int clientId, int projectId, int goalId, Goal goal) {
-    getRestConnector().callService(HttpMethod.PUT, ACCOUNT + clientId + PROJECT + projectId + GOAL + goalId, null, goal.getGoalForRemoteUpdate());
+    clientContext.callService(HttpMethod.PUT, ACCOUNT + clientId + PROJECT + projectId + GOAL + goalId, null, goal.getGoalForRemoteUpdate());
+    invalidateGoal(getRestConnector(), clientId, projectId, goalId);
   }
 
   /**
@@ -561,7 +688,8 @@ public class ABTest {
    * @param goalId    The ID of the goal to be deleted
    */
   public void deleteGoal(int clientId, int projectId, int goalId) {
-    getRestConnector().callService(HttpMethod.DELETE, ACCOUNT + clientId + PROJECT + projectId + GOAL + goalId, null, null);
+    clientContext.callService(HttpMethod.DELETE, ACCOUNT + clientId + PROJECT + projectId + GOAL + goalId, null, null);
+    invalidateGoal(getRestConnector(), clientId, projectId, goalId);
   }
 
   /**
@@ -574,10 +702,33 @@ public class ABTest {
    * @return Object Containing a list of rules with their respective details
    */
   public List<Rule> getRules(int clientId) {
-    return getRestConnector().callService(HttpMethod.GET, ACCOUNT + clientId + "/rules", new TypeReference<List<Rule>>() {
+    return clientContext.callService(HttpMethod.GET, ACCOUNT + clientId + "/rules", new TypeReference<List<Rule>>() {
     }, null);
   }
 
+  /**
+   * Streaming variant of {@link #getRules(int)}.
+   * <p/>
+   * The iterator has to be closed when it is not consumed completely.
+   *
+   * @param clientId - the user account id to retrieve the data for
+   * @return Iterator over the rules
+   */
+  public ResponseIterator<Rule> iterateRules(int clientId) {
+    return clientContext.callServiceStreaming(HttpMethod.GET, ACCOUNT + clientId + "/rules", new TypeReference<Rule>() {
+    }, Collections.<String, Object>emptyMap());
+  }
+
+  /**
+   * Passes every rule to the given handler as soon as it is decoded.
+   *
+   * @return the number of rules handled
+   */
+  public int forEachRule(int clientId, Consumer<? super Rule> handler) {
+    return clientContext.callServiceStreaming(HttpMethod.GET, ACCOUNT + clientId + "/rules", new TypeReference<Rule>() {
+    }, Collections.<String, Object>emptyMap(), handler);
+  }
+
   /**
    * Gets all data for a particular rule
    *
@@ -586,7 +737,7 @@ public class ABTest {
    * @return Object Containing all details for a specific rule
    */
   public Rule getRule(int clientId, int ruleId) {
-    return getRestConnector().callService(HttpMethod.GET, ACCOUNT + clientId + RULE + ruleId, new TypeReference<Rule>() {
+    return clientContext.callService(HttpMethod.GET, ACCOUNT + clientId + RULE + ruleId, new TypeReference<Rule>() {
     }, null);
   }
 
@@ -598,8 +749,10 @@ public class ABTest {
    * @return Object Containing  the new created rule id
    */
   public int createRule(int clientId, Rule rule) {
-    return getRestConnector().callService(HttpMethod.POST, ACCOUNT + clientId + "/rule", new TypeReference<Integer>() {
+    int result = clientContext.callService(HttpMethod.POST, ACCOUNT + clientId + "/rule", new TypeReference<Integer>() {
     }, rule.getRuleForRemoteCreation());
+    invalidateRules(getRestConnector(), clientId);
+    return result;
   }
 
   /**
@@ -612,7 +765,8 @@ public class ABTest {
    * @param rule     Contains the rule required data
    */
   public void updateRule(int clientId, int ruleId, Rule rule) {
-    getRestConnector().callService(HttpMethod.PUT, ACCOUNT + clientId + RULE + ruleId, null, rule.getRuleForRemoteUpdate());
+    clientContext.callService(HttpMethod.PUT, ACCOUNT + clientId + RULE + ruleId, null, rule.getRuleForRemoteUpdate());
+    invalidateRule(getRestConnector(), clientId, ruleId);
   }
 
   /**
@@ -622,7 +776,8 @@ public class ABTest {
    * @param ruleId   The ID of the rule to be deleted
    */
   public void deleteRule(int clientId, int ruleId) {
-    getRestConnector().callService(HttpMethod.DELETE, ACCOUNT + clientId + RULE + ruleId, null, null);
+    clientContext.callService(HttpMethod.DELETE, ACCOUNT + clientId + RULE + ruleId, null, null);
+    invalidateRule(getRestConnector(), clientId, ruleId);
   }
 
   /**
@@ -636,7 +791,7 @@ public class ABTest {
    * @return Object Containing a list of conditions with their respective details for a given rule
    */
   public List<Condition> getConditions(int clientId, int ruleId) {
-    return getRestConnector().callService(HttpMethod.GET, ACCOUNT + clientId + RULE + ruleId + "/conditions", new TypeReference<List<Condition>>() {
+    return clientContext.callService(HttpMethod.GET, ACCOUNT + clientId + RULE + ruleId + "/conditions", new TypeReference<List<Condition>>() {
     }, null);
   }
 
@@ -652,7 +807,7 @@ public class ABTest {
    * @return Object Containing all details given a condition for the specified rule
    */
   public Condition getCondition(int clientId, int ruleId, int conditionId) {
-    return getRestConnector().callService(HttpMethod.GET, ACCOUNT + clientId + RULE + ruleId + CONDITION + conditionId, new TypeReference<Condition>() {
+    return clientContext.callService(HttpMethod.GET, ACCOUNT + clientId + RULE + ruleId + CONDITION + conditionId, new TypeReference<Condition>() {
     }, null);
   }
 
@@ -668,8 +823,10 @@ public class ABTest {
    * @return Object Containing  the new created condition id
    */
   public int createCondition(int clientId, int ruleId, Condition condition) {
-    return getRestConnector().callService(HttpMethod.POST, ACCOUNT + clientId + RULE + ruleId + "/condition", new TypeReference<Integer>() {
+    int result = clientContext.callService(HttpMethod.POST, ACCOUNT + clientId + RULE + ruleId + "/condition", new TypeReference<Integer>() {
     }, condition.getConditionForRemoteCreation());
+    invalidateRule(getRestConnector(), clientId, ruleId);
+    return result;
   }
 
   /**
@@ -681,7 +838,8 @@ public class ABTest {
    * @param condition   Contains the required data to update the condition in the DB
    */
   public void updateCondition(int clientId, int ruleId, int conditionId, Condition condition) {
-    getRestConnector().callService(HttpMethod.PUT, ACCOUNT + clientId + RULE + ruleId + CONDITION + conditionId, null, condition.getConditionForRemoteUpdate());
+    clientContext.callService(HttpMethod.PUT, ACCOUNT + clientId + RULE + ruleId + CONDITION + conditionId, null, condition.getConditionForRemoteUpdate());
+    invalidateRule(getRestConnector(), clientId, ruleId);
   }
 
   /**
@@ -692,7 +850,8 @@ public class ABTest {
    * @param conditionId The ID of the condition to be deleted
    */
   public void deleteCondition(int clientId, int ruleId, int conditionId) {
-    getRestConnector().callService(HttpMethod.DELETE, ACCOUNT + clientId + RULE + ruleId + CONDITION + conditionId, null, null);
+    clientContext.callService(HttpMethod.DELETE, ACCOUNT + clientId + RULE + ruleId + CONDITION + conditionId, null, null);
+    invalidateRule(getRestConnector(), clientId, ruleId);
   }
 
   /**
@@ -716,9 +875,31 @@ public class ABTest {
    * @return Object Containing a set of date points and details for a period of time given a project id
    */
   public Trend getTrend(int clientId, int projectId, Calendar end, int entries, int goalId) {
+    Map<String, Object> queryParameters = getTrendQueryParameters(end, entries, goalId);
+
+    Map<Calendar, Map<String, DataSet>> result = clientContext.callService(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + "/trend/", new TypeReference<Map<Calendar, Map<String, DataSet>>>() {
+    }, queryParameters, null);
+    return new Trend(result);
+  }
+
+  /**
+   * Returns the same statistics as {@link #getTrend(int, int, Calendar, int, int)} in columnar form, decoded
+   * without creating an object per day and decision.
+   *
+   * @return the series, empty if the project has no statistics
+   * @see TrendSeries
+   */
+  public TrendSeries getTrendSeries(int clientId, int projectId, Calendar end, int entries, int goalId) {
+    Map<String, Object> queryParameters = getTrendQueryParameters(end, entries, goalId);
+    TrendSeries result = clientContext.callService(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + "/trend/", new TypeReference<TrendSeries>() {
+    }, queryParameters, null);
+    return result != null ? result : TrendSeries.EMPTY;
+  }
+
+  static Map<String, Object> getTrendQueryParameters(Calendar end, int entries, int goalId) {
     Map<String, Object> queryParameters = new HashMap<>();
     if (end != null) {
-      queryParameters.put("end", ABTestingRestConnector.DATE_FORMAT.format(end.getTime()));
+      queryParameters.put("end", ApiDateFormat.getDefault().format(end.getTimeInMillis()));
     }
     if (entries > 0) {
       queryParameters.put("entries", entries);
@@ -726,9 +907,54 @@ public class ABTest {
     if (goalId > 0) {
       queryParameters.put("goalid", goalId);
     }
+    return queryParameters;
+  }
 
-    Map<Calendar, Map<String, DataSet>> result = getRestConnector().callService(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + "/trend/", new TypeReference<Map<Calendar, Map<String, DataSet>>>() {
-    }, queryParameters, null);
-    return new Trend(result);
+  static void invalidateProjects(ABTestingRestConnector restConnector, int clientId) {
+    restConnector.invalidate(ACCOUNT + clientId + "/projects");
+  }
+
+  static void invalidateProject(ABTestingRestConnector restConnector, int clientId, int projectId) {
+    restConnector.invalidate(ACCOUNT + clientId + PROJECT + projectId, ACCOUNT + clientId + "/projects");
+  }
+
+  static void invalidateDecisionGroups(ABTestingRestConnector restConnector, int clientId, int projectId) {
+    restConnector.invalidate(ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUPS);
+  }
+
+  static void invalidateDecisionGroup(ABTestingRestConnector restConnector, int clientId, int projectId, int decisionGroupId) {
+    restConnector.invalidate(ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId,
+            ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUPS);
+  }
+
+  static void invalidateDecisions(ABTestingRestConnector restConnector, int clientId, int projectId, int decisionGroupId) {
+    restConnector.invalidate(getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISIONS,
+            ACCOUNT + clientId + PROJECT + projectId + DECISIONS);
+  }
+
+  static void invalidateDecision(ABTestingRestConnector restConnector, int clientId, int projectId, int decisionGroupId, int decisionId) {
+    restConnector.invalidate(getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISION + decisionId,
+            ACCOUNT + clientId + PROJECT + projectId + DECISION + decisionId);
+    invalidateDecisions(restConnector, clientId, projectId, decisionGroupId);
+  }
+
+  static void invalidateGoals(ABTestingRestConnector restConnector, int clientId, int projectId) {
+    restConnector.invalidate(ACCOUNT + clientId + PROJECT + projectId + "/goals");
+  }
+
+  static void invalidateGoal(ABTestingRestConnector restConnector, int clientId, int projectId, int goalId) {
+    restConnector.invalidate(ACCOUNT + clientId + PROJECT + projectId + GOAL + goalId,
+            ACCOUNT + clientId + PROJECT + projectId + "/goals");
+  }
+
+  static void invalidateRules(ABTestingRestConnector restConnector, int clientId) {
+    restConnector.invalidate(ACCOUNT + clientId + "/rules");
+  }
+
+  /**
+   * Rules embed their conditions, so condition changes invalidate the rule as well.
+   */
+  static void invalidateRule(ABTestingRestConnector restConnector, int clientId, int ruleId) {
+    restConnector.invalidate(ACCOUNT + clientId + RULE + ruleId, ACCOUNT + clientId + "/rules");
   }
 }
\ No newline at end of file
@@ -0,0 +1,454 @@
+package de.blacktri.restapi;
+
+import de.blacktri.restapi.httpclient.ABTestingRestConnector;
+import de.blacktri.restapi.httpclient.ClientContext;
+import de.blacktri.restapi.pojos.Account;
+import de.blacktri.restapi.pojos.Condition;
+import de.blacktri.restapi.pojos.DataSet;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.DecisionGroup;
+import de.blacktri.restapi.pojos.Goal;
+import de.blacktri.restapi.pojos.Project;
+import de.blacktri.restapi.pojos.Rule;
+import de.blacktri.restapi.pojos.Trend;
+import de.blacktri.restapi.pojos.TrendSeries;
+import org.codehaus.jackson.type.TypeReference;
+import org.springframework.http.HttpMethod;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static de.blacktri.restapi.ABTest.ACCOUNT;
+import static de.blacktri.restapi.ABTest.AUTOPILOT;
+import static de.blacktri.restapi.ABTest.CONDITION;
+import static de.blacktri.restapi.ABTest.DECISION;
+import static de.blacktri.restapi.ABTest.DECISIONGROUP;
+import static de.blacktri.restapi.ABTest.DECISIONGROUPS;
+import static de.blacktri.restapi.ABTest.DECISIONS;
+import static de.blacktri.restapi.ABTest.GOAL;
+import static de.blacktri.restapi.ABTest.PROJECT;
+import static de.blacktri.restapi.ABTest.RESTART;
+import static de.blacktri.restapi.ABTest.RULE;
+import static de.blacktri.restapi.ABTest.START;
+import static de.blacktri.restapi.ABTest.STOP;
+import static de.blacktri.restapi.ABTest.getDecisionBasePath;
+import static de.blacktri.restapi.ABTest.getSortQueryParameters;
+
+/**
+ * Non-blocking variant of {@link ABTest}.
+ * <p/>
+ * Every operation of {@link ABTest} is available with the same parameters, but returns a {@link CompletableFuture}
+ * instead of blocking the calling thread for the round trip. Requests are executed by the async client of the given
+ * {@link ABTestingRestConnector}, which shares endpoint, pool size and timeouts with the blocking client.
+ * <p/>
+ * Failed calls complete the returned future exceptionally, see
+ * {@link ABTestingRestConnector#callServiceAsync(HttpMethod, String, TypeReference, Map, Map, Object)}.
+ */
+public class ABTestAsync {
+
+  private final ABTestingRestConnector restConnector;
+  private final ClientContext clientContext;
+
+  /**
+   * The credentials are kept in a {@link ClientContext} of their own, so one connector can be shared by any number
+   * of instances for different API users.
+   */
+  public ABTestAsync(String apiKey, String apiSecret, ABTestingRestConnector restConnector) {
+    this.restConnector = restConnector;
+    this.clientContext = restConnector.createClientContext(apiKey, apiSecret);
+  }
+
+  /**
+   * @return the shared connector; its own call methods do not use the credentials of this instance
+   */
+  public ABTestingRestConnector getRestConnector() {
+    return restConnector;
+  }
+
+  public ClientContext getClientContext() {
+    return clientContext;
+  }
+
+  /**
+   * @see ABTest#login(String)
+   */
+  public CompletableFuture<Integer> login(String data) {
+    Map<String, Object> body = new HashMap<>();
+    body.put("apikey", clientContext.getApiKey());
+    body.put("apisecret", clientContext.getApiSecret());
+    body.put("usertype", data);
+
+    return clientContext.callServiceAsync(HttpMethod.POST, "login", new TypeReference<Integer>() {
+    }, body);
+  }
+
+  public CompletableFuture<Integer> loginClient() {
+    return login("api-client");
+  }
+
+  public CompletableFuture<Integer> loginTenant() {
+    return login("api-tenant");
+  }
+
+  /**
+   * @see ABTest#getAccount(int)
+   */
+  public CompletableFuture<Account> getAccount(int clientId) {
+    return clientContext.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId, new TypeReference<Account>() {
+    }, null);
+  }
+
+  /**
+   * @see ABTest#getProjects(int)
+   */
+  public CompletableFuture<List<Project>> getProjects(int clientId) {
+    return getProjects(clientId, null, null, null, Collections.<String>emptyList());
+  }
+
+  /**
+   * @see ABTest#getProjects(int, String, String, String, List)
+   */
+  public CompletableFuture<List<Project>> getProjects(int clientId, String type, String status, String sort, List<String> fields) {
+    Map<String, Object> queryParameters = ABTest.getProjectsQueryParameters(type, status, sort, fields);
+    return clientContext.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId + "/projects", new TypeReference<List<Project>>() {
+    }, queryParameters, null);
+  }
+
+  /**
+   * @see ABTest#createProject(int, Project)
+   */
+  public CompletableFuture<Integer> createProject(int clientId, Project project) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.POST, ACCOUNT + clientId + "/project", new TypeReference<Integer>() {
+    }, project.toMap()), () -> ABTest.invalidateProjects(restConnector, clientId));
+  }
+
+  /**
+   * @see ABTest#getProject(int, int)
+   */
+  public CompletableFuture<Project> getProject(int clientId, int projectId) {
+    return clientContext.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId, new TypeReference<Project>() {
+    }, null);
+  }
+
+  /**
+   * @see ABTest#deleteProject(int, int)
+   */
+  public CompletableFuture<Void> deleteProject(int clientId, int projectId) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.DELETE, ACCOUNT + clientId + PROJECT + projectId, null, null), () -> ABTest.invalidateProject(restConnector, clientId, projectId));
+  }
+
+  /**
+   * @see ABTest#updateProject(int, int, Project)
+   */
+  public CompletableFuture<Void> updateProject(int clientId, int projectId, Project project) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.PUT, ACCOUNT + clientId + PROJECT + projectId, null, project.toMap()), () -> ABTest.invalidateProject(restConnector, clientId, projectId));
+  }
+
+  /**
+   * @see ABTest#startProject(int, int)
+   */
+  public CompletableFuture<Boolean> startProject(int clientId, int projectId) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + START, new TypeReference<Boolean>() {
+    }, null), () -> ABTest.invalidateProject(restConnector, clientId, projectId));
+  }
+
+  /**
+   * @see ABTest#stopProject(int, int)
+   */
+  public CompletableFuture<Boolean> stopProject(int clientId, int projectId) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + STOP, new TypeReference<Boolean>() {
+    }, null), () -> ABTest.invalidateProject(restConnector, clientId, projectId));
+  }
+
+  /**
+   * @see ABTest#restartProject(int, int)
+   */
+  public CompletableFuture<Boolean> restartProject(int clientId, int projectId) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + RESTART, new TypeReference<Boolean>() {
+    }, null), () -> ABTest.invalidateProject(restConnector, clientId, projectId));
+  }
+
+  /**
+   * @see ABTest#startAutopilot(int, int)
+   */
+  public CompletableFuture<Boolean> startAutopilot(int clientId, int projectId) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + AUTOPILOT + START, new TypeReference<Boolean>() {
+    }, null), () -> ABTest.invalidateProject(restConnector, clientId, projectId));
+  }
+
+  /**
+   * @see ABTest#stopAutopilot(int, int)
+   */
+  public CompletableFuture<Boolean> stopAutopilot(int clientId, int projectId) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + AUTOPILOT + STOP, new TypeReference<Boolean>() {
+    }, null), () -> ABTest.invalidateProject(restConnector, clientId, projectId));
+  }
+
+  /**
+   * @see ABTest#getDecisionGroups(int, int, String)
+   */
+  public CompletableFuture<List<DecisionGroup>> getDecisionGroups(int clientId, int projectId, String filter) {
+    return clientContext.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUPS, new TypeReference<List<DecisionGroup>>() {
+    }, null);
+  }
+
+  /**
+   * @see ABTest#getDecisionGroup(int, int, int)
+   */
+  public CompletableFuture<DecisionGroup> getDecisionGroup(int clientId, int projectId, int decisionGroupId) {
+    return clientContext.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId, new TypeReference<DecisionGroup>() {
+    }, null);
+  }
+
+  /**
+   * @see ABTest#createDecisionGroup(int, int, DecisionGroup)
+   */
+  public CompletableFuture<Integer> createDecisionGroup(int clientId, int projectId, DecisionGroup decisionGroup) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP, new TypeReference<Integer>() {
+    }, decisionGroup.toMap()), () -> ABTest.invalidateDecisionGroups(restConnector, clientId, projectId));
+  }
+
+  /**
+   * @see ABTest#updateDecisionGroup(int, int, int, DecisionGroup)
+   */
+  public CompletableFuture<Void> updateDecisionGroup(int clientId, int projectId, int decisionGroupId, DecisionGroup decisionGroup) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.PUT, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId, null, decisionGroup.toMap()), () -> ABTest.invalidateDecisionGroup(restConnector, clientId, projectId, decisionGroupId));
+  }
+
+  /**
+   * @see ABTest#deleteDecisionGroup(int, int, int)
+   */
+  public CompletableFuture<Void> deleteDecisionGroup(int clientId, int projectId, int decisionGroupId) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.DELETE, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId, null, null), () -> ABTest.invalidateDecisionGroup(restConnector, clientId, projectId, decisionGroupId));
+  }
+
+  /**
+   * @see ABTest#startDecisionGroup(int, int, int)
+   */
+  public CompletableFuture<Boolean> startDecisionGroup(int clientId, int projectId, int decisionGroupId) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId + START, new TypeReference<Boolean>() {
+    }, null), () -> ABTest.invalidateDecisionGroup(restConnector, clientId, projectId, decisionGroupId));
+  }
+
+  /**
+   * @see ABTest#stopDecisionGroup(int, int, int)
+   */
+  public CompletableFuture<Boolean> stopDecisionGroup(int clientId, int projectId, int decisionGroupId) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId + STOP, new TypeReference<Boolean>() {
+    }, null), () -> ABTest.invalidateDecisionGroup(restConnector, clientId, projectId, decisionGroupId));
+  }
+
+  /**
+   * @see ABTest#restartDecisionGroup(int, int, int)
+   */
+  public CompletableFuture<Boolean> restartDecisionGroup(int clientId, int projectId, int decisionGroupId) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + DECISIONGROUP + decisionGroupId + RESTART, new TypeReference<Boolean>() {
+    }, null), () -> ABTest.invalidateDecisionGroup(restConnector, clientId, projectId, decisionGroupId));
+  }
+
+  /**
+   * @see ABTest#getDecisions(int, int, int, String, String)
+   */
+  public CompletableFuture<List<Decision>> getDecisions(int clientId, int projectId, int decisionGroupId, String sort, String filter) {
+    return clientContext.callServiceAsync(HttpMethod.GET, getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISIONS, new TypeReference<List<Decision>>() {
+    }, getSortQueryParameters(sort), null);
+  }
+
+  public CompletableFuture<List<Decision>> getDecisions(int clientId, int projectId, String sort, String filter) {
+    return getDecisions(clientId, projectId, -1, sort, filter);
+  }
+
+  /**
+   * @see ABTest#getDecision(int, int, int, int)
+   */
+  public CompletableFuture<Decision> getDecision(int clientId, int projectId, int decisionGroupId, int decisionId) {
+    return clientContext.callServiceAsync(HttpMethod.GET, getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISION + decisionId, new TypeReference<Decision>() {
+    }, null);
+  }
+
+  /**
+   * @see ABTest#createDecision(int, int, int, Decision)
+   */
+  public CompletableFuture<Integer> createDecision(int clientId, int projectId, int decisionGroupId, Decision decision) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.POST, getDecisionBasePath(clientId, projectId, decisionGroupId) + "/decision", new TypeReference<Integer>() {
+    }, decision.toMap()), () -> ABTest.invalidateDecisions(restConnector, clientId, projectId, decisionGroupId));
+  }
+
+  public CompletableFuture<Integer> createDecision(int clientId, int projectId, Decision decision) {
+    return createDecision(clientId, projectId, -1, decision);
+  }
+
+  /**
+   * @see ABTest#updateDecision(int, int, int, int, Decision)
+   */
+  public CompletableFuture<Void> updateDecision(int clientId, int projectId, int decisionId, int decisionGroupId, Decision decision) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.PUT, getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISION + decisionId, null, decision.toMap()), () -> ABTest.invalidateDecision(restConnector, clientId, projectId, decisionGroupId, decisionId));
+  }
+
+  public CompletableFuture<Void> updateDecision(int clientId, int projectId, int decisionId, Decision decision) {
+    return updateDecision(clientId, projectId, decisionId, -1, decision);
+  }
+
+  /**
+   * @see ABTest#deleteDecision(int, int, int, int)
+   */
+  public CompletableFuture<Void> deleteDecision(int clientId, int projectId, int decisionGroupId, int decisionId) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.DELETE, getDecisionBasePath(clientId, projectId, decisionGroupId) + DECISION + decisionId, null, null), () -> ABTest.invalidateDecision(restConnector, clientId, projectId, decisionGroupId, decisionId));
+  }
+
+  public CompletableFuture<Void> deleteDecision(int clientId, int projectId, int decisionId) {
+    return deleteDecision(clientId, projectId, -1, decisionId);
+  }
+
+  /**
+   * @see ABTest#getGoals(int, int)
+   */
+  public CompletableFuture<List<Goal>> getGoals(int clientId, int projectId) {
+    return clientContext.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + "/goals", new TypeReference<List<Goal>>() {
+    }, null);
+  }
+
+  /**
+   * @see ABTest#getGoal(int, int, int)
+   */
+  public CompletableFuture<Goal> getGoal(int clientId, int projectId, int goalId) {
+    return clientContext.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + GOAL + goalId, new TypeReference<Goal>() {
+    }, null);
+  }
+
+  /**
+   * @see ABTest#createGoal(int, int, Goal)
+   */
+  public CompletableFuture<Integer> createGoal(int clientId, int projectId, Goal goal) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.POST, ACCOUNT + clientId + PROJECT + projectId + "/goal", new TypeReference<Integer>() {
+    }, goal.getGoalForRemoteCreation()), () -> ABTest.invalidateGoals(restConnector, clientId, projectId));
+  }
+
+  /**
+   * @see ABTest#updateGoal(int, int, int, Goal)
+   */
+  public CompletableFuture<Void> updateGoal(int clientId, int projectId, int goalId, Goal goal) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.PUT, ACCOUNT + clientId + PROJECT + projectId + GOAL + goalId, null, goal.getGoalForRemoteUpdate()), () -> ABTest.invalidateGoal(restConnector, clientId, projectId, goalId));
+  }
+
+  /**
+   * @see ABTest#deleteGoal(int, int, int)
+   */
+  public CompletableFuture<Void> deleteGoal(int clientId, int projectId, int goalId) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.DELETE, ACCOUNT + clientId + PROJECT + projectId + GOAL + goalId, null, null), () -> ABTest.invalidateGoal(restConnector, clientId, projectId, goalId));
+  }
+
+  /**
+   * @see ABTest#getRules(int)
+   */
+  public CompletableFuture<List<Rule>> getRules(int clientId) {
+    return clientContext.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId + "/rules", new TypeReference<List<Rule>>() {
+    }, null);
+  }
+
+  /**
+   * @see ABTest#getRule(int, int)
+   */
+  public CompletableFuture<Rule> getRule(int clientId, int ruleId) {
+    return clientContext.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId + RULE + ruleId, new TypeReference<Rule>() {
+    }, null);
+  }
+
+  /**
+   * @see ABTest#createRule(int, Rule)
+   */
+  public CompletableFuture<Integer> createRule(int clientId, Rule rule) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.POST, ACCOUNT + clientId + "/rule", new TypeReference<Integer>() {
+    }, rule.getRuleForRemoteCreation()), () -> ABTest.invalidateRules(restConnector, clientId));
+  }
+
+  /**
+   * @see ABTest#updateRule(int, int, Rule)
+   */
+  public CompletableFuture<Void> updateRule(int clientId, int ruleId, Rule rule) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.PUT, ACCOUNT + clientId + RULE + ruleId, null, rule.getRuleForRemoteUpdate()), () -> ABTest.invalidateRule(restConnector, clientId, ruleId));
+  }
+
+  /**
+   * @see ABTest#deleteRule(int, int)
+   */
+  public CompletableFuture<Void> deleteRule(int clientId, int ruleId) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.DELETE, ACCOUNT + clientId + RULE + ruleId, null, null), () -> ABTest.invalidateRule(restConnector, clientId, ruleId));
+  }
+
+  /**
+   * @see ABTest#getConditions(int, int)
+   */
+  public CompletableFuture<List<Condition>> getConditions(int clientId, int ruleId) {
+    return clientContext.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId + RULE + ruleId + "/conditions", new TypeReference<List<Condition>>() {
+    }, null);
+  }
+
+  /**
+   * @see ABTest#getCondition(int, int, int)
+   */
+  public CompletableFuture<Condition> getCondition(int clientId, int ruleId, int conditionId) {
+    return clientContext.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId + RULE + ruleId + CONDITION + conditionId, new TypeReference<Condition>() {
+    }, null);
+  }
+
+  /**
+   * @see ABTest#createCondition(int, int, Condition)
+   */
+  public CompletableFuture<Integer> createCondition(int clientId, int ruleId, Condition condition) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.POST, ACCOUNT + clientId + RULE + ruleId + "/condition", new TypeReference<Integer>() {
+    }, condition.getConditionForRemoteCreation()), () -> ABTest.invalidateRule(restConnector, clientId, ruleId));
+  }
+
+  /**
+   * @see ABTest#updateCondition(int, int, int, Condition)
+   */
+  public CompletableFuture<Void> updateCondition(int clientId, int ruleId, int conditionId, Condition condition) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.PUT, ACCOUNT + clientId + RULE + ruleId + CONDITION + conditionId, null, condition.getConditionForRemoteUpdate()), () -> ABTest.invalidateRule(restConnector, clientId, ruleId));
+  }
+
+  /**
+   * @see ABTest#deleteCondition(int, int, int)
+   */
+  public CompletableFuture<Void> deleteCondition(int clientId, int ruleId, int conditionId) {
+    return invalidateOnCompletion(clientContext.callServiceAsync(HttpMethod.DELETE, ACCOUNT + clientId + RULE + ruleId + CONDITION + conditionId, null, null), () -> ABTest.invalidateRule(restConnector, clientId, ruleId));
+  }
+
+  /**
+   * @see ABTest#getTrend(int, int, Calendar, int, int)
+   */
+  public CompletableFuture<Trend> getTrend(int clientId, int projectId, Calendar end, int entries, int goalId) {
+    Map<String, Object> queryParameters = ABTest.getTrendQueryParameters(end, entries, goalId);
+    CompletableFuture<Map<Calendar, Map<String, DataSet>>> result = clientContext.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + "/trend/", new TypeReference<Map<Calendar, Map<String, DataSet>>>() {
+    }, queryParameters, null);
+    return result.thenApply(Trend::new);
+  }
+
+  /**
+   * @see ABTest#getTrendSeries(int, int, Calendar, int, int)
+   */
+  public CompletableFuture<TrendSeries> getTrendSeries(int clientId, int projectId, Calendar end, int entries, int goalId) {
+    Map<String, Object> queryParameters = ABTest.getTrendQueryParameters(end, entries, goalId);
+    CompletableFuture<TrendSeries> result = clientContext.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + "/trend/", new TypeReference<TrendSeries>() {
+    }, queryParameters, null);
+    return result.thenApply(series -> series != null ? series : TrendSeries.EMPTY);
+  }
+
+  /**
+   * Invalidates cached responses once the write operation has completed, before any stage the caller attaches
+   * to the returned future runs.
+   */
+  private static <T> CompletableFuture<T> invalidateOnCompletion(final CompletableFuture<T> call, final Runnable invalidation) {
+    final CompletableFuture<T> result = call.whenComplete((value, throwable) -> invalidation.run());
+    result.whenComplete((value, throwable) -> {
+      if (result.isCancelled()) {
+        call.cancel(false);
+      }
+    });
+    return result;
+  }
+}
@@ -0,0 +1,402 @@
+package de.blacktri.restapi.crawl;
+
+import de.blacktri.restapi.ABTest;
+import de.blacktri.restapi.httpclient.CallOptions;
+import de.blacktri.restapi.httpclient.ClientContext;
+import de.blacktri.restapi.json.ApiDateFormat;
+import de.blacktri.restapi.pojos.DataSet;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.DecisionGroup;
+import de.blacktri.restapi.pojos.Goal;
+import de.blacktri.restapi.pojos.Project;
+import org.codehaus.jackson.type.TypeReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import static de.blacktri.restapi.ABTest.ACCOUNT;
+import static de.blacktri.restapi.ABTest.DECISIONGROUP;
+import static de.blacktri.restapi.ABTest.DECISIONGROUPS;
+import static de.blacktri.restapi.ABTest.DECISIONS;
+import static de.blacktri.restapi.ABTest.PROJECT;
+
+/**
+ * Crawls every project of an account into a snapshot on disk.
+ * <p/>
+ * The crawl logs in with the credentials of the given {@link ABTest}, lists the projects of the account and then
+ * stores each project with its goals, decisions, decision groups and trend as a {@link ProjectSnapshot}. For a
+ * tenant the project list includes the projects of its clients; they are crawled through the tenant's account.
+ * <p/>
+ * Projects are crawled in a {@link ForkJoinPool}: every project is a task that forks one task per call, and idle
+ * workers steal the calls of other projects, so a project with many decision groups does not hold up the rest.
+ * The number of calls in flight never exceeds {@link #setConcurrency(int) the concurrency}, even while a worker
+ * waits for the calls it forked. Calls go through the connector and therefore through its
+ * {@link de.blacktri.restapi.httpclient.ratelimit.RateLimiter}, retries and circuit breakers; configure the rate
+ * limiter to keep a crawl from crowding out other users of the API key.
+ * <p/>
+ * The snapshot is consistent: the project list and the end of the trends are fixed when a snapshot is started, and
+ * it is only published once every project has been stored (see {@link SnapshotStore}). Projects that could not be
+ * crawled are reported in the {@link CrawlResult}; crawling the same snapshot id again resumes with exactly these
+ * projects and publishes the snapshot once they succeed.
+ */
+public class AccountCrawler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AccountCrawler.class);
+
+  private static final TypeReference<Integer> ACCOUNT_ID = new TypeReference<Integer>() {
+  };
+  private static final TypeReference<List<Project>> PROJECTS = new TypeReference<List<Project>>() {
+  };
+  private static final TypeReference<List<Goal>> GOALS = new TypeReference<List<Goal>>() {
+  };
+  private static final TypeReference<List<Decision>> DECISION_LIST = new TypeReference<List<Decision>>() {
+  };
+  private static final TypeReference<List<DecisionGroup>> DECISION_GROUPS = new TypeReference<List<DecisionGroup>>() {
+  };
+  private static final TypeReference<Map<Calendar, Map<String, DataSet>>> TREND = new TypeReference<Map<Calendar, Map<String, DataSet>>>() {
+  };
+
+  private final ABTest api;
+  private final Path target;
+
+  private int concurrency = 8;
+  private int trendEntries = 30;
+
+  /**
+   * @param target directory the snapshots are written to, one sub directory per snapshot id
+   */
+  public AccountCrawler(ABTest api, Path target) {
+    this.api = api;
+    this.target = target;
+  }
+
+  /**
+   * Crawls the projects of the client the credentials belong to.
+   *
+   * @param snapshotId name of the snapshot directory; an incomplete snapshot with this id is resumed
+   * @throws IllegalStateException if the snapshot has already been published or belongs to another account, or if
+   *                               the login or the list of projects fails; nothing is stored in that case
+   */
+  public CrawlResult crawlClient(String snapshotId) throws IOException {
+    return crawl(snapshotId, "api-client");
+  }
+
+  /**
+   * Crawls the projects of the tenant the credentials belong to and of its clients.
+   *
+   * @see #crawlClient(String)
+   */
+  public CrawlResult crawlTenant(String snapshotId) throws IOException {
+    return crawl(snapshotId, "api-tenant");
+  }
+
+  private CrawlResult crawl(String snapshotId, String userType) throws IOException {
+    SnapshotStore store = new SnapshotStore(api.getRestConnector().getJsonCodec(), target, snapshotId);
+    if (store.isPublished()) {
+      throw new IllegalStateException("Snapshot " + snapshotId + " has already been published to " + store.getPublished());
+    }
+    store.removeTemporaryFiles();
+    Crawl crawl = new Crawl(store);
+    long started = System.currentTimeMillis();
+    Map<Integer, String> failures = new TreeMap<>();
+
+    Integer accountId;
+    try {
+      accountId = crawl.call(HttpMethod.POST, "login", ACCOUNT_ID, Collections.<String, Object>emptyMap(), loginBody(userType));
+    } catch (CallFailedException e) {
+      throw new IllegalStateException("Unable to log in as " + userType, e);
+    }
+    if (accountId == null) {
+      throw new IllegalStateException("Login as " + userType + " returned no account id");
+    }
+    Properties parameters = store.readParameters();
+    if (parameters == null) {
+      parameters = new Properties();
+      parameters.setProperty("accountId", String.valueOf(accountId));
+      parameters.setProperty("userType", userType);
+      parameters.setProperty("end", String.valueOf(started));
+      parameters.setProperty("trendEntries", String.valueOf(trendEntries));
+      store.writeParameters(parameters);
+    } else if (!String.valueOf(accountId).equals(parameters.getProperty("accountId"))
+            || !userType.equals(parameters.getProperty("userType"))) {
+      throw new IllegalStateException("Snapshot " + snapshotId + " was started for " + parameters.getProperty("userType")
+              + " " + parameters.getProperty("accountId") + ", not for " + userType + " " + accountId);
+    }
+    crawl.end = Long.parseLong(parameters.getProperty("end"));
+    crawl.trendEntries = Integer.parseInt(parameters.getProperty("trendEntries"));
+
+    List<Project> projects = store.readProjects();
+    if (projects == null) {
+      try {
+        projects = crawl.call(HttpMethod.GET, ACCOUNT + accountId + "/projects", PROJECTS, Collections.<String, Object>emptyMap(), null);
+      } catch (CallFailedException e) {
+        throw new IllegalStateException("Unable to list the projects of " + userType + " " + accountId, e);
+      }
+      if (projects == null) {
+        projects = Collections.emptyList();
+      }
+      store.writeProjects(projects);
+    }
+
+    List<Crawl.ProjectTask> tasks = new ArrayList<>();
+    int resumed = 0;
+    for (Project project : projects) {
+      if (store.hasProject(project.getId())) {
+        resumed++;
+      } else {
+        tasks.add(crawl.new ProjectTask(accountId, project));
+      }
+    }
+    LOG.info("Crawling {} of {} projects of {} {} into {}", tasks.size(), projects.size(), userType, accountId, store.getStaging());
+
+    ForkJoinPool pool = new ForkJoinPool(concurrency);
+    try {
+      pool.invoke(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          invokeAll(tasks);
+        }
+      });
+    } finally {
+      pool.shutdown();
+    }
+    for (Crawl.ProjectTask task : tasks) {
+      if (task.failure != null) {
+        failures.put(task.project.getId(), task.failure);
+      }
+    }
+
+    boolean complete = failures.isEmpty();
+    if (complete) {
+      Map<String, Object> manifest = new LinkedHashMap<>();
+      manifest.put("snapshotId", snapshotId);
+      manifest.put("accountId", accountId);
+      manifest.put("userType", userType);
+      manifest.put("end", ApiDateFormat.getDefault().format(crawl.end));
+      manifest.put("trendEntries", crawl.trendEntries);
+      manifest.put("projects", projects.size());
+      manifest.put("published", ApiDateFormat.getDefault().format(System.currentTimeMillis()));
+      store.publish(manifest);
+    }
+    CrawlResult result = new CrawlResult(snapshotId, complete ? store.getPublished() : store.getStaging(), complete,
+            projects.size(), resumed, failures, crawl.calls.sum(), System.currentTimeMillis() - started);
+    if (complete) {
+      LOG.info("Published {}", result);
+    } else {
+      LOG.warn("{}, crawl again to resume; failed projects: {}", result, failures);
+    }
+    return result;
+  }
+
+  private Map<String, Object> loginBody(String userType) {
+    ClientContext context = api.getClientContext();
+    Map<String, Object> body = new HashMap<>();
+    body.put("apikey", context.getApiKey());
+    body.put("apisecret", context.getApiSecret());
+    body.put("usertype", userType);
+    return body;
+  }
+
+  public int getConcurrency() {
+    return concurrency;
+  }
+
+  /**
+   * Maximum number of calls in flight, and the parallelism of the crawl. The default is 8.
+   */
+  public void setConcurrency(int concurrency) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+    }
+    this.concurrency = concurrency;
+  }
+
+  public int getTrendEntries() {
+    return trendEntries;
+  }
+
+  /**
+   * Number of days of the trend stored per project. The default is 30. A resumed crawl keeps the number of the run
+   * that started the snapshot.
+   */
+  public void setTrendEntries(int trendEntries) {
+    this.trendEntries = trendEntries;
+  }
+
+  /**
+   * A {@code 204 No Content} answer to a list request means an empty list.
+   */
+  private static <T> List<T> nonNull(List<T> list) {
+    return list != null ? list : Collections.<T>emptyList();
+  }
+
+  /**
+   * Thrown by a call that failed, with the reason the connector recorded.
+   */
+  private static class CallFailedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    CallFailedException(String message, Throwable cause) {
+      super(message, cause);
+    }
+  }
+
+  /**
+   * State of one run.
+   */
+  private class Crawl {
+
+    private final SnapshotStore store;
+    private final Semaphore permits = new Semaphore(concurrency);
+    private final LongAdder calls = new LongAdder();
+    private long end;
+    private int trendEntries;
+
+    Crawl(SnapshotStore store) {
+      this.store = store;
+    }
+
+    /**
+     * Makes one call, holding a permit while it is in flight. Blocking calls return {@code null} on errors, so the
+     * outcome is taken from the {@link CallOptions}.
+     *
+     * @throws CallFailedException if the call failed
+     */
+    <T> T call(HttpMethod method, String path, TypeReference<?> type, Map<String, Object> queryParameters, Object body) {
+      CallOptions options = new CallOptions();
+      T result;
+      permits.acquireUninterruptibly();
+      try {
+        result = api.getClientContext().callService(method, path, type, queryParameters,
+                Collections.<String, String>emptyMap(), body, options);
+      } finally {
+        permits.release();
+        calls.add(options.getAttempts());
+      }
+      if (options.getLastFailure() != null) {
+        throw new CallFailedException(method + " " + path + ": " + options.getLastFailure().getMessage(), options.getLastFailure());
+      }
+      if (result == null && (options.isCoalesced() || Thread.currentThread().isInterrupted())) {
+        // the outcome of a coalesced call is only recorded on the options of the call it joined
+        throw new CallFailedException(method + " " + path + ": no result", null);
+      }
+      return result;
+    }
+
+    /**
+     * One GET; a failure is kept instead of thrown, so joining the task never throws.
+     */
+    private class CallTask<T> extends RecursiveTask<T> {
+
+      private static final long serialVersionUID = 1L;
+
+      private final String path;
+      private final TypeReference<?> type;
+      private final Map<String, Object> queryParameters;
+      private volatile String failure;
+
+      CallTask(String path, TypeReference<?> type, Map<String, Object> queryParameters) {
+        this.path = path;
+        this.type = type;
+        this.queryParameters = queryParameters;
+      }
+
+      @Override
+      protected T compute() {
+        try {
+          return call(HttpMethod.GET, path, type, queryParameters, null);
+        } catch (RuntimeException e) {
+          failure = e.getMessage();
+          return null;
+        }
+      }
+    }
+
+    private <T> CallTask<T> task(String path, TypeReference<?> type) {
+      return new CallTask<>(path, type, Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * Crawls one project and stores it if every call succeeded.
+     */
+    class ProjectTask extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final int accountId;
+      private final Project project;
+      private volatile String failure;
+
+      ProjectTask(int accountId, Project project) {
+        this.accountId = accountId;
+        this.project = project;
+      }
+
+      @Override
+      protected void compute() {
+        String path = ACCOUNT + accountId + PROJECT + project.getId();
+        Map<String, Object> trendParameters = new HashMap<>();
+        trendParameters.put("end", ApiDateFormat.getDefault().format(end));
+        trendParameters.put("entries", trendEntries);
+
+        CallTask<List<Goal>> goals = task(path + "/goals", GOALS);
+        CallTask<List<Decision>> decisions = task(path + DECISIONS, DECISION_LIST);
+        CallTask<List<DecisionGroup>> groups = task(path + DECISIONGROUPS, DECISION_GROUPS);
+        CallTask<Map<Calendar, Map<String, DataSet>>> trend = new CallTask<>(path + "/trend/", TREND, trendParameters);
+        invokeAll(goals, decisions, groups, trend);
+
+        List<ProjectSnapshot.DecisionGroupSnapshot> groupSnapshots = new ArrayList<>();
+        List<CallTask<List<Decision>>> groupDecisions = new ArrayList<>();
+        for (DecisionGroup group : nonNull(groups.join())) {
+          groupSnapshots.add(new ProjectSnapshot.DecisionGroupSnapshot(group));
+          groupDecisions.add(Crawl.this.<List<Decision>>task(path + DECISIONGROUP + group.getId() + DECISIONS, DECISION_LIST));
+        }
+        invokeAll(groupDecisions);
+
+        List<CallTask<?>> all = new ArrayList<CallTask<?>>(Arrays.asList(goals, decisions, groups, trend));
+        all.addAll(groupDecisions);
+        for (CallTask<?> task : all) {
+          if (task.failure != null) {
+            failure = task.failure;
+            return;
+          }
+        }
+        for (int i = 0; i < groupSnapshots.size(); i++) {
+          groupSnapshots.get(i).setDecisions(nonNull(groupDecisions.get(i).join()));
+        }
+        ProjectSnapshot snapshot = new ProjectSnapshot();
+        snapshot.setAccountId(accountId);
+        snapshot.setProject(project);
+        snapshot.setGoals(nonNull(goals.join()));
+        snapshot.setDecisions(nonNull(decisions.join()));
+        snapshot.setDecisionGroups(groupSnapshots);
+        snapshot.setTrend(trend.join() != null ? trend.join() : Collections.<Calendar, Map<String, DataSet>>emptyMap());
+        try {
+          store.writeProject(snapshot);
+        } catch (IOException e) {
+          LOG.error("Unable to store project {}", project.getId(), e);
+          failure = "unable to store project: " + e;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package de.blacktri.restapi.crawl;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Outcome of one run of an {@link AccountCrawler}.
+ */
+public class CrawlResult {
+
+  private final String snapshotId;
+  private final Path directory;
+  private final boolean complete;
+  private final int projects;
+  private final int resumed;
+  private final Map<Integer, String> failures;
+  private final long calls;
+  private final long elapsedMillis;
+
+  CrawlResult(String snapshotId, Path directory, boolean complete, int projects, int resumed,
+              Map<Integer, String> failures, long calls, long elapsedMillis) {
+    this.snapshotId = snapshotId;
+    this.directory = directory;
+    this.complete = complete;
+    this.projects = projects;
+    this.resumed = resumed;
+    this.failures = Collections.unmodifiableMap(failures);
+    this.calls = calls;
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public String getSnapshotId() {
+    return snapshotId;
+  }
+
+  /**
+   * The published snapshot if the crawl is complete, otherwise the staging directory a later run resumes from.
+   */
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Whether every project was crawled and the snapshot has been published.
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Number of projects in the snapshot.
+   */
+  public int getProjectCount() {
+    return projects;
+  }
+
+  /**
+   * Number of projects taken over from an earlier, interrupted run.
+   */
+  public int getResumedCount() {
+    return resumed;
+  }
+
+  /**
+   * Projects that could not be crawled in this run by id, with the first failure.
+   */
+  public Map<Integer, String> getFailures() {
+    return failures;
+  }
+
+  /**
+   * Number of API calls made in this run.
+   */
+  public long getCalls() {
+    return calls;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+
+  public double getCallsPerSecond() {
+    return elapsedMillis == 0 ? 0 : calls * 1000.0 / elapsedMillis;
+  }
+
+  @Override
+  public String toString() {
+    return "CrawlResult{" + snapshotId + (complete ? " complete" : " incomplete") + ", projects=" + projects
+            + ", resumed=" + resumed + ", failed=" + failures.size() + ", calls=" + calls + " in " + elapsedMillis
+            + " ms (" + String.format("%.1f", getCallsPerSecond()) + "/s)}";
+  }
+}
@@ -0,0 +1,114 @@
+package de.blacktri.restapi.crawl;
+
+import de.blacktri.restapi.pojos.DataSet;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.DecisionGroup;
+import de.blacktri.restapi.pojos.Goal;
+import de.blacktri.restapi.pojos.Project;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything an {@link AccountCrawler} stores about one project, written as {@code project-<id>.json} into the
+ * snapshot directory and read back with the connector's {@link de.blacktri.restapi.httpclient.JsonCodec}.
+ */
+public class ProjectSnapshot {
+
+  private int accountId;
+  private Project project;
+  private List<Goal> goals;
+  private List<Decision> decisions;
+  private List<DecisionGroupSnapshot> decisionGroups;
+  private Map<Calendar, Map<String, DataSet>> trend;
+
+  /**
+   * The account the project was crawled through.
+   */
+  public int getAccountId() {
+    return accountId;
+  }
+
+  public void setAccountId(int accountId) {
+    this.accountId = accountId;
+  }
+
+  public Project getProject() {
+    return project;
+  }
+
+  public void setProject(Project project) {
+    this.project = project;
+  }
+
+  public List<Goal> getGoals() {
+    return goals;
+  }
+
+  public void setGoals(List<Goal> goals) {
+    this.goals = goals;
+  }
+
+  /**
+   * The decisions of the project that do not belong to a decision group.
+   */
+  public List<Decision> getDecisions() {
+    return decisions;
+  }
+
+  public void setDecisions(List<Decision> decisions) {
+    this.decisions = decisions;
+  }
+
+  public List<DecisionGroupSnapshot> getDecisionGroups() {
+    return decisionGroups;
+  }
+
+  public void setDecisionGroups(List<DecisionGroupSnapshot> decisionGroups) {
+    this.decisionGroups = decisionGroups;
+  }
+
+  /**
+   * The trend up to the end of the snapshot, as returned by {@link de.blacktri.restapi.ABTest#getTrend}.
+   */
+  public Map<Calendar, Map<String, DataSet>> getTrend() {
+    return trend;
+  }
+
+  public void setTrend(Map<Calendar, Map<String, DataSet>> trend) {
+    this.trend = trend;
+  }
+
+  /**
+   * A decision group with its decisions.
+   */
+  public static class DecisionGroupSnapshot {
+
+    private DecisionGroup decisionGroup;
+    private List<Decision> decisions;
+
+    public DecisionGroupSnapshot() {
+    }
+
+    DecisionGroupSnapshot(DecisionGroup decisionGroup) {
+      this.decisionGroup = decisionGroup;
+    }
+
+    public DecisionGroup getDecisionGroup() {
+      return decisionGroup;
+    }
+
+    public void setDecisionGroup(DecisionGroup decisionGroup) {
+      this.decisionGroup = decisionGroup;
+    }
+
+    public List<Decision> getDecisions() {
+      return decisions;
+    }
+
+    public void setDecisions(List<Decision> decisions) {
+      this.decisions = decisions;
+    }
+  }
+}
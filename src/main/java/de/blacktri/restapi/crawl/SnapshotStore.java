@@ -0,0 +1,157 @@
+package de.blacktri.restapi.crawl;
+
+import de.blacktri.restapi.httpclient.JsonCodec;
+import de.blacktri.restapi.pojos.Project;
+import org.codehaus.jackson.type.TypeReference;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * File layout of a snapshot.
+ * <p/>
+ * A crawl writes into the hidden staging directory {@code .<snapshotId>.partial} below the target directory. The
+ * parameters of the crawl and the list of projects are stored first, then one {@code project-<id>.json} per
+ * project. Every file is written to a temporary file and moved into place, so a crawl that dies leaves only
+ * complete files behind and a later run can pick up where it stopped. Once all projects are stored, the manifest
+ * {@code snapshot.json} is added and the staging directory is renamed to {@code <snapshotId>} in one step; readers
+ * never see a snapshot that is incomplete.
+ */
+class SnapshotStore {
+
+  static final String PARAMETERS = "crawl.properties";
+  static final String PROJECTS = "projects.json";
+  static final String MANIFEST = "snapshot.json";
+
+  private static final TypeReference<List<Project>> PROJECT_LIST = new TypeReference<List<Project>>() {
+  };
+
+  private final JsonCodec codec;
+  private final Path published;
+  private final Path staging;
+
+  SnapshotStore(JsonCodec codec, Path target, String snapshotId) {
+    if (snapshotId.isEmpty() || snapshotId.startsWith(".") || snapshotId.contains("/") || snapshotId.contains("\\")) {
+      throw new IllegalArgumentException("Invalid snapshot id: " + snapshotId);
+    }
+    this.codec = codec;
+    this.published = target.resolve(snapshotId);
+    this.staging = target.resolve("." + snapshotId + ".partial");
+  }
+
+  Path getPublished() {
+    return published;
+  }
+
+  Path getStaging() {
+    return staging;
+  }
+
+  boolean isPublished() {
+    return Files.isDirectory(published);
+  }
+
+  /**
+   * Deletes the temporary files an interrupted run may have left in the staging directory.
+   */
+  void removeTemporaryFiles() throws IOException {
+    if (!Files.isDirectory(staging)) {
+      return;
+    }
+    try (DirectoryStream<Path> temporaryFiles = Files.newDirectoryStream(staging, "*.tmp")) {
+      for (Path file : temporaryFiles) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  /**
+   * @return the parameters of an earlier run, {@code null} if no crawl has been started for the snapshot
+   */
+  Properties readParameters() throws IOException {
+    Path file = staging.resolve(PARAMETERS);
+    if (!Files.exists(file)) {
+      return null;
+    }
+    Properties parameters = new Properties();
+    try (InputStream in = Files.newInputStream(file)) {
+      parameters.load(in);
+    }
+    return parameters;
+  }
+
+  void writeParameters(Properties parameters) throws IOException {
+    Files.createDirectories(staging);
+    write(PARAMETERS, out -> parameters.store(out, null));
+  }
+
+  /**
+   * @return the projects listed by an earlier run, {@code null} if they have not been listed yet
+   */
+  List<Project> readProjects() throws IOException {
+    Path file = staging.resolve(PROJECTS);
+    if (!Files.exists(file)) {
+      return null;
+    }
+    try (InputStream in = Files.newInputStream(file)) {
+      return codec.read(in, PROJECT_LIST);
+    }
+  }
+
+  void writeProjects(List<Project> projects) throws IOException {
+    write(PROJECTS, out -> codec.getMapper().writerWithType(PROJECT_LIST).writeValue(out, projects));
+  }
+
+  boolean hasProject(int projectId) {
+    return Files.exists(staging.resolve(projectFile(projectId)));
+  }
+
+  void writeProject(ProjectSnapshot snapshot) throws IOException {
+    write(projectFile(snapshot.getProject().getId()), out -> codec.write(snapshot, out));
+  }
+
+  /**
+   * Adds the manifest and moves the staging directory to its final name.
+   */
+  void publish(Object manifest) throws IOException {
+    write(MANIFEST, out -> codec.write(manifest, out));
+    move(staging, published);
+  }
+
+  static String projectFile(int projectId) {
+    return "project-" + projectId + ".json";
+  }
+
+  private void write(String name, Writer writer) throws IOException {
+    Path file = staging.resolve(name);
+    Path temp = Files.createTempFile(staging, name, ".tmp");
+    try {
+      try (OutputStream out = Files.newOutputStream(temp)) {
+        writer.write(out);
+      }
+      move(temp, file);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private static void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private interface Writer {
+    void write(OutputStream out) throws IOException;
+  }
+}
@@ -0,0 +1,33 @@
+package de.blacktri.restapi.graph;
+
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.DecisionGroup;
+
+import java.util.List;
+
+/**
+ * A decision group of a {@link ProjectGraph} with its decisions.
+ */
+public final class DecisionGroupGraph {
+
+  private final DecisionGroup decisionGroup;
+  private final GraphNode<List<Decision>> decisions;
+
+  DecisionGroupGraph(DecisionGroup decisionGroup, GraphNode<List<Decision>> decisions) {
+    this.decisionGroup = decisionGroup;
+    this.decisions = decisions;
+  }
+
+  public DecisionGroup getDecisionGroup() {
+    return decisionGroup;
+  }
+
+  public GraphNode<List<Decision>> getDecisions() {
+    return decisions;
+  }
+
+  @Override
+  public String toString() {
+    return "DecisionGroupGraph{" + decisionGroup.getId() + ", decisions=" + decisions + '}';
+  }
+}
@@ -0,0 +1,73 @@
+package de.blacktri.restapi.graph;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Result of loading one part of a {@link ProjectGraph}: either the value or the failure of the call that should
+ * have loaded it.
+ */
+public final class GraphNode<T> {
+
+  private final String name;
+  private final T value;
+  private final Throwable failure;
+
+  private GraphNode(String name, T value, Throwable failure) {
+    this.name = name;
+    this.value = value;
+    this.failure = failure;
+  }
+
+  static <T> GraphNode<T> loaded(String name, T value) {
+    return new GraphNode<>(name, value, null);
+  }
+
+  static <T> GraphNode<T> failed(String name, Throwable failure) {
+    while ((failure instanceof CompletionException || failure instanceof ExecutionException) && failure.getCause() != null) {
+      failure = failure.getCause();
+    }
+    return new GraphNode<>(name, null, failure);
+  }
+
+  /**
+   * Identifies the node in the graph, e.g. {@code decisionGroup/12/decisions}.
+   */
+  public String getName() {
+    return name;
+  }
+
+  public boolean isLoaded() {
+    return failure == null;
+  }
+
+  /**
+   * @throws NoSuchElementException if the node could not be loaded, with the failure as cause
+   */
+  public T get() {
+    if (failure != null) {
+      throw new NoSuchElementException(name + " could not be loaded: " + failure.getMessage());
+    }
+    return value;
+  }
+
+  /**
+   * @return the value or {@code other} if the node could not be loaded
+   */
+  public T orElse(T other) {
+    return failure == null ? value : other;
+  }
+
+  /**
+   * @return the failure, {@code null} if the node was loaded
+   */
+  public Throwable getFailure() {
+    return failure;
+  }
+
+  @Override
+  public String toString() {
+    return name + (failure == null ? "" : " failed: " + failure);
+  }
+}
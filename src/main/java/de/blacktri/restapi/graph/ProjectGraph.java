@@ -0,0 +1,93 @@
+package de.blacktri.restapi.graph;
+
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.Goal;
+import de.blacktri.restapi.pojos.Project;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A project with its goals, decisions and decision groups, as loaded by a {@link ProjectGraphLoader}.
+ * <p/>
+ * The graph itself is immutable. Every part is a {@link GraphNode}, so a failed call only leaves its own node
+ * empty and the rest of the graph usable. The pojos in the graph are shared with the connector's caches and must
+ * be treated as read-only.
+ */
+public final class ProjectGraph {
+
+  private final int clientId;
+  private final int projectId;
+  private final GraphNode<Project> project;
+  private final GraphNode<List<Goal>> goals;
+  private final GraphNode<List<Decision>> decisions;
+  private final GraphNode<List<DecisionGroupGraph>> decisionGroups;
+
+  ProjectGraph(int clientId, int projectId, GraphNode<Project> project, GraphNode<List<Goal>> goals,
+               GraphNode<List<Decision>> decisions, GraphNode<List<DecisionGroupGraph>> decisionGroups) {
+    this.clientId = clientId;
+    this.projectId = projectId;
+    this.project = project;
+    this.goals = goals;
+    this.decisions = decisions;
+    this.decisionGroups = decisionGroups;
+  }
+
+  public int getClientId() {
+    return clientId;
+  }
+
+  public int getProjectId() {
+    return projectId;
+  }
+
+  public GraphNode<Project> getProject() {
+    return project;
+  }
+
+  public GraphNode<List<Goal>> getGoals() {
+    return goals;
+  }
+
+  /**
+   * The decisions of the project that do not belong to a decision group.
+   */
+  public GraphNode<List<Decision>> getDecisions() {
+    return decisions;
+  }
+
+  public GraphNode<List<DecisionGroupGraph>> getDecisionGroups() {
+    return decisionGroups;
+  }
+
+  /**
+   * @return the nodes that could not be loaded, including the decisions of decision groups
+   */
+  public List<GraphNode<?>> getFailures() {
+    List<GraphNode<?>> failures = new ArrayList<>();
+    for (GraphNode<?> node : new GraphNode<?>[]{project, goals, decisions, decisionGroups}) {
+      if (!node.isLoaded()) {
+        failures.add(node);
+      }
+    }
+    for (DecisionGroupGraph decisionGroup : decisionGroups.orElse(Collections.<DecisionGroupGraph>emptyList())) {
+      if (!decisionGroup.getDecisions().isLoaded()) {
+        failures.add(decisionGroup.getDecisions());
+      }
+    }
+    return failures;
+  }
+
+  /**
+   * @return whether every node was loaded
+   */
+  public boolean isComplete() {
+    return getFailures().isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "ProjectGraph{" + clientId + "/" + projectId + ", failures=" + getFailures() + '}';
+  }
+}
@@ -0,0 +1,175 @@
+package de.blacktri.restapi.graph;
+
+import de.blacktri.restapi.ABTestAsync;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.DecisionGroup;
+import de.blacktri.restapi.pojos.Goal;
+import de.blacktri.restapi.pojos.Project;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Loads a {@link ProjectGraph} with concurrent calls.
+ * <p/>
+ * The project, its goals, its decisions and its decision groups are requested at once, the decisions of every
+ * decision group as soon as the groups are known. Instead of the sum of {@code 4 + N} round trips, loading a graph
+ * takes about as long as the slowest call plus the decisions of the slowest group.
+ * <p/>
+ * The number of calls in flight is bounded per loader, across all graphs it loads concurrently, so that a project
+ * with many decision groups neither exhausts the connection pool nor bursts against the API's rate limits. Calls
+ * beyond the bound are queued and started as earlier ones complete, without blocking any thread.
+ */
+public class ProjectGraphLoader {
+
+  private final ABTestAsync api;
+  private final int maxConcurrentCalls;
+
+  private final Queue<Runnable> queued = new ArrayDeque<>();
+  private int running;
+  /**
+   * Whether a thread is starting queued calls; calls that complete while it does so leave the next one to it.
+   */
+  private boolean draining;
+
+  public ProjectGraphLoader(ABTestAsync api) {
+    this(api, 8);
+  }
+
+  /**
+   * @param maxConcurrentCalls maximum number of calls in flight
+   */
+  public ProjectGraphLoader(ABTestAsync api, int maxConcurrentCalls) {
+    if (maxConcurrentCalls < 1) {
+      throw new IllegalArgumentException("maxConcurrentCalls must be positive: " + maxConcurrentCalls);
+    }
+    this.api = api;
+    this.maxConcurrentCalls = maxConcurrentCalls;
+  }
+
+  /**
+   * @return a future that completes with the graph once every call has completed; it never completes exceptionally,
+   * failed calls are reported by the nodes of the graph
+   */
+  public CompletableFuture<ProjectGraph> load(final int clientId, final int projectId) {
+    CompletableFuture<GraphNode<Project>> project = node("project",
+            submit(() -> api.getProject(clientId, projectId)));
+    CompletableFuture<GraphNode<List<Goal>>> goals = node("goals",
+            submit(() -> api.getGoals(clientId, projectId)).thenApply(ProjectGraphLoader::nonNull));
+    CompletableFuture<GraphNode<List<Decision>>> decisions = node("decisions",
+            submit(() -> api.getDecisions(clientId, projectId, null, null)).thenApply(ProjectGraphLoader::nonNull));
+    CompletableFuture<GraphNode<List<DecisionGroupGraph>>> decisionGroups = node("decisionGroups",
+            submit(() -> api.getDecisionGroups(clientId, projectId, null)).thenApply(ProjectGraphLoader::nonNull)
+                    .thenCompose(groups -> loadDecisions(clientId, projectId, groups)));
+    return CompletableFuture.allOf(project, goals, decisions, decisionGroups)
+            .thenApply(done -> new ProjectGraph(clientId, projectId, project.join(), goals.join(), decisions.join(),
+                    decisionGroups.join()));
+  }
+
+  /**
+   * Blocking variant of {@link #load(int, int)}.
+   */
+  public ProjectGraph get(int clientId, int projectId) {
+    return load(clientId, projectId).join();
+  }
+
+  private CompletableFuture<List<DecisionGroupGraph>> loadDecisions(final int clientId, final int projectId,
+                                                                    List<DecisionGroup> groups) {
+    final List<CompletableFuture<GraphNode<List<Decision>>>> decisions = new ArrayList<>(groups.size());
+    for (final DecisionGroup group : groups) {
+      decisions.add(node("decisionGroup/" + group.getId() + "/decisions",
+              submit(() -> api.getDecisions(clientId, projectId, group.getId(), null, null)).thenApply(ProjectGraphLoader::nonNull)));
+    }
+    return CompletableFuture.allOf(decisions.toArray(new CompletableFuture<?>[decisions.size()])).thenApply(done -> {
+      List<DecisionGroupGraph> graphs = new ArrayList<>(groups.size());
+      for (int i = 0; i < groups.size(); i++) {
+        graphs.add(new DecisionGroupGraph(groups.get(i), decisions.get(i).join()));
+      }
+      return Collections.unmodifiableList(graphs);
+    });
+  }
+
+  private static <T> CompletableFuture<GraphNode<T>> node(final String name, CompletableFuture<T> call) {
+    return call.handle((value, failure) -> failure == null ? GraphNode.loaded(name, value) : GraphNode.<T>failed(name, failure));
+  }
+
+  /**
+   * A {@code 204 No Content} answer to a list request means an empty list.
+   */
+  private static <T> List<T> nonNull(List<T> list) {
+    return list != null ? Collections.unmodifiableList(list) : Collections.<T>emptyList();
+  }
+
+  /**
+   * Starts the call now if fewer than the maximum number of calls are in flight, otherwise once one completes.
+   */
+  private <T> CompletableFuture<T> submit(final Supplier<CompletableFuture<T>> call) {
+    final CompletableFuture<T> result = new CompletableFuture<>();
+    Runnable start = () -> {
+      CompletableFuture<T> started;
+      try {
+        started = call.get();
+      } catch (RuntimeException e) {
+        started = new CompletableFuture<>();
+        started.completeExceptionally(e);
+      }
+      started.whenComplete((value, failure) -> {
+        release();
+        if (failure != null) {
+          result.completeExceptionally(failure);
+        } else {
+          result.complete(value);
+        }
+      });
+    };
+    synchronized (queued) {
+      if (running >= maxConcurrentCalls) {
+        queued.add(start);
+        return result;
+      }
+      running++;
+    }
+    start.run();
+    return result;
+  }
+
+  /**
+   * Starts queued calls in a loop rather than from the completion of the previous one, as calls that complete
+   * synchronously, e.g. when a circuit breaker is open, would otherwise nest a stack frame per queued call.
+   */
+  private void release() {
+    synchronized (queued) {
+      running--;
+      if (draining) {
+        return;
+      }
+      draining = true;
+    }
+    while (true) {
+      Runnable next;
+      synchronized (queued) {
+        next = running < maxConcurrentCalls ? queued.poll() : null;
+        if (next == null) {
+          draining = false;
+          return;
+        }
+        running++;
+      }
+      next.run();
+    }
+  }
+
+  /**
+   * @return the number of calls in flight
+   */
+  public int getRunningCalls() {
+    synchronized (queued) {
+      return running;
+    }
+  }
+}
@@ -1,46 +1,93 @@
 package de.blacktri.restapi.httpclient;
 
-import org.apache.commons.codec.binary.Base64;
+import de.blacktri.restapi.httpclient.cache.ResponseCache;
+import de.blacktri.restapi.httpclient.cache.ValidatorCache;
+import de.blacktri.restapi.httpclient.circuit.CircuitBreaker;
+import de.blacktri.restapi.httpclient.circuit.CircuitBreakerOpenException;
+import de.blacktri.restapi.httpclient.circuit.CircuitBreakerRegistry;
+import de.blacktri.restapi.httpclient.metrics.EndpointLatencies;
+import de.blacktri.restapi.httpclient.metrics.EndpointTimer;
+import de.blacktri.restapi.httpclient.pool.PoolMetrics;
+import de.blacktri.restapi.httpclient.pool.PoolSnapshot;
+import de.blacktri.restapi.httpclient.ratelimit.RateLimitExceededException;
+import de.blacktri.restapi.httpclient.ratelimit.RateLimiter;
+import de.blacktri.restapi.httpclient.retry.RetryPolicy;
+import de.blacktri.restapi.json.ApiDateFormat;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.entity.StringEntity;
-import org.codehaus.jackson.map.ObjectMapper;
-import org.codehaus.jackson.map.SerializationConfig;
-import org.codehaus.jackson.map.annotate.JsonSerialize;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.util.EntityUtils;
+import org.codehaus.jackson.JsonParser;
 import org.codehaus.jackson.type.TypeReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.http.HttpMethod;
-import org.springframework.web.util.UriComponents;
-import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.util.StringUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Type;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 import static org.apache.http.client.utils.HttpClientUtils.closeQuietly;
 
 public class ABTestingRestConnector {
 
-  private HttpClient httpClient;
+  private volatile HttpClient httpClient;
+  private volatile CloseableHttpAsyncClient httpAsyncClient;
+  private int ioThreadCount = Runtime.getRuntime().availableProcessors();
   private int connectionRequestTimeout = -1;
   private int connectionTimeout = -1;
   private int socketTimeout = -1;
   private int connectionPoolSize = 200;
-  public static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+  private String acceptEncoding = ContentEncoding.GZIP + "," + ContentEncoding.DEFLATE;
+  private Header acceptEncodingHeader = new BasicHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+  private int requestCompressionThreshold = -1;
+  private final TransferStats transferStats = new TransferStats();
+  private final PoolMetrics poolMetrics = new PoolMetrics("blocking");
+  private final PoolMetrics asyncPoolMetrics = new PoolMetrics("async");
+  private String jmxName;
+  /**
+   * Format of the API timestamps. Backed by {@link ApiDateFormat#getDefault()}, so unlike a {@code SimpleDateFormat}
+   * it may be shared between threads; it cannot be reconfigured.
+   */
+  public static final DateFormat DATE_FORMAT = ApiDateFormat.getDefault().toDateFormat();
+
+  private final JsonCodec jsonCodec = new JsonCodec(ApiDateFormat.getDefault());
 
   /**
    * The user's api key
@@ -58,12 +105,46 @@ public class ABTestingRestConnector {
    */
   private String apiSecret = "";
 
+  /**
+   * Context for the calls made directly on the connector, replaced whenever the api key or secret is set
+   */
+  private volatile ClientContext defaultContext = new ClientContext(this, apiKey, apiSecret);
+
   private String serviceEndpoint;
 
+  private volatile ServiceUri serviceUri;
+
+  private final BufferPool bufferPool = new BufferPool(64, 256 * 1024);
+
+  private ResponseCache responseCache;
+
+  private ValidatorCache validatorCache;
+
+  private RetryPolicy retryPolicy = new RetryPolicy();
+
+  private CircuitBreakerRegistry circuitBreakerRegistry = new CircuitBreakerRegistry();
+
+  private volatile EndpointLatencies endpointLatencies = new EndpointLatencies();
+
+  private volatile RateLimiter rateLimiter;
+
+  /**
+   * {@code null} while no listener is registered, so that calls only pay for a null check
+   */
+  private volatile CallListeners callListeners;
+
+  private boolean coalesceRequests;
+  private final ConcurrentMap<FlightKey, Flight<?>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder coalescedCalls = new LongAdder();
+
+  private volatile ScheduledExecutorService retryScheduler;
+
   private static final String HEADER_CONTENT_TYPE = "Content-Type";
 
   public static final String MIME_TYPE_JSON = "application/json";
 
+  private static final Header CONTENT_TYPE_JSON = new BasicHeader(HEADER_CONTENT_TYPE, MIME_TYPE_JSON);
+
 
   private static final Logger LOG = LoggerFactory.getLogger(ABTestingRestConnector.class);
 
@@ -88,8 +169,31 @@ public class ABTestingRestConnector {
                            Map<String, Object> queryParameters,
                            Map<String, String> additionalHeaders,
                            Object bodyData) {
-    T result = null;
+    return callService(serviceMethod, uriTemplate, returnType, queryParameters, additionalHeaders, bodyData, new CallOptions());
+  }
+
+  /**
+   * Calls the service, retrying transient failures according to the {@link RetryPolicy}.
+   * <p/>
+   * Errors that remain after the last attempt are logged and result in {@code null}; the {@code options} tell what
+   * happened.
+   *
+   * @param options per-call settings, filled with the attempts made for this call
+   * @see ClientContext#callService(HttpMethod, String, TypeReference, Map, Map, Object, CallOptions)
+   */
+  public <T> T callService(HttpMethod serviceMethod, String uriTemplate, TypeReference returnType,
+                           Map<String, Object> queryParameters,
+                           Map<String, String> additionalHeaders,
+                           Object bodyData,
+                           CallOptions options) {
+    return callService(defaultContext, serviceMethod, uriTemplate, returnType, queryParameters, additionalHeaders, bodyData, options);
+  }
 
+  <T> T callService(ClientContext context, HttpMethod serviceMethod, String uriTemplate, TypeReference returnType,
+                    Map<String, Object> queryParameters,
+                    Map<String, String> additionalHeaders,
+                    Object bodyData,
+                    CallOptions options) {
     URI uri;
     try {
       uri = buildRequestUri(uriTemplate, queryParameters);
@@ -98,78 +202,967 @@ public class ABTestingRestConnector {
       return null;
     }
 
-    HttpUriRequest httpClientRequest = getRequest(uri, serviceMethod, bodyData, additionalHeaders);
+    String cacheKey = getCacheKey(context, serviceMethod, uri, returnType);
+    long cacheGeneration = getCacheGeneration();
+    if (cacheKey != null) {
+      T cached = getCached(cacheKey);
+      if (cached != null) {
+        return cached;
+      }
+    }
 
+    FlightKey flightKey = getFlightKey(context, serviceMethod, uri, returnType);
+    if (flightKey == null) {
+      return execute(context, serviceMethod, uri, uriTemplate, returnType, additionalHeaders, bodyData, options, cacheKey, cacheGeneration);
+    }
+    Flight<T> flight = new Flight<>();
+    flight.enter();
+    Flight<?> leader;
+    while ((leader = inFlight.putIfAbsent(flightKey, flight)) != null) {
+      if (leader.enter()) {
+        return awaitFlight(leader, uri, options);
+      }
+      // abandoned by all its async callers and about to be removed
+      inFlight.remove(flightKey, leader);
+    }
+    T result = null;
     try {
-      HttpClient client = getHttpClient();
+      result = execute(context, serviceMethod, uri, uriTemplate, returnType, additionalHeaders, bodyData, options, cacheKey,
+              cacheGeneration);
+    } finally {
+      inFlight.remove(flightKey, flight);
+      flight.complete(result);
+    }
+    return result;
+  }
 
-      long start = 0L;
-      if (LOG.isTraceEnabled()) {
-        start = System.currentTimeMillis();
+  private <T> T execute(ClientContext context, HttpMethod serviceMethod, URI uri, String uriTemplate, TypeReference returnType,
+                        Map<String, String> additionalHeaders, Object bodyData, CallOptions options, String cacheKey,
+                        long cacheGeneration) {
+    String endpoint = Endpoints.getEndpoint(uriTemplate);
+    CircuitBreaker circuitBreaker = getCircuitBreaker(endpoint);
+    EndpointTimer timer = getEndpointTimer(serviceMethod, endpoint);
+    long callStarted = System.nanoTime();
+    while (true) {
+      // an open circuit rejects the call before it waits for or uses up a permit of the rate limiter
+      if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+        options.completed(0, new CircuitBreakerOpenException(circuitBreaker.getEndpoint()));
+        LOG.debug("Not calling {} {}, circuit breaker for {} is open", serviceMethod, uri, circuitBreaker.getEndpoint());
+        recordFailure(timer, options, callStarted);
+        return null;
+      }
+      RateLimiter limiter = rateLimiter;
+      if (limiter != null) {
+        try {
+          limiter.acquire(context.getApiKey());
+        } catch (RateLimitExceededException e) {
+          ignoreResult(circuitBreaker);
+          options.completed(0, e);
+          LOG.debug("Not calling {} {}: {}", serviceMethod, uri, e.getMessage());
+          recordFailure(timer, options, callStarted);
+          return null;
+        } catch (InterruptedException e) {
+          ignoreResult(circuitBreaker);
+          Thread.currentThread().interrupt();
+          recordFailure(timer, options, callStarted);
+          return null;
+        }
       }
+      BufferPool.Buffer bodyBuffer = bodyData != null ? bufferPool.acquire() : null;
+      HttpUriRequest httpClientRequest = getRequest(context, uri, serviceMethod, bodyData, additionalHeaders, bodyBuffer);
+      ValidatorCache.Entry validated = addValidators(httpClientRequest, cacheKey);
+      options.attempted();
+      CallListeners listeners = callListeners;
+      CallEvent event = null;
+      if (listeners != null) {
+        event = new CallEvent(context, serviceMethod, uriTemplate, endpoint, uri, httpClientRequest, options.getAttempts());
+        listeners.requestBuilt(event);
+      }
+      long started = System.nanoTime();
+      long received = 0L;
+      try {
+        HttpClient client = getHttpClient();
 
-      HttpResponse response = client.execute(httpClientRequest);
-      StatusLine statusLine = response.getStatusLine();
-      int statusCode = statusLine.getStatusCode();
+        HttpResponse response;
+        try {
+          if (event != null) {
+            listeners.requestSent(event);
+          }
+          response = client.execute(httpClientRequest);
+        } finally {
+          // the blocking client has written the body once execute returns
+          bufferPool.release(bodyBuffer);
+        }
+        received = System.nanoTime();
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (timer != null) {
+          timer.recordTimeToFirstByte(received - started);
+        }
+        if (limiter != null) {
+          limiter.onResponse(context.getApiKey(), statusCode, received - started);
+        }
+        if (event != null) {
+          listeners.responseReceived(event, statusCode);
+        }
+        if (LOG.isTraceEnabled()) {
+          LOG.trace(serviceMethod + " " + uri + ": " + statusCode + " took " + TimeUnit.NANOSECONDS.toMillis(received - started) + " ms");
+        }
 
-      if (LOG.isTraceEnabled()) {
-        long time = System.currentTimeMillis() - start;
-        LOG.trace(serviceMethod + " " + uri + ": " + statusCode + " took " + time + " ms");
+        options.completed(statusCode, null);
+        T result;
+        try {
+          result = readResponse(httpClientRequest, response, returnType, cacheKey, cacheGeneration, uriTemplate, validated, event);
+        } finally {
+          closeQuietly(response);
+        }
+        recordResult(circuitBreaker, started, null);
+        if (event != null) {
+          listeners.responseDecoded(event);
+        }
+        if (timer != null) {
+          long decoded = System.nanoTime();
+          timer.recordDecode(decoded - received);
+          timer.recordSuccess(decoded - callStarted);
+        }
+        return result;
+      } catch (Exception e) {
+        recordResult(circuitBreaker, started, e);
+        if (event != null) {
+          listeners.failure(event, e);
+        }
+        if (limiter != null && received == 0L) {
+          limiter.onResponse(context.getApiKey(), 0, System.nanoTime() - started);
+        }
+        options.completed(e instanceof RemoteServiceException ? ((RemoteServiceException) e).getStatusCode() : 0, e);
+        long delay = getRetryDelay(serviceMethod, options, e);
+        if (delay < 0) {
+          LOG.warn("Error while calling REST: {} ({})", httpClientRequest.getURI(), e.getMessage());
+          LOG.trace("The corresponding stacktrace is...", e);
+          recordFailure(timer, options, callStarted);
+          return null;
+        }
+        LOG.debug("Retrying {} {} in {} ms after attempt {} failed ({})", serviceMethod, uri, delay, options.getAttempts(), e.getMessage());
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          recordFailure(timer, options, callStarted);
+          return null;
+        }
+        options.backedOff(delay);
       }
+    }
+  }
+
+  public <T> CompletableFuture<T> callServiceAsync(HttpMethod serviceMethod, String uriTemplate, TypeReference returnType,
+                                                   Object bodyData) {
+    return callServiceAsync(serviceMethod, uriTemplate, returnType,
+            Collections.<String, Object>emptyMap(),
+            Collections.<String, String>emptyMap(),
+            bodyData);
+  }
 
+  public <T> CompletableFuture<T> callServiceAsync(HttpMethod serviceMethod, String uriTemplate, TypeReference returnType,
+                                                   Map<String, Object> queryParameters,
+                                                   Object bodyData) {
+    return callServiceAsync(serviceMethod, uriTemplate, returnType,
+            queryParameters,
+            Collections.<String, String>emptyMap(),
+            bodyData);
+  }
+
+  public <T> CompletableFuture<T> callServiceAsync(HttpMethod serviceMethod, String uriTemplate, TypeReference returnType,
+                                                   Map<String, Object> queryParameters,
+                                                   Map<String, String> additionalHeaders,
+                                                   Object bodyData) {
+    return callServiceAsync(serviceMethod, uriTemplate, returnType, queryParameters, additionalHeaders, bodyData, new CallOptions());
+  }
+
+  /**
+   * Non-blocking counterpart of {@link #callService(HttpMethod, String, TypeReference, Map, Map, Object, CallOptions)}.
+   * <p/>
+   * The request is handed to the async client and the calling thread returns immediately. Unlike the blocking
+   * variant, errors are not turned into a {@code null} result: the returned future completes exceptionally instead.
+   * The response is decoded on the I/O dispatch thread that received it. Retries are scheduled without blocking
+   * any thread, and so are attempts that have to wait for a permit of the {@link RateLimiter}. Cancelling the
+   * future aborts the exchange and any pending retry, and gives back the permit of an attempt that is still waiting.
+   *
+   * @see ClientContext#callServiceAsync(HttpMethod, String, TypeReference, Map, Map, Object, CallOptions)
+   */
+  public <T> CompletableFuture<T> callServiceAsync(HttpMethod serviceMethod, final String uriTemplate, final TypeReference returnType,
+                                                   Map<String, Object> queryParameters,
+                                                   Map<String, String> additionalHeaders,
+                                                   Object bodyData,
+                                                   CallOptions options) {
+    return callServiceAsync(defaultContext, serviceMethod, uriTemplate, returnType, queryParameters, additionalHeaders, bodyData, options);
+  }
+
+  <T> CompletableFuture<T> callServiceAsync(ClientContext context, HttpMethod serviceMethod, final String uriTemplate,
+                                            final TypeReference returnType,
+                                            Map<String, Object> queryParameters,
+                                            Map<String, String> additionalHeaders,
+                                            Object bodyData,
+                                            CallOptions options) {
+    URI uri;
+    try {
+      uri = buildRequestUri(uriTemplate, queryParameters);
+    } catch (IllegalArgumentException e) {
+      LOG.warn("unable to derive REST URI components for method {} with vars {} and query params {}", serviceMethod, queryParameters);
+      CompletableFuture<T> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      return failed;
+    }
+
+    final String cacheKey = getCacheKey(context, serviceMethod, uri, returnType);
+    long cacheGeneration = getCacheGeneration();
+    if (cacheKey != null) {
+      T cached = getCached(cacheKey);
+      if (cached != null) {
+        return CompletableFuture.completedFuture(cached);
+      }
+    }
+
+    final FlightKey flightKey = getFlightKey(context, serviceMethod, uri, returnType);
+    final CompletableFuture<T> result;
+    if (flightKey != null) {
+      final Flight<T> flight = new Flight<>();
+      flight.enter();
+      Flight<?> leader;
+      while ((leader = inFlight.putIfAbsent(flightKey, flight)) != null) {
+        if (leader.enter()) {
+          return joinFlight(leader, options);
+        }
+        inFlight.remove(flightKey, leader);
+      }
+      flight.whenComplete((value, throwable) -> inFlight.remove(flightKey, flight));
+      result = flight;
+    } else {
+      result = new CompletableFuture<>();
+    }
+
+    String endpoint = Endpoints.getEndpoint(uriTemplate);
+    final AsyncCall<T> call = new AsyncCall<>(context, serviceMethod, uri, uriTemplate, endpoint, returnType, additionalHeaders,
+            bodyData, options, cacheKey, cacheGeneration, getCircuitBreaker(endpoint), getEndpointTimer(serviceMethod, endpoint),
+            result, new AtomicReference<Future<?>>());
+    sendAsync(call);
+
+    result.whenComplete((value, throwable) -> {
+      if (result.isCancelled()) {
+        Future<?> exchange = call.pending.get();
+        if (exchange != null) {
+          exchange.cancel(true);
+        }
+        // an attempt that was still waiting for its permits will not run
+        releasePermits(call);
+      }
+    });
+    // the caller that started a shared exchange gets a copy like the callers that join it, so that completing or
+    // cancelling its future does not affect the others
+    return flightKey != null ? ((Flight<T>) result).share() : result;
+  }
+
+  /**
+   * Sends the next attempt of an async call as soon as the circuit breaker and the rate limiter permit it, without
+   * blocking.
+   */
+  private <T> void sendAsync(final AsyncCall<T> call) {
+    if (call.result.isDone()) {
+      return;
+    }
+    if (call.circuitBreaker != null && !call.circuitBreaker.tryAcquirePermission()) {
+      CircuitBreakerOpenException e = new CircuitBreakerOpenException(call.circuitBreaker.getEndpoint());
+      call.options.completed(0, e);
+      recordFailure(call.timer, call.options, call.started);
+      call.result.completeExceptionally(e);
+      return;
+    }
+    RateLimiter limiter = rateLimiter;
+    long wait = 0;
+    if (limiter != null) {
       try {
-        HttpEntity entity;
-
-        //Handle success here
-        if (statusCode >= 200 && statusCode != 204 && statusCode < 300) {
-          entity = response.getEntity();
-          if (entity != null) {
-            InputStream inputStream = response.getEntity().getContent();
-            ObjectMapper mapper = new ObjectMapper();
-            mapper.setDateFormat(DATE_FORMAT);
-            result = mapper.readValue(inputStream, returnType);
-          } else {
-            LOG.trace("response entity is null");
+        wait = limiter.reserve(call.context.getApiKey());
+      } catch (RateLimitExceededException e) {
+        ignoreResult(call.circuitBreaker);
+        call.options.completed(0, e);
+        recordFailure(call.timer, call.options, call.started);
+        call.result.completeExceptionally(e);
+        return;
+      }
+    }
+    call.limiter = limiter;
+    call.permitted.set(true);
+    if (wait > 0) {
+      try {
+        call.pending.set(getRetryScheduler().schedule(() -> dispatchAsync(call), wait, TimeUnit.NANOSECONDS));
+      } catch (RejectedExecutionException e) {
+        releasePermits(call);
+        call.result.completeExceptionally(e);
+      }
+      return;
+    }
+    dispatchAsync(call);
+  }
+
+  /**
+   * Gives back the circuit breaker permission and the rate limiter permit of an attempt that is not going to be
+   * sent. Called by the attempt and by the cancellation of the call, only the first call does anything.
+   */
+  private static void releasePermits(AsyncCall<?> call) {
+    if (call.permitted.compareAndSet(true, false)) {
+      ignoreResult(call.circuitBreaker);
+      if (call.limiter != null) {
+        call.limiter.release(call.context.getApiKey());
+      }
+    }
+  }
+
+  private <T> void dispatchAsync(final AsyncCall<T> call) {
+    if (call.result.isDone()) {
+      releasePermits(call);
+      return;
+    }
+    if (!call.permitted.compareAndSet(true, false)) {
+      // cancelled while waiting, the permits have been given back
+      return;
+    }
+    final BufferPool.Buffer bodyBuffer = call.bodyData != null ? bufferPool.acquire() : null;
+    final HttpUriRequest httpClientRequest = getRequest(call.context, call.uri, call.serviceMethod, call.bodyData, call.additionalHeaders, bodyBuffer);
+    final ValidatorCache.Entry validated = addValidators(httpClientRequest, call.cacheKey);
+    call.options.attempted();
+    final CallListeners listeners = callListeners;
+    final CallEvent event;
+    if (listeners != null) {
+      event = new CallEvent(call.context, call.serviceMethod, call.uriTemplate, call.endpoint, call.uri, httpClientRequest,
+              call.options.getAttempts());
+      listeners.requestBuilt(event);
+      listeners.requestSent(event);
+    } else {
+      event = null;
+    }
+    final long started = System.nanoTime();
+    try {
+      call.pending.set(getHttpAsyncClient().execute(httpClientRequest, new FutureCallback<HttpResponse>() {
+        private boolean responded;
+
+        @Override
+        public void completed(HttpResponse response) {
+          responded = true;
+          // a complete response implies a completely sent request; after a failure the I/O dispatcher may still
+          // hold the body, so the buffer is only pooled again here
+          bufferPool.release(bodyBuffer);
+          long received = System.nanoTime();
+          if (call.timer != null) {
+            call.timer.recordTimeToFirstByte(received - started);
           }
-        } else if (statusCode == 204) {
-          LOG.trace("result from " + httpClientRequest.getURI() + " will be interpreted as \"no result found\": " +
-                  statusCode + " (" + statusLine.getReasonPhrase() + ")");
-
-        } else {
-          throw new RuntimeException(
-                  String.format("Remote Error occurred: %s ( Error Code: %s)", statusLine,
-                          statusCode));
+          try {
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (event != null) {
+              listeners.responseReceived(event, statusCode);
+            }
+            RateLimiter limiter = rateLimiter;
+            if (limiter != null) {
+              limiter.onResponse(call.context.getApiKey(), statusCode, received - started);
+            }
+            call.options.completed(statusCode, null);
+            T value = ABTestingRestConnector.this.readResponse(httpClientRequest, response, call.returnType,
+                    call.cacheKey, call.cacheGeneration, call.uriTemplate, validated, event);
+            recordResult(call.circuitBreaker, started, null);
+            if (event != null) {
+              listeners.responseDecoded(event);
+            }
+            if (call.timer != null) {
+              long decoded = System.nanoTime();
+              call.timer.recordDecode(decoded - received);
+              call.timer.recordSuccess(decoded - call.started);
+            }
+            call.result.complete(value);
+          } catch (Exception e) {
+            failed(e);
+          } finally {
+            EntityUtils.consumeQuietly(response.getEntity());
+          }
+        }
+
+        @Override
+        public void failed(Exception e) {
+          recordResult(call.circuitBreaker, started, e);
+          if (event != null) {
+            listeners.failure(event, e);
+          }
+          RateLimiter limiter = rateLimiter;
+          if (limiter != null && !responded) {
+            limiter.onResponse(call.context.getApiKey(), 0, System.nanoTime() - started);
+          }
+          retryAsync(call, httpClientRequest, e);
+        }
+
+        @Override
+        public void cancelled() {
+          if (call.circuitBreaker != null) {
+            call.circuitBreaker.onIgnored();
+          }
+          if (event != null) {
+            listeners.failure(event, new CancellationException());
+          }
+          call.result.cancel(false);
+        }
+      }));
+    } catch (RuntimeException e) {
+      if (call.circuitBreaker != null) {
+        call.circuitBreaker.onIgnored();
+      }
+      if (event != null) {
+        listeners.failure(event, e);
+      }
+      LOG.warn("Error while calling REST: {} ({})", httpClientRequest.getURI(), e.getMessage());
+      recordFailure(call.timer, call.options, call.started);
+      call.result.completeExceptionally(e);
+    }
+  }
+
+  private <T> void retryAsync(final AsyncCall<T> call, HttpUriRequest httpClientRequest, Exception e) {
+    call.options.completed(e instanceof RemoteServiceException ? ((RemoteServiceException) e).getStatusCode() : 0, e);
+    final long delay = call.result.isDone() ? -1 : getRetryDelay(call.serviceMethod, call.options, e);
+    if (delay < 0) {
+      LOG.warn("Error while calling REST: {} ({})", httpClientRequest.getURI(), e.getMessage());
+      LOG.trace("The corresponding stacktrace is...", e);
+      recordFailure(call.timer, call.options, call.started);
+      call.result.completeExceptionally(e);
+      return;
+    }
+    LOG.debug("Retrying {} {} in {} ms after attempt {} failed ({})", call.serviceMethod, call.uri, delay, call.options.getAttempts(), e.getMessage());
+    try {
+      call.pending.set(getRetryScheduler().schedule(() -> {
+        call.options.backedOff(delay);
+        sendAsync(call);
+      }, delay, TimeUnit.MILLISECONDS));
+    } catch (RejectedExecutionException rejected) {
+      recordFailure(call.timer, call.options, call.started);
+      call.result.completeExceptionally(e);
+    }
+  }
+
+  private FlightKey getFlightKey(ClientContext context, HttpMethod serviceMethod, URI uri, TypeReference returnType) {
+    if (!coalesceRequests || serviceMethod != HttpMethod.GET || returnType == null) {
+      return null;
+    }
+    return new FlightKey(context.getAuthorization().getValue(), uri, returnType.getType());
+  }
+
+  /**
+   * Waits for the result of an identical call that is already in flight. The flight was started for the same result
+   * type, see {@link FlightKey}.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T awaitFlight(Flight<?> leader, URI uri, CallOptions options) {
+    coalescedCalls.increment();
+    options.coalesced();
+    try {
+      return (T) leader.get();
+    } catch (InterruptedException e) {
+      leader.leave();
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | CancellationException e) {
+      LOG.debug("Coalesced call of {} failed ({})", uri, e.getMessage());
+    }
+    return null;
+  }
+
+  /**
+   * Async counterpart of {@link #awaitFlight(Flight, URI, CallOptions)}. Cancelling the returned future leaves the
+   * call in flight alone as long as other callers wait for it.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> CompletableFuture<T> joinFlight(Flight<?> leader, CallOptions options) {
+    coalescedCalls.increment();
+    options.coalesced();
+    return ((Flight<T>) leader).share();
+  }
+
+  private CircuitBreaker getCircuitBreaker(String endpoint) {
+    return circuitBreakerRegistry != null ? circuitBreakerRegistry.getCircuitBreaker(endpoint) : null;
+  }
+
+  private EndpointTimer getEndpointTimer(HttpMethod serviceMethod, String endpoint) {
+    EndpointLatencies latencies = endpointLatencies;
+    return latencies != null ? latencies.getTimer(serviceMethod, endpoint) : null;
+  }
+
+  /**
+   * Records a call that ends without a result. Calls rejected before any attempt took no time and are only counted.
+   */
+  private static void recordFailure(EndpointTimer timer, CallOptions options, long callStarted) {
+    if (timer != null) {
+      timer.recordFailure(options.getAttempts() > 0 ? System.nanoTime() - callStarted : 0L);
+    }
+  }
+
+  private void recordResult(CircuitBreaker circuitBreaker, long started, Exception failure) {
+    if (circuitBreaker != null) {
+      circuitBreaker.onResult(System.nanoTime() - started, failure != null && circuitBreakerRegistry.isFailure(failure));
+    }
+  }
+
+  /**
+   * Gives back the permission of a call that was not made.
+   */
+  private static void ignoreResult(CircuitBreaker circuitBreaker) {
+    if (circuitBreaker != null) {
+      circuitBreaker.onIgnored();
+    }
+  }
+
+  private long getRetryDelay(HttpMethod serviceMethod, CallOptions options, Exception failure) {
+    if (retryPolicy == null) {
+      return -1;
+    }
+    return retryPolicy.getRetryDelay(serviceMethod, options.getIdempotent(), options.getAttempts(), failure);
+  }
+
+  /**
+   * Identifies GET calls that can share one exchange: same credentials, URI and result type. The credentials are
+   * the whole Authorization value, so that a call with a wrong secret never joins an authenticated one.
+   */
+  private static final class FlightKey {
+    private final String authorization;
+    private final URI uri;
+    private final Type returnType;
+    private final int hashCode;
+
+    private FlightKey(String authorization, URI uri, Type returnType) {
+      this.authorization = authorization;
+      this.uri = uri;
+      this.returnType = returnType;
+      this.hashCode = 31 * (31 * authorization.hashCode() + uri.hashCode()) + returnType.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof FlightKey)) {
+        return false;
+      }
+      FlightKey other = (FlightKey) o;
+      return hashCode == other.hashCode && authorization.equals(other.authorization) && uri.equals(other.uri)
+              && returnType.equals(other.returnType);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * The result of an exchange shared by coalesced calls. Every caller gets its own {@link #share() copy} of it, so a
+   * caller that completes or cancels its future only gives up its own wait; the exchange is cancelled once the last
+   * waiting caller has given up.
+   */
+  private static final class Flight<T> extends CompletableFuture<T> {
+
+    /**
+     * Callers waiting for the result, -1 once all of them have given up.
+     */
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    /**
+     * Registers one more waiting caller.
+     *
+     * @return {@code false} if the flight has already been abandoned and must not be joined
+     */
+    boolean enter() {
+      int current;
+      do {
+        current = waiters.get();
+        if (current < 0) {
+          return false;
+        }
+      } while (!waiters.compareAndSet(current, current + 1));
+      return true;
+    }
+
+    void leave() {
+      if (!isDone() && waiters.decrementAndGet() == 0 && waiters.compareAndSet(0, -1)) {
+        cancel(false);
+      }
+    }
+
+    /**
+     * @return a future for a caller that has {@link #enter() entered}, which leaves when it completes first
+     */
+    CompletableFuture<T> share() {
+      CompletableFuture<T> copy = thenApply(value -> value);
+      copy.whenComplete((value, throwable) -> leave());
+      return copy;
+    }
+  }
+
+  /**
+   * State of an async call that is carried from one attempt to the next.
+   */
+  private static final class AsyncCall<T> {
+    private final ClientContext context;
+    private final HttpMethod serviceMethod;
+    private final URI uri;
+    private final String uriTemplate;
+    private final String endpoint;
+    private final TypeReference returnType;
+    private final Map<String, String> additionalHeaders;
+    private final Object bodyData;
+    private final CallOptions options;
+    private final String cacheKey;
+    private final long cacheGeneration;
+    private final CircuitBreaker circuitBreaker;
+    private final EndpointTimer timer;
+    private final long started = System.nanoTime();
+    private final CompletableFuture<T> result;
+    private final AtomicReference<Future<?>> pending;
+    /**
+     * Whether the next attempt holds a circuit breaker permission and a rate limiter permit that it has not used yet.
+     */
+    private final AtomicBoolean permitted = new AtomicBoolean();
+    private volatile RateLimiter limiter;
+
+    private AsyncCall(ClientContext context, HttpMethod serviceMethod, URI uri, String uriTemplate, String endpoint,
+                      TypeReference returnType, Map<String, String> additionalHeaders, Object bodyData, CallOptions options, String cacheKey,
+                      long cacheGeneration, CircuitBreaker circuitBreaker, EndpointTimer timer, CompletableFuture<T> result,
+                      AtomicReference<Future<?>> pending) {
+      this.context = context;
+      this.serviceMethod = serviceMethod;
+      this.uri = uri;
+      this.uriTemplate = uriTemplate;
+      this.endpoint = endpoint;
+      this.returnType = returnType;
+      this.additionalHeaders = additionalHeaders;
+      this.bodyData = bodyData;
+      this.options = options;
+      this.cacheKey = cacheKey;
+      this.cacheGeneration = cacheGeneration;
+      this.circuitBreaker = circuitBreaker;
+      this.timer = timer;
+      this.result = result;
+      this.pending = pending;
+    }
+  }
+
+  /**
+   * Calls a service returning a JSON array and decodes its elements one by one while the response is read.
+   * <p/>
+   * In contrast to {@link #callService(HttpMethod, String, TypeReference, Map, Object)} with a list type, only the
+   * element that is currently handed out is held in memory. Errors before the first element are logged and result
+   * in an empty iterator, errors while iterating are thrown as {@link java.io.UncheckedIOException}.
+   *
+   * @param elementType the type of a single array element
+   * @return an iterator that has to be closed if it is not consumed completely
+   * @see ClientContext#callServiceStreaming(HttpMethod, String, TypeReference, Map)
+   */
+  public <T> ResponseIterator<T> callServiceStreaming(HttpMethod serviceMethod, String uriTemplate, TypeReference elementType,
+                                                      Map<String, Object> queryParameters) {
+    return callServiceStreaming(defaultContext, serviceMethod, uriTemplate, elementType, queryParameters);
+  }
+
+  <T> ResponseIterator<T> callServiceStreaming(ClientContext context, HttpMethod serviceMethod, String uriTemplate,
+                                               TypeReference elementType, Map<String, Object> queryParameters) {
+    URI uri;
+    try {
+      uri = buildRequestUri(uriTemplate, queryParameters);
+    } catch (IllegalArgumentException e) {
+      LOG.warn("unable to derive REST URI components for method {} with vars {} and query params {}", serviceMethod, queryParameters);
+      return JsonArrayIterator.empty();
+    }
+
+    String endpoint = Endpoints.getEndpoint(uriTemplate);
+    CircuitBreaker circuitBreaker = getCircuitBreaker(endpoint);
+    EndpointTimer timer = getEndpointTimer(serviceMethod, endpoint);
+    if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+      if (timer != null) {
+        timer.recordFailure(0L);
+      }
+      LOG.debug("Not calling {} {}, circuit breaker for {} is open", serviceMethod, uri, circuitBreaker.getEndpoint());
+      return JsonArrayIterator.empty();
+    }
+    RateLimiter limiter = rateLimiter;
+    if (limiter != null) {
+      try {
+        limiter.acquire(context.getApiKey());
+      } catch (RateLimitExceededException e) {
+        ignoreResult(circuitBreaker);
+        LOG.debug("Not calling {} {}: {}", serviceMethod, uri, e.getMessage());
+        if (timer != null) {
+          timer.recordFailure(0L);
         }
-      } finally {
-        closeQuietly(response);
+        return JsonArrayIterator.empty();
+      } catch (InterruptedException e) {
+        ignoreResult(circuitBreaker);
+        Thread.currentThread().interrupt();
+        return JsonArrayIterator.empty();
       }
+    }
+
+    HttpUriRequest httpClientRequest = getRequest(context, uri, serviceMethod, null, Collections.<String, String>emptyMap(), null);
+    CallListeners listeners = callListeners;
+    CallEvent event = null;
+    if (listeners != null) {
+      event = new CallEvent(context, serviceMethod, uriTemplate, endpoint, uri, httpClientRequest, 1);
+      listeners.requestBuilt(event);
+    }
 
+    HttpResponse response = null;
+    long started = System.nanoTime();
+    try {
+      try {
+        if (event != null) {
+          listeners.requestSent(event);
+        }
+        response = getHttpClient().execute(httpClientRequest);
+      } catch (IOException e) {
+        recordResult(circuitBreaker, started, e);
+        if (limiter != null) {
+          limiter.onResponse(context.getApiKey(), 0, System.nanoTime() - started);
+        }
+        throw e;
+      } catch (RuntimeException e) {
+        // e.g. a connection pool that has been shut down, which says nothing about the endpoint; a half-open circuit
+        // must get the permission back
+        ignoreResult(circuitBreaker);
+        throw e;
+      }
+      StatusLine statusLine = response.getStatusLine();
+      int statusCode = statusLine.getStatusCode();
+      if (limiter != null) {
+        limiter.onResponse(context.getApiKey(), statusCode, System.nanoTime() - started);
+      }
+      if (event != null) {
+        listeners.responseReceived(event, statusCode);
+      }
+      // the circuit breaker and the timer only see the time to the response headers, the body is read by the caller
+      if (timer != null) {
+        timer.recordTimeToFirstByte(System.nanoTime() - started);
+      }
+      recordResult(circuitBreaker, started, statusCode >= 500 ? new RemoteServiceException(statusLine.toString(), statusCode, null) : null);
+
+      if (statusCode >= 200 && statusCode != 204 && statusCode < 300) {
+        HttpEntity entity = response.getEntity();
+        if (entity != null) {
+          JsonParser parser = jsonCodec.createParser(ContentEncoding.decode(entity, transferStats, event));
+          JsonArrayIterator<T> elements = new JsonArrayIterator<>(httpClientRequest, response, parser, jsonCodec.reader(elementType),
+                  event != null ? streamEnd(listeners, event) : null);
+          if (timer != null) {
+            timer.recordSuccess(System.nanoTime() - started);
+          }
+          return elements;
+        }
+        LOG.trace("response entity is null");
+      } else if (statusCode != 204) {
+        throw new RemoteServiceException(
+                String.format("Remote Error occurred: %s ( Error Code: %s)", statusLine,
+                        statusCode), statusCode, headerValue(response, HttpHeaders.RETRY_AFTER));
+      }
     } catch (Exception e) {
       LOG.warn("Error while calling REST: {} ({})", httpClientRequest.getURI(), e.getMessage());
       LOG.trace("The corresponding stacktrace is...", e);
+      if (timer != null) {
+        timer.recordFailure(System.nanoTime() - started);
+      }
+      if (event != null) {
+        listeners.failure(event, e);
+      }
+      closeQuietly(response);
+      return JsonArrayIterator.empty();
     }
-    return result;
+    if (timer != null) {
+      timer.recordSuccess(System.nanoTime() - started);
+    }
+    if (event != null) {
+      listeners.responseDecoded(event);
+    }
+    closeQuietly(response);
+    return JsonArrayIterator.empty();
   }
 
-  URI buildRequestUri(String relativeUrl, Map<String, Object> queryParameters) {
-    String uri = relativeUrl;
+  /**
+   * Reports the end of a streamed response, which is decoded while the caller iterates.
+   */
+  private static Consumer<Exception> streamEnd(final CallListeners listeners, final CallEvent event) {
+    return failure -> {
+      if (failure == null) {
+        listeners.responseDecoded(event);
+      } else {
+        listeners.failure(event, failure);
+      }
+    };
+  }
 
-    String endpoint = getServiceEndpoint();
+  /**
+   * Streams the elements of a JSON array response to the given handler as soon as each one is decoded.
+   *
+   * @return the number of elements passed to the handler
+   * @see #callServiceStreaming(HttpMethod, String, TypeReference, Map)
+   * @see ClientContext#callServiceStreaming(HttpMethod, String, TypeReference, Map, Consumer)
+   */
+  public <T> int callServiceStreaming(HttpMethod serviceMethod, String uriTemplate, TypeReference elementType,
+                                      Map<String, Object> queryParameters, Consumer<? super T> handler) {
+    return callServiceStreaming(defaultContext, serviceMethod, uriTemplate, elementType, queryParameters, handler);
+  }
 
-    if (!endpoint.endsWith("/")) {
-      endpoint += "/";
+  <T> int callServiceStreaming(ClientContext context, HttpMethod serviceMethod, String uriTemplate,
+                               TypeReference elementType, Map<String, Object> queryParameters,
+                               Consumer<? super T> handler) {
+    int count = 0;
+    try (ResponseIterator<T> elements = callServiceStreaming(context, serviceMethod, uriTemplate, elementType, queryParameters)) {
+      while (elements.hasNext()) {
+        handler.accept(elements.next());
+        count++;
+      }
     }
-    uri = endpoint + uri;
-    UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromUriString(uri);
-    for (Map.Entry<String, Object> entry : queryParameters.entrySet()) {
-      uriBuilder.queryParam(entry.getKey(), entry.getValue());
+    return count;
+  }
+
+  /**
+   * Removes cached responses for the given resource paths and everything below them.
+   * <p/>
+   * Called after write operations so that subsequent reads see the modified resources. Does nothing if no
+   * {@link ResponseCache} is configured.
+   *
+   * @param paths resource paths relative to the service endpoint, e.g. {@code account/1/project/2}
+   */
+  public void invalidate(String... paths) {
+    // calls in flight may have been answered before the modification, later calls must not join them; the response
+    // cache drops what they return, as its generation changes
+    inFlight.clear();
+    for (String path : paths) {
+      if (responseCache != null) {
+        responseCache.invalidate(path);
+      }
+      if (validatorCache != null) {
+        validatorCache.invalidate(path);
+      }
     }
+  }
 
-    UriComponents uriComponents = uriBuilder.buildAndExpand();
-    return uriComponents.encode().toUri();
+  private String getCacheKey(ClientContext context, HttpMethod serviceMethod, URI uri, TypeReference returnType) {
+    if ((responseCache == null && validatorCache == null) || serviceMethod != HttpMethod.GET || returnType == null) {
+      return null;
+    }
+    // keyed by the whole Authorization value, so that a wrong secret never hits the entry of the right one; the
+    // same resource can be decoded into different types, e.g. a Trend or a TrendSeries
+    return context.getAuthorization().getValue() + ' ' + uri + ' ' + returnType.getType().getTypeName();
   }
 
-  private HttpUriRequest getRequest(URI uri, HttpMethod serviceMethod, Object bodyData, Map<String, String> additionalHeaders) {
+  /**
+   * Taken before a call is sent, so that its response is not cached if the cache was invalidated in the meantime.
+   */
+  private long getCacheGeneration() {
+    return responseCache != null ? responseCache.getGeneration() : 0L;
+  }
+
+  /**
+   * The cache key includes the result type, so the entry holds a value of the requested type.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T getCached(String cacheKey) {
+    return responseCache != null ? (T) responseCache.get(cacheKey) : null;
+  }
+
+  /**
+   * Turns the request into a conditional one if validators of an earlier response are known.
+   *
+   * @return the entry holding the validators and the previously decoded value, {@code null} if there is none
+   */
+  private ValidatorCache.Entry addValidators(HttpUriRequest request, String cacheKey) {
+    if (cacheKey == null || validatorCache == null) {
+      return null;
+    }
+    ValidatorCache.Entry validated = validatorCache.get(cacheKey);
+    if (validated != null) {
+      if (validated.getEtag() != null) {
+        request.setHeader(HttpHeaders.IF_NONE_MATCH, validated.getEtag());
+      }
+      if (validated.getLastModified() != null) {
+        request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, validated.getLastModified());
+      }
+    }
+    return validated;
+  }
+
+  /**
+   * Decodes the response or, on {@code 304 Not Modified}, returns the value decoded from an earlier response, and
+   * updates the caches.
+   */
+  private <T> T readResponse(HttpUriRequest httpClientRequest, HttpResponse response, TypeReference returnType,
+                             String cacheKey, long cacheGeneration, String path, ValidatorCache.Entry validated,
+                             CallEvent event) throws IOException {
+    T result;
+    if (validated != null && response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+      LOG.trace("{} not modified, reusing previous result", httpClientRequest.getURI());
+      validatorCache.notModified(validated);
+      // decoded into the same type, which is part of the cache key
+      @SuppressWarnings("unchecked")
+      T previous = (T) validated.getValue();
+      result = previous;
+    } else {
+      result = readResponse(httpClientRequest, response, returnType, event);
+      if (cacheKey != null && validatorCache != null) {
+        HttpEntity entity = response.getEntity();
+        validatorCache.put(cacheKey, path, headerValue(response, HttpHeaders.ETAG),
+                headerValue(response, HttpHeaders.LAST_MODIFIED), entity != null ? entity.getContentLength() : -1, result);
+      }
+    }
+    if (cacheKey != null && responseCache != null) {
+      responseCache.put(cacheKey, path, result, cacheGeneration);
+    }
+    return result;
+  }
+
+  private static String headerValue(HttpResponse response, String name) {
+    Header header = response.getFirstHeader(name);
+    return header != null ? header.getValue() : null;
+  }
+
+  private <T> T readResponse(HttpUriRequest httpClientRequest, HttpResponse response, TypeReference returnType,
+                             CallEvent event) throws IOException {
+    StatusLine statusLine = response.getStatusLine();
+    int statusCode = statusLine.getStatusCode();
+    T result = null;
+
+    //Handle success here
+    if (statusCode >= 200 && statusCode != 204 && statusCode < 300) {
+      HttpEntity entity = response.getEntity();
+      if (entity != null && returnType != null) {
+        try (InputStream inputStream = ContentEncoding.decode(entity, transferStats, event)) {
+          result = jsonCodec.read(inputStream, returnType);
+        }
+      } else if (entity == null) {
+        LOG.trace("response entity is null");
+      }
+    } else if (statusCode == 204) {
+      LOG.trace("result from " + httpClientRequest.getURI() + " will be interpreted as \"no result found\": " +
+              statusCode + " (" + statusLine.getReasonPhrase() + ")");
+
+    } else {
+      throw new RemoteServiceException(
+              String.format("Remote Error occurred: %s ( Error Code: %s)", statusLine,
+                      statusCode), statusCode, headerValue(response, HttpHeaders.RETRY_AFTER));
+    }
+    return result;
+  }
+
+  URI buildRequestUri(String relativeUrl, Map<String, Object> queryParameters) {
+    ServiceUri endpoint = serviceUri;
+    if (endpoint == null) {
+      throw new IllegalArgumentException("No service endpoint configured");
+    }
+    return endpoint.resolve(relativeUrl, queryParameters);
+  }
+
+  /**
+   * Creates the request. A body is serialized into the given pooled buffer, which must not be released before the
+   * request has been sent.
+   */
+  HttpUriRequest getRequest(ClientContext context, URI uri, HttpMethod serviceMethod, Object bodyData,
+                            Map<String, String> additionalHeaders, BufferPool.Buffer bodyBuffer) {
 
     HttpUriRequest request = null;
 
@@ -185,9 +1178,11 @@ public class ABTestingRestConnector {
 
     if (request != null) {
 
-      request.addHeader(HEADER_CONTENT_TYPE, MIME_TYPE_JSON);
-      String encoded = Base64.encodeBase64String((apiKey + ":" + apiSecret).getBytes());
-      request.addHeader("Authorization", "Basic " + encoded);
+      request.addHeader(CONTENT_TYPE_JSON);
+      request.addHeader(context.getAuthorization());
+      if (acceptEncodingHeader != null) {
+        request.addHeader(acceptEncodingHeader);
+      }
 
 
       for (Map.Entry<String, String> item : additionalHeaders.entrySet()) {
@@ -197,11 +1192,11 @@ public class ABTestingRestConnector {
       try {
         //apply parameter to body
         if (bodyData != null) {
-          String json = toJson(bodyData);
+          jsonCodec.write(bodyData, bodyBuffer);
           if (LOG.isTraceEnabled()) {
-            LOG.trace("{}\n{}", request, json);
+            LOG.trace("{}\n{}", request, new String(bodyBuffer.array(), 0, bodyBuffer.size(), StandardCharsets.UTF_8));
           }
-          StringEntity entity = new StringEntity(json);
+          HttpEntity entity = ContentEncoding.encode(bodyBuffer.array(), bodyBuffer.size(), requestCompressionThreshold, transferStats);
           ((HttpEntityEnclosingRequest) request).setEntity(entity);
         }
       } catch (IOException e) {
@@ -212,26 +1207,129 @@ public class ABTestingRestConnector {
     return request;
   }
 
-  private String toJson(Object model) throws IOException {
-    ObjectMapper mapper = new ObjectMapper();
-    mapper.setDateFormat(DATE_FORMAT);
-    mapper.setSerializationInclusion(JsonSerialize.Inclusion.NON_NULL);
-    mapper.configure(SerializationConfig.Feature.FAIL_ON_EMPTY_BEANS, false);
-    return mapper.writeValueAsString(model);
+  /**
+   * Creates an immutable context that signs its calls with the given credentials and shares everything else, in
+   * particular the connection pools, with all other contexts of this connector.
+   */
+  public ClientContext createClientContext(String apiKey, String apiSecret) {
+    return new ClientContext(this, apiKey, apiSecret);
+  }
+
+  /**
+   * Context of the calls made directly on the connector, using the credentials set with {@link #setApiKey(String)}
+   * and {@link #setApiSecret(String)}.
+   */
+  public ClientContext getDefaultContext() {
+    return defaultContext;
+  }
+
+  public JsonCodec getJsonCodec() {
+    return jsonCodec;
+  }
+
+  public TransferStats getTransferStats() {
+    return transferStats;
+  }
+
+  /**
+   * Metrics of the blocking client's connection pool, updated from the first call on.
+   */
+  public PoolMetrics getPoolMetrics() {
+    return poolMetrics;
+  }
+
+  public PoolMetrics getAsyncPoolMetrics() {
+    return asyncPoolMetrics;
+  }
+
+  /**
+   * Current state of the blocking client's connection pool, shortcut for {@code getPoolMetrics().snapshot()}.
+   */
+  public PoolSnapshot getPoolSnapshot() {
+    return poolMetrics.snapshot();
   }
 
 
   protected HttpClient getHttpClient() {
-    if (httpClient == null) {
-      httpClient = HttpClientFactory.createHttpClient(false,
-              connectionPoolSize, socketTimeout, connectionTimeout, connectionRequestTimeout);
+    HttpClient client = httpClient;
+    if (client == null) {
+      synchronized (this) {
+        // concurrent first calls must not create one client and connection pool each
+        client = httpClient;
+        if (client == null) {
+          client = HttpClientFactory.createHttpClient(false,
+                  connectionPoolSize, socketTimeout, connectionTimeout, connectionRequestTimeout, poolMetrics);
+          httpClient = client;
+        }
+      }
+    }
+    return client;
+  }
+
+  protected CloseableHttpAsyncClient getHttpAsyncClient() {
+    CloseableHttpAsyncClient client = httpAsyncClient;
+    if (client == null) {
+      synchronized (this) {
+        client = httpAsyncClient;
+        if (client == null) {
+          client = HttpClientFactory.createHttpAsyncClient(false,
+                  connectionPoolSize, ioThreadCount, socketTimeout, connectionTimeout, connectionRequestTimeout, asyncPoolMetrics);
+          httpAsyncClient = client;
+        }
+      }
+    }
+    return client;
+  }
+
+  private ScheduledExecutorService getRetryScheduler() {
+    ScheduledExecutorService scheduler = retryScheduler;
+    if (scheduler == null) {
+      synchronized (this) {
+        scheduler = retryScheduler;
+        if (scheduler == null) {
+          scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blacktri-retry");
+            thread.setDaemon(true);
+            return thread;
+          });
+          retryScheduler = scheduler;
+        }
+      }
+    }
+    return scheduler;
+  }
+
+  /**
+   * Releases the connection pools of the blocking and the async client and removes their MBeans.
+   */
+  public synchronized void close() {
+    poolMetrics.unregisterMBean();
+    asyncPoolMetrics.unregisterMBean();
+    ScheduledExecutorService scheduler = retryScheduler;
+    retryScheduler = null;
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+    CloseableHttpAsyncClient asyncClient = httpAsyncClient;
+    httpAsyncClient = null;
+    if (asyncClient != null) {
+      try {
+        asyncClient.close();
+      } catch (IOException e) {
+        LOG.debug("Error while closing async http client: {}", e.getMessage());
+      }
+    }
+    HttpClient client = httpClient;
+    httpClient = null;
+    if (client != null) {
+      closeQuietly(client);
     }
-    return httpClient;
   }
 
   @Required
   public void setServiceEndpoint(String serviceEndpoint) {
     this.serviceEndpoint = serviceEndpoint;
+    this.serviceUri = serviceEndpoint != null ? new ServiceUri(serviceEndpoint) : null;
   }
 
   public String getServiceEndpoint() {
@@ -254,12 +1352,179 @@ public class ABTestingRestConnector {
     this.connectionPoolSize = connectionPoolSize;
   }
 
-  public void setApiKey(String apiKey) {
+  /**
+   * Value of the {@code Accept-Encoding} header, defaults to {@code gzip,deflate}. An empty value requests
+   * uncompressed responses.
+   */
+  public void setAcceptEncoding(String acceptEncoding) {
+    this.acceptEncoding = acceptEncoding;
+    this.acceptEncodingHeader = StringUtils.hasText(acceptEncoding) ? new BasicHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding) : null;
+  }
+
+  /**
+   * Request bodies of at least this many bytes are sent gzip compressed. Defaults to -1, which disables request
+   * compression; only enable it if the endpoint accepts {@code Content-Encoding: gzip}.
+   */
+  public void setRequestCompressionThreshold(int requestCompressionThreshold) {
+    this.requestCompressionThreshold = requestCompressionThreshold;
+  }
+
+  /**
+   * Publishes the metrics of both connection pools in the platform MBean server under
+   * {@code de.blacktri.restapi:type=ConnectionPool,connector=<jmxName>}. Not published by default. The name has to be
+   * unique in the JVM; if another connector already published its metrics under it, a warning is logged and the
+   * metrics of this connector are not published.
+   */
+  public void setJmxName(String jmxName) {
+    this.jmxName = jmxName;
+    if (StringUtils.hasText(jmxName)) {
+      poolMetrics.registerMBean(jmxName);
+      asyncPoolMetrics.registerMBean(jmxName);
+    } else {
+      poolMetrics.unregisterMBean();
+      asyncPoolMetrics.unregisterMBean();
+    }
+  }
+
+  public String getJmxName() {
+    return jmxName;
+  }
+
+  /**
+   * Number of I/O dispatch threads of the async client, defaults to the number of available processors.
+   */
+  public void setIoThreadCount(int ioThreadCount) {
+    this.ioThreadCount = ioThreadCount;
+  }
+
+  /**
+   * Enables caching of GET responses. Caching is disabled by default.
+   */
+  public void setResponseCache(ResponseCache responseCache) {
+    this.responseCache = responseCache;
+  }
+
+  public ResponseCache getResponseCache() {
+    return responseCache;
+  }
+
+  /**
+   * Enables conditional GET requests based on {@code ETag} and {@code Last-Modified}. Disabled by default.
+   * <p/>
+   * Can be combined with a {@link ResponseCache}: fresh entries are served locally, expired ones are revalidated
+   * with the server instead of being downloaded again.
+   */
+  public void setValidatorCache(ValidatorCache validatorCache) {
+    this.validatorCache = validatorCache;
+  }
+
+  public ValidatorCache getValidatorCache() {
+    return validatorCache;
+  }
+
+  /**
+   * Sets the policy for retrying failed calls. Defaults to a {@link RetryPolicy} with 3 attempts, {@code null}
+   * disables retries.
+   */
+  public void setRetryPolicy(RetryPolicy retryPolicy) {
+    this.retryPolicy = retryPolicy;
+  }
+
+  public RetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  /**
+   * Sets the circuit breakers that stop calling failing endpoints. Enabled by default, {@code null} disables them.
+   */
+  public void setCircuitBreakerRegistry(CircuitBreakerRegistry circuitBreakerRegistry) {
+    this.circuitBreakerRegistry = circuitBreakerRegistry;
+  }
+
+  public CircuitBreakerRegistry getCircuitBreakerRegistry() {
+    return circuitBreakerRegistry;
+  }
+
+  /**
+   * Sets where the latencies of the calls are recorded per method and endpoint. Enabled by default, {@code null}
+   * disables the recording.
+   */
+  public void setEndpointLatencies(EndpointLatencies endpointLatencies) {
+    this.endpointLatencies = endpointLatencies;
+  }
+
+  public EndpointLatencies getEndpointLatencies() {
+    return endpointLatencies;
+  }
+
+  /**
+   * Sets the limiter for the rate of calls, globally and per api key. Disabled by default.
+   */
+  public void setRateLimiter(RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+  }
+
+  public RateLimiter getRateLimiter() {
+    return rateLimiter;
+  }
+
+  /**
+   * Registers a listener that is notified of every exchange made by this connector, including those of its
+   * {@link ClientContext}s.
+   */
+  public synchronized void addCallListener(CallListener listener) {
+    callListeners = CallListeners.add(callListeners, listener);
+  }
+
+  public synchronized void removeCallListener(CallListener listener) {
+    callListeners = CallListeners.remove(callListeners, listener);
+  }
+
+  /**
+   * Replaces all registered listeners, e.g. from a Spring context.
+   */
+  public synchronized void setCallListeners(List<CallListener> listeners) {
+    CallListeners registered = null;
+    for (CallListener listener : listeners) {
+      registered = CallListeners.add(registered, listener);
+    }
+    callListeners = registered;
+  }
+
+  /**
+   * Lets concurrent identical GET calls (same credentials, URI and result type) share one exchange and one decoded
+   * result, which all callers then have to treat as read-only. Disabled by default.
+   * <p/>
+   * A blocking call that joins another call waits for it; an async call gets a future that completes with it.
+   * Every async caller, including the one that started the exchange, gets its own future; the exchange is only
+   * aborted once all of them have been cancelled and no blocking call waits for it.
+   */
+  public void setCoalesceRequests(boolean coalesceRequests) {
+    this.coalesceRequests = coalesceRequests;
+  }
+
+  /**
+   * Number of calls that were answered by an identical call in flight instead of their own exchange.
+   */
+  public long getCoalescedCallCount() {
+    return coalescedCalls.sum();
+  }
+
+  /**
+   * Sets the api key of the calls made directly on the connector. Callers sharing a connector between several API
+   * users should each use their own {@link ClientContext} instead.
+   */
+  public synchronized void setApiKey(String apiKey) {
     this.apiKey = apiKey;
+    this.defaultContext = new ClientContext(this, apiKey, apiSecret);
   }
 
-  public void setApiSecret(String apiSecret) {
+  /**
+   * @see #setApiKey(String)
+   */
+  public synchronized void setApiSecret(String apiSecret) {
     this.apiSecret = apiSecret;
+    this.defaultContext = new ClientContext(this, apiKey, apiSecret);
   }
 
   public String getApiKey() {
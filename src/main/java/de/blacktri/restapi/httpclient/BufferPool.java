@@ -0,0 +1,72 @@
+package de.blacktri.restapi.httpclient;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool of growable byte buffers that request bodies are serialized into.
+ * <p/>
+ * A buffer is returned to the pool once its request has been sent, so steady traffic reuses a handful of arrays
+ * instead of allocating a {@code String}, its {@code byte[]} and the growth copies of both for every body.
+ * Buffers that grew beyond {@code maxRetainedSize} are dropped instead of being pooled.
+ */
+final class BufferPool {
+
+  private final BlockingQueue<Buffer> buffers;
+  private final int maxRetainedSize;
+
+  BufferPool(int maxPooledBuffers, int maxRetainedSize) {
+    this.buffers = new ArrayBlockingQueue<>(maxPooledBuffers);
+    this.maxRetainedSize = maxRetainedSize;
+  }
+
+  Buffer acquire() {
+    Buffer buffer = buffers.poll();
+    return buffer != null ? buffer : new Buffer(1024);
+  }
+
+  void release(Buffer buffer) {
+    if (buffer != null && buffer.bytes.length <= maxRetainedSize) {
+      buffer.count = 0;
+      buffers.offer(buffer);
+    }
+  }
+
+  static final class Buffer extends OutputStream {
+    private byte[] bytes;
+    private int count;
+
+    private Buffer(int size) {
+      bytes = new byte[size];
+    }
+
+    @Override
+    public void write(int b) {
+      ensureCapacity(count + 1);
+      bytes[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      ensureCapacity(count + len);
+      System.arraycopy(b, off, bytes, count, len);
+      count += len;
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length << 1));
+      }
+    }
+
+    byte[] array() {
+      return bytes;
+    }
+
+    int size() {
+      return count;
+    }
+  }
+}
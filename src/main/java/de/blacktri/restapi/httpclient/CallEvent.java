@@ -0,0 +1,197 @@
+package de.blacktri.restapi.httpclient;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.springframework.http.HttpMethod;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * One exchange of a call, passed to every {@link CallListener} callback of that exchange.
+ * <p/>
+ * Times are {@link System#nanoTime()} values, 0 until the stage has been reached; byte counts are -1 until known.
+ * An event is only created if listeners are registered. It is handed from one thread to the next with the
+ * exchange, but must not be modified by several threads at once.
+ */
+public final class CallEvent {
+
+  private final String apiKey;
+  private final HttpMethod method;
+  private final String uriTemplate;
+  private final String endpoint;
+  private final URI uri;
+  private final HttpUriRequest request;
+  private final int attempt;
+  private final long requestBytes;
+  private final long builtNanos;
+  private long sentNanos;
+  private long receivedNanos;
+  private long decodedNanos;
+  private int statusCode;
+  private long responseBytes = -1;
+  private long decodedResponseBytes = -1;
+  private Map<String, Object> attributes;
+
+  CallEvent(ClientContext context, HttpMethod method, String uriTemplate, String endpoint, URI uri,
+            HttpUriRequest request, int attempt) {
+    this.apiKey = context.getApiKey();
+    this.method = method;
+    this.uriTemplate = uriTemplate;
+    this.endpoint = endpoint;
+    this.uri = uri;
+    this.request = request;
+    this.attempt = attempt;
+    HttpEntity entity = request instanceof HttpEntityEnclosingRequest ? ((HttpEntityEnclosingRequest) request).getEntity() : null;
+    this.requestBytes = entity != null ? entity.getContentLength() : 0;
+    this.builtNanos = System.nanoTime();
+  }
+
+  void sent() {
+    sentNanos = System.nanoTime();
+  }
+
+  void received(int statusCode) {
+    this.statusCode = statusCode;
+    receivedNanos = System.nanoTime();
+  }
+
+  void decoded() {
+    decodedNanos = System.nanoTime();
+  }
+
+  void bodyRead(long wireBytes, long decodedBytes) {
+    responseBytes = wireBytes;
+    decodedResponseBytes = decodedBytes;
+  }
+
+  /**
+   * The api key of the {@link ClientContext} the call was made with.
+   */
+  public String getApiKey() {
+    return apiKey;
+  }
+
+  public HttpMethod getMethod() {
+    return method;
+  }
+
+  /**
+   * The resource path as passed by the caller, e.g. {@code account/12/project/345/trend}.
+   */
+  public String getUriTemplate() {
+    return uriTemplate;
+  }
+
+  /**
+   * The path with its ids replaced, e.g. {@code account/{id}/project/{id}/trend}.
+   *
+   * @see Endpoints#getEndpoint(String)
+   */
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  public URI getUri() {
+    return uri;
+  }
+
+  public HttpUriRequest getRequest() {
+    return request;
+  }
+
+  /**
+   * 1 for the first attempt of a call, incremented with every retry.
+   */
+  public int getAttempt() {
+    return attempt;
+  }
+
+  /**
+   * Request body bytes as sent, i.e. compressed if the body was compressed; 0 without body.
+   */
+  public long getRequestBytes() {
+    return requestBytes;
+  }
+
+  /**
+   * Response body bytes as received, -1 if the body has not been read.
+   */
+  public long getResponseBytes() {
+    return responseBytes;
+  }
+
+  /**
+   * Response body bytes after decompression, -1 if the body has not been read.
+   */
+  public long getDecodedResponseBytes() {
+    return decodedResponseBytes;
+  }
+
+  /**
+   * @return the status code of the response, 0 if none has been received
+   */
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  public long getBuiltNanos() {
+    return builtNanos;
+  }
+
+  public long getSentNanos() {
+    return sentNanos;
+  }
+
+  public long getReceivedNanos() {
+    return receivedNanos;
+  }
+
+  public long getDecodedNanos() {
+    return decodedNanos;
+  }
+
+  /**
+   * Time from sending the request until the response headers arrived, -1 if no response was received. Async calls
+   * only hand out complete responses, so for them this includes receiving the body.
+   */
+  public long getTimeToFirstByteNanos() {
+    return receivedNanos != 0 ? receivedNanos - sentNanos : -1;
+  }
+
+  /**
+   * Time spent reading and decoding the response body, -1 if it has not been decoded.
+   */
+  public long getDecodeNanos() {
+    return decodedNanos != 0 ? decodedNanos - receivedNanos : -1;
+  }
+
+  /**
+   * Time since the request was built, up to the last stage reached.
+   */
+  public long getElapsedNanos() {
+    long last = decodedNanos != 0 ? decodedNanos : receivedNanos != 0 ? receivedNanos : System.nanoTime();
+    return last - builtNanos;
+  }
+
+  /**
+   * Returns a value stored by a listener, e.g. a tracing span started when the request was built.
+   */
+  public Object getAttribute(String name) {
+    return attributes != null ? attributes.get(name) : null;
+  }
+
+  public void setAttribute(String name, Object value) {
+    if (attributes == null) {
+      attributes = new HashMap<>(4);
+    }
+    attributes.put(name, value);
+  }
+
+  @Override
+  public String toString() {
+    return method + " " + uri + " (attempt " + attempt + ", status " + statusCode + ")";
+  }
+}
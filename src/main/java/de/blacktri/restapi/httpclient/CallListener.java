@@ -0,0 +1,48 @@
+package de.blacktri.restapi.httpclient;
+
+/**
+ * Observes the exchanges of an {@link ABTestingRestConnector}, e.g. for tracing, metrics or auditing.
+ * <p/>
+ * Every attempt of a call is one exchange with its own {@link CallEvent}; a call that is retried produces several.
+ * Listeners are called synchronously, for async calls on the I/O dispatch thread, and should return quickly.
+ * Exceptions thrown by a listener are logged and do not affect the call. Calls answered from a cache, joined to an
+ * identical call in flight or rejected by an open circuit breaker do not reach the server and produce no events.
+ *
+ * @see ABTestingRestConnector#addCallListener(CallListener)
+ */
+public interface CallListener {
+
+  /**
+   * The request has been built and may still be modified, e.g. to add a tracing header.
+   */
+  default void onRequestBuilt(CallEvent event) {
+  }
+
+  /**
+   * The request is handed to the HTTP client, which may still have to wait for a pooled connection.
+   */
+  default void onRequestSent(CallEvent event) {
+  }
+
+  /**
+   * The status line and headers of the response are available. Not called for exchanges that fail without a
+   * response.
+   */
+  default void onResponseReceived(CallEvent event) {
+  }
+
+  /**
+   * The response body has been decoded successfully. For streaming calls, whose body is decoded while the caller
+   * iterates, once all elements have been read or the iterator is closed; an error while iterating is reported with
+   * {@link #onFailure(CallEvent, Exception)} instead.
+   */
+  default void onResponseDecoded(CallEvent event) {
+  }
+
+  /**
+   * The exchange failed, either without a response or because of it, e.g. with a {@link RemoteServiceException} for
+   * a 5xx status. The call may still be retried.
+   */
+  default void onFailure(CallEvent event, Exception failure) {
+  }
+}
@@ -0,0 +1,111 @@
+package de.blacktri.restapi.httpclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of the {@link CallListener}s of a connector that isolates the call from failing listeners. The
+ * connector holds none at all while no listener is registered, so calls pay for the listeners only if there are
+ * any.
+ */
+final class CallListeners {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CallListeners.class);
+
+  private final CallListener[] listeners;
+
+  private CallListeners(CallListener[] listeners) {
+    this.listeners = listeners;
+  }
+
+  /**
+   * @return the listeners with the given one added, {@code listeners} may be {@code null}
+   */
+  static CallListeners add(CallListeners listeners, CallListener listener) {
+    if (listeners == null) {
+      return new CallListeners(new CallListener[]{listener});
+    }
+    CallListener[] added = Arrays.copyOf(listeners.listeners, listeners.listeners.length + 1);
+    added[added.length - 1] = listener;
+    return new CallListeners(added);
+  }
+
+  /**
+   * @return the listeners without the given one, {@code null} if none is left
+   */
+  static CallListeners remove(CallListeners listeners, CallListener listener) {
+    if (listeners == null) {
+      return null;
+    }
+    CallListener[] remaining = new CallListener[listeners.listeners.length];
+    int count = 0;
+    for (CallListener registered : listeners.listeners) {
+      if (registered != listener) {
+        remaining[count++] = registered;
+      }
+    }
+    if (count == remaining.length) {
+      return listeners;
+    }
+    return count == 0 ? null : new CallListeners(Arrays.copyOf(remaining, count));
+  }
+
+  void requestBuilt(CallEvent event) {
+    for (CallListener listener : listeners) {
+      try {
+        listener.onRequestBuilt(event);
+      } catch (RuntimeException e) {
+        failed(listener, e);
+      }
+    }
+  }
+
+  void requestSent(CallEvent event) {
+    event.sent();
+    for (CallListener listener : listeners) {
+      try {
+        listener.onRequestSent(event);
+      } catch (RuntimeException e) {
+        failed(listener, e);
+      }
+    }
+  }
+
+  void responseReceived(CallEvent event, int statusCode) {
+    event.received(statusCode);
+    for (CallListener listener : listeners) {
+      try {
+        listener.onResponseReceived(event);
+      } catch (RuntimeException e) {
+        failed(listener, e);
+      }
+    }
+  }
+
+  void responseDecoded(CallEvent event) {
+    event.decoded();
+    for (CallListener listener : listeners) {
+      try {
+        listener.onResponseDecoded(event);
+      } catch (RuntimeException e) {
+        failed(listener, e);
+      }
+    }
+  }
+
+  void failure(CallEvent event, Exception failure) {
+    for (CallListener listener : listeners) {
+      try {
+        listener.onFailure(event, failure);
+      } catch (RuntimeException e) {
+        failed(listener, e);
+      }
+    }
+  }
+
+  private static void failed(CallListener listener, RuntimeException e) {
+    LOG.warn("Call listener {} failed: {}", listener, e.getMessage(), e);
+  }
+}
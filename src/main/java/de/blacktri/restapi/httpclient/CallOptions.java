@@ -0,0 +1,97 @@
+package de.blacktri.restapi.httpclient;
+
+/**
+ * Per-call settings of {@link ABTestingRestConnector} calls, which also collect what happened during the call.
+ * <p/>
+ * An instance describes a single call and must not be shared between calls. After the call has completed, the
+ * number of attempts, the time spent waiting between them and the last failure can be read from it.
+ */
+public class CallOptions {
+
+  private Boolean idempotent;
+
+  private volatile int attempts;
+  private volatile long backoffMillis;
+  private volatile int lastStatusCode;
+  private volatile Exception lastFailure;
+  private volatile boolean coalesced;
+
+  /**
+   * Marks the call as safe to repeat. By default, GET, PUT and DELETE are considered idempotent and POST is not,
+   * so a POST is only retried if it is marked idempotent here.
+   */
+  public CallOptions idempotent(boolean idempotent) {
+    this.idempotent = idempotent;
+    return this;
+  }
+
+  /**
+   * @return the explicit idempotency of the call, {@code null} to derive it from the HTTP method
+   */
+  public Boolean getIdempotent() {
+    return idempotent;
+  }
+
+  /**
+   * Number of requests sent for this call, including the first one.
+   */
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public int getRetries() {
+    return Math.max(0, attempts - 1);
+  }
+
+  /**
+   * Total time in milliseconds spent waiting before retries.
+   */
+  public long getBackoffMillis() {
+    return backoffMillis;
+  }
+
+  /**
+   * Status code of the last response, 0 if no response was received.
+   */
+  public int getLastStatusCode() {
+    return lastStatusCode;
+  }
+
+  /**
+   * The failure of the last attempt or {@code null} if it succeeded.
+   */
+  public Exception getLastFailure() {
+    return lastFailure;
+  }
+
+  /**
+   * Whether the call shared the exchange of an identical call in flight. Attempts and failures are then only
+   * recorded on the options of that call.
+   */
+  public boolean isCoalesced() {
+    return coalesced;
+  }
+
+  void coalesced() {
+    coalesced = true;
+  }
+
+  void attempted() {
+    attempts++;
+  }
+
+  void backedOff(long millis) {
+    backoffMillis += millis;
+  }
+
+  void completed(int statusCode, Exception failure) {
+    lastStatusCode = statusCode;
+    lastFailure = failure;
+  }
+
+  @Override
+  public String toString() {
+    return "CallOptions{" + (coalesced ? "coalesced, " : "") + "attempts=" + attempts + ", backoffMillis=" + backoffMillis + ", lastStatusCode=" + lastStatusCode
+            + (lastFailure != null ? ", lastFailure=" + lastFailure : "") + "}";
+  }
+}
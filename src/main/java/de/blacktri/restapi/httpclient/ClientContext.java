@@ -0,0 +1,146 @@
+package de.blacktri.restapi.httpclient;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+import org.codehaus.jackson.type.TypeReference;
+import org.springframework.http.HttpMethod;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Immutable view of an {@link ABTestingRestConnector} for one API user.
+ * <p/>
+ * The credentials are fixed when the context is created and travel with every call, so any number of contexts for
+ * different tenants can be used concurrently on top of one connector and its connection pools, caches, retry policy
+ * and circuit breakers. A context holds no more than the credentials and their encoded {@code Authorization}
+ * header; create one per tenant with {@link ABTestingRestConnector#createClientContext(String, String)} and keep it.
+ */
+public final class ClientContext {
+
+  private final ABTestingRestConnector connector;
+
+  private final String apiKey;
+
+  private final String apiSecret;
+
+  private final Header authorization;
+
+  ClientContext(ABTestingRestConnector connector, String apiKey, String apiSecret) {
+    this.connector = connector;
+    this.apiKey = apiKey != null ? apiKey : "";
+    this.apiSecret = apiSecret != null ? apiSecret : "";
+    String encoded = Base64.encodeBase64String((this.apiKey + ":" + this.apiSecret).getBytes(StandardCharsets.UTF_8));
+    this.authorization = new BasicHeader("Authorization", "Basic " + encoded);
+  }
+
+  public <T> T callService(HttpMethod serviceMethod, String uriTemplate, TypeReference returnType, Object bodyData) {
+    return callService(serviceMethod, uriTemplate, returnType,
+            Collections.<String, Object>emptyMap(),
+            Collections.<String, String>emptyMap(),
+            bodyData);
+  }
+
+  public <T> T callService(HttpMethod serviceMethod, String uriTemplate, TypeReference returnType,
+                           Map<String, Object> queryParameters,
+                           Object bodyData) {
+    return callService(serviceMethod, uriTemplate, returnType,
+            queryParameters,
+            Collections.<String, String>emptyMap(),
+            bodyData);
+  }
+
+  public <T> T callService(HttpMethod serviceMethod, String uriTemplate, TypeReference returnType,
+                           Map<String, Object> queryParameters,
+                           Map<String, String> additionalHeaders,
+                           Object bodyData) {
+    return callService(serviceMethod, uriTemplate, returnType, queryParameters, additionalHeaders, bodyData, new CallOptions());
+  }
+
+  /**
+   * @see ABTestingRestConnector#callService(HttpMethod, String, TypeReference, Map, Map, Object, CallOptions)
+   */
+  public <T> T callService(HttpMethod serviceMethod, String uriTemplate, TypeReference returnType,
+                           Map<String, Object> queryParameters,
+                           Map<String, String> additionalHeaders,
+                           Object bodyData,
+                           CallOptions options) {
+    return connector.callService(this, serviceMethod, uriTemplate, returnType, queryParameters, additionalHeaders, bodyData, options);
+  }
+
+  public <T> CompletableFuture<T> callServiceAsync(HttpMethod serviceMethod, String uriTemplate, TypeReference returnType,
+                                                   Object bodyData) {
+    return callServiceAsync(serviceMethod, uriTemplate, returnType,
+            Collections.<String, Object>emptyMap(),
+            Collections.<String, String>emptyMap(),
+            bodyData);
+  }
+
+  public <T> CompletableFuture<T> callServiceAsync(HttpMethod serviceMethod, String uriTemplate, TypeReference returnType,
+                                                   Map<String, Object> queryParameters,
+                                                   Object bodyData) {
+    return callServiceAsync(serviceMethod, uriTemplate, returnType,
+            queryParameters,
+            Collections.<String, String>emptyMap(),
+            bodyData);
+  }
+
+  public <T> CompletableFuture<T> callServiceAsync(HttpMethod serviceMethod, String uriTemplate, TypeReference returnType,
+                                                   Map<String, Object> queryParameters,
+                                                   Map<String, String> additionalHeaders,
+                                                   Object bodyData) {
+    return callServiceAsync(serviceMethod, uriTemplate, returnType, queryParameters, additionalHeaders, bodyData, new CallOptions());
+  }
+
+  /**
+   * @see ABTestingRestConnector#callServiceAsync(HttpMethod, String, TypeReference, Map, Map, Object, CallOptions)
+   */
+  public <T> CompletableFuture<T> callServiceAsync(HttpMethod serviceMethod, String uriTemplate, TypeReference returnType,
+                                                   Map<String, Object> queryParameters,
+                                                   Map<String, String> additionalHeaders,
+                                                   Object bodyData,
+                                                   CallOptions options) {
+    return connector.callServiceAsync(this, serviceMethod, uriTemplate, returnType, queryParameters, additionalHeaders, bodyData, options);
+  }
+
+  /**
+   * @see ABTestingRestConnector#callServiceStreaming(HttpMethod, String, TypeReference, Map)
+   */
+  public <T> ResponseIterator<T> callServiceStreaming(HttpMethod serviceMethod, String uriTemplate, TypeReference elementType,
+                                                      Map<String, Object> queryParameters) {
+    return connector.callServiceStreaming(this, serviceMethod, uriTemplate, elementType, queryParameters);
+  }
+
+  /**
+   * @see ABTestingRestConnector#callServiceStreaming(HttpMethod, String, TypeReference, Map, Consumer)
+   */
+  public <T> int callServiceStreaming(HttpMethod serviceMethod, String uriTemplate, TypeReference elementType,
+                                      Map<String, Object> queryParameters, Consumer<? super T> handler) {
+    return connector.callServiceStreaming(this, serviceMethod, uriTemplate, elementType, queryParameters, handler);
+  }
+
+  public ABTestingRestConnector getConnector() {
+    return connector;
+  }
+
+  public String getApiKey() {
+    return apiKey;
+  }
+
+  public String getApiSecret() {
+    return apiSecret;
+  }
+
+  Header getAuthorization() {
+    return authorization;
+  }
+
+  @Override
+  public String toString() {
+    return "ClientContext[" + apiKey + "]";
+  }
+}
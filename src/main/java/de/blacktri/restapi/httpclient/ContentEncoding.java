@@ -0,0 +1,175 @@
+package de.blacktri.restapi.httpclient;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Applies and removes the {@code gzip} and {@code deflate} content encodings and records the transferred bytes in
+ * {@link TransferStats} and, if there is one, the {@link CallEvent} of the exchange.
+ * <p/>
+ * Responses are decompressed while they are read, so neither the compressed nor the decompressed body is buffered
+ * as a whole.
+ */
+final class ContentEncoding {
+
+  static final String GZIP = "gzip";
+  static final String DEFLATE = "deflate";
+
+  private ContentEncoding() {
+  }
+
+  /**
+   * Opens the content of a response entity, decompressing it according to its {@code Content-Encoding}.
+   *
+   * @param event receives the byte counts when the stream is closed, may be {@code null}
+   * @throws IOException if the content encoding is not supported
+   */
+  static InputStream decode(HttpEntity entity, TransferStats stats, CallEvent event) throws IOException {
+    CountingInputStream wire = new CountingInputStream(entity.getContent(), null, stats, event);
+    Header contentEncoding = entity.getContentEncoding();
+    if (contentEncoding == null) {
+      wire.counterpart = wire;
+      return wire;
+    }
+    String encoding = contentEncoding.getValue().trim().toLowerCase(Locale.ENGLISH);
+    InputStream decoded;
+    if (GZIP.equals(encoding) || "x-gzip".equals(encoding)) {
+      decoded = new GZIPInputStream(wire);
+    } else if (DEFLATE.equals(encoding)) {
+      decoded = inflate(wire);
+    } else if ("identity".equals(encoding) || encoding.isEmpty()) {
+      wire.counterpart = wire;
+      return wire;
+    } else {
+      wire.close();
+      throw new IOException("Unsupported content encoding: " + encoding);
+    }
+    stats.compressedResponse();
+    return new CountingInputStream(decoded, wire, stats, event);
+  }
+
+  /**
+   * Opens a {@code deflate} encoded body, which is the zlib format according to RFC 7230, but sent as raw deflate
+   * data by some servers. The format is told by the zlib header; {@code DeflateInputStream} of httpclient 4.3 fails
+   * on zlib data that spans several reads.
+   */
+  private static InputStream inflate(InputStream in) throws IOException {
+    PushbackInputStream pushback = new PushbackInputStream(in, 2);
+    int first = pushback.read();
+    int second = first >= 0 ? pushback.read() : -1;
+    if (second >= 0) {
+      pushback.unread(second);
+    }
+    if (first >= 0) {
+      pushback.unread(first);
+    }
+    // compression method 8 and a header checksum that is a multiple of 31
+    boolean zlib = second >= 0 && (first & 0x0f) == 8 && ((first << 8) | second) % 31 == 0;
+    final Inflater inflater = new Inflater(!zlib);
+    return new InflaterInputStream(pushback, inflater) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          // an inflater passed to the stream is not released by it
+          inflater.end();
+        }
+      }
+    };
+  }
+
+  /**
+   * Creates the entity for the first {@code length} bytes of a JSON request body, gzip compressed if it has at least
+   * {@code threshold} bytes. The uncompressed entity refers to the given array, which must not be modified until
+   * the request has been sent.
+   *
+   * @param threshold minimum body size for compression, negative to disable compression
+   */
+  static HttpEntity encode(byte[] body, int length, int threshold, TransferStats stats) throws IOException {
+    if (threshold < 0 || length < threshold) {
+      stats.sent(length, length, false);
+      return new ByteArrayEntity(body, 0, length);
+    }
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, length / 4));
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(body, 0, length);
+    }
+    stats.sent(compressed.size(), length, true);
+    ByteArrayEntity entity = new ByteArrayEntity(compressed.toByteArray());
+    entity.setContentEncoding(GZIP);
+    return entity;
+  }
+
+  /**
+   * Counts the bytes read and reports them when the stream is closed. The decoded stream reports the wire bytes of
+   * its counterpart together with its own, an unencoded stream is its own counterpart.
+   */
+  private static final class CountingInputStream extends FilterInputStream {
+
+    private final TransferStats stats;
+    private final CallEvent event;
+    private CountingInputStream counterpart;
+    private long count;
+    private boolean reported;
+
+    private CountingInputStream(InputStream in, CountingInputStream counterpart, TransferStats stats, CallEvent event) {
+      super(in);
+      this.counterpart = counterpart;
+      this.stats = stats;
+      this.event = event;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      if (n > 0) {
+        count += n;
+      }
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count += skipped;
+      return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        if (!reported && counterpart != null) {
+          reported = true;
+          stats.received(counterpart.count, count);
+          if (event != null) {
+            event.bodyRead(counterpart.count, count);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,62 @@
+package de.blacktri.restapi.httpclient;
+
+/**
+ * Derives endpoint names from resource paths by replacing the ids in the path with {@code {id}}, e.g.
+ * {@code account/{id}/project/{id}/trend} for {@code account/12/project/345/trend}.
+ * <p/>
+ * Per-endpoint state such as circuit breakers and metrics is kept per endpoint name, so it does not grow with the
+ * number of accounts and projects.
+ */
+public final class Endpoints {
+
+  static final String ID = "{id}";
+
+  private Endpoints() {
+  }
+
+  public static String getEndpoint(String path) {
+    int length = path.indexOf('?');
+    if (length < 0) {
+      length = path.length();
+    }
+    int start = 0;
+    while (start < length && path.charAt(start) == '/') {
+      start++;
+    }
+    StringBuilder endpoint = new StringBuilder(length - start + 8);
+    while (start < length) {
+      int end = path.indexOf('/', start);
+      if (end < 0 || end > length) {
+        end = length;
+      }
+      if (end > start) {
+        if (endpoint.length() > 0) {
+          endpoint.append('/');
+        }
+        if (isId(path, start, end)) {
+          endpoint.append(ID);
+        } else {
+          endpoint.append(path, start, end);
+        }
+      }
+      start = end + 1;
+    }
+    return endpoint.toString();
+  }
+
+  private static boolean isId(String path, int start, int end) {
+    if (path.charAt(start) == '-') {
+      start++;
+    }
+    if (start == end) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      char c = path.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -1,10 +1,19 @@
 package de.blacktri.restapi.httpclient;
 
+import de.blacktri.restapi.httpclient.pool.InstrumentedAsyncConnectionManager;
+import de.blacktri.restapi.httpclient.pool.InstrumentedConnectionManager;
+import de.blacktri.restapi.httpclient.pool.PoolMetrics;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
 
 /**
  * Creates an httpClient which accepts all https certificates.
@@ -12,8 +21,54 @@ import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 public class HttpClientFactory {
 
   protected static HttpClient createHttpClient(boolean acceptCookies, int connectionPoolSize, int socketTimeout, int connectionTimeout, int connectionRequestTimeout) {
-    HttpClientBuilder clientBuilder = HttpClientBuilder.create().disableRedirectHandling().useSystemProperties();
-    clientBuilder.setConnectionManager(createDefaultConnectionMgr(connectionPoolSize));
+    return createHttpClient(acceptCookies, connectionPoolSize, socketTimeout, connectionTimeout, connectionRequestTimeout, null);
+  }
+
+  /**
+   * @param poolMetrics receives the metrics of the connection pool, {@code null} for an uninstrumented pool
+   */
+  protected static HttpClient createHttpClient(boolean acceptCookies, int connectionPoolSize, int socketTimeout, int connectionTimeout,
+                                               int connectionRequestTimeout, PoolMetrics poolMetrics) {
+    // compression and retries are handled by the connector, see ContentEncoding and RetryPolicy
+    HttpClientBuilder clientBuilder = HttpClientBuilder.create().disableRedirectHandling().disableContentCompression()
+            .disableAutomaticRetries().useSystemProperties();
+    clientBuilder.setConnectionManager(createDefaultConnectionMgr(connectionPoolSize, poolMetrics));
+    clientBuilder.setDefaultRequestConfig(createRequestConfig(acceptCookies, socketTimeout, connectionTimeout, connectionRequestTimeout));
+
+    return clientBuilder.build();
+  }
+
+  /**
+   * Creates and starts a non-blocking client with the same pool and timeout settings as
+   * {@link #createHttpClient(boolean, int, int, int, int)}.
+   * <p/>
+   * All exchanges are multiplexed over {@code ioThreadCount} I/O dispatch threads, so the number of requests in
+   * flight is bounded by the pool size and not by the number of caller threads.
+   */
+  protected static CloseableHttpAsyncClient createHttpAsyncClient(boolean acceptCookies, int connectionPoolSize, int ioThreadCount,
+                                                                  int socketTimeout, int connectionTimeout, int connectionRequestTimeout) {
+    return createHttpAsyncClient(acceptCookies, connectionPoolSize, ioThreadCount, socketTimeout, connectionTimeout, connectionRequestTimeout, null);
+  }
+
+  /**
+   * @param poolMetrics receives the metrics of the connection pool, {@code null} for an uninstrumented pool
+   */
+  protected static CloseableHttpAsyncClient createHttpAsyncClient(boolean acceptCookies, int connectionPoolSize, int ioThreadCount,
+                                                                  int socketTimeout, int connectionTimeout, int connectionRequestTimeout,
+                                                                  PoolMetrics poolMetrics) {
+    HttpAsyncClientBuilder clientBuilder = HttpAsyncClientBuilder.create().useSystemProperties();
+    clientBuilder.setConnectionManager(createDefaultAsyncConnectionMgr(connectionPoolSize, ioThreadCount, socketTimeout, connectionTimeout, poolMetrics));
+    RequestConfig requestConfig = RequestConfig.copy(createRequestConfig(acceptCookies, socketTimeout, connectionTimeout, connectionRequestTimeout))
+            .setRedirectsEnabled(false)
+            .build();
+    clientBuilder.setDefaultRequestConfig(requestConfig);
+
+    CloseableHttpAsyncClient client = clientBuilder.build();
+    client.start();
+    return client;
+  }
+
+  private static RequestConfig createRequestConfig(boolean acceptCookies, int socketTimeout, int connectionTimeout, int connectionRequestTimeout) {
     RequestConfig.Builder builder = RequestConfig.custom()
             .setSocketTimeout(socketTimeout)
             .setConnectTimeout(connectionTimeout)
@@ -22,16 +77,39 @@ public class HttpClientFactory {
     if (!acceptCookies) {
       builder.setCookieSpec(CookieSpecs.IGNORE_COOKIES);
     }
-    clientBuilder.setDefaultRequestConfig(builder.build());
-
-    return clientBuilder.build();
+    return builder.build();
   }
 
-  private static PoolingHttpClientConnectionManager createDefaultConnectionMgr(int connectionPoolSize) {
-    PoolingHttpClientConnectionManager defaultConnectionPoolMgr = new PoolingHttpClientConnectionManager();
+  private static PoolingHttpClientConnectionManager createDefaultConnectionMgr(int connectionPoolSize, PoolMetrics poolMetrics) {
+    PoolingHttpClientConnectionManager defaultConnectionPoolMgr = poolMetrics != null
+            ? new InstrumentedConnectionManager(poolMetrics) : new PoolingHttpClientConnectionManager();
     defaultConnectionPoolMgr.setMaxTotal(connectionPoolSize);
     defaultConnectionPoolMgr.setDefaultMaxPerRoute(connectionPoolSize);
     return defaultConnectionPoolMgr;
   }
 
-}
\ No newline at end of file
+  private static PoolingNHttpClientConnectionManager createDefaultAsyncConnectionMgr(int connectionPoolSize, int ioThreadCount,
+                                                                                     int socketTimeout, int connectionTimeout,
+                                                                                     PoolMetrics poolMetrics) {
+    IOReactorConfig.Builder ioReactorConfig = IOReactorConfig.custom()
+            .setIoThreadCount(ioThreadCount)
+            .setSoKeepAlive(true);
+    if (socketTimeout > 0) {
+      ioReactorConfig.setSoTimeout(socketTimeout);
+    }
+    if (connectionTimeout > 0) {
+      ioReactorConfig.setConnectTimeout(connectionTimeout);
+    }
+    try {
+      DefaultConnectingIOReactor ioReactor = new DefaultConnectingIOReactor(ioReactorConfig.build());
+      PoolingNHttpClientConnectionManager defaultConnectionPoolMgr = poolMetrics != null
+              ? new InstrumentedAsyncConnectionManager(ioReactor, poolMetrics) : new PoolingNHttpClientConnectionManager(ioReactor);
+      defaultConnectionPoolMgr.setMaxTotal(connectionPoolSize);
+      defaultConnectionPoolMgr.setDefaultMaxPerRoute(connectionPoolSize);
+      return defaultConnectionPoolMgr;
+    } catch (IOReactorException e) {
+      throw new IllegalStateException("Unable to create I/O reactor for the async http client", e);
+    }
+  }
+
+}
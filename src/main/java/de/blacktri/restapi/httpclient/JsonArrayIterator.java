@@ -0,0 +1,148 @@
+package de.blacktri.restapi.httpclient;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+import static org.apache.http.client.utils.HttpClientUtils.closeQuietly;
+
+/**
+ * Reads one array element at a time from a streamed response, so at most one decoded element is held in memory.
+ * <p/>
+ * The end of the exchange is reported once, with {@code null} when all elements have been read or the iterator is
+ * closed, with the exception when reading or decoding fails.
+ */
+class JsonArrayIterator<T> implements ResponseIterator<T> {
+
+  private final HttpUriRequest request;
+  private final HttpResponse response;
+  private final JsonParser parser;
+  private final ObjectReader reader;
+  private final Consumer<Exception> onEnd;
+
+  private JsonToken current;
+  private boolean exhausted;
+  private boolean closed;
+
+  /**
+   * @param onEnd receives the end of the exchange, may be {@code null}; not called if the constructor throws
+   */
+  JsonArrayIterator(HttpUriRequest request, HttpResponse response, JsonParser parser, ObjectReader reader,
+                    Consumer<Exception> onEnd) throws IOException {
+    this.request = request;
+    this.response = response;
+    this.parser = parser;
+    this.reader = reader;
+
+    JsonToken first = parser.nextToken();
+    if (first != null && first != JsonToken.START_ARRAY) {
+      release();
+      throw new IOException("Expected a JSON array from " + request.getURI() + " but got " + first);
+    }
+    this.onEnd = onEnd;
+    if (first == null) {
+      exhausted = true;
+      close();
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (closed) {
+      return false;
+    }
+    if (current == null) {
+      try {
+        current = parser.nextToken();
+      } catch (IOException e) {
+        end(e);
+        throw new UncheckedIOException("Error while reading " + request.getURI(), e);
+      }
+      if (current == null || current == JsonToken.END_ARRAY) {
+        exhausted = true;
+        close();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    try {
+      T element = reader.readValue(parser);
+      current = null;
+      return element;
+    } catch (IOException e) {
+      end(e);
+      throw new UncheckedIOException("Error while decoding element of " + request.getURI(), e);
+    }
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void close() {
+    end(null);
+  }
+
+  private void end(Exception failure) {
+    if (closed) {
+      return;
+    }
+    release();
+    if (onEnd != null) {
+      onEnd.accept(failure);
+    }
+  }
+
+  private void release() {
+    closed = true;
+    if (!exhausted) {
+      // abort first, closing the parser would drain the rest of a large array just to keep the connection
+      request.abort();
+    }
+    try {
+      parser.close();
+    } catch (IOException e) {
+      // the response is released below anyway
+    }
+    closeQuietly(response);
+  }
+
+  static <T> ResponseIterator<T> empty() {
+    return new ResponseIterator<T>() {
+      @Override
+      public void close() {
+      }
+
+      @Override
+      public boolean hasNext() {
+        return false;
+      }
+
+      @Override
+      public T next() {
+        throw new NoSuchElementException();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+}
@@ -0,0 +1,103 @@
+package de.blacktri.restapi.httpclient;
+
+import de.blacktri.restapi.json.ApiDateFormat;
+import de.blacktri.restapi.json.ApiDateModule;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.ObjectReader;
+import org.codehaus.jackson.map.ObjectWriter;
+import org.codehaus.jackson.map.SerializationConfig;
+import org.codehaus.jackson.map.annotate.JsonSerialize;
+import org.codehaus.jackson.type.TypeReference;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Long-lived JSON codec of an {@link ABTestingRestConnector}.
+ * <p/>
+ * A configured {@link ObjectMapper} and the readers and writers derived from it are thread-safe, so one codec is
+ * shared by all calls of a connector. Readers are cached per target type and writers per body class, which keeps
+ * Jackson's (de)serializer caches warm instead of introspecting the pojos again for every request and response.
+ * Dates are handled by an {@link ApiDateModule}, so no {@code SimpleDateFormat} is cloned or shared between calls.
+ */
+public class JsonCodec {
+
+  private final ObjectMapper mapper;
+
+  private final ConcurrentMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+  public JsonCodec(ApiDateFormat dateFormat) {
+    mapper = new ObjectMapper();
+    mapper.setDateFormat(dateFormat.toDateFormat());
+    mapper.registerModule(new ApiDateModule(dateFormat));
+    mapper.setSerializationInclusion(JsonSerialize.Inclusion.NON_NULL);
+    mapper.configure(SerializationConfig.Feature.FAIL_ON_EMPTY_BEANS, false);
+  }
+
+  /**
+   * Returns the shared reader for the given type.
+   * <p/>
+   * The cache is keyed by {@link TypeReference#getType()}, so the anonymous type references created on every call
+   * in {@link de.blacktri.restapi.ABTest} all resolve to the same reader.
+   *
+   * @param returnType the type to decode
+   * @return a thread-safe reader for the type
+   */
+  public ObjectReader reader(TypeReference<?> returnType) {
+    Type key = returnType.getType();
+    ObjectReader reader = readers.get(key);
+    if (reader == null) {
+      reader = mapper.reader(returnType);
+      ObjectReader existing = readers.putIfAbsent(key, reader);
+      if (existing != null) {
+        reader = existing;
+      }
+    }
+    return reader;
+  }
+
+  /**
+   * Returns the shared writer for the given body class.
+   *
+   * @param bodyType the runtime class of the request body
+   * @return a thread-safe writer for the class
+   */
+  public ObjectWriter writer(Class<?> bodyType) {
+    ObjectWriter writer = writers.get(bodyType);
+    if (writer == null) {
+      writer = mapper.writerWithType(bodyType);
+      ObjectWriter existing = writers.putIfAbsent(bodyType, writer);
+      if (existing != null) {
+        writer = existing;
+      }
+    }
+    return writer;
+  }
+
+  public <T> T read(InputStream inputStream, TypeReference<?> returnType) throws IOException {
+    return reader(returnType).readValue(inputStream);
+  }
+
+  public JsonParser createParser(InputStream inputStream) throws IOException {
+    return mapper.getJsonFactory().createJsonParser(inputStream);
+  }
+
+  public void write(Object model, OutputStream outputStream) throws IOException {
+    writer(model.getClass()).writeValue(outputStream, model);
+  }
+
+  public String writeAsString(Object model) throws IOException {
+    return writer(model.getClass()).writeValueAsString(model);
+  }
+
+  public ObjectMapper getMapper() {
+    return mapper;
+  }
+}
@@ -0,0 +1,29 @@
+package de.blacktri.restapi.httpclient;
+
+/**
+ * Thrown when the API answers with a status code that is neither a success nor {@code 204 No Content}.
+ */
+public class RemoteServiceException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int statusCode;
+  private final String retryAfter;
+
+  public RemoteServiceException(String message, int statusCode, String retryAfter) {
+    super(message);
+    this.statusCode = statusCode;
+    this.retryAfter = retryAfter;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  /**
+   * The value of the {@code Retry-After} header of the response or {@code null}.
+   */
+  public String getRetryAfter() {
+    return retryAfter;
+  }
+}
@@ -0,0 +1,21 @@
+package de.blacktri.restapi.httpclient;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Lazily decodes the elements of a JSON array response while they are read from the connection.
+ * <p/>
+ * The underlying HTTP response is released as soon as the last element has been read. Callers that stop iterating
+ * early must {@link #close()} the iterator, which aborts the remaining transfer.
+ *
+ * @param <T> the element type
+ */
+public interface ResponseIterator<T> extends Iterator<T>, Closeable {
+
+  /**
+   * Releases the underlying HTTP response. Calling it more than once has no effect.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,114 @@
+package de.blacktri.restapi.httpclient;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * The service endpoint of a connector, parsed and validated once, from which request URIs are derived.
+ * <p/>
+ * Relative paths and query parameters are appended and percent-encoded in a single pass, producing the same URIs
+ * as {@code UriComponentsBuilder.fromUriString(endpoint + path).queryParam(..).build().encode()}, but without
+ * parsing the endpoint and the path with regular expressions and without the intermediate component objects.
+ */
+final class ServiceUri {
+
+  private static final boolean[] PATH = allowed("/");
+  private static final boolean[] QUERY = allowed("/?");
+  private static final boolean[] QUERY_PARAM = allowed("/?");
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+  static {
+    QUERY_PARAM['='] = false;
+    QUERY_PARAM['&'] = false;
+    QUERY_PARAM['+'] = false;
+  }
+
+  private final String base;
+
+  ServiceUri(String endpoint) {
+    String base = endpoint.endsWith("/") ? endpoint : endpoint + "/";
+    URI uri = URI.create(base);
+    if (uri.getRawQuery() != null || uri.getRawFragment() != null) {
+      throw new IllegalArgumentException("Service endpoint must not contain a query or fragment: " + endpoint);
+    }
+    this.base = base;
+  }
+
+  /**
+   * @param relativePath    the resource path relative to the endpoint, optionally followed by a query string
+   * @param queryParameters further query parameters, a {@code null} value adds the name only
+   */
+  URI resolve(String relativePath, Map<String, Object> queryParameters) {
+    StringBuilder uri = new StringBuilder(base.length() + relativePath.length() + 24 * queryParameters.size());
+    uri.append(base);
+    int query = relativePath.indexOf('?');
+    if (query < 0) {
+      appendEncoded(uri, relativePath, 0, relativePath.length(), PATH);
+    } else {
+      appendEncoded(uri, relativePath, 0, query, PATH);
+      uri.append('?');
+      appendEncoded(uri, relativePath, query + 1, relativePath.length(), QUERY);
+    }
+    char separator = query < 0 ? '?' : '&';
+    for (Map.Entry<String, Object> parameter : queryParameters.entrySet()) {
+      uri.append(separator);
+      separator = '&';
+      String name = parameter.getKey();
+      appendEncoded(uri, name, 0, name.length(), QUERY_PARAM);
+      Object value = parameter.getValue();
+      if (value != null) {
+        String text = value.toString();
+        uri.append('=');
+        appendEncoded(uri, text, 0, text.length(), QUERY_PARAM);
+      }
+    }
+    return URI.create(uri.toString());
+  }
+
+  private static void appendEncoded(StringBuilder uri, String value, int start, int end, boolean[] allowed) {
+    int i = start;
+    while (i < end) {
+      char c = value.charAt(i);
+      if (c < 128 && allowed[c]) {
+        uri.append(c);
+        i++;
+      } else {
+        // percent-encode the UTF-8 bytes of the character, or of the surrogate pair it starts
+        int next = Character.isHighSurrogate(c) && i + 1 < end ? i + 2 : i + 1;
+        for (byte b : value.substring(i, next).getBytes(StandardCharsets.UTF_8)) {
+          uri.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+        }
+        i = next;
+      }
+    }
+  }
+
+  /**
+   * Characters allowed unencoded in a path segment according to RFC 3986, plus the given ones.
+   */
+  private static boolean[] allowed(String additional) {
+    boolean[] allowed = new boolean[128];
+    for (char c = 'a'; c <= 'z'; c++) {
+      allowed[c] = true;
+    }
+    for (char c = 'A'; c <= 'Z'; c++) {
+      allowed[c] = true;
+    }
+    for (char c = '0'; c <= '9'; c++) {
+      allowed[c] = true;
+    }
+    for (char c : "-._~!$&'()*+,;=:@".toCharArray()) {
+      allowed[c] = true;
+    }
+    for (char c : additional.toCharArray()) {
+      allowed[c] = true;
+    }
+    return allowed;
+  }
+
+  @Override
+  public String toString() {
+    return base;
+  }
+}
@@ -0,0 +1,87 @@
+package de.blacktri.restapi.httpclient;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the bytes transferred by an {@link ABTestingRestConnector}, both as sent over the wire and before
+ * compression or after decompression respectively.
+ * <p/>
+ * Only message bodies are counted, headers are not included.
+ */
+public class TransferStats {
+
+  private final LongAdder wireBytesReceived = new LongAdder();
+  private final LongAdder decodedBytesReceived = new LongAdder();
+  private final LongAdder wireBytesSent = new LongAdder();
+  private final LongAdder plainBytesSent = new LongAdder();
+  private final LongAdder compressedResponses = new LongAdder();
+  private final LongAdder compressedRequests = new LongAdder();
+
+  void received(long wireBytes, long decodedBytes) {
+    wireBytesReceived.add(wireBytes);
+    decodedBytesReceived.add(decodedBytes);
+  }
+
+  void sent(long wireBytes, long plainBytes, boolean compressed) {
+    wireBytesSent.add(wireBytes);
+    plainBytesSent.add(plainBytes);
+    if (compressed) {
+      compressedRequests.increment();
+    }
+  }
+
+  void compressedResponse() {
+    compressedResponses.increment();
+  }
+
+  /**
+   * Response body bytes as received, i.e. compressed if the server applied a content encoding.
+   */
+  public long getWireBytesReceived() {
+    return wireBytesReceived.sum();
+  }
+
+  /**
+   * Response body bytes after decompression, i.e. the JSON handed to the decoder.
+   */
+  public long getDecodedBytesReceived() {
+    return decodedBytesReceived.sum();
+  }
+
+  /**
+   * Request body bytes as sent, i.e. compressed if the body exceeded the compression threshold.
+   */
+  public long getWireBytesSent() {
+    return wireBytesSent.sum();
+  }
+
+  /**
+   * Request body bytes before compression.
+   */
+  public long getPlainBytesSent() {
+    return plainBytesSent.sum();
+  }
+
+  public long getCompressedResponseCount() {
+    return compressedResponses.sum();
+  }
+
+  public long getCompressedRequestCount() {
+    return compressedRequests.sum();
+  }
+
+  public void reset() {
+    wireBytesReceived.reset();
+    decodedBytesReceived.reset();
+    wireBytesSent.reset();
+    plainBytesSent.reset();
+    compressedResponses.reset();
+    compressedRequests.reset();
+  }
+
+  @Override
+  public String toString() {
+    return "TransferStats{received " + getWireBytesReceived() + " of " + getDecodedBytesReceived()
+            + " bytes, sent " + getWireBytesSent() + " of " + getPlainBytesSent() + " bytes}";
+  }
+}
@@ -0,0 +1,73 @@
+package de.blacktri.restapi.httpclient.cache;
+
+/**
+ * Point-in-time counters of a {@link ResponseCache}.
+ */
+public class CacheStats {
+
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final long expirationCount;
+  private final long invalidationCount;
+  private final int size;
+
+  public CacheStats(long hitCount, long missCount, long evictionCount, long expirationCount, long invalidationCount, int size) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.expirationCount = expirationCount;
+    this.invalidationCount = invalidationCount;
+    this.size = size;
+  }
+
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Ratio of hits to all lookups, 0 if there was no lookup yet.
+   */
+  public double getHitRate() {
+    long requests = hitCount + missCount;
+    return requests == 0 ? 0 : (double) hitCount / requests;
+  }
+
+  /**
+   * Number of entries removed because the cache exceeded its maximum size.
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  public long getExpirationCount() {
+    return expirationCount;
+  }
+
+  /**
+   * Number of entries removed because the resource was modified through the connector.
+   */
+  public long getInvalidationCount() {
+    return invalidationCount;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats{" +
+            "hits=" + hitCount +
+            ", misses=" + missCount +
+            ", evictions=" + evictionCount +
+            ", expirations=" + expirationCount +
+            ", invalidations=" + invalidationCount +
+            ", size=" + size +
+            '}';
+  }
+}
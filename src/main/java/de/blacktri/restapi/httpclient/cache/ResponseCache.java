@@ -0,0 +1,227 @@
+package de.blacktri.restapi.httpclient.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded, read-through cache for decoded GET responses.
+ * <p/>
+ * Entries are keyed by credentials and request URI and expire after a time-to-live that depends on the kind of
+ * resource, e.g. {@code project}, {@code goals}, {@code rules} or {@code conditions} (the last non-numeric segment
+ * of the resource path). When the cache is full, the least recently used entry is evicted.
+ * <p/>
+ * Cached objects are shared between all callers that hit the same entry and must not be modified.
+ * <p/>
+ * Every invalidation starts a new {@link #getGeneration() generation}. A response is only cached if no invalidation
+ * happened while it was requested, so a read that overlaps a write cannot store the state from before the write.
+ */
+public class ResponseCache {
+
+  private int maxEntries = 10000;
+  private long defaultTimeToLive = TimeUnit.SECONDS.toMillis(30);
+  private Map<String, Long> timeToLive = Collections.emptyMap();
+
+  private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      if (size() > maxEntries) {
+        evictions.incrementAndGet();
+        return true;
+      }
+      return false;
+    }
+  };
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong expirations = new AtomicLong();
+  private final AtomicLong invalidations = new AtomicLong();
+
+  /**
+   * Incremented under the lock of {@code entries}, read without it.
+   */
+  private volatile long generation;
+
+  /**
+   * Returns the cached value or {@code null} if there is no live entry for the key.
+   */
+  public Object get(String key) {
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        if (entry.expiresAt - System.nanoTime() > 0) {
+          hits.incrementAndGet();
+          return entry.value;
+        }
+        entries.remove(key);
+        expirations.incrementAndGet();
+      }
+    }
+    misses.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Caches a decoded response. {@code null} values and resources with a time-to-live of 0 are not cached.
+   *
+   * @param key  the cache key, see {@link #get(String)}
+   * @param path the resource path relative to the service endpoint, used for invalidation
+   */
+  public void put(String key, String path, Object value) {
+    put(key, path, value, -1);
+  }
+
+  /**
+   * Caches a decoded response unless the cache was invalidated since the given generation was taken.
+   *
+   * @param generation the {@link #getGeneration() generation} taken before the response was requested, -1 to cache
+   *                   the response regardless
+   */
+  public void put(String key, String path, Object value, long generation) {
+    if (value == null) {
+      return;
+    }
+    long ttl = getTimeToLive(resourceOf(path));
+    if (ttl <= 0) {
+      return;
+    }
+    Entry entry = new Entry(trimSlashes(path), value, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttl));
+    synchronized (entries) {
+      if (generation >= 0 && generation != this.generation) {
+        return;
+      }
+      entries.put(key, entry);
+    }
+  }
+
+  /**
+   * Removes all entries for the given resource path and the resources below it, regardless of credentials and
+   * query parameters.
+   *
+   * @param path a resource path relative to the service endpoint, e.g. {@code account/1/project/2}
+   */
+  public void invalidate(String path) {
+    String prefix = trimSlashes(path);
+    synchronized (entries) {
+      generation++;
+      for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+        if (isSameOrBelow(it.next().path, prefix)) {
+          it.remove();
+          invalidations.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      generation++;
+      entries.clear();
+    }
+  }
+
+  /**
+   * Number of invalidations so far, including {@link #clear()}; take it before requesting a response that is to be
+   * cached with {@link #put(String, String, Object, long)}.
+   */
+  public long getGeneration() {
+    return generation;
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public CacheStats getStats() {
+    return new CacheStats(hits.get(), misses.get(), evictions.get(), expirations.get(), invalidations.get(), size());
+  }
+
+  long getTimeToLive(String resource) {
+    Long ttl = timeToLive.get(resource);
+    return ttl != null ? ttl : defaultTimeToLive;
+  }
+
+  /**
+   * Derives the resource kind from a path, e.g. {@code goals} for {@code account/1/project/2/goals}.
+   */
+  static String resourceOf(String path) {
+    int end = path.length();
+    while (end > 0) {
+      while (end > 0 && path.charAt(end - 1) == '/') {
+        end--;
+      }
+      int start = path.lastIndexOf('/', end - 1) + 1;
+      String segment = path.substring(start, end);
+      if (!segment.isEmpty() && !isNumeric(segment)) {
+        return segment;
+      }
+      end = start;
+    }
+    return "";
+  }
+
+  private static boolean isNumeric(String segment) {
+    for (int i = 0; i < segment.length(); i++) {
+      char c = segment.charAt(i);
+      if ((c < '0' || c > '9') && !(i == 0 && c == '-')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static boolean isSameOrBelow(String path, String prefix) {
+    return path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/');
+  }
+
+  static String trimSlashes(String path) {
+    int start = 0;
+    int end = path.length();
+    while (start < end && path.charAt(start) == '/') {
+      start++;
+    }
+    while (end > start && path.charAt(end - 1) == '/') {
+      end--;
+    }
+    return path.substring(start, end);
+  }
+
+  public void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Time-to-live in milliseconds for resources without an explicit entry in {@link #setTimeToLive(Map)}.
+   */
+  public void setDefaultTimeToLive(long defaultTimeToLive) {
+    this.defaultTimeToLive = defaultTimeToLive;
+  }
+
+  /**
+   * Time-to-live in milliseconds per resource kind, e.g. {@code project -> 60000, trend -> 0}. A value of 0 disables
+   * caching for the resource.
+   */
+  public void setTimeToLive(Map<String, Long> timeToLive) {
+    this.timeToLive = new HashMap<>(timeToLive);
+  }
+
+  private static final class Entry {
+    private final String path;
+    private final Object value;
+    private final long expiresAt;
+
+    private Entry(String path, Object value, long expiresAt) {
+      this.path = path;
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,160 @@
+package de.blacktri.restapi.httpclient.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers the {@code ETag} and {@code Last-Modified} validators of GET responses together with the decoded body.
+ * <p/>
+ * The connector sends the validators back as {@code If-None-Match} and {@code If-Modified-Since}. If the server
+ * answers {@code 304 Not Modified}, the remembered object is returned without downloading or parsing the body again.
+ * In contrast to the {@link ResponseCache}, entries do not expire: every lookup still costs a round trip, but an
+ * unchanged resource only costs the headers. When the cache is full, the least recently used entry is evicted.
+ * <p/>
+ * Remembered objects are shared between all callers of the same resource and must not be modified.
+ */
+public class ValidatorCache {
+
+  private int maxEntries = 1000;
+
+  private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > maxEntries;
+    }
+  };
+
+  private final AtomicLong conditionalRequests = new AtomicLong();
+  private final AtomicLong notModified = new AtomicLong();
+  private final AtomicLong bytesSaved = new AtomicLong();
+
+  /**
+   * Returns the validators remembered for the key or {@code null}. A non-null result is counted as a conditional
+   * request.
+   */
+  public Entry get(String key) {
+    Entry entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+    }
+    if (entry != null) {
+      conditionalRequests.incrementAndGet();
+    }
+    return entry;
+  }
+
+  /**
+   * Remembers the validators of a successful response. Does nothing if the response carried neither an
+   * {@code ETag} nor a {@code Last-Modified} header or if there is no decoded value.
+   *
+   * @param key           the cache key, see {@link #get(String)}
+   * @param path          the resource path relative to the service endpoint, used for invalidation
+   * @param contentLength the length of the response body or -1 if unknown, used for {@link #getBytesSaved()}
+   */
+  public void put(String key, String path, String etag, String lastModified, long contentLength, Object value) {
+    if (value == null || (etag == null && lastModified == null)) {
+      return;
+    }
+    Entry entry = new Entry(ResponseCache.trimSlashes(path), etag, lastModified, contentLength, value);
+    synchronized (entries) {
+      entries.put(key, entry);
+    }
+  }
+
+  /**
+   * Records that the server confirmed the given entry with {@code 304 Not Modified}.
+   */
+  public void notModified(Entry entry) {
+    notModified.incrementAndGet();
+    if (entry.contentLength > 0) {
+      bytesSaved.addAndGet(entry.contentLength);
+    }
+  }
+
+  /**
+   * Removes the entries for the given resource path and the resources below it.
+   * <p/>
+   * {@code Last-Modified} has a resolution of one second, so a resource that is modified within the second it was
+   * read could otherwise still be confirmed as unchanged.
+   *
+   * @see ResponseCache#invalidate(String)
+   */
+  public void invalidate(String path) {
+    String prefix = ResponseCache.trimSlashes(path);
+    synchronized (entries) {
+      for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+        if (ResponseCache.isSameOrBelow(it.next().path, prefix)) {
+          it.remove();
+        }
+      }
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Number of GET requests that were sent with validators.
+   */
+  public long getConditionalRequestCount() {
+    return conditionalRequests.get();
+  }
+
+  /**
+   * Number of conditional requests the server answered with {@code 304 Not Modified}.
+   */
+  public long getNotModifiedCount() {
+    return notModified.get();
+  }
+
+  /**
+   * Sum of the body lengths that did not have to be transferred and decoded because of a {@code 304} response.
+   * Responses without a {@code Content-Length} are not included.
+   */
+  public long getBytesSaved() {
+    return bytesSaved.get();
+  }
+
+  public void setMaxEntries(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  public static final class Entry {
+    private final String path;
+    private final String etag;
+    private final String lastModified;
+    private final long contentLength;
+    private final Object value;
+
+    private Entry(String path, String etag, String lastModified, long contentLength, Object value) {
+      this.path = path;
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.contentLength = contentLength;
+      this.value = value;
+    }
+
+    public String getEtag() {
+      return etag;
+    }
+
+    public String getLastModified() {
+      return lastModified;
+    }
+
+    public Object getValue() {
+      return value;
+    }
+  }
+}
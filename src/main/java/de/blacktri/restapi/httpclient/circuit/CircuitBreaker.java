@@ -0,0 +1,176 @@
+package de.blacktri.restapi.httpclient.circuit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker of a single endpoint.
+ * <p/>
+ * While closed, the outcomes of the last {@code slidingWindowSize} calls are recorded. Once at least
+ * {@code minimumNumberOfCalls} are recorded and either the failure rate or the slow call rate reaches its
+ * threshold, the circuit opens and calls are rejected without touching the network. After the open duration, the
+ * circuit becomes half-open and lets {@code permittedCallsInHalfOpenState} trial calls pass; depending on their
+ * rates it closes or opens again.
+ * <p/>
+ * Asking for permission in the closed state is a volatile read without locking. Recording the outcome of a call
+ * briefly holds the breaker's monitor in every state, as the sliding window is updated together with its counts.
+ */
+public class CircuitBreaker {
+
+  private static final byte FAILED = 1;
+  private static final byte SLOW = 2;
+
+  private final String endpoint;
+  private final CircuitBreakerRegistry registry;
+
+  private volatile CircuitState state = CircuitState.CLOSED;
+  private long openUntil;
+  private int halfOpenPermits;
+
+  private final byte[] outcomes;
+  private int next;
+  private int count;
+  private int failures;
+  private int slowCalls;
+
+  private long notPermittedCalls;
+  private long transitions;
+
+  CircuitBreaker(String endpoint, CircuitBreakerRegistry registry) {
+    this.endpoint = endpoint;
+    this.registry = registry;
+    this.outcomes = new byte[Math.max(1, registry.getSlidingWindowSize())];
+  }
+
+  /**
+   * Asks for permission to call the endpoint. Every permitted call has to be followed by
+   * {@link #onResult(long, boolean)} or {@link #onIgnored()}.
+   *
+   * @return {@code false} if the call must not be made
+   */
+  public boolean tryAcquirePermission() {
+    if (state == CircuitState.CLOSED) {
+      return true;
+    }
+    CircuitBreakerMetrics transition = null;
+    boolean permitted;
+    synchronized (this) {
+      if (state == CircuitState.OPEN && System.nanoTime() - openUntil >= 0) {
+        transition = transitionTo(CircuitState.HALF_OPEN);
+      }
+      if (state == CircuitState.HALF_OPEN) {
+        permitted = halfOpenPermits > 0;
+        if (permitted) {
+          halfOpenPermits--;
+        }
+      } else {
+        permitted = state == CircuitState.CLOSED;
+      }
+      if (!permitted) {
+        notPermittedCalls++;
+      }
+    }
+    if (transition != null) {
+      registry.fireStateTransition(transition, CircuitState.HALF_OPEN);
+    }
+    return permitted;
+  }
+
+  /**
+   * Records the outcome of a permitted call.
+   *
+   * @param durationNanos the duration of the call
+   * @param failed        whether the call failed in a way that indicates an unhealthy endpoint
+   */
+  public void onResult(long durationNanos, boolean failed) {
+    byte outcome = (byte) ((failed ? FAILED : 0) | (durationNanos >= registry.getSlowCallDurationThresholdNanos() ? SLOW : 0));
+    CircuitState to;
+    CircuitBreakerMetrics transition;
+    synchronized (this) {
+      if (state == CircuitState.OPEN) {
+        // a call that started before the circuit opened
+        return;
+      }
+      record(outcome);
+      to = evaluate();
+      if (to == state) {
+        return;
+      }
+      transition = transitionTo(to);
+    }
+    registry.fireStateTransition(transition, to);
+  }
+
+  /**
+   * Releases the permission of a call whose outcome says nothing about the endpoint, e.g. a cancelled call.
+   */
+  public synchronized void onIgnored() {
+    if (state == CircuitState.HALF_OPEN) {
+      halfOpenPermits++;
+    }
+  }
+
+  private void record(byte outcome) {
+    int window = state == CircuitState.HALF_OPEN ? Math.min(outcomes.length, registry.getPermittedCallsInHalfOpenState()) : outcomes.length;
+    if (count == window) {
+      byte evicted = outcomes[next];
+      failures -= evicted & FAILED;
+      slowCalls -= (evicted & SLOW) >> 1;
+    } else {
+      count++;
+    }
+    outcomes[next] = outcome;
+    failures += outcome & FAILED;
+    slowCalls += (outcome & SLOW) >> 1;
+    next = (next + 1) % window;
+  }
+
+  private CircuitState evaluate() {
+    int required = state == CircuitState.HALF_OPEN
+            ? Math.min(outcomes.length, registry.getPermittedCallsInHalfOpenState())
+            : Math.min(outcomes.length, registry.getMinimumNumberOfCalls());
+    if (count < required) {
+      return state;
+    }
+    boolean exceeded = rate(failures) >= registry.getFailureRateThreshold()
+            || rate(slowCalls) >= registry.getSlowCallRateThreshold();
+    if (exceeded) {
+      return CircuitState.OPEN;
+    }
+    return CircuitState.CLOSED;
+  }
+
+  /**
+   * @return the metrics of the state that is left
+   */
+  private CircuitBreakerMetrics transitionTo(CircuitState to) {
+    transitions++;
+    CircuitBreakerMetrics from = getMetrics();
+    next = 0;
+    count = 0;
+    failures = 0;
+    slowCalls = 0;
+    if (to == CircuitState.OPEN) {
+      openUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(registry.getWaitDurationInOpenState());
+    } else if (to == CircuitState.HALF_OPEN) {
+      halfOpenPermits = registry.getPermittedCallsInHalfOpenState();
+    }
+    state = to;
+    return from;
+  }
+
+  private float rate(int calls) {
+    return count == 0 ? 0 : calls * 100f / count;
+  }
+
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  public CircuitState getState() {
+    return state;
+  }
+
+  public synchronized CircuitBreakerMetrics getMetrics() {
+    return new CircuitBreakerMetrics(endpoint, state, count, rate(failures), rate(slowCalls), notPermittedCalls, transitions);
+  }
+}
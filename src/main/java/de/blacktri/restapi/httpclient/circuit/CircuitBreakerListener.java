@@ -0,0 +1,14 @@
+package de.blacktri.restapi.httpclient.circuit;
+
+/**
+ * Receives the state transitions of the circuit breakers of a {@link CircuitBreakerRegistry}.
+ * <p/>
+ * Listeners are called synchronously on the thread whose call caused the transition and should return quickly.
+ */
+public interface CircuitBreakerListener {
+
+  /**
+   * @param metrics the metrics of the circuit breaker right before the transition
+   */
+  void onStateTransition(String endpoint, CircuitState from, CircuitState to, CircuitBreakerMetrics metrics);
+}
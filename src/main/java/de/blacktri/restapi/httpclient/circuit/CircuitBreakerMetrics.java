@@ -0,0 +1,72 @@
+package de.blacktri.restapi.httpclient.circuit;
+
+/**
+ * Point-in-time state and rates of a {@link CircuitBreaker}.
+ */
+public class CircuitBreakerMetrics {
+
+  private final String endpoint;
+  private final CircuitState state;
+  private final int bufferedCalls;
+  private final float failureRate;
+  private final float slowCallRate;
+  private final long notPermittedCalls;
+  private final long transitions;
+
+  public CircuitBreakerMetrics(String endpoint, CircuitState state, int bufferedCalls, float failureRate, float slowCallRate,
+                               long notPermittedCalls, long transitions) {
+    this.endpoint = endpoint;
+    this.state = state;
+    this.bufferedCalls = bufferedCalls;
+    this.failureRate = failureRate;
+    this.slowCallRate = slowCallRate;
+    this.notPermittedCalls = notPermittedCalls;
+    this.transitions = transitions;
+  }
+
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  public CircuitState getState() {
+    return state;
+  }
+
+  /**
+   * Number of call outcomes in the sliding window.
+   */
+  public int getBufferedCalls() {
+    return bufferedCalls;
+  }
+
+  /**
+   * Percentage of failed calls in the sliding window.
+   */
+  public float getFailureRate() {
+    return failureRate;
+  }
+
+  /**
+   * Percentage of calls in the sliding window that took longer than the slow call threshold.
+   */
+  public float getSlowCallRate() {
+    return slowCallRate;
+  }
+
+  /**
+   * Number of calls rejected because the circuit was open.
+   */
+  public long getNotPermittedCalls() {
+    return notPermittedCalls;
+  }
+
+  public long getTransitions() {
+    return transitions;
+  }
+
+  @Override
+  public String toString() {
+    return endpoint + ": " + state + " (" + bufferedCalls + " calls, " + failureRate + "% failed, " + slowCallRate
+            + "% slow, " + notPermittedCalls + " rejected)";
+  }
+}
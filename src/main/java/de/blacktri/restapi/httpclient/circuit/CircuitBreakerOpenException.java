@@ -0,0 +1,20 @@
+package de.blacktri.restapi.httpclient.circuit;
+
+/**
+ * Thrown instead of calling an endpoint whose circuit is open.
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String endpoint;
+
+  public CircuitBreakerOpenException(String endpoint) {
+    super("Circuit breaker for " + endpoint + " is open", null, false, false);
+    this.endpoint = endpoint;
+  }
+
+  public String getEndpoint() {
+    return endpoint;
+  }
+}
@@ -0,0 +1,166 @@
+package de.blacktri.restapi.httpclient.circuit;
+
+import de.blacktri.restapi.httpclient.RemoteServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds one {@link CircuitBreaker} per endpoint, e.g. {@code account/{id}/project/{id}/trend}, and their common
+ * configuration.
+ * <p/>
+ * Failures are I/O errors and responses with a 5xx status code. Client errors such as {@code 404} are answers of a
+ * healthy endpoint and count as successful calls.
+ */
+public class CircuitBreakerRegistry {
+
+  private static final Logger LOG = LoggerFactory.getLogger(CircuitBreakerRegistry.class);
+
+  private int slidingWindowSize = 100;
+  private int minimumNumberOfCalls = 20;
+  private float failureRateThreshold = 50;
+  private float slowCallRateThreshold = 80;
+  private long slowCallDurationThresholdNanos = TimeUnit.SECONDS.toNanos(10);
+  private long waitDurationInOpenState = TimeUnit.SECONDS.toMillis(10);
+  private int permittedCallsInHalfOpenState = 5;
+
+  private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+  private final List<CircuitBreakerListener> listeners = new CopyOnWriteArrayList<>();
+
+  public CircuitBreaker getCircuitBreaker(String endpoint) {
+    CircuitBreaker circuitBreaker = circuitBreakers.get(endpoint);
+    if (circuitBreaker == null) {
+      circuitBreaker = circuitBreakers.computeIfAbsent(endpoint, name -> new CircuitBreaker(name, this));
+    }
+    return circuitBreaker;
+  }
+
+  /**
+   * @return whether the failure of a call indicates an unhealthy endpoint
+   */
+  public boolean isFailure(Throwable failure) {
+    if (failure instanceof RemoteServiceException) {
+      return ((RemoteServiceException) failure).getStatusCode() >= 500;
+    }
+    return failure instanceof IOException;
+  }
+
+  public List<CircuitBreakerMetrics> getMetrics() {
+    List<CircuitBreakerMetrics> metrics = new ArrayList<>(circuitBreakers.size());
+    for (CircuitBreaker circuitBreaker : circuitBreakers.values()) {
+      metrics.add(circuitBreaker.getMetrics());
+    }
+    return metrics;
+  }
+
+  public void addListener(CircuitBreakerListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(CircuitBreakerListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * @param metrics the metrics of the state that was left, i.e. the ones that caused the transition
+   */
+  void fireStateTransition(CircuitBreakerMetrics metrics, CircuitState to) {
+    if (to == CircuitState.OPEN) {
+      LOG.warn("Opening circuit breaker {}", metrics);
+    } else {
+      LOG.info("Circuit breaker {}: {} -> {}", metrics.getEndpoint(), metrics.getState(), to);
+    }
+    for (CircuitBreakerListener listener : listeners) {
+      try {
+        listener.onStateTransition(metrics.getEndpoint(), metrics.getState(), to, metrics);
+      } catch (RuntimeException e) {
+        LOG.warn("Circuit breaker listener {} failed: {}", listener, e.getMessage(), e);
+      }
+    }
+  }
+
+  int getSlidingWindowSize() {
+    return slidingWindowSize;
+  }
+
+  /**
+   * Number of most recent calls the rates are computed from, defaults to 100. Only affects circuit breakers that
+   * are created afterwards.
+   */
+  public void setSlidingWindowSize(int slidingWindowSize) {
+    this.slidingWindowSize = slidingWindowSize;
+  }
+
+  int getMinimumNumberOfCalls() {
+    return minimumNumberOfCalls;
+  }
+
+  /**
+   * Number of calls that have to be recorded before the rates are evaluated, defaults to 20.
+   */
+  public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+    this.minimumNumberOfCalls = minimumNumberOfCalls;
+  }
+
+  float getFailureRateThreshold() {
+    return failureRateThreshold;
+  }
+
+  /**
+   * Failure rate in percent at which the circuit opens, defaults to 50.
+   */
+  public void setFailureRateThreshold(float failureRateThreshold) {
+    this.failureRateThreshold = failureRateThreshold;
+  }
+
+  float getSlowCallRateThreshold() {
+    return slowCallRateThreshold;
+  }
+
+  /**
+   * Slow call rate in percent at which the circuit opens, defaults to 80.
+   */
+  public void setSlowCallRateThreshold(float slowCallRateThreshold) {
+    this.slowCallRateThreshold = slowCallRateThreshold;
+  }
+
+  long getSlowCallDurationThresholdNanos() {
+    return slowCallDurationThresholdNanos;
+  }
+
+  /**
+   * Duration in milliseconds from which a call counts as slow, defaults to 10 seconds.
+   */
+  public void setSlowCallDurationThreshold(long slowCallDurationThreshold) {
+    this.slowCallDurationThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowCallDurationThreshold);
+  }
+
+  long getWaitDurationInOpenState() {
+    return waitDurationInOpenState;
+  }
+
+  /**
+   * Time in milliseconds an open circuit rejects calls before it lets trial calls pass, defaults to 10 seconds.
+   */
+  public void setWaitDurationInOpenState(long waitDurationInOpenState) {
+    this.waitDurationInOpenState = waitDurationInOpenState;
+  }
+
+  int getPermittedCallsInHalfOpenState() {
+    return permittedCallsInHalfOpenState;
+  }
+
+  /**
+   * Number of trial calls in the half-open state, defaults to 5.
+   */
+  public void setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+    this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+  }
+}
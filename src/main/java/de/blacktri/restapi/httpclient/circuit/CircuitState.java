@@ -0,0 +1,16 @@
+package de.blacktri.restapi.httpclient.circuit;
+
+public enum CircuitState {
+  /**
+   * Calls pass and their outcomes are recorded.
+   */
+  CLOSED,
+  /**
+   * Calls fail immediately until the open duration has passed.
+   */
+  OPEN,
+  /**
+   * A limited number of trial calls pass, their outcomes decide whether the circuit closes or opens again.
+   */
+  HALF_OPEN
+}
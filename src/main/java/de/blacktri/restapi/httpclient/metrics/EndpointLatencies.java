@@ -0,0 +1,72 @@
+package de.blacktri.restapi.httpclient.metrics;
+
+import org.springframework.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds one {@link EndpointTimer} per HTTP method and endpoint, e.g. {@code GET account/{id}/project/{id}/decisions}.
+ * <p/>
+ * Endpoints are the normalized paths of {@link de.blacktri.restapi.httpclient.Endpoints}, so the number of timers
+ * is bounded by the operations of the API, not by the number of accounts and projects. Looking up a timer does not
+ * allocate once it exists.
+ * <p/>
+ * Either read cumulative values with {@link #snapshot()} and compare them with {@link HistogramSnapshot#since}, or
+ * let a single reporter call {@link #snapshotAndReset()} at a fixed interval, e.g. to alert on the p99 of the
+ * last minute.
+ */
+public class EndpointLatencies {
+
+  private final Map<HttpMethod, ConcurrentMap<String, EndpointTimer>> timers = new EnumMap<>(HttpMethod.class);
+
+  public EndpointLatencies() {
+    for (HttpMethod method : HttpMethod.values()) {
+      timers.put(method, new ConcurrentHashMap<>());
+    }
+  }
+
+  public EndpointTimer getTimer(HttpMethod method, String endpoint) {
+    ConcurrentMap<String, EndpointTimer> endpoints = timers.get(method);
+    EndpointTimer timer = endpoints.get(endpoint);
+    if (timer == null) {
+      timer = endpoints.computeIfAbsent(endpoint, name -> new EndpointTimer(method, name));
+    }
+    return timer;
+  }
+
+  /**
+   * @return the current state of the operation, {@code null} if no call of the operation has been made yet
+   */
+  public EndpointSnapshot getSnapshot(HttpMethod method, String endpoint) {
+    EndpointTimer timer = timers.get(method).get(endpoint);
+    return timer != null ? timer.snapshot() : null;
+  }
+
+  public List<EndpointSnapshot> snapshot() {
+    List<EndpointSnapshot> snapshots = new ArrayList<>();
+    for (ConcurrentMap<String, EndpointTimer> endpoints : timers.values()) {
+      for (EndpointTimer timer : endpoints.values()) {
+        snapshots.add(timer.snapshot());
+      }
+    }
+    return snapshots;
+  }
+
+  /**
+   * Copies the state of all timers and starts a new interval for each of them.
+   */
+  public List<EndpointSnapshot> snapshotAndReset() {
+    List<EndpointSnapshot> snapshots = new ArrayList<>();
+    for (ConcurrentMap<String, EndpointTimer> endpoints : timers.values()) {
+      for (EndpointTimer timer : endpoints.values()) {
+        snapshots.add(timer.snapshotAndReset());
+      }
+    }
+    return snapshots;
+  }
+}
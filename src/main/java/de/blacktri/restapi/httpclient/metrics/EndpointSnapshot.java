@@ -0,0 +1,78 @@
+package de.blacktri.restapi.httpclient.metrics;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * Point-in-time copy of an {@link EndpointTimer}. Durations are in microseconds.
+ */
+public class EndpointSnapshot {
+
+  private final HttpMethod method;
+  private final String endpoint;
+  private final long failures;
+  private final HistogramSnapshot timeToFirstByte;
+  private final HistogramSnapshot decode;
+  private final HistogramSnapshot total;
+
+  EndpointSnapshot(HttpMethod method, String endpoint, long failures, HistogramSnapshot timeToFirstByte,
+                   HistogramSnapshot decode, HistogramSnapshot total) {
+    this.method = method;
+    this.endpoint = endpoint;
+    this.failures = failures;
+    this.timeToFirstByte = timeToFirstByte;
+    this.decode = decode;
+    this.total = total;
+  }
+
+  public HttpMethod getMethod() {
+    return method;
+  }
+
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  /**
+   * Method and endpoint, e.g. {@code GET account/{id}/project/{id}/decisions}.
+   */
+  public String getOperation() {
+    return method + " " + endpoint;
+  }
+
+  /**
+   * Completed calls, successful or not.
+   */
+  public long getCalls() {
+    return total.getCount();
+  }
+
+  /**
+   * Calls that returned no result because the last attempt failed.
+   */
+  public long getFailures() {
+    return failures;
+  }
+
+  public HistogramSnapshot getTimeToFirstByte() {
+    return timeToFirstByte;
+  }
+
+  public HistogramSnapshot getDecode() {
+    return decode;
+  }
+
+  public HistogramSnapshot getTotal() {
+    return total;
+  }
+
+  @Override
+  public String toString() {
+    return getOperation() + "{" +
+            "calls=" + getCalls() +
+            ", failures=" + failures +
+            ", ttfb=" + timeToFirstByte +
+            ", decode=" + decode +
+            ", total=" + total +
+            '}';
+  }
+}
@@ -0,0 +1,71 @@
+package de.blacktri.restapi.httpclient.metrics;
+
+import org.springframework.http.HttpMethod;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies of the calls of one HTTP method on one endpoint, e.g. {@code GET account/{id}/project/{id}/decisions}.
+ * <p/>
+ * Three stages are recorded separately:
+ * <ul>
+ * <li>time to first byte: from sending a request until the response headers arrived, once per exchange, including
+ * exchanges that are retried afterwards. The async client hands out responses only once they are complete, so for
+ * async calls this includes receiving the body.</li>
+ * <li>decode: reading and deserializing the response body of a successful exchange</li>
+ * <li>total: the whole call as seen by the caller, including all attempts and the back-off between them. Failed
+ * calls are included and also counted separately.</li>
+ * </ul>
+ */
+public class EndpointTimer {
+
+  private final HttpMethod method;
+  private final String endpoint;
+  private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+  private final LatencyHistogram decode = new LatencyHistogram();
+  private final LatencyHistogram total = new LatencyHistogram();
+  private final LongAdder failures = new LongAdder();
+
+  EndpointTimer(HttpMethod method, String endpoint) {
+    this.method = method;
+    this.endpoint = endpoint;
+  }
+
+  public HttpMethod getMethod() {
+    return method;
+  }
+
+  public String getEndpoint() {
+    return endpoint;
+  }
+
+  public void recordTimeToFirstByte(long nanos) {
+    timeToFirstByte.recordNanos(nanos);
+  }
+
+  public void recordDecode(long nanos) {
+    decode.recordNanos(nanos);
+  }
+
+  public void recordSuccess(long totalNanos) {
+    total.recordNanos(totalNanos);
+  }
+
+  public void recordFailure(long totalNanos) {
+    failures.increment();
+    total.recordNanos(totalNanos);
+  }
+
+  public EndpointSnapshot snapshot() {
+    return new EndpointSnapshot(method, endpoint, failures.sum(), timeToFirstByte.snapshot(), decode.snapshot(),
+            total.snapshot());
+  }
+
+  /**
+   * Copies the current state and starts a new interval.
+   */
+  public EndpointSnapshot snapshotAndReset() {
+    return new EndpointSnapshot(method, endpoint, failures.sumThenReset(), timeToFirstByte.snapshotAndReset(),
+            decode.snapshotAndReset(), total.snapshotAndReset());
+  }
+}
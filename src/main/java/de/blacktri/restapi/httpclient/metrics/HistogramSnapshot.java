@@ -0,0 +1,75 @@
+package de.blacktri.restapi.httpclient.metrics;
+
+/**
+ * Point-in-time copy of a {@link LatencyHistogram}. All values are in microseconds.
+ */
+public class HistogramSnapshot {
+
+  private final long[] counts;
+  private final long count;
+  private final long sum;
+  private final long max;
+
+  HistogramSnapshot(long[] counts, long count, long sum, long max) {
+    this.counts = counts;
+    this.count = count;
+    this.sum = sum;
+    this.max = max;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public double getMean() {
+    return count == 0 ? 0 : (double) sum / count;
+  }
+
+  public long getMax() {
+    return max;
+  }
+
+  /**
+   * @param percentile between 0 and 100, e.g. 99.9
+   * @return the upper bound of the bucket containing the value at the percentile, never more than the maximum;
+   * 0 if nothing was recorded
+   */
+  public long getPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(LatencyHistogram.highestValue(i), max);
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Counts recorded between an earlier snapshot of the same histogram and this one; the maximum is the overall one.
+   */
+  public HistogramSnapshot since(HistogramSnapshot earlier) {
+    long[] delta = new long[counts.length];
+    long deltaCount = 0;
+    for (int i = 0; i < counts.length; i++) {
+      delta[i] = counts[i] - earlier.counts[i];
+      deltaCount += delta[i];
+    }
+    return new HistogramSnapshot(delta, deltaCount, sum - earlier.sum, max);
+  }
+
+  @Override
+  public String toString() {
+    return "HistogramSnapshot{" +
+            "count=" + count +
+            ", mean=" + Math.round(getMean()) +
+            ", p50=" + getPercentile(50) +
+            ", p99=" + getPercentile(99) +
+            ", max=" + max +
+            '}';
+  }
+}
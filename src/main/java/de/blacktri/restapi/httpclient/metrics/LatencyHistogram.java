@@ -0,0 +1,87 @@
+package de.blacktri.restapi.httpclient.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in microseconds with a bounded relative error.
+ * <p/>
+ * Values below 64 µs are counted exactly; above, every power of two is split into 32 linear sub-buckets, so a
+ * recorded value is off by at most 1/32 (about 3 %). Values above an hour are counted in the last bucket. The
+ * histogram has a fixed footprint of about 7 KB, recording is one array increment plus two counter updates and
+ * allocates nothing, so it can stay enabled in production.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF = SUB_BUCKETS / 2;
+  static final long MAX_VALUE = 3_600_000_000L;
+  static final int BUCKETS = index(MAX_VALUE) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  public void recordNanos(long nanos) {
+    record(nanos / 1000L);
+  }
+
+  public void record(long micros) {
+    long value = Math.max(0L, Math.min(micros, MAX_VALUE));
+    counts.incrementAndGet(index(value));
+    sum.add(value);
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Copies the current state. Concurrent recordings may or may not be included.
+   */
+  public HistogramSnapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.get(i);
+      count += copy[i];
+    }
+    return new HistogramSnapshot(copy, count, sum.sum(), max.get());
+  }
+
+  /**
+   * Copies the current state and starts a new interval. A recording concurrent with the reset is counted in exactly
+   * one of the two intervals, its contribution to the sum and maximum may end up in the other one.
+   */
+  public HistogramSnapshot snapshotAndReset() {
+    long[] copy = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.getAndSet(i, 0L);
+      count += copy[i];
+    }
+    return new HistogramSnapshot(copy, count, sum.sumThenReset(), max.getAndSet(0L));
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+  }
+
+  /**
+   * Largest value counted in the given bucket.
+   */
+  static long highestValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKETS) / HALF + 1;
+    long subBucket = (index - SUB_BUCKETS) % HALF + HALF;
+    return ((subBucket + 1) << shift) - 1;
+  }
+}
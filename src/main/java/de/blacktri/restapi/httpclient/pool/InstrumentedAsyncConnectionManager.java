@@ -0,0 +1,141 @@
+package de.blacktri.restapi.httpclient.pool;
+
+import org.apache.http.HttpHost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.ssl.SSLContexts;
+import org.apache.http.impl.nio.conn.ManagedNHttpClientConnectionFactory;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.nio.NHttpClientConnection;
+import org.apache.http.nio.conn.ManagedNHttpClientConnection;
+import org.apache.http.nio.conn.NHttpConnectionFactory;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.ConnectingIOReactor;
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.nio.reactor.ssl.SSLIOSession;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection manager of the async client which reports to {@link PoolMetrics}.
+ * <p/>
+ * Uses the same session strategies as a default {@link PoolingNHttpClientConnectionManager}. Unlike the blocking
+ * pool, the async pool connects new connections itself, so the lease wait includes the TCP connect of a new
+ * connection, but not its TLS handshake. Only handshakes that fail the host name verification are counted as
+ * failed, other handshake errors are not visible to the strategy.
+ */
+public class InstrumentedAsyncConnectionManager extends PoolingNHttpClientConnectionManager {
+
+  private static final String HANDSHAKE_STARTED = InstrumentedAsyncConnectionManager.class.getName() + ".handshakeStarted";
+
+  private final PoolMetrics metrics;
+
+  public InstrumentedAsyncConnectionManager(ConnectingIOReactor ioReactor, PoolMetrics metrics) {
+    super(ioReactor, new CountingConnectionFactory(metrics), createRegistry(metrics));
+    this.metrics = metrics;
+    metrics.bind(this);
+  }
+
+  private static Registry<SchemeIOSessionStrategy> createRegistry(PoolMetrics metrics) {
+    return RegistryBuilder.<SchemeIOSessionStrategy>create()
+            .register("http", NoopIOSessionStrategy.INSTANCE)
+            .register("https", new TimedSSLIOSessionStrategy(metrics))
+            .build();
+  }
+
+  @Override
+  public Future<NHttpClientConnection> requestConnection(final HttpRoute route, Object state, long connectTimeout,
+                                                         long leaseTimeout, TimeUnit tunit,
+                                                         final FutureCallback<NHttpClientConnection> callback) {
+    final long started = System.nanoTime();
+    return super.requestConnection(route, state, connectTimeout, leaseTimeout, tunit, new FutureCallback<NHttpClientConnection>() {
+      @Override
+      public void completed(NHttpClientConnection connection) {
+        metrics.leased(route, System.nanoTime() - started);
+        if (callback != null) {
+          callback.completed(connection);
+        }
+      }
+
+      @Override
+      public void failed(Exception e) {
+        metrics.leaseFailed();
+        if (callback != null) {
+          callback.failed(e);
+        }
+      }
+
+      @Override
+      public void cancelled() {
+        if (callback != null) {
+          callback.cancelled();
+        }
+      }
+    });
+  }
+
+  @Override
+  public void releaseConnection(NHttpClientConnection managedConn, Object state, long keepalive, TimeUnit tunit) {
+    if (!managedConn.isOpen()) {
+      metrics.connectionDiscarded();
+    }
+    super.releaseConnection(managedConn, state, keepalive, tunit);
+  }
+
+  private static final class CountingConnectionFactory implements NHttpConnectionFactory<ManagedNHttpClientConnection> {
+
+    private final PoolMetrics metrics;
+
+    private CountingConnectionFactory(PoolMetrics metrics) {
+      this.metrics = metrics;
+    }
+
+    @Override
+    public ManagedNHttpClientConnection create(IOSession iosession, ConnectionConfig config) {
+      metrics.connectionCreated();
+      return ManagedNHttpClientConnectionFactory.INSTANCE.create(iosession, config);
+    }
+  }
+
+  /**
+   * Times the handshake from the upgrade of a session until its verification.
+   */
+  private static final class TimedSSLIOSessionStrategy extends SSLIOSessionStrategy {
+
+    private final PoolMetrics metrics;
+
+    private TimedSSLIOSessionStrategy(PoolMetrics metrics) {
+      super(SSLContexts.createDefault(), BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+      this.metrics = metrics;
+    }
+
+    @Override
+    public SSLIOSession upgrade(HttpHost host, IOSession iosession) throws IOException {
+      iosession.setAttribute(HANDSHAKE_STARTED, System.nanoTime());
+      return super.upgrade(host, iosession);
+    }
+
+    @Override
+    protected void verifySession(HttpHost host, IOSession iosession, SSLSession sslsession) throws SSLException {
+      Object started = iosession.removeAttribute(HANDSHAKE_STARTED);
+      boolean succeeded = false;
+      try {
+        super.verifySession(host, iosession, sslsession);
+        succeeded = true;
+      } finally {
+        if (started instanceof Long) {
+          metrics.tlsHandshake(System.nanoTime() - (Long) started, succeeded);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package de.blacktri.restapi.httpclient.pool;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection manager of the blocking client which reports to {@link PoolMetrics}.
+ * <p/>
+ * Uses the same socket factories as a default {@link PoolingHttpClientConnectionManager}. The lease wait ends when
+ * the pool hands out an entry; connecting a new connection happens afterwards and is not part of it.
+ */
+public class InstrumentedConnectionManager extends PoolingHttpClientConnectionManager {
+
+  private final PoolMetrics metrics;
+
+  public InstrumentedConnectionManager(PoolMetrics metrics) {
+    super(createRegistry(metrics), new CountingConnectionFactory(metrics));
+    this.metrics = metrics;
+    metrics.bind(this);
+  }
+
+  private static Registry<ConnectionSocketFactory> createRegistry(PoolMetrics metrics) {
+    return RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", new TimedTlsSocketFactory(SSLConnectionSocketFactory.getSocketFactory(), metrics))
+            .build();
+  }
+
+  @Override
+  public ConnectionRequest requestConnection(final HttpRoute route, Object state) {
+    final long started = System.nanoTime();
+    final ConnectionRequest request = super.requestConnection(route, state);
+    return new ConnectionRequest() {
+      @Override
+      public HttpClientConnection get(long timeout, TimeUnit tunit)
+              throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+        try {
+          HttpClientConnection connection = request.get(timeout, tunit);
+          metrics.leased(route, System.nanoTime() - started);
+          return connection;
+        } catch (ConnectionPoolTimeoutException | ExecutionException e) {
+          metrics.leaseFailed();
+          throw e;
+        }
+      }
+
+      @Override
+      public boolean cancel() {
+        return request.cancel();
+      }
+    };
+  }
+
+  @Override
+  public void releaseConnection(HttpClientConnection managedConn, Object state, long keepalive, TimeUnit tunit) {
+    if (!managedConn.isOpen()) {
+      metrics.connectionDiscarded();
+    }
+    super.releaseConnection(managedConn, state, keepalive, tunit);
+  }
+
+  private static final class CountingConnectionFactory implements HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> {
+
+    private final PoolMetrics metrics;
+
+    private CountingConnectionFactory(PoolMetrics metrics) {
+      this.metrics = metrics;
+    }
+
+    @Override
+    public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig config) {
+      metrics.connectionCreated();
+      return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+    }
+  }
+
+  /**
+   * Connects a plain socket and times the TLS layer on top of it separately.
+   */
+  private static final class TimedTlsSocketFactory implements LayeredConnectionSocketFactory {
+
+    private final LayeredConnectionSocketFactory delegate;
+    private final PoolMetrics metrics;
+
+    private TimedTlsSocketFactory(LayeredConnectionSocketFactory delegate, PoolMetrics metrics) {
+      this.delegate = delegate;
+      this.metrics = metrics;
+    }
+
+    @Override
+    public Socket createSocket(HttpContext context) throws IOException {
+      return new Socket();
+    }
+
+    @Override
+    public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                                InetSocketAddress localAddress, HttpContext context) throws IOException {
+      Socket sock = socket != null ? socket : createSocket(context);
+      if (localAddress != null) {
+        sock.bind(localAddress);
+      }
+      try {
+        sock.connect(remoteAddress, connectTimeout);
+      } catch (IOException e) {
+        try {
+          sock.close();
+        } catch (IOException ignore) {
+          // the connect failure is reported
+        }
+        throw e;
+      }
+      return createLayeredSocket(sock, host.getHostName(), remoteAddress.getPort(), context);
+    }
+
+    @Override
+    public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+      long started = System.nanoTime();
+      boolean succeeded = false;
+      try {
+        Socket layered = delegate.createLayeredSocket(socket, target, port, context);
+        succeeded = true;
+        return layered;
+      } finally {
+        metrics.tlsHandshake(System.nanoTime() - started, succeeded);
+      }
+    }
+  }
+}
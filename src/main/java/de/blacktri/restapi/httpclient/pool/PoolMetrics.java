@@ -0,0 +1,259 @@
+package de.blacktri.restapi.httpclient.pool;
+
+import de.blacktri.restapi.httpclient.metrics.LatencyHistogram;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Saturation metrics of one connection pool, fed by {@link InstrumentedConnectionManager} or
+ * {@link InstrumentedAsyncConnectionManager}.
+ * <p/>
+ * Events are recorded with counters and a {@link LatencyHistogram}, which cost a few atomic increments per lease
+ * or connect. The pool state itself (leased, available, pending) is only read, under the pool's lock, when a
+ * {@link #snapshot()} is taken, so the metrics can stay enabled in production. Optionally the metrics are
+ * published as a {@link PoolMetricsMXBean}.
+ */
+public class PoolMetrics {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PoolMetrics.class);
+
+  public static final String JMX_DOMAIN = "de.blacktri.restapi";
+
+  private final String name;
+
+  private final LatencyHistogram leaseWait = new LatencyHistogram();
+  private final LatencyHistogram tlsHandshake = new LatencyHistogram();
+  private final LongAdder leaseFailures = new LongAdder();
+  private final LongAdder connectionsCreated = new LongAdder();
+  private final LongAdder connectionsDiscarded = new LongAdder();
+  private final LongAdder tlsHandshakeFailures = new LongAdder();
+
+  private final Set<HttpRoute> routes = ConcurrentHashMap.newKeySet();
+
+  private volatile ConnPoolControl<HttpRoute> pool;
+
+  private ObjectName objectName;
+
+  /**
+   * @param name identifies the pool in snapshots and JMX, e.g. {@code blocking}
+   */
+  public PoolMetrics(String name) {
+    this.name = name;
+  }
+
+  void bind(ConnPoolControl<HttpRoute> pool) {
+    this.pool = pool;
+  }
+
+  void leased(HttpRoute route, long waitNanos) {
+    leaseWait.recordNanos(waitNanos);
+    if (!routes.contains(route)) {
+      routes.add(route);
+    }
+  }
+
+  void leaseFailed() {
+    leaseFailures.increment();
+  }
+
+  void connectionCreated() {
+    connectionsCreated.increment();
+  }
+
+  /**
+   * A connection was given back to the pool in a state that does not allow reusing it.
+   */
+  void connectionDiscarded() {
+    connectionsDiscarded.increment();
+  }
+
+  void tlsHandshake(long nanos, boolean succeeded) {
+    if (succeeded) {
+      tlsHandshake.recordNanos(nanos);
+    } else {
+      tlsHandshakeFailures.increment();
+    }
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public PoolSnapshot snapshot() {
+    ConnPoolControl<HttpRoute> pool = this.pool;
+    PoolStats total = pool != null ? pool.getTotalStats() : null;
+    Map<String, PoolSnapshot.RouteStats> routeStats = new LinkedHashMap<>();
+    if (pool != null) {
+      for (HttpRoute route : routes) {
+        PoolStats stats = pool.getStats(route);
+        routeStats.put(route.toString(), new PoolSnapshot.RouteStats(stats.getLeased(), stats.getAvailable(),
+                stats.getPending(), stats.getMax()));
+      }
+    }
+    return new PoolSnapshot(name,
+            total != null ? total.getLeased() : 0,
+            total != null ? total.getAvailable() : 0,
+            total != null ? total.getPending() : 0,
+            total != null ? total.getMax() : 0,
+            connectionsCreated.sum(), connectionsDiscarded.sum(), leaseFailures.sum(), tlsHandshakeFailures.sum(),
+            leaseWait.snapshot(), tlsHandshake.snapshot(), routeStats);
+  }
+
+  /**
+   * Publishes the metrics in the platform MBean server as
+   * {@code de.blacktri.restapi:type=ConnectionPool,connector=<connector>,name=<name>}. Failures are logged, they
+   * never prevent the connector from working. A name that is already registered, e.g. by the connector of another
+   * application context, is left to its owner.
+   */
+  public synchronized void registerMBean(String connector) {
+    unregisterMBean();
+    try {
+      ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=ConnectionPool,connector=" + ObjectName.quote(connector)
+              + ",name=" + ObjectName.quote(name));
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      server.registerMBean(new PoolMetricsMBean(this), objectName);
+      this.objectName = objectName;
+    } catch (InstanceAlreadyExistsException e) {
+      LOG.warn("Not publishing connection pool metrics {} in JMX, the name is used by another connector: {}", name,
+              e.getMessage());
+    } catch (JMException e) {
+      LOG.warn("Unable to register connection pool metrics {} in JMX: {}", name, e.getMessage());
+    }
+  }
+
+  public synchronized void unregisterMBean() {
+    if (objectName != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      } catch (JMException e) {
+        LOG.debug("Unable to unregister {}: {}", objectName, e.getMessage());
+      }
+      objectName = null;
+    }
+  }
+
+  /**
+   * JMX view; every attribute read takes a fresh snapshot.
+   */
+  private static final class PoolMetricsMBean implements PoolMetricsMXBean {
+
+    private final PoolMetrics metrics;
+
+    private PoolMetricsMBean(PoolMetrics metrics) {
+      this.metrics = metrics;
+    }
+
+    @Override
+    public int getLeased() {
+      return metrics.snapshot().getLeased();
+    }
+
+    @Override
+    public int getAvailable() {
+      return metrics.snapshot().getAvailable();
+    }
+
+    @Override
+    public int getPending() {
+      return metrics.snapshot().getPending();
+    }
+
+    @Override
+    public int getMax() {
+      return metrics.snapshot().getMax();
+    }
+
+    @Override
+    public double getUtilization() {
+      return metrics.snapshot().getUtilization();
+    }
+
+    @Override
+    public long getLeaseCount() {
+      return metrics.leaseWait.snapshot().getCount();
+    }
+
+    @Override
+    public long getLeaseFailures() {
+      return metrics.leaseFailures.sum();
+    }
+
+    @Override
+    public double getLeaseWaitMeanMicros() {
+      return metrics.leaseWait.snapshot().getMean();
+    }
+
+    @Override
+    public long getLeaseWait50thPercentileMicros() {
+      return metrics.leaseWait.snapshot().getPercentile(50);
+    }
+
+    @Override
+    public long getLeaseWait99thPercentileMicros() {
+      return metrics.leaseWait.snapshot().getPercentile(99);
+    }
+
+    @Override
+    public long getLeaseWaitMaxMicros() {
+      return metrics.leaseWait.snapshot().getMax();
+    }
+
+    @Override
+    public long getConnectionsCreated() {
+      return metrics.connectionsCreated.sum();
+    }
+
+    @Override
+    public long getConnectionsClosed() {
+      return metrics.snapshot().getConnectionsClosed();
+    }
+
+    @Override
+    public long getConnectionsEvicted() {
+      return metrics.snapshot().getConnectionsEvicted();
+    }
+
+    @Override
+    public long getTlsHandshakes() {
+      return metrics.tlsHandshake.snapshot().getCount();
+    }
+
+    @Override
+    public long getTlsHandshakeFailures() {
+      return metrics.tlsHandshakeFailures.sum();
+    }
+
+    @Override
+    public long getTlsHandshake50thPercentileMicros() {
+      return metrics.tlsHandshake.snapshot().getPercentile(50);
+    }
+
+    @Override
+    public long getTlsHandshake99thPercentileMicros() {
+      return metrics.tlsHandshake.snapshot().getPercentile(99);
+    }
+
+    @Override
+    public Map<String, String> getRoutes() {
+      Map<String, String> routes = new LinkedHashMap<>();
+      for (Map.Entry<String, PoolSnapshot.RouteStats> route : metrics.snapshot().getRoutes().entrySet()) {
+        routes.put(route.getKey(), route.getValue().toString());
+      }
+      return routes;
+    }
+  }
+}
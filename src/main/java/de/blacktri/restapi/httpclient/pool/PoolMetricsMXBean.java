@@ -0,0 +1,50 @@
+package de.blacktri.restapi.httpclient.pool;
+
+import java.util.Map;
+
+/**
+ * JMX attributes of a connection pool, see {@link PoolSnapshot} for their meaning.
+ */
+public interface PoolMetricsMXBean {
+
+  int getLeased();
+
+  int getAvailable();
+
+  int getPending();
+
+  int getMax();
+
+  double getUtilization();
+
+  long getLeaseCount();
+
+  long getLeaseFailures();
+
+  double getLeaseWaitMeanMicros();
+
+  long getLeaseWait50thPercentileMicros();
+
+  long getLeaseWait99thPercentileMicros();
+
+  long getLeaseWaitMaxMicros();
+
+  long getConnectionsCreated();
+
+  long getConnectionsClosed();
+
+  long getConnectionsEvicted();
+
+  long getTlsHandshakes();
+
+  long getTlsHandshakeFailures();
+
+  long getTlsHandshake50thPercentileMicros();
+
+  long getTlsHandshake99thPercentileMicros();
+
+  /**
+   * Leased, available, pending and maximum connections per route.
+   */
+  Map<String, String> getRoutes();
+}
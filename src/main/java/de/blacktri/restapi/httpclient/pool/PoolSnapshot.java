@@ -0,0 +1,195 @@
+package de.blacktri.restapi.httpclient.pool;
+
+import de.blacktri.restapi.httpclient.metrics.HistogramSnapshot;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Point-in-time state of a connection pool. Durations are in microseconds.
+ * <p/>
+ * Pending requests, a high utilization and a growing lease wait mean that calls are waiting for a pooled
+ * connection; a low lease wait with high latency means they are waiting for the server.
+ */
+public class PoolSnapshot {
+
+  private final String name;
+  private final int leased;
+  private final int available;
+  private final int pending;
+  private final int max;
+  private final long connectionsCreated;
+  private final long connectionsDiscarded;
+  private final long leaseFailures;
+  private final long tlsHandshakeFailures;
+  private final HistogramSnapshot leaseWait;
+  private final HistogramSnapshot tlsHandshake;
+  private final Map<String, RouteStats> routes;
+
+  PoolSnapshot(String name, int leased, int available, int pending, int max, long connectionsCreated,
+               long connectionsDiscarded, long leaseFailures, long tlsHandshakeFailures, HistogramSnapshot leaseWait,
+               HistogramSnapshot tlsHandshake, Map<String, RouteStats> routes) {
+    this.name = name;
+    this.leased = leased;
+    this.available = available;
+    this.pending = pending;
+    this.max = max;
+    this.connectionsCreated = connectionsCreated;
+    this.connectionsDiscarded = connectionsDiscarded;
+    this.leaseFailures = leaseFailures;
+    this.tlsHandshakeFailures = tlsHandshakeFailures;
+    this.leaseWait = leaseWait;
+    this.tlsHandshake = tlsHandshake;
+    this.routes = Collections.unmodifiableMap(routes);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Connections currently used by a request.
+   */
+  public int getLeased() {
+    return leased;
+  }
+
+  /**
+   * Idle connections kept for reuse.
+   */
+  public int getAvailable() {
+    return available;
+  }
+
+  /**
+   * Requests waiting for a connection because the pool or the route is exhausted.
+   */
+  public int getPending() {
+    return pending;
+  }
+
+  public int getMax() {
+    return max;
+  }
+
+  /**
+   * Ratio of leased connections to the pool size.
+   */
+  public double getUtilization() {
+    return max == 0 ? 0 : (double) leased / max;
+  }
+
+  public long getConnectionsCreated() {
+    return connectionsCreated;
+  }
+
+  /**
+   * Connections closed for any reason, i.e. all created connections that are no longer in the pool.
+   */
+  public long getConnectionsClosed() {
+    return Math.max(0, connectionsCreated - leased - available);
+  }
+
+  /**
+   * Connections that could not be reused after a request, e.g. because the server closed them.
+   */
+  public long getConnectionsDiscarded() {
+    return connectionsDiscarded;
+  }
+
+  /**
+   * Connections closed while idle in the pool, because they expired, became stale or were closed as idle.
+   */
+  public long getConnectionsEvicted() {
+    return Math.max(0, getConnectionsClosed() - connectionsDiscarded);
+  }
+
+  /**
+   * Lease requests that timed out or failed.
+   */
+  public long getLeaseFailures() {
+    return leaseFailures;
+  }
+
+  /**
+   * Time from requesting a connection until it was handed out, including the time to connect a new one.
+   */
+  public HistogramSnapshot getLeaseWait() {
+    return leaseWait;
+  }
+
+  /**
+   * Duration of successful TLS handshakes, without the TCP connect.
+   */
+  public HistogramSnapshot getTlsHandshake() {
+    return tlsHandshake;
+  }
+
+  public long getTlsHandshakeFailures() {
+    return tlsHandshakeFailures;
+  }
+
+  /**
+   * Statistics per route that has been used, keyed by route.
+   */
+  public Map<String, RouteStats> getRoutes() {
+    return routes;
+  }
+
+  @Override
+  public String toString() {
+    return "PoolSnapshot{" +
+            "name=" + name +
+            ", leased=" + leased +
+            ", available=" + available +
+            ", pending=" + pending +
+            ", max=" + max +
+            ", created=" + connectionsCreated +
+            ", closed=" + getConnectionsClosed() +
+            ", evicted=" + getConnectionsEvicted() +
+            ", leaseFailures=" + leaseFailures +
+            ", leaseWait=" + leaseWait +
+            ", tlsHandshake=" + tlsHandshake +
+            ", routes=" + routes +
+            '}';
+  }
+
+  /**
+   * Pool state of a single route.
+   */
+  public static class RouteStats {
+
+    private final int leased;
+    private final int available;
+    private final int pending;
+    private final int max;
+
+    RouteStats(int leased, int available, int pending, int max) {
+      this.leased = leased;
+      this.available = available;
+      this.pending = pending;
+      this.max = max;
+    }
+
+    public int getLeased() {
+      return leased;
+    }
+
+    public int getAvailable() {
+      return available;
+    }
+
+    public int getPending() {
+      return pending;
+    }
+
+    public int getMax() {
+      return max;
+    }
+
+    @Override
+    public String toString() {
+      return "leased=" + leased + ", available=" + available + ", pending=" + pending + ", max=" + max;
+    }
+  }
+}
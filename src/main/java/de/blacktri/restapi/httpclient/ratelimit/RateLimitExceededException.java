@@ -0,0 +1,24 @@
+package de.blacktri.restapi.httpclient.ratelimit;
+
+/**
+ * Thrown instead of calling the API if a permit of the {@link RateLimiter} would not be available within its
+ * maximum wait.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String tenant;
+
+  public RateLimitExceededException(String tenant, long maxWaitMillis) {
+    super("No permit within " + maxWaitMillis + " ms" + (tenant != null ? " for " + tenant : ""), null, false, false);
+    this.tenant = tenant;
+  }
+
+  /**
+   * @return the api key whose limit was exceeded, {@code null} for the global limit
+   */
+  public String getTenant() {
+    return tenant;
+  }
+}
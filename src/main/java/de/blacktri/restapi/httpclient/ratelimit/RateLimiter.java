@@ -0,0 +1,328 @@
+package de.blacktri.restapi.httpclient.ratelimit;
+
+import de.blacktri.restapi.httpclient.metrics.HistogramSnapshot;
+import de.blacktri.restapi.httpclient.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the rate of calls of a connector, globally and per tenant (api key), with {@link TokenBucket}s that adapt
+ * their rate to the responses of the API.
+ * <p/>
+ * Every attempt of a call needs a permit of the global bucket and, if per-tenant limits are configured, one of the
+ * tenant's bucket. Blocking calls wait for their permits, async calls are scheduled for the time their permits are
+ * due. A call that would have to wait longer than {@link #setMaxWait(long) maxWait} fails with a
+ * {@link RateLimitExceededException} instead, which bounds the queue of waiting calls and pushes back on callers
+ * that produce calls faster than the API accepts them.
+ * <p/>
+ * The rates start at their configured maximum. A {@code 429 Too Many Requests} halves the rate of the tenant if
+ * there are per-tenant limits, otherwise the global rate; other throttling responses ({@code 503} by default) and
+ * responses slower than the {@link #setLatencyThreshold(long) latencyThreshold} halve the global rate. Each
+ * successful response raises the rates again, by {@link #setAdditiveIncrease(double) additiveIncrease} permits per
+ * second per second at full load, up to the configured maximum.
+ * <p/>
+ * The account quota counts unique visitors, not API calls, so it cannot be translated into a rate; the limiter
+ * relies on the throttling responses of the API instead.
+ */
+public class RateLimiter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RateLimiter.class);
+
+  private static final int TOO_MANY_REQUESTS = 429;
+
+  private double rate = 50;
+  private double burst = -1;
+  private double tenantRate;
+  private double tenantBurst = -1;
+  private Map<String, Double> tenantRates = Collections.emptyMap();
+  private double minRate = 1;
+  private double additiveIncrease = 1;
+  private double decreaseFactor = 0.5;
+  private long decreaseIntervalNanos = TimeUnit.SECONDS.toNanos(1);
+  private long latencyThresholdNanos;
+  private long maxWaitNanos = TimeUnit.SECONDS.toNanos(30);
+  private Set<Integer> throttlingStatusCodes = new HashSet<>(Arrays.asList(TOO_MANY_REQUESTS, 503));
+
+  private volatile TokenBucket global;
+  private final ConcurrentMap<String, TokenBucket> tenants = new ConcurrentHashMap<>();
+
+  private final LatencyHistogram waitTime = new LatencyHistogram();
+  private final LongAdder rejections = new LongAdder();
+  private final LongAdder throttled = new LongAdder();
+
+  /**
+   * Reserves the permits for one attempt of a call.
+   *
+   * @param tenant the api key of the call
+   * @return the nanoseconds until the permits may be used
+   * @throws RateLimitExceededException if that would be longer than the maximum wait
+   */
+  public long reserve(String tenant) {
+    TokenBucket tenantBucket = getTenantBucket(tenant);
+    long tenantWait = 0;
+    if (tenantBucket != null) {
+      tenantWait = tenantBucket.reserve(maxWaitNanos);
+      if (tenantWait < 0) {
+        rejections.increment();
+        throw new RateLimitExceededException(tenant, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+      }
+    }
+    long globalWait = getGlobalBucket().reserve(maxWaitNanos);
+    if (globalWait < 0) {
+      if (tenantBucket != null) {
+        tenantBucket.release();
+      }
+      rejections.increment();
+      throw new RateLimitExceededException(null, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+    }
+    long wait = Math.max(tenantWait, globalWait);
+    waitTime.recordNanos(wait);
+    return wait;
+  }
+
+  /**
+   * Reserves the permits for one attempt of a call and waits until they may be used.
+   *
+   * @throws RateLimitExceededException if the wait would be longer than the maximum wait
+   */
+  public void acquire(String tenant) throws InterruptedException {
+    long wait = reserve(tenant);
+    if (wait > 0) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(wait);
+      } catch (InterruptedException e) {
+        release(tenant);
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Returns the permits of a {@link #reserve(String) reservation} that is not going to be used, e.g. because the
+   * call was cancelled while it waited for them.
+   */
+  public void release(String tenant) {
+    TokenBucket tenantBucket = getTenantBucket(tenant);
+    if (tenantBucket != null) {
+      tenantBucket.release();
+    }
+    getGlobalBucket().release();
+  }
+
+  /**
+   * Adapts the rates to a response.
+   *
+   * @param statusCode the status code, 0 if the call failed without a response
+   * @param latencyNanos the time until the response headers arrived or the call failed
+   */
+  public void onResponse(String tenant, int statusCode, long latencyNanos) {
+    TokenBucket tenantBucket = getTenantBucket(tenant);
+    if (throttlingStatusCodes.contains(statusCode)) {
+      throttled.increment();
+      if (statusCode == TOO_MANY_REQUESTS && tenantBucket != null) {
+        decrease(tenantBucket, tenant);
+      } else {
+        decrease(getGlobalBucket(), null);
+      }
+    } else if (latencyThresholdNanos > 0 && latencyNanos > latencyThresholdNanos) {
+      decrease(getGlobalBucket(), null);
+    } else if (statusCode != 0) {
+      getGlobalBucket().increase();
+      if (tenantBucket != null) {
+        tenantBucket.increase();
+      }
+    }
+  }
+
+  private void decrease(TokenBucket bucket, String tenant) {
+    if (bucket.decrease()) {
+      LOG.info("Lowering the rate limit{} to {} calls per second", tenant != null ? " of " + tenant : "",
+              String.format("%.1f", bucket.getRate()));
+    }
+  }
+
+  TokenBucket getGlobalBucket() {
+    TokenBucket bucket = global;
+    if (bucket == null) {
+      synchronized (this) {
+        bucket = global;
+        if (bucket == null) {
+          bucket = new TokenBucket(this, rate, burst >= 0 ? burst : rate);
+          global = bucket;
+        }
+      }
+    }
+    return bucket;
+  }
+
+  /**
+   * @return the bucket of the tenant, {@code null} if there is no limit per tenant
+   */
+  TokenBucket getTenantBucket(String tenant) {
+    if (tenant == null) {
+      return null;
+    }
+    TokenBucket bucket = tenants.get(tenant);
+    if (bucket == null) {
+      Double limit = tenantRates.get(tenant);
+      double maxRate = limit != null ? limit : tenantRate;
+      if (maxRate <= 0) {
+        return null;
+      }
+      bucket = tenants.computeIfAbsent(tenant, key -> new TokenBucket(this, maxRate, tenantBurst >= 0 ? tenantBurst : maxRate));
+    }
+    return bucket;
+  }
+
+  /**
+   * Time the calls had to wait for their permits, in microseconds.
+   */
+  public HistogramSnapshot getWaitTime() {
+    return waitTime.snapshot();
+  }
+
+  /**
+   * Number of calls that failed because no permit was available within the maximum wait.
+   */
+  public long getRejectedCount() {
+    return rejections.sum();
+  }
+
+  /**
+   * Number of throttling responses received.
+   */
+  public long getThrottledCount() {
+    return throttled.sum();
+  }
+
+  /**
+   * @return the current global rate in calls per second
+   */
+  public double getCurrentRate() {
+    return getGlobalBucket().getRate();
+  }
+
+  /**
+   * @return the current rate of the tenant in calls per second, -1 if there is no limit for the tenant
+   */
+  public double getCurrentRate(String tenant) {
+    TokenBucket bucket = getTenantBucket(tenant);
+    return bucket != null ? bucket.getRate() : -1;
+  }
+
+  /**
+   * Maximum global rate in calls per second, defaults to 50. Takes effect on first use.
+   */
+  public void setRate(double rate) {
+    this.rate = rate;
+  }
+
+  /**
+   * Calls that may be made at once after a pause, defaults to one second's worth of the rate.
+   */
+  public void setBurst(double burst) {
+    this.burst = burst;
+  }
+
+  /**
+   * Maximum rate per tenant in calls per second, defaults to 0 for no limit per tenant. Only affects tenants that
+   * have not made calls yet.
+   */
+  public void setTenantRate(double tenantRate) {
+    this.tenantRate = tenantRate;
+  }
+
+  /**
+   * Calls per tenant that may be made at once after a pause, defaults to one second's worth of the tenant's rate.
+   */
+  public void setTenantBurst(double tenantBurst) {
+    this.tenantBurst = tenantBurst;
+  }
+
+  /**
+   * Maximum rates of individual tenants by api key, overriding the {@link #setTenantRate(double) tenantRate}.
+   */
+  public void setTenantRates(Map<String, Double> tenantRates) {
+    this.tenantRates = new HashMap<>(tenantRates);
+  }
+
+  double getMinRate() {
+    return minRate;
+  }
+
+  /**
+   * Rate in calls per second below which throttling does not lower the rates, defaults to 1.
+   */
+  public void setMinRate(double minRate) {
+    this.minRate = minRate;
+  }
+
+  double getAdditiveIncrease() {
+    return additiveIncrease;
+  }
+
+  /**
+   * Calls per second the rates grow by per second of successful calls, defaults to 1.
+   */
+  public void setAdditiveIncrease(double additiveIncrease) {
+    this.additiveIncrease = additiveIncrease;
+  }
+
+  double getDecreaseFactor() {
+    return decreaseFactor;
+  }
+
+  /**
+   * Factor a rate is multiplied with on throttling, defaults to 0.5.
+   */
+  public void setDecreaseFactor(double decreaseFactor) {
+    this.decreaseFactor = decreaseFactor;
+  }
+
+  long getDecreaseIntervalNanos() {
+    return decreaseIntervalNanos;
+  }
+
+  /**
+   * Minimum time in milliseconds between two decreases of a rate, defaults to one second.
+   */
+  public void setDecreaseInterval(long decreaseInterval) {
+    this.decreaseIntervalNanos = TimeUnit.MILLISECONDS.toNanos(decreaseInterval);
+  }
+
+  /**
+   * Time in milliseconds to the response headers from which a response lowers the global rate, defaults to 0 for
+   * not adapting to latency.
+   */
+  public void setLatencyThreshold(long latencyThreshold) {
+    this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThreshold);
+  }
+
+  /**
+   * Maximum time in milliseconds a call waits for its permits, defaults to 30 seconds.
+   */
+  public void setMaxWait(long maxWait) {
+    this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWait);
+  }
+
+  public void setThrottlingStatusCodes(Set<Integer> throttlingStatusCodes) {
+    this.throttlingStatusCodes = new HashSet<>(throttlingStatusCodes);
+  }
+
+  @Override
+  public String toString() {
+    return "RateLimiter{global=" + getGlobalBucket() + ", tenants=" + tenants.size() + ", rejected=" + getRejectedCount()
+            + ", throttled=" + getThrottledCount() + ", wait=" + getWaitTime() + '}';
+  }
+}
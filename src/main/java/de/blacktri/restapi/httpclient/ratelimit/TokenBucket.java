@@ -0,0 +1,105 @@
+package de.blacktri.restapi.httpclient.ratelimit;
+
+/**
+ * Token bucket whose rate is adapted by additive increase and multiplicative decrease (AIMD).
+ * <p/>
+ * Permits are reserved rather than taken: a caller that finds the bucket empty still gets a permit, but has to wait
+ * until the tokens it borrowed have been refilled. The tokens may therefore become negative; their deficit is the
+ * queue of callers waiting for their permits, which is bounded by the maximum wait.
+ */
+public class TokenBucket {
+
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final RateLimiter limiter;
+  private final double maxRate;
+  private final double burst;
+
+  private double rate;
+  private double tokens;
+  private long refilled;
+  private long decreased;
+
+  TokenBucket(RateLimiter limiter, double maxRate, double burst) {
+    this.limiter = limiter;
+    this.maxRate = maxRate;
+    this.burst = Math.max(1, burst);
+    this.rate = maxRate;
+    this.tokens = this.burst;
+    this.refilled = System.nanoTime();
+    this.decreased = refilled - limiter.getDecreaseIntervalNanos();
+  }
+
+  /**
+   * Reserves one permit.
+   *
+   * @return the nanoseconds to wait until the permit may be used, -1 if that would be longer than
+   * {@code maxWaitNanos}; nothing is reserved then
+   */
+  synchronized long reserve(long maxWaitNanos) {
+    long now = System.nanoTime();
+    refill(now);
+    long wait = tokens >= 1 ? 0L : (long) Math.ceil((1 - tokens) / rate * NANOS_PER_SECOND);
+    if (wait > maxWaitNanos) {
+      return -1L;
+    }
+    tokens -= 1;
+    return wait;
+  }
+
+  /**
+   * Returns a reserved permit that is not going to be used.
+   */
+  synchronized void release() {
+    tokens = Math.min(burst, tokens + 1);
+  }
+
+  /**
+   * Raises the rate so that it grows by the additive increase per second while all calls succeed.
+   */
+  synchronized void increase() {
+    if (rate < maxRate) {
+      refill(System.nanoTime());
+      rate = Math.min(maxRate, rate + limiter.getAdditiveIncrease() / rate);
+    }
+  }
+
+  /**
+   * Lowers the rate by the decrease factor, at most once per decrease interval, so that the responses to a burst of
+   * calls sent at the old rate only count once.
+   *
+   * @return whether the rate was lowered
+   */
+  synchronized boolean decrease() {
+    long now = System.nanoTime();
+    if (now - decreased < limiter.getDecreaseIntervalNanos() || rate <= limiter.getMinRate()) {
+      return false;
+    }
+    refill(now);
+    decreased = now;
+    rate = Math.max(limiter.getMinRate(), rate * limiter.getDecreaseFactor());
+    return true;
+  }
+
+  private void refill(long now) {
+    tokens = Math.min(burst, tokens + (now - refilled) * rate / NANOS_PER_SECOND);
+    refilled = now;
+  }
+
+  /**
+   * @return the current rate in permits per second
+   */
+  public synchronized double getRate() {
+    return rate;
+  }
+
+  public double getMaxRate() {
+    return maxRate;
+  }
+
+  @Override
+  public synchronized String toString() {
+    double available = Math.min(burst, tokens + (System.nanoTime() - refilled) * rate / NANOS_PER_SECOND);
+    return "TokenBucket{rate=" + String.format("%.1f", rate) + "/" + maxRate + ", tokens=" + String.format("%.1f", available) + '}';
+  }
+}
@@ -0,0 +1,57 @@
+package de.blacktri.restapi.httpclient.retry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of retries per time window across all calls of a connector.
+ * <p/>
+ * When the API is down, every call would otherwise multiply the load by the number of attempts. Once the budget of
+ * a window is spent, failed calls fail immediately until the next window starts.
+ */
+public class RetryBudget {
+
+  private int maxRetries = 100;
+  private long window = TimeUnit.SECONDS.toNanos(10);
+
+  private long windowStart = System.nanoTime();
+  private int used;
+
+  /**
+   * Takes one retry from the budget of the current window.
+   *
+   * @return {@code false} if the budget is exhausted
+   */
+  public synchronized boolean tryAcquire() {
+    long now = System.nanoTime();
+    if (now - windowStart >= window) {
+      windowStart = now;
+      used = 0;
+    }
+    if (used >= maxRetries) {
+      return false;
+    }
+    used++;
+    return true;
+  }
+
+  public synchronized int getRemaining() {
+    if (System.nanoTime() - windowStart >= window) {
+      return maxRetries;
+    }
+    return maxRetries - used;
+  }
+
+  /**
+   * Maximum number of retries per window, defaults to 100.
+   */
+  public void setMaxRetries(int maxRetries) {
+    this.maxRetries = maxRetries;
+  }
+
+  /**
+   * Length of a window in milliseconds, defaults to 10 seconds.
+   */
+  public void setWindow(long window) {
+    this.window = TimeUnit.MILLISECONDS.toNanos(window);
+  }
+}
@@ -0,0 +1,153 @@
+package de.blacktri.restapi.httpclient.retry;
+
+import de.blacktri.restapi.httpclient.RemoteServiceException;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.springframework.http.HttpMethod;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether and when a failed call of the {@link de.blacktri.restapi.httpclient.ABTestingRestConnector} is
+ * repeated.
+ * <p/>
+ * A call is retried if
+ * <ul>
+ * <li>it has not used up {@link #setMaxAttempts(int) maxAttempts},</li>
+ * <li>it is idempotent: GET, PUT and DELETE are, POST only if the call is explicitly marked as idempotent,</li>
+ * <li>it failed with a retryable status code (by default 408, 429, 502, 503 and 504) or a transient I/O error
+ * such as a connection reset, a refused connection or a timeout,</li>
+ * <li>and the {@link RetryBudget} is not exhausted.</li>
+ * </ul>
+ * The delay before attempt {@code n + 1} is drawn uniformly from {@code [0, min(maxDelay, baseDelay * 2^(n-1))]}
+ * ("full jitter"), so clients that failed together do not retry together. A {@code Retry-After} header given in
+ * seconds raises the delay, but never beyond {@code maxDelay}.
+ */
+public class RetryPolicy {
+
+  private int maxAttempts = 3;
+  private long baseDelay = 100;
+  private long maxDelay = TimeUnit.SECONDS.toMillis(5);
+  private Set<Integer> retryableStatusCodes = new HashSet<>(Arrays.asList(408, 429, 502, 503, 504));
+  private RetryBudget retryBudget = new RetryBudget();
+
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong budgetRejections = new AtomicLong();
+
+  /**
+   * Returns the delay before the next attempt of a failed call.
+   *
+   * @param method     the HTTP method of the call
+   * @param idempotent explicit idempotency of the call or {@code null} to derive it from the method
+   * @param attempts   the number of attempts made so far, including the failed one
+   * @param failure    the failure of the last attempt
+   * @return the delay in milliseconds or -1 if the call must not be retried
+   */
+  public long getRetryDelay(HttpMethod method, Boolean idempotent, int attempts, Exception failure) {
+    if (attempts >= maxAttempts || !isIdempotent(method, idempotent) || !isRetryable(failure)) {
+      return -1;
+    }
+    if (!retryBudget.tryAcquire()) {
+      budgetRejections.incrementAndGet();
+      return -1;
+    }
+    retries.incrementAndGet();
+    return Math.min(maxDelay, Math.max(getBackoff(attempts), getRetryAfter(failure)));
+  }
+
+  public boolean isIdempotent(HttpMethod method, Boolean idempotent) {
+    if (idempotent != null) {
+      return idempotent;
+    }
+    return method == HttpMethod.GET || method == HttpMethod.PUT || method == HttpMethod.DELETE
+            || method == HttpMethod.HEAD || method == HttpMethod.OPTIONS;
+  }
+
+  public boolean isRetryable(Exception failure) {
+    if (failure instanceof RemoteServiceException) {
+      return retryableStatusCodes.contains(((RemoteServiceException) failure).getStatusCode());
+    }
+    // SocketException covers connection resets and refused connections
+    return failure instanceof NoHttpResponseException
+            || failure instanceof ConnectTimeoutException
+            || failure instanceof SocketTimeoutException
+            || failure instanceof SocketException;
+  }
+
+  long getBackoff(int attempts) {
+    long ceiling = baseDelay << Math.min(attempts - 1, 30);
+    if (ceiling <= 0 || ceiling > maxDelay) {
+      ceiling = maxDelay;
+    }
+    return ThreadLocalRandom.current().nextLong(ceiling + 1);
+  }
+
+  private static long getRetryAfter(Exception failure) {
+    if (failure instanceof RemoteServiceException) {
+      String retryAfter = ((RemoteServiceException) failure).getRetryAfter();
+      if (retryAfter != null) {
+        try {
+          return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+          // an HTTP date, fall back to the computed backoff
+        }
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Number of retries granted by this policy.
+   */
+  public long getRetryCount() {
+    return retries.get();
+  }
+
+  /**
+   * Number of retries that were denied because the {@link RetryBudget} was exhausted.
+   */
+  public long getBudgetRejectionCount() {
+    return budgetRejections.get();
+  }
+
+  /**
+   * Maximum number of attempts per call including the first one, defaults to 3. A value of 1 disables retries.
+   */
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+  }
+
+  /**
+   * Upper bound in milliseconds of the delay before the first retry, doubled for every further retry. Defaults to
+   * 100.
+   */
+  public void setBaseDelay(long baseDelay) {
+    this.baseDelay = baseDelay;
+  }
+
+  /**
+   * Upper bound in milliseconds of any delay, defaults to 5 seconds.
+   */
+  public void setMaxDelay(long maxDelay) {
+    this.maxDelay = maxDelay;
+  }
+
+  public void setRetryableStatusCodes(Set<Integer> retryableStatusCodes) {
+    this.retryableStatusCodes = new HashSet<>(retryableStatusCodes);
+  }
+
+  public void setRetryBudget(RetryBudget retryBudget) {
+    this.retryBudget = retryBudget;
+  }
+
+  public RetryBudget getRetryBudget() {
+    return retryBudget;
+  }
+}
@@ -0,0 +1,320 @@
+package de.blacktri.restapi.json;
+
+import java.text.DateFormat;
+import java.text.FieldPosition;
+import java.text.NumberFormat;
+import java.text.ParsePosition;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Immutable, thread-safe codec for the {@code yyyy-MM-dd HH:mm:ss} timestamps of the BlackTri API.
+ * <p/>
+ * Timestamps are parsed from and formatted to epoch milliseconds with plain arithmetic, so one instance can be
+ * shared by all threads without locking and a parse allocates nothing but, for zones with daylight saving time,
+ * a short-lived {@link Instant} for the offset lookup. Like the {@code SimpleDateFormat} it replaces, parsing is
+ * lenient: out-of-range fields roll over into the next larger field, and characters after the seconds are
+ * ignored. Dates are computed in the proleptic Gregorian calendar.
+ */
+public final class ApiDateFormat {
+
+  public static final String PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+  /**
+   * Marks an absent timestamp where a primitive {@code long} is stored.
+   */
+  public static final long NO_DATE = Long.MIN_VALUE;
+
+  private static final int LENGTH = PATTERN.length();
+  private static final int SECONDS_PER_DAY = 86400;
+  private static final ApiDateFormat DEFAULT = new ApiDateFormat(TimeZone.getDefault().toZoneId());
+
+  private final ZoneId zone;
+  private final ZoneRules rules;
+  private final boolean fixedOffset;
+  private final int offsetSeconds;
+
+  public ApiDateFormat(ZoneId zone) {
+    this.zone = zone;
+    this.rules = zone.getRules();
+    this.fixedOffset = rules.isFixedOffset();
+    this.offsetSeconds = fixedOffset ? rules.getOffset(Instant.EPOCH).getTotalSeconds() : 0;
+  }
+
+  /**
+   * The codec for the default time zone of the JVM, which the API timestamps have always been interpreted in.
+   */
+  public static ApiDateFormat getDefault() {
+    return DEFAULT;
+  }
+
+  public long parse(CharSequence text) {
+    return parse(text, 0);
+  }
+
+  /**
+   * @return the epoch milliseconds of the timestamp starting at {@code offset}
+   * @throws IllegalArgumentException if there is no timestamp at the offset
+   */
+  public long parse(CharSequence text, int offset) {
+    if (text.length() - offset < LENGTH) {
+      throw invalid(text, offset, text.length() - offset);
+    }
+    int year = 0;
+    int month = 0;
+    int day = 0;
+    int hour = 0;
+    int minute = 0;
+    int second = 0;
+    for (int i = 0; i < LENGTH; i++) {
+      char c = text.charAt(offset + i);
+      char expected = PATTERN.charAt(i);
+      if (Character.isLetter(expected)) {
+        int digit = c - '0';
+        if (digit < 0 || digit > 9) {
+          throw invalid(text, offset, LENGTH);
+        }
+        switch (expected) {
+          case 'y':
+            year = year * 10 + digit;
+            break;
+          case 'M':
+            month = month * 10 + digit;
+            break;
+          case 'd':
+            day = day * 10 + digit;
+            break;
+          case 'H':
+            hour = hour * 10 + digit;
+            break;
+          case 'm':
+            minute = minute * 10 + digit;
+            break;
+          default:
+            second = second * 10 + digit;
+        }
+      } else if (c != expected) {
+        throw invalid(text, offset, LENGTH);
+      }
+    }
+    return toEpochMilli(year, month, day, hour, minute, second);
+  }
+
+  /**
+   * Parses a timestamp from a character buffer, e.g. the current token of a JSON parser, without creating a
+   * {@code String}.
+   */
+  public long parse(char[] text, int offset, int length) {
+    if (length < LENGTH) {
+      throw invalid(new String(text, offset, length), 0, length);
+    }
+    int year = digits(text, offset, 4);
+    int month = digits(text, offset + 5, 2);
+    int day = digits(text, offset + 8, 2);
+    int hour = digits(text, offset + 11, 2);
+    int minute = digits(text, offset + 14, 2);
+    int second = digits(text, offset + 17, 2);
+    if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0
+            || text[offset + 4] != '-' || text[offset + 7] != '-' || text[offset + 10] != ' '
+            || text[offset + 13] != ':' || text[offset + 16] != ':') {
+      throw invalid(new String(text, offset, length), 0, length);
+    }
+    return toEpochMilli(year, month, day, hour, minute, second);
+  }
+
+  public String format(long epochMilli) {
+    StringBuilder text = new StringBuilder(LENGTH);
+    format(epochMilli, text);
+    return text.toString();
+  }
+
+  public void format(long epochMilli, StringBuilder text) {
+    long epochSecond = Math.floorDiv(epochMilli, 1000L);
+    long local = epochSecond + offsetAt(epochSecond);
+    long epochDay = Math.floorDiv(local, SECONDS_PER_DAY);
+    int secondOfDay = (int) Math.floorMod(local, SECONDS_PER_DAY);
+
+    // civil date from day number, see http://howardhinnant.github.io/date_algorithms.html
+    long z = epochDay + 719468;
+    long era = Math.floorDiv(z, 146097);
+    long dayOfEra = z - era * 146097;
+    long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    long mp = (5 * dayOfYear + 2) / 153;
+    int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+    int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+    long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+    if (year >= 0 && year < 1000) {
+      pad(text, (int) year, 4);
+    } else {
+      text.append(year);
+    }
+    text.append('-');
+    pad(text, month, 2);
+    text.append('-');
+    pad(text, day, 2);
+    text.append(' ');
+    pad(text, secondOfDay / 3600, 2);
+    text.append(':');
+    pad(text, secondOfDay / 60 % 60, 2);
+    text.append(':');
+    pad(text, secondOfDay % 60, 2);
+  }
+
+  public Calendar toCalendar(long epochMilli) {
+    Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone(zone));
+    calendar.setTimeInMillis(epochMilli);
+    return calendar;
+  }
+
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  /**
+   * Returns a {@link DateFormat} view of this codec for APIs that require one. Unlike {@code SimpleDateFormat}, it
+   * can be shared between threads; its time zone, calendar and leniency cannot be changed.
+   */
+  public DateFormat toDateFormat() {
+    return new ThreadSafeDateFormat(this);
+  }
+
+  private long toEpochMilli(int year, int month, int day, int hour, int minute, int second) {
+    // lenient like SimpleDateFormat: month 13 is January of the next year, day 0 the last day of the previous month
+    long normalizedYear = year + Math.floorDiv(month - 1, 12);
+    int normalizedMonth = Math.floorMod(month - 1, 12) + 1;
+    long epochDay = epochDay(normalizedYear, normalizedMonth) + day - 1;
+    long local = epochDay * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+    return (local - localOffset(local)) * 1000L;
+  }
+
+  /**
+   * Day number of the first day of the month, see http://howardhinnant.github.io/date_algorithms.html
+   */
+  private static long epochDay(long year, int month) {
+    long y = month <= 2 ? year - 1 : year;
+    long era = Math.floorDiv(y, 400);
+    long yearOfEra = y - era * 400;
+    long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  private int offsetAt(long epochSecond) {
+    return fixedOffset ? offsetSeconds : rules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+  }
+
+  /**
+   * Offset of a local time given in seconds since the local epoch. Like {@code GregorianCalendar}, local times
+   * in a gap or an overlap of a daylight saving transition are read as standard time.
+   */
+  private int localOffset(long local) {
+    if (fixedOffset) {
+      return offsetAt(local);
+    }
+    int guess = offsetAt(local);
+    int standard = rules.getStandardOffset(Instant.ofEpochSecond(local - guess)).getTotalSeconds();
+    if (offsetAt(local - standard) == standard) {
+      return standard;
+    }
+    int daylight = offsetAt(local - guess);
+    return offsetAt(local - daylight) == daylight ? daylight : standard;
+  }
+
+  private static int digits(char[] text, int offset, int count) {
+    int value = 0;
+    for (int i = offset; i < offset + count; i++) {
+      int digit = text[i] - '0';
+      if (digit < 0 || digit > 9) {
+        return -1;
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+
+  private static void pad(StringBuilder text, int value, int width) {
+    for (int limit = 10, i = 1; i < width; i++, limit *= 10) {
+      if (value < limit) {
+        text.append('0');
+      }
+    }
+    text.append(value);
+  }
+
+  private static IllegalArgumentException invalid(CharSequence text, int offset, int length) {
+    int end = Math.min(text.length(), offset + Math.max(0, length));
+    return new IllegalArgumentException("Expected a timestamp formatted as " + PATTERN + " but got '"
+            + text.subSequence(offset, end) + "'");
+  }
+
+  /**
+   * {@link DateFormat} adapter that delegates to the immutable codec and rejects all modifications.
+   */
+  private static final class ThreadSafeDateFormat extends DateFormat {
+
+    private final ApiDateFormat codec;
+
+    private ThreadSafeDateFormat(ApiDateFormat codec) {
+      this.codec = codec;
+      // DateFormat.clone() and hashCode() expect both
+      this.calendar = codec.toCalendar(0);
+      this.numberFormat = NumberFormat.getIntegerInstance();
+    }
+
+    @Override
+    public StringBuffer format(Date date, StringBuffer toAppendTo, FieldPosition fieldPosition) {
+      StringBuilder text = new StringBuilder(LENGTH);
+      codec.format(date.getTime(), text);
+      return toAppendTo.append(text);
+    }
+
+    @Override
+    public Date parse(String source, ParsePosition position) {
+      int start = position.getIndex();
+      try {
+        Date date = new Date(codec.parse(source, start));
+        position.setIndex(start + LENGTH);
+        return date;
+      } catch (IllegalArgumentException e) {
+        position.setErrorIndex(start);
+        return null;
+      }
+    }
+
+    @Override
+    public void setCalendar(Calendar newCalendar) {
+      throw new UnsupportedOperationException("The API date format is immutable");
+    }
+
+    @Override
+    public void setNumberFormat(NumberFormat newNumberFormat) {
+      throw new UnsupportedOperationException("The API date format is immutable");
+    }
+
+    @Override
+    public void setTimeZone(TimeZone zone) {
+      throw new UnsupportedOperationException("The API date format is immutable");
+    }
+
+    @Override
+    public void setLenient(boolean lenient) {
+      throw new UnsupportedOperationException("The API date format is immutable");
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof ThreadSafeDateFormat && ((ThreadSafeDateFormat) obj).codec == codec;
+    }
+
+    @Override
+    public int hashCode() {
+      return codec.hashCode();
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package de.blacktri.restapi.json;
+
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.Version;
+import org.codehaus.jackson.map.DeserializationContext;
+import org.codehaus.jackson.map.JsonDeserializer;
+import org.codehaus.jackson.map.JsonSerializer;
+import org.codehaus.jackson.map.KeyDeserializer;
+import org.codehaus.jackson.map.SerializerProvider;
+import org.codehaus.jackson.map.module.SimpleModule;
+
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Jackson module which reads and writes {@link Date} and {@link Calendar} values, including map keys such as the
+ * dates of a trend, with an {@link ApiDateFormat}.
+ * <p/>
+ * Values are parsed straight from the parser's character buffer, so no intermediate {@code String} is created and
+ * no {@code DateFormat} has to be cloned per call.
+ */
+public class ApiDateModule extends SimpleModule {
+
+  private final ApiDateFormat format;
+
+  public ApiDateModule(ApiDateFormat format) {
+    super("ApiDateModule", new Version(1, 0, 0, null));
+    this.format = format;
+    addDeserializer(Date.class, new DateDeserializer(format));
+    addDeserializer(Calendar.class, new CalendarDeserializer(format));
+    addSerializer(Date.class, new DateSerializer(format));
+    addSerializer(Calendar.class, new CalendarSerializer(format));
+    addKeyDeserializer(Date.class, new DateKeyDeserializer(format));
+    addKeyDeserializer(Calendar.class, new CalendarKeyDeserializer(format));
+    addKeySerializer(Date.class, new DateKeySerializer(format));
+    addKeySerializer(Calendar.class, new CalendarKeySerializer(format));
+  }
+
+  public ApiDateFormat getFormat() {
+    return format;
+  }
+
+  /**
+   * Reads the current token as epoch milliseconds: a formatted timestamp or a plain number.
+   *
+   * @return the timestamp or {@link ApiDateFormat#NO_DATE} for an empty string
+   */
+  static long parse(ApiDateFormat format, JsonParser jp, DeserializationContext ctxt) throws IOException {
+    JsonToken token = jp.getCurrentToken();
+    if (token == JsonToken.VALUE_NUMBER_INT) {
+      return jp.getLongValue();
+    }
+    if (token != JsonToken.VALUE_STRING) {
+      throw ctxt.mappingException(Date.class, token);
+    }
+    int length = jp.getTextLength();
+    if (length == 0) {
+      return ApiDateFormat.NO_DATE;
+    }
+    try {
+      return format.parse(jp.getTextCharacters(), jp.getTextOffset(), length);
+    } catch (IllegalArgumentException e) {
+      throw ctxt.weirdStringException(Date.class, e.getMessage());
+    }
+  }
+
+  private static final class DateDeserializer extends JsonDeserializer<Date> {
+
+    private final ApiDateFormat format;
+
+    private DateDeserializer(ApiDateFormat format) {
+      this.format = format;
+    }
+
+    @Override
+    public Date deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+      long epochMilli = parse(format, jp, ctxt);
+      return epochMilli == ApiDateFormat.NO_DATE ? null : new Date(epochMilli);
+    }
+  }
+
+  private static final class CalendarDeserializer extends JsonDeserializer<Calendar> {
+
+    private final ApiDateFormat format;
+
+    private CalendarDeserializer(ApiDateFormat format) {
+      this.format = format;
+    }
+
+    @Override
+    public Calendar deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+      long epochMilli = parse(format, jp, ctxt);
+      return epochMilli == ApiDateFormat.NO_DATE ? null : format.toCalendar(epochMilli);
+    }
+  }
+
+  private static final class DateKeyDeserializer extends KeyDeserializer {
+
+    private final ApiDateFormat format;
+
+    private DateKeyDeserializer(ApiDateFormat format) {
+      this.format = format;
+    }
+
+    @Override
+    public Object deserializeKey(String key, DeserializationContext ctxt) throws IOException {
+      try {
+        return new Date(format.parse(key));
+      } catch (IllegalArgumentException e) {
+        throw ctxt.weirdKeyException(Date.class, key, e.getMessage());
+      }
+    }
+  }
+
+  private static final class CalendarKeyDeserializer extends KeyDeserializer {
+
+    private final ApiDateFormat format;
+
+    private CalendarKeyDeserializer(ApiDateFormat format) {
+      this.format = format;
+    }
+
+    @Override
+    public Object deserializeKey(String key, DeserializationContext ctxt) throws IOException {
+      try {
+        return format.toCalendar(format.parse(key));
+      } catch (IllegalArgumentException e) {
+        throw ctxt.weirdKeyException(Calendar.class, key, e.getMessage());
+      }
+    }
+  }
+
+  private static final class DateSerializer extends JsonSerializer<Date> {
+
+    private final ApiDateFormat format;
+
+    private DateSerializer(ApiDateFormat format) {
+      this.format = format;
+    }
+
+    @Override
+    public void serialize(Date value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+      jgen.writeString(format.format(value.getTime()));
+    }
+  }
+
+  private static final class CalendarSerializer extends JsonSerializer<Calendar> {
+
+    private final ApiDateFormat format;
+
+    private CalendarSerializer(ApiDateFormat format) {
+      this.format = format;
+    }
+
+    @Override
+    public void serialize(Calendar value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+      jgen.writeString(format.format(value.getTimeInMillis()));
+    }
+  }
+
+  private static final class DateKeySerializer extends JsonSerializer<Date> {
+
+    private final ApiDateFormat format;
+
+    private DateKeySerializer(ApiDateFormat format) {
+      this.format = format;
+    }
+
+    @Override
+    public void serialize(Date value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+      jgen.writeFieldName(format.format(value.getTime()));
+    }
+  }
+
+  private static final class CalendarKeySerializer extends JsonSerializer<Calendar> {
+
+    private final ApiDateFormat format;
+
+    private CalendarKeySerializer(ApiDateFormat format) {
+      this.format = format;
+    }
+
+    @Override
+    public void serialize(Calendar value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+      jgen.writeFieldName(format.format(value.getTimeInMillis()));
+    }
+  }
+}
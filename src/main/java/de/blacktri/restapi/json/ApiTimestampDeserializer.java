@@ -0,0 +1,26 @@
+package de.blacktri.restapi.json;
+
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.map.DeserializationContext;
+import org.codehaus.jackson.map.JsonDeserializer;
+
+import java.io.IOException;
+
+/**
+ * Reads an API timestamp into epoch milliseconds for pojos that keep their dates as a primitive {@code long}
+ * instead of a {@link java.util.Calendar}. Absent dates are read as {@link ApiDateFormat#NO_DATE}.
+ * <p/>
+ * Always uses {@link ApiDateFormat#getDefault()}, like the connector's mapper.
+ */
+public class ApiTimestampDeserializer extends JsonDeserializer<Long> {
+
+  @Override
+  public Long deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+    return ApiDateModule.parse(ApiDateFormat.getDefault(), jp, ctxt);
+  }
+
+  @Override
+  public Long getNullValue() {
+    return ApiDateFormat.NO_DATE;
+  }
+}
@@ -0,0 +1,206 @@
+package de.blacktri.restapi.json;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Parses decimal numbers and lists of them without regular expressions, boxing or, in the common case, a
+ * {@code String} per number.
+ * <p/>
+ * A list is a sequence of numbers separated by commas, semicolons or white space, optionally enclosed in brackets
+ * and with quoted numbers, e.g. {@code 0.1,0.25,1e-3} or {@code [1, 2, 3]}. An entry that is not a number, such as
+ * {@code null}, is {@link Double#NaN}.
+ */
+public final class DecimalParser {
+
+  private static final double[] NO_VALUES = new double[0];
+
+  private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+          1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+  /**
+   * Longest number copied into the buffer of an iterator for {@link #parseFast(char[], int, int)}.
+   */
+  private static final int MAX_FAST_LENGTH = 32;
+
+  private DecimalParser() {
+  }
+
+  /**
+   * Parses a decimal number without creating a {@code String}, for the common case of at most 15 significant digits
+   * and a small exponent, where dividing or multiplying by an exact power of ten rounds like
+   * {@link Double#parseDouble(String)}.
+   *
+   * @return the value or {@link Double#NaN} if the number is not of that form
+   */
+  public static double parseFast(char[] text, int offset, int length) {
+    int end = offset + length;
+    int i = offset;
+    boolean negative = i < end && text[i] == '-';
+    if (negative) {
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int scale = 0;
+    boolean anyDigit = false;
+    boolean fraction = false;
+    for (; i < end; i++) {
+      char c = text[i];
+      if (c >= '0' && c <= '9') {
+        anyDigit = true;
+        if (mantissa != 0 || c != '0') {
+          if (++digits > 15) {
+            return Double.NaN;
+          }
+        }
+        mantissa = mantissa * 10 + (c - '0');
+        if (fraction) {
+          scale--;
+        }
+      } else if (c == '.' && !fraction) {
+        fraction = true;
+      } else if ((c == 'e' || c == 'E') && anyDigit) {
+        break;
+      } else {
+        return Double.NaN;
+      }
+    }
+    if (!anyDigit) {
+      return Double.NaN;
+    }
+    if (i < end) {
+      int exponent = 0;
+      boolean negativeExponent = false;
+      i++;
+      if (i < end && (text[i] == '-' || text[i] == '+')) {
+        negativeExponent = text[i++] == '-';
+      }
+      if (i == end || end - i > 3) {
+        return Double.NaN;
+      }
+      for (; i < end; i++) {
+        char c = text[i];
+        if (c < '0' || c > '9') {
+          return Double.NaN;
+        }
+        exponent = exponent * 10 + (c - '0');
+      }
+      scale += negativeExponent ? -exponent : exponent;
+    }
+    if (scale < -22 || scale > 22) {
+      return Double.NaN;
+    }
+    double value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+    return negative ? -value : value;
+  }
+
+  /**
+   * @return the numbers of the list, an empty array for {@code null}
+   */
+  public static double[] parseList(CharSequence text) {
+    // counting first is cheaper than growing an array, in time and garbage
+    int count = count(text);
+    if (count == 0) {
+      return NO_VALUES;
+    }
+    double[] values = new double[count];
+    Values iterator = new Values(text);
+    for (int i = 0; i < count; i++) {
+      values[i] = iterator.nextDouble();
+    }
+    return values;
+  }
+
+  /**
+   * Parses the numbers of the list one at a time, so a long list can be processed without holding all of it.
+   */
+  public static PrimitiveIterator.OfDouble iterator(CharSequence text) {
+    return new Values(text);
+  }
+
+  /**
+   * @return the number of entries of the list, 0 for {@code null}
+   */
+  public static int count(CharSequence text) {
+    if (text == null) {
+      return 0;
+    }
+    int count = 0;
+    boolean inEntry = false;
+    for (int i = 0; i < text.length(); i++) {
+      boolean separator = isSeparator(text.charAt(i));
+      if (!separator && !inEntry) {
+        count++;
+      }
+      inEntry = !separator;
+    }
+    return count;
+  }
+
+  private static boolean isSeparator(char c) {
+    if (c >= '0' && c <= '9' || c == '.' || c == '-') {
+      return false;
+    }
+    return c == ',' || c == ';' || c == '[' || c == ']' || c == '"' || Character.isWhitespace(c);
+  }
+
+  private static final class Values implements PrimitiveIterator.OfDouble {
+
+    private final CharSequence text;
+    private final char[] buffer = new char[MAX_FAST_LENGTH];
+    private int position;
+
+    private Values(CharSequence text) {
+      this.text = text != null ? text : "";
+      skipSeparators();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return position < text.length();
+    }
+
+    @Override
+    public double nextDouble() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int start = position;
+      while (position < text.length() && !isSeparator(text.charAt(position))) {
+        position++;
+      }
+      double value = parse(start, position);
+      skipSeparators();
+      return value;
+    }
+
+    private double parse(int start, int end) {
+      int length = end - start;
+      if (length <= buffer.length) {
+        if (text instanceof String) {
+          ((String) text).getChars(start, end, buffer, 0);
+        } else {
+          for (int i = 0; i < length; i++) {
+            buffer[i] = text.charAt(start + i);
+          }
+        }
+        double value = parseFast(buffer, 0, length);
+        if (!Double.isNaN(value)) {
+          return value;
+        }
+      }
+      try {
+        return Double.parseDouble(text.subSequence(start, end).toString());
+      } catch (NumberFormatException e) {
+        return Double.NaN;
+      }
+    }
+
+    private void skipSeparators() {
+      while (position < text.length() && isSeparator(text.charAt(position))) {
+        position++;
+      }
+    }
+  }
+}
@@ -0,0 +1,234 @@
+package de.blacktri.restapi.json;
+
+import de.blacktri.restapi.pojos.TrendSeries;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.DeserializationContext;
+import org.codehaus.jackson.map.JsonDeserializer;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Calendar;
+
+/**
+ * Reads the trend resource, an object of days each holding an object of data sets by decision id, into a
+ * {@link TrendSeries} while it is parsed.
+ * <p/>
+ * The values go straight from the parser into growing primitive columns; no {@code Calendar}, map or
+ * {@code DataSet} is created. Days are parsed from the parser's character buffer, decision ids are the field names
+ * Jackson already interns, and the name of a decision is only read the first time it appears. Unknown properties
+ * of a data set are skipped.
+ * <p/>
+ * The days of the series are ascending whatever the order of the response, which is only checked, not relied on.
+ * If a day appears twice, the later entry of the response wins.
+ * <p/>
+ * Always uses {@link ApiDateFormat#getDefault()}, like the connector's mapper.
+ */
+public class TrendSeriesDeserializer extends JsonDeserializer<TrendSeries> {
+
+  private static final long MILLIS_PER_DAY = 86_400_000L;
+
+  @Override
+  public TrendSeries deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+    if (jp.getCurrentToken() != JsonToken.START_OBJECT) {
+      throw ctxt.mappingException(TrendSeries.class, jp.getCurrentToken());
+    }
+    ApiDateFormat format = ApiDateFormat.getDefault();
+    ZoneRules rules = format.getZone().getRules();
+    Columns columns = new Columns();
+    while (jp.nextToken() == JsonToken.FIELD_NAME) {
+      long epochMilli;
+      try {
+        epochMilli = format.parse(jp.getTextCharacters(), jp.getTextOffset(), jp.getTextLength());
+      } catch (IllegalArgumentException e) {
+        throw ctxt.weirdKeyException(Calendar.class, jp.getCurrentName(), e.getMessage());
+      }
+      long localMilli = epochMilli + rules.getOffset(Instant.ofEpochMilli(epochMilli)).getTotalSeconds() * 1000L;
+      int day = columns.addDay((int) Math.floorDiv(localMilli, MILLIS_PER_DAY));
+
+      if (jp.nextToken() != JsonToken.START_OBJECT) {
+        jp.skipChildren();
+        continue;
+      }
+      while (jp.nextToken() == JsonToken.FIELD_NAME) {
+        int experiment = columns.experiment(jp.getCurrentName());
+        if (jp.nextToken() != JsonToken.START_OBJECT) {
+          jp.skipChildren();
+          continue;
+        }
+        readDataSet(jp, columns, experiment, day);
+      }
+    }
+    return columns.build();
+  }
+
+  private static void readDataSet(JsonParser jp, Columns columns, int experiment, int day) throws IOException {
+    while (jp.nextToken() == JsonToken.FIELD_NAME) {
+      String field = jp.getCurrentName();
+      JsonToken value = jp.nextToken();
+      switch (field) {
+        case "impressions":
+          columns.impressions[experiment][day] = intValue(jp, value);
+          break;
+        case "conversions":
+          columns.conversions[experiment][day] = intValue(jp, value);
+          break;
+        case "aggregatedcr":
+          columns.aggregatedcr[experiment][day] = floatValue(jp, value);
+          break;
+        case "name":
+          if (columns.names[experiment] == null && value == JsonToken.VALUE_STRING) {
+            columns.names[experiment] = jp.getText();
+          }
+          break;
+        default:
+          jp.skipChildren();
+      }
+    }
+  }
+
+  private static int intValue(JsonParser jp, JsonToken token) throws IOException {
+    if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+      return jp.getIntValue();
+    }
+    if (token == JsonToken.VALUE_STRING) {
+      try {
+        return Integer.parseInt(jp.getText().trim());
+      } catch (NumberFormatException e) {
+        return 0;
+      }
+    }
+    jp.skipChildren();
+    return 0;
+  }
+
+  private static float floatValue(JsonParser jp, JsonToken token) throws IOException {
+    if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+      double value = DecimalParser.parseFast(jp.getTextCharacters(), jp.getTextOffset(), jp.getTextLength());
+      return (float) (Double.isNaN(value) ? jp.getDoubleValue() : value);
+    }
+    if (token == JsonToken.VALUE_NUMBER_INT) {
+      return jp.getFloatValue();
+    }
+    if (token == JsonToken.VALUE_STRING) {
+      try {
+        return Float.parseFloat(jp.getText().trim());
+      } catch (NumberFormatException e) {
+        return 0;
+      }
+    }
+    jp.skipChildren();
+    return 0;
+  }
+
+  /**
+   * Growing columns of a series; experiments that appear late are filled with 0 for the days before.
+   */
+  private static final class Columns {
+
+    private int[] days = new int[8];
+    private int dayCount;
+    private String[] ids = new String[4];
+    private String[] names = new String[4];
+    private int[][] impressions = new int[4][];
+    private int[][] conversions = new int[4][];
+    private float[][] aggregatedcr = new float[4][];
+    private int experimentCount;
+
+    int addDay(int epochDay) {
+      if (dayCount == days.length) {
+        int capacity = days.length * 2;
+        days = Arrays.copyOf(days, capacity);
+        for (int i = 0; i < experimentCount; i++) {
+          impressions[i] = Arrays.copyOf(impressions[i], capacity);
+          conversions[i] = Arrays.copyOf(conversions[i], capacity);
+          aggregatedcr[i] = Arrays.copyOf(aggregatedcr[i], capacity);
+        }
+      }
+      days[dayCount] = epochDay;
+      return dayCount++;
+    }
+
+    int experiment(String id) {
+      for (int i = 0; i < experimentCount; i++) {
+        if (ids[i].equals(id)) {
+          return i;
+        }
+      }
+      if (experimentCount == ids.length) {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        impressions = Arrays.copyOf(impressions, capacity);
+        conversions = Arrays.copyOf(conversions, capacity);
+        aggregatedcr = Arrays.copyOf(aggregatedcr, capacity);
+      }
+      ids[experimentCount] = id.intern();
+      impressions[experimentCount] = new int[days.length];
+      conversions[experimentCount] = new int[days.length];
+      aggregatedcr[experimentCount] = new float[days.length];
+      return experimentCount++;
+    }
+
+    TrendSeries build() {
+      int[] order = order();
+      int[][] trimmedImpressions = new int[experimentCount][];
+      int[][] trimmedConversions = new int[experimentCount][];
+      float[][] trimmedAggregatedcr = new float[experimentCount][];
+      for (int i = 0; i < experimentCount; i++) {
+        trimmedImpressions[i] = order == null ? Arrays.copyOf(impressions[i], dayCount) : permute(impressions[i], order);
+        trimmedConversions[i] = order == null ? Arrays.copyOf(conversions[i], dayCount) : permute(conversions[i], order);
+        trimmedAggregatedcr[i] = order == null ? Arrays.copyOf(aggregatedcr[i], dayCount) : permute(aggregatedcr[i], order);
+      }
+      return new TrendSeries(order == null ? Arrays.copyOf(days, dayCount) : permute(days, order),
+              Arrays.copyOf(ids, experimentCount), Arrays.copyOf(names, experimentCount), trimmedImpressions,
+              trimmedConversions, trimmedAggregatedcr);
+    }
+
+    /**
+     * @return the indexes of the days in ascending order of the day, without earlier duplicates of a day, or
+     * {@code null} if the days are already strictly ascending
+     */
+    private int[] order() {
+      int i = 1;
+      while (i < dayCount && days[i - 1] < days[i]) {
+        i++;
+      }
+      if (i >= dayCount) {
+        return null;
+      }
+      long[] keys = new long[dayCount];
+      for (int d = 0; d < dayCount; d++) {
+        keys[d] = (long) days[d] << 32 | d;
+      }
+      Arrays.sort(keys);
+      int[] order = new int[dayCount];
+      int count = 0;
+      for (int k = 0; k < dayCount; k++) {
+        if (k + 1 < dayCount && keys[k] >> 32 == keys[k + 1] >> 32) {
+          continue;
+        }
+        order[count++] = (int) keys[k];
+      }
+      return Arrays.copyOf(order, count);
+    }
+
+    private static int[] permute(int[] values, int[] order) {
+      int[] permuted = new int[order.length];
+      for (int i = 0; i < order.length; i++) {
+        permuted[i] = values[order[i]];
+      }
+      return permuted;
+    }
+
+    private static float[] permute(float[] values, int[] order) {
+      float[] permuted = new float[order.length];
+      for (int i = 0; i < order.length; i++) {
+        permuted[i] = values[order[i]];
+      }
+      return permuted;
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package de.blacktri.restapi.pojos;
 
+import org.codehaus.jackson.annotate.JsonIgnore;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -66,6 +68,7 @@ public class Condition {
     this.arg1 = arg1;
   }
 
+  @JsonIgnore
   public Map<String, Object> getConditionForRemoteCreation() {
     Map<String, Object> result = new HashMap<>();
     result.put("negation", this.isNegation());
@@ -74,6 +77,7 @@ public class Condition {
     return result;
   }
 
+  @JsonIgnore
   public Map<String, Object> getConditionForRemoteUpdate() {
     Map<String, Object> result = new HashMap<>();
     result.put("negation", this.isNegation());
@@ -1,5 +1,11 @@
 package de.blacktri.restapi.pojos;
 
+import de.blacktri.restapi.json.DecimalParser;
+import org.codehaus.jackson.annotate.JsonIgnore;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+
 public class DataSet {
   /**
    * The name of the decision.
@@ -19,8 +25,17 @@ public class DataSet {
    */
   private float aggregatedcr;
 
+  /**
+   * A list of numbers, see {@link DecimalParser} for the accepted form.
+   */
   private String values;
 
+  /**
+   * The numbers of {@link #values}, decoded on first access.
+   */
+  @JsonIgnore
+  private volatile double[] decodedValues;
+
   public String getName() {
     return name;
   }
@@ -40,4 +55,62 @@ public class DataSet {
   public String getValues() {
     return values;
   }
+
+  /**
+   * @return the number of values, 0 if there are none
+   */
+  @JsonIgnore
+  public int getValueCount() {
+    return decodedValues().length;
+  }
+
+  /**
+   * The value at the given index; entries that are not numbers are {@link Double#NaN}. The values are decoded once,
+   * on the first access.
+   */
+  public double getValue(int index) {
+    return decodedValues()[index];
+  }
+
+  /**
+   * @return a copy of the decoded values
+   */
+  @JsonIgnore
+  public double[] getValuesAsDoubles() {
+    return decodedValues().clone();
+  }
+
+  /**
+   * @return the decoded values truncated to int, {@link Double#NaN} as 0
+   */
+  @JsonIgnore
+  public int[] getValuesAsInts() {
+    double[] decoded = decodedValues();
+    int[] ints = new int[decoded.length];
+    for (int i = 0; i < decoded.length; i++) {
+      ints[i] = (int) decoded[i];
+    }
+    return ints;
+  }
+
+  /**
+   * Decodes the values while iterating over them, without keeping them; for series too long to hold as an array.
+   */
+  public PrimitiveIterator.OfDouble valuesIterator() {
+    double[] decoded = decodedValues;
+    if (decoded != null) {
+      return Arrays.stream(decoded).iterator();
+    }
+    return DecimalParser.iterator(values);
+  }
+
+  private double[] decodedValues() {
+    double[] decoded = decodedValues;
+    if (decoded == null) {
+      // decoding twice in a race yields equal arrays, so no lock is needed
+      decoded = DecimalParser.parseList(values);
+      decodedValues = decoded;
+    }
+    return decoded;
+  }
 }
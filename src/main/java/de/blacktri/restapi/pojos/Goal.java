@@ -1,5 +1,7 @@
 package de.blacktri.restapi.pojos;
 
+import org.codehaus.jackson.annotate.JsonIgnore;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -57,6 +59,7 @@ public class Goal extends BlackTriObject {
     this.param = param;
   }
 
+  @JsonIgnore
   public Map<String, Object> getGoalForRemoteCreation() {
     Map<String, Object> result = new HashMap<>();
     addRequiredParameter(result, "type", this.getType().toString());
@@ -65,6 +68,7 @@ public class Goal extends BlackTriObject {
     return result;
   }
 
+  @JsonIgnore
   public Map<String, Object> getGoalForRemoteUpdate() {
     Map<String, Object> result = new HashMap<>();
     addRequiredParameter(result, "type", this.getType().toString());
@@ -1,5 +1,12 @@
 package de.blacktri.restapi.pojos;
 
+import de.blacktri.restapi.json.ApiDateFormat;
+import de.blacktri.restapi.json.ApiTimestampDeserializer;
+import org.codehaus.jackson.annotate.JsonIgnore;
+import org.codehaus.jackson.annotate.JsonProperty;
+import org.codehaus.jackson.annotate.JsonSetter;
+import org.codehaus.jackson.map.annotate.JsonDeserialize;
+
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Map;
@@ -33,22 +40,22 @@ public class Project extends BlackTriObject {
    */
   String runpattern;
   /**
-   * Date and time when project has been created
+   * Date and time when project has been created, in epoch milliseconds or {@link ApiDateFormat#NO_DATE}
    */
-  Calendar createddate;
+  long createddate = ApiDateFormat.NO_DATE;
   /**
    * Project does not collect after this datetime.
    */
-  Calendar startdate;
+  long startdate = ApiDateFormat.NO_DATE;
   /**
    * Project does not collect before this datetime.
    */
 
-  Calendar enddate;
+  long enddate = ApiDateFormat.NO_DATE;
   /**
    * Date when project has been restarted the last time
    */
-  Calendar restartdate;
+  long restartdate = ApiDateFormat.NO_DATE;
   /**
    * Number of days needed to make the project significant. In case this number can not be computed yet, this fields contains -1.
    */
@@ -191,39 +198,111 @@ public class Project extends BlackTriObject {
   }
 
 
+  /**
+   * @return a new calendar for the creation date or null, changing it does not change the project
+   */
+  @JsonProperty("createddate")
   public Calendar getCreateddate() {
-    return createddate;
+    return toCalendar(createddate);
   }
 
+  @JsonIgnore
   public void setCreateddate(Calendar createddate) {
+    this.createddate = toMillis(createddate);
+  }
+
+  @JsonIgnore
+  public long getCreateddateMillis() {
+    return createddate;
+  }
+
+  @JsonSetter("createddate")
+  @JsonDeserialize(using = ApiTimestampDeserializer.class)
+  public void setCreateddateMillis(long createddate) {
     this.createddate = createddate;
   }
 
+  /**
+   * @return a new calendar for the start date or null, changing it does not change the project
+   */
+  @JsonProperty("startdate")
   public Calendar getStartdate() {
-    return startdate;
+    return toCalendar(startdate);
   }
 
+  @JsonIgnore
   public void setStartdate(Calendar startdate) {
+    this.startdate = toMillis(startdate);
+  }
+
+  @JsonIgnore
+  public long getStartdateMillis() {
+    return startdate;
+  }
+
+  @JsonSetter("startdate")
+  @JsonDeserialize(using = ApiTimestampDeserializer.class)
+  public void setStartdateMillis(long startdate) {
     this.startdate = startdate;
   }
 
+  /**
+   * @return a new calendar for the end date or null, changing it does not change the project
+   */
+  @JsonProperty("enddate")
   public Calendar getEnddate() {
-    return enddate;
+    return toCalendar(enddate);
   }
 
+  @JsonIgnore
   public void setEnddate(Calendar enddate) {
+    this.enddate = toMillis(enddate);
+  }
+
+  @JsonIgnore
+  public long getEnddateMillis() {
+    return enddate;
+  }
+
+  @JsonSetter("enddate")
+  @JsonDeserialize(using = ApiTimestampDeserializer.class)
+  public void setEnddateMillis(long enddate) {
     this.enddate = enddate;
   }
 
 
+  /**
+   * @return a new calendar for the restart date or null, changing it does not change the project
+   */
+  @JsonProperty("restartdate")
   public Calendar getRestartdate() {
-    return restartdate;
+    return toCalendar(restartdate);
   }
 
+  @JsonIgnore
   public void setRestartdate(Calendar restartdate) {
+    this.restartdate = toMillis(restartdate);
+  }
+
+  @JsonIgnore
+  public long getRestartdateMillis() {
+    return restartdate;
+  }
+
+  @JsonSetter("restartdate")
+  @JsonDeserialize(using = ApiTimestampDeserializer.class)
+  public void setRestartdateMillis(long restartdate) {
     this.restartdate = restartdate;
   }
 
+  private static Calendar toCalendar(long millis) {
+    return millis == ApiDateFormat.NO_DATE ? null : ApiDateFormat.getDefault().toCalendar(millis);
+  }
+
+  private static long toMillis(Calendar calendar) {
+    return calendar == null ? ApiDateFormat.NO_DATE : calendar.getTimeInMillis();
+  }
+
 
   public int getRemainingdays() {
     return remainingdays;
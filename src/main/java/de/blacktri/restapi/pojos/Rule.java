@@ -1,5 +1,7 @@
 package de.blacktri.restapi.pojos;
 
+import org.codehaus.jackson.annotate.JsonIgnore;
+
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +39,7 @@ public class Rule {
     this.operation = operation;
   }
 
+  @JsonIgnore
   public Map<String, Object> getRuleForRemoteCreation() {
     Map<String, Object> result = new HashMap<>();
     result.put("name", this.getName());
@@ -44,6 +47,7 @@ public class Rule {
     return result;
   }
 
+  @JsonIgnore
   public Map<String, Object> getRuleForRemoteUpdate() {
     Map<String, Object> result = new HashMap<>();
     result.put("name", this.getName());
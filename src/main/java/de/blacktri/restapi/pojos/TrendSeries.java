@@ -0,0 +1,247 @@
+package de.blacktri.restapi.pojos;
+
+import de.blacktri.restapi.json.TrendSeriesDeserializer;
+import org.codehaus.jackson.map.annotate.JsonDeserialize;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Columnar form of a {@link Trend}: one array of days and, per experiment, one array per measure.
+ * <p/>
+ * Where a {@link Trend} of a year across ten decisions holds thousands of {@code Calendar}, {@code DataSet} and
+ * wrapper objects, a series holds a few primitive arrays. It is decoded straight from the JSON of the trend
+ * resource, see {@link TrendSeriesDeserializer}.
+ * <p/>
+ * Days are kept as epoch days in ascending order, which {@link #between(int, int)} and {@link #merge(TrendSeries)}
+ * rely on; the deserializer sorts them whatever the order of the response. Experiments are the decisions of
+ * the project, identified by the decision id as in {@link Trend.Experiment#getId()}, in the order they first appear.
+ * An experiment without a data set on a day has 0 impressions, conversions and conversion rate on that day.
+ * Instances are immutable.
+ */
+@JsonDeserialize(using = TrendSeriesDeserializer.class)
+public class TrendSeries {
+
+  /**
+   * A series without days, e.g. for a project without decisions.
+   */
+  public static final TrendSeries EMPTY = new TrendSeries(new int[0], new String[0], new String[0], new int[0][],
+          new int[0][], new float[0][]);
+
+  private final int[] days;
+  private final List<String> experimentIds;
+  private final String[] experimentNames;
+  private final int[][] impressions;
+  private final int[][] conversions;
+  private final float[][] aggregatedcr;
+
+  /**
+   * Takes ownership of the arrays; the measures are indexed by experiment, then by day.
+   *
+   * @param days the epoch days, strictly ascending
+   */
+  public TrendSeries(int[] days, String[] experimentIds, String[] experimentNames, int[][] impressions,
+                     int[][] conversions, float[][] aggregatedcr) {
+    this.days = days;
+    this.experimentIds = Collections.unmodifiableList(Arrays.asList(experimentIds));
+    this.experimentNames = experimentNames;
+    this.impressions = impressions;
+    this.conversions = conversions;
+    this.aggregatedcr = aggregatedcr;
+  }
+
+  /**
+   * @return the number of days
+   */
+  public int size() {
+    return days.length;
+  }
+
+  public int getEpochDay(int day) {
+    return days[day];
+  }
+
+  public LocalDate getDate(int day) {
+    return LocalDate.ofEpochDay(days[day]);
+  }
+
+  /**
+   * @return a copy of the epoch days
+   */
+  public int[] getEpochDays() {
+    return days.clone();
+  }
+
+  public int getExperimentCount() {
+    return experimentIds.size();
+  }
+
+  public List<String> getExperimentIds() {
+    return experimentIds;
+  }
+
+  public String getExperimentId(int experiment) {
+    return experimentIds.get(experiment);
+  }
+
+  /**
+   * @return the index of the experiment with the given id, -1 if it is not part of the series
+   */
+  public int indexOf(String experimentId) {
+    return experimentIds.indexOf(experimentId);
+  }
+
+  /**
+   * The name of the decision, see {@link DataSet#getName()}.
+   */
+  public String getExperimentName(int experiment) {
+    return experimentNames[experiment];
+  }
+
+  public int getImpressions(int experiment, int day) {
+    return impressions[experiment][day];
+  }
+
+  public int getConversions(int experiment, int day) {
+    return conversions[experiment][day];
+  }
+
+  public float getAggregatedcr(int experiment, int day) {
+    return aggregatedcr[experiment][day];
+  }
+
+  /**
+   * @return a copy of the impressions of the experiment, one per day
+   */
+  public int[] getImpressions(int experiment) {
+    return impressions[experiment].clone();
+  }
+
+  /**
+   * @return a copy of the conversions of the experiment, one per day
+   */
+  public int[] getConversions(int experiment) {
+    return conversions[experiment].clone();
+  }
+
+  /**
+   * @return a copy of the aggregated conversion rates of the experiment, one per day
+   */
+  public float[] getAggregatedcr(int experiment) {
+    return aggregatedcr[experiment].clone();
+  }
+
+  /**
+   * @return the days from {@code fromEpochDay} to {@code toEpochDay}, both inclusive, with all experiments
+   */
+  public TrendSeries between(int fromEpochDay, int toEpochDay) {
+    int from = lowerBound(fromEpochDay);
+    int to = lowerBound(toEpochDay + 1);
+    if (from == 0 && to == days.length) {
+      return this;
+    }
+    if (from >= to) {
+      from = to = 0;
+    }
+    int experiments = experimentIds.size();
+    int[][] slicedImpressions = new int[experiments][];
+    int[][] slicedConversions = new int[experiments][];
+    float[][] slicedAggregatedcr = new float[experiments][];
+    for (int e = 0; e < experiments; e++) {
+      slicedImpressions[e] = Arrays.copyOfRange(impressions[e], from, to);
+      slicedConversions[e] = Arrays.copyOfRange(conversions[e], from, to);
+      slicedAggregatedcr[e] = Arrays.copyOfRange(aggregatedcr[e], from, to);
+    }
+    return new TrendSeries(Arrays.copyOfRange(days, from, to), experimentIds.toArray(new String[experiments]),
+            experimentNames.clone(), slicedImpressions, slicedConversions, slicedAggregatedcr);
+  }
+
+  /**
+   * Combines this series with a newer one. Days of the newer series replace the same days of this series, the
+   * other days of both are kept in ascending order. Experiments only known to the newer series are added with 0 on
+   * the days of this series; the names of the newer series take precedence.
+   */
+  public TrendSeries merge(TrendSeries newer) {
+    if (newer.days.length == 0) {
+      return this;
+    }
+    if (days.length == 0) {
+      return newer;
+    }
+    String[] ids = experimentIds.toArray(new String[experimentIds.size() + newer.experimentIds.size()]);
+    String[] names = Arrays.copyOf(experimentNames, ids.length);
+    int[] fromNewer = new int[newer.experimentIds.size()];
+    int experiments = experimentIds.size();
+    for (int e = 0; e < fromNewer.length; e++) {
+      int index = experimentIds.indexOf(newer.experimentIds.get(e));
+      if (index < 0) {
+        index = experiments++;
+        ids[index] = newer.experimentIds.get(e);
+      }
+      fromNewer[e] = index;
+      if (newer.experimentNames[e] != null) {
+        names[index] = newer.experimentNames[e];
+      }
+    }
+
+    int[] mergedDays = new int[days.length + newer.days.length];
+    int[][] mergedImpressions = new int[experiments][mergedDays.length];
+    int[][] mergedConversions = new int[experiments][mergedDays.length];
+    float[][] mergedAggregatedcr = new float[experiments][mergedDays.length];
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < days.length || j < newer.days.length) {
+      if (j == newer.days.length || i < days.length && days[i] < newer.days[j]) {
+        for (int e = 0; e < experimentIds.size(); e++) {
+          mergedImpressions[e][count] = impressions[e][i];
+          mergedConversions[e][count] = conversions[e][i];
+          mergedAggregatedcr[e][count] = aggregatedcr[e][i];
+        }
+        mergedDays[count++] = days[i++];
+      } else {
+        if (i < days.length && days[i] == newer.days[j]) {
+          i++;
+        }
+        for (int e = 0; e < fromNewer.length; e++) {
+          mergedImpressions[fromNewer[e]][count] = newer.impressions[e][j];
+          mergedConversions[fromNewer[e]][count] = newer.conversions[e][j];
+          mergedAggregatedcr[fromNewer[e]][count] = newer.aggregatedcr[e][j];
+        }
+        mergedDays[count++] = newer.days[j++];
+      }
+    }
+    for (int e = 0; e < experiments; e++) {
+      mergedImpressions[e] = Arrays.copyOf(mergedImpressions[e], count);
+      mergedConversions[e] = Arrays.copyOf(mergedConversions[e], count);
+      mergedAggregatedcr[e] = Arrays.copyOf(mergedAggregatedcr[e], count);
+    }
+    return new TrendSeries(Arrays.copyOf(mergedDays, count), Arrays.copyOf(ids, experiments),
+            Arrays.copyOf(names, experiments), mergedImpressions, mergedConversions, mergedAggregatedcr);
+  }
+
+  private int lowerBound(int epochDay) {
+    int low = 0;
+    int high = days.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (days[mid] < epochDay) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  @Override
+  public String toString() {
+    return "TrendSeries{" +
+            "days=" + days.length +
+            (days.length > 0 ? ", from=" + getDate(0) + ", to=" + getDate(days.length - 1) : "") +
+            ", experiments=" + experimentIds +
+            '}';
+  }
+}
@@ -0,0 +1,421 @@
+package de.blacktri.restapi.trend;
+
+import de.blacktri.restapi.pojos.TrendSeries;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * The archive of one project and goal: a file of fixed-width records and a file of the decisions they refer to.
+ * <p/>
+ * The record file starts with two header slots followed by one record per day and decision, in the order of the
+ * days: epoch day, index of the decision, impressions, conversions and aggregated conversion rate, 20 bytes in big
+ * endian order. The decision file starts with the generation of the archive and lists the id and name of each
+ * decision in the order of their indexes.
+ * <p/>
+ * Appending writes the new decisions and records after the committed ones, forces them to disk and then commits
+ * them by writing a header with the new counts and a higher sequence number into the slot not holding the current
+ * header. A header carries a checksum, so after a crash the slot with the highest valid sequence number is the last
+ * complete commit; anything after the committed counts is ignored and overwritten by the next append. Replacing the
+ * archive writes both files under a new generation next to the old ones and moves them into place; a decision file
+ * of another generation than the header, left by a crash between the two moves, means the archive is lost.
+ * <p/>
+ * The committed records are read through a read-only mapping of the file, which is extended when records are
+ * appended. The file is only open while it is written.
+ */
+final class ArchiveFile {
+
+  static final int RECORD = 20;
+
+  private static final int MAGIC = 0x42545441;
+  private static final int VERSION = 1;
+  private static final int SLOT = 48;
+  private static final int HEADER = 2 * SLOT;
+  private static final int HEADER_LENGTH = 44;
+  private static final ByteBuffer NO_RECORDS = ByteBuffer.allocate(0);
+
+  private final Path records;
+  private final Path decisions;
+
+  private long generation;
+  private long sequence;
+  private int from = 1;
+  private int through;
+  private int recordCount;
+  private int decisionCount;
+  private long decisionsLength;
+  private List<String> ids = Collections.emptyList();
+  private List<String> names = Collections.emptyList();
+  private ByteBuffer mapped = NO_RECORDS;
+
+  private ArchiveFile(Path records, Path decisions) {
+    this.records = records;
+    this.decisions = decisions;
+  }
+
+  /**
+   * Reads the committed state of the archive; missing files are an empty archive.
+   */
+  static ArchiveFile open(Path records, Path decisions) throws IOException {
+    ArchiveFile file = new ArchiveFile(records, decisions);
+    if (Files.exists(records)) {
+      file.readHeader();
+    }
+    if (file.sequence > 0 && !file.readDecisions()) {
+      file.clear();
+    }
+    return file;
+  }
+
+  synchronized boolean isEmpty() {
+    return from > through;
+  }
+
+  synchronized int getFrom() {
+    return from;
+  }
+
+  synchronized int getThrough() {
+    return through;
+  }
+
+  synchronized int getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * @return the records of the days from {@code fromDay} to {@code toDay} the archive covers, without copying them
+   */
+  synchronized TrendRecords read(int fromDay, int toDay) throws IOException {
+    int first = Math.max(fromDay, from);
+    int last = Math.min(toDay, through);
+    if (first > last) {
+      return new TrendRecords(first, last, NO_RECORDS, ids, names);
+    }
+    if (mapped.capacity() < recordCount * RECORD) {
+      try (FileChannel channel = FileChannel.open(records, StandardOpenOption.READ)) {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, HEADER, (long) recordCount * RECORD);
+      }
+    }
+    int start = lowerBound(first);
+    int end = lowerBound(last + 1);
+    ByteBuffer slice = mapped.duplicate();
+    slice.limit(end * RECORD).position(start * RECORD);
+    return new TrendRecords(first, last, slice.slice(), ids, names);
+  }
+
+  /**
+   * Adds the days of the series after the last archived day; the series covers the days from {@code seriesFrom}
+   * to {@code seriesThrough}, days without records included.
+   *
+   * @throws IllegalArgumentException if days between the archived ones and the series would be missing
+   */
+  synchronized void append(TrendSeries series, int seriesFrom, int seriesThrough) throws IOException {
+    if (isEmpty()) {
+      replace(series, seriesFrom, seriesThrough);
+      return;
+    }
+    if (seriesFrom > through + 1) {
+      throw new IllegalArgumentException("Days " + (through + 1) + " to " + (seriesFrom - 1) + " are missing");
+    }
+    if (seriesThrough <= through) {
+      return;
+    }
+    List<String> newIds = new ArrayList<>(ids);
+    List<String> newNames = new ArrayList<>(names);
+    int[] indexes = indexes(series, newIds, newNames);
+    ByteBuffer buffer = encode(series, through + 1, seriesThrough, indexes);
+    int count = recordCount + buffer.remaining() / RECORD;
+    if ((long) count * RECORD > Integer.MAX_VALUE) {
+      throw new IOException("Archive " + records + " is full");
+    }
+
+    long length = decisionsLength;
+    if (newIds.size() > ids.size()) {
+      byte[] added = encodeDecisions(newIds, newNames, ids.size(), false);
+      try (FileChannel channel = FileChannel.open(decisions, StandardOpenOption.WRITE)) {
+        channel.truncate(decisionsLength);
+        writeFully(channel, ByteBuffer.wrap(added), decisionsLength);
+        channel.force(false);
+      }
+      length += added.length;
+    }
+    try (FileChannel channel = FileChannel.open(records, StandardOpenOption.WRITE)) {
+      writeFully(channel, buffer, HEADER + (long) recordCount * RECORD);
+      channel.force(false);
+      writeHeader(channel, generation, sequence + 1, from, seriesThrough, newIds.size(), count);
+      channel.force(false);
+    }
+    sequence++;
+    through = seriesThrough;
+    recordCount = count;
+    decisionsLength = length;
+    decisionCount = newIds.size();
+    ids = Collections.unmodifiableList(newIds);
+    names = Collections.unmodifiableList(newNames);
+  }
+
+  /**
+   * Replaces the archive by the series, which covers the days from {@code seriesFrom} to {@code seriesThrough}.
+   */
+  synchronized void replace(TrendSeries series, int seriesFrom, int seriesThrough) throws IOException {
+    List<String> newIds = new ArrayList<>();
+    List<String> newNames = new ArrayList<>();
+    int[] indexes = indexes(series, newIds, newNames);
+    ByteBuffer buffer = encode(series, seriesFrom, seriesThrough, indexes);
+    long newGeneration = ThreadLocalRandom.current().nextLong();
+    byte[] decisionBytes = encodeDecisions(newIds, newNames, 0, true);
+    ByteBuffer.wrap(decisionBytes).putLong(newGeneration);
+
+    Files.createDirectories(records.toAbsolutePath().getParent());
+    Path tempDecisions = createTempFile(decisions);
+    Path tempRecords = createTempFile(records);
+    try {
+      try (FileChannel channel = FileChannel.open(tempDecisions, StandardOpenOption.WRITE)) {
+        writeFully(channel, ByteBuffer.wrap(decisionBytes), 0);
+        channel.force(false);
+      }
+      try (FileChannel channel = FileChannel.open(tempRecords, StandardOpenOption.WRITE)) {
+        writeFully(channel, buffer, HEADER);
+        writeHeader(channel, newGeneration, 1, seriesFrom, seriesThrough, newIds.size(), buffer.limit() / RECORD);
+        channel.force(false);
+      }
+      move(tempDecisions, decisions);
+      move(tempRecords, records);
+    } finally {
+      Files.deleteIfExists(tempDecisions);
+      Files.deleteIfExists(tempRecords);
+    }
+    generation = newGeneration;
+    sequence = 1;
+    from = seriesFrom;
+    through = seriesThrough;
+    recordCount = buffer.limit() / RECORD;
+    decisionsLength = decisionBytes.length;
+    decisionCount = newIds.size();
+    ids = Collections.unmodifiableList(newIds);
+    names = Collections.unmodifiableList(newNames);
+    mapped = NO_RECORDS;
+  }
+
+  /**
+   * Deletes the files, and temporary files left by an interrupted replace; the instance is empty afterwards and
+   * can be appended to again.
+   */
+  synchronized void delete() throws IOException {
+    Files.deleteIfExists(records);
+    Files.deleteIfExists(decisions);
+    deleteTempFiles(records);
+    deleteTempFiles(decisions);
+    clear();
+  }
+
+  private void clear() {
+    sequence = 0;
+    from = 1;
+    through = 0;
+    recordCount = 0;
+    decisionsLength = 0;
+    decisionCount = 0;
+    ids = Collections.emptyList();
+    names = Collections.emptyList();
+    mapped = NO_RECORDS;
+  }
+
+  /**
+   * @return the index of the first committed record of a day not before the given one
+   */
+  private int lowerBound(int epochDay) {
+    int low = 0;
+    int high = recordCount;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (mapped.getInt(mid * RECORD) < epochDay) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Maps the experiments of the series to decision indexes, adding the decisions not known yet.
+   */
+  private static int[] indexes(TrendSeries series, List<String> ids, List<String> names) {
+    int[] indexes = new int[series.getExperimentCount()];
+    for (int e = 0; e < indexes.length; e++) {
+      int index = ids.indexOf(series.getExperimentId(e));
+      if (index < 0) {
+        index = ids.size();
+        ids.add(series.getExperimentId(e));
+        names.add(series.getExperimentName(e));
+      }
+      indexes[e] = index;
+    }
+    return indexes;
+  }
+
+  private static ByteBuffer encode(TrendSeries series, int fromDay, int toDay, int[] indexes) {
+    TrendSeries days = series.between(fromDay, toDay);
+    ByteBuffer buffer = ByteBuffer.allocate(days.size() * indexes.length * RECORD);
+    for (int day = 0; day < days.size(); day++) {
+      for (int e = 0; e < indexes.length; e++) {
+        buffer.putInt(days.getEpochDay(day))
+                .putInt(indexes[e])
+                .putInt(days.getImpressions(e, day))
+                .putInt(days.getConversions(e, day))
+                .putFloat(days.getAggregatedcr(e, day));
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * @param withGeneration whether to start with room for the generation, for a new file
+   */
+  private static byte[] encodeDecisions(List<String> ids, List<String> names, int from, boolean withGeneration)
+          throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    if (withGeneration) {
+      out.writeLong(0);
+    }
+    for (int i = from; i < ids.size(); i++) {
+      out.writeUTF(ids.get(i));
+      out.writeUTF(names.get(i) != null ? names.get(i) : "");
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static void writeHeader(FileChannel channel, long generation, long newSequence, int newFrom, int newThrough,
+                                  int decisionCount, int count) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(SLOT);
+    header.putInt(MAGIC).putInt(VERSION).putLong(generation).putLong(newSequence).putInt(newFrom).putInt(newThrough)
+            .putInt(decisionCount).putInt(count);
+    CRC32 crc = new CRC32();
+    crc.update(header.array(), 0, HEADER_LENGTH - 4);
+    header.putInt((int) crc.getValue());
+    header.clear();
+    writeFully(channel, header, (newSequence % 2) * SLOT);
+  }
+
+  private void readHeader() throws IOException {
+    ByteBuffer slots = ByteBuffer.allocate(HEADER);
+    long size;
+    try (FileChannel channel = FileChannel.open(records, StandardOpenOption.READ)) {
+      size = channel.size();
+      while (slots.hasRemaining() && channel.read(slots, slots.position()) > 0) {
+      }
+    }
+    for (int slot = 0; slot < 2; slot++) {
+      ByteBuffer header = ByteBuffer.wrap(slots.array(), slot * SLOT, SLOT).slice();
+      CRC32 crc = new CRC32();
+      crc.update(slots.array(), slot * SLOT, HEADER_LENGTH - 4);
+      if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+              || header.getInt(HEADER_LENGTH - 4) != (int) crc.getValue()) {
+        continue;
+      }
+      long slotSequence = header.getLong(16);
+      int count = header.getInt(36);
+      if (slotSequence > sequence && HEADER + (long) count * RECORD <= size) {
+        generation = header.getLong(8);
+        sequence = slotSequence;
+        from = header.getInt(24);
+        through = header.getInt(28);
+        decisionCount = header.getInt(32);
+        recordCount = count;
+      }
+    }
+  }
+
+  /**
+   * @return whether the decision file belongs to the header and holds the committed decisions
+   */
+  private boolean readDecisions() throws IOException {
+    if (!Files.exists(decisions)) {
+      return false;
+    }
+    List<String> readIds = new ArrayList<>(decisionCount);
+    List<String> readNames = new ArrayList<>(decisionCount);
+    try (InputStream in = Files.newInputStream(decisions)) {
+      DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+      if (data.readLong() != generation) {
+        return false;
+      }
+      long length = 8;
+      for (int i = 0; i < decisionCount; i++) {
+        String id = data.readUTF();
+        String name = data.readUTF();
+        readIds.add(id.intern());
+        readNames.add(name.isEmpty() ? null : name);
+        length += 4 + utfLength(id) + utfLength(name);
+      }
+      decisionsLength = length;
+    } catch (EOFException e) {
+      return false;
+    }
+    ids = Collections.unmodifiableList(readIds);
+    names = Collections.unmodifiableList(readNames);
+    return true;
+  }
+
+  private static int utfLength(String text) {
+    int length = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      length += c >= 0x0001 && c <= 0x007f ? 1 : c <= 0x07ff ? 2 : 3;
+    }
+    return length;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  private static Path createTempFile(Path file) throws IOException {
+    return Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+  }
+
+  private static void deleteTempFiles(Path file) throws IOException {
+    Path directory = file.toAbsolutePath().getParent();
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    try (DirectoryStream<Path> temporary = Files.newDirectoryStream(directory, file.getFileName() + "*.tmp")) {
+      for (Path path : temporary) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  private static void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
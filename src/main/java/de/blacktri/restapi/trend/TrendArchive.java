@@ -0,0 +1,138 @@
+package de.blacktri.restapi.trend;
+
+import de.blacktri.restapi.pojos.TrendSeries;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Persistent archive of trends, one per project and goal, in a directory.
+ * <p/>
+ * The trend of a project and goal is stored as fixed-width records, one per day and decision, in the file
+ * {@code <clientId>-<projectId>-<goalId>.trend}, and the ids and names of its decisions in
+ * {@code <clientId>-<projectId>-<goalId>.decisions}; a goal of 0 stands for the default goal. An archive covers a
+ * contiguous range of days and only grows at its end. New days are committed in one step, so an archive is
+ * consistent after a crash and holds the days of the last completed append; see {@link ArchiveFile} for the layout.
+ * <p/>
+ * Ranges of days are found by a binary search and read in place from a memory mapping of the file, see
+ * {@link TrendRecords}, so the archive can hold years of history for thousands of projects without loading it onto
+ * the heap. Files are not kept open.
+ * <p/>
+ * Instances are thread safe. A directory must only be used by one instance at a time.
+ */
+public class TrendArchive {
+
+  private static final String RECORDS = ".trend";
+  private static final String DECISIONS = ".decisions";
+
+  private final Path directory;
+  private final ConcurrentMap<TrendKey, ArchiveFile> files = new ConcurrentHashMap<>();
+
+  public TrendArchive(Path directory) {
+    this.directory = directory;
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * @return all archived records of the project and goal; empty, with the last day before the first one, if there
+   * are none
+   */
+  public TrendRecords read(int clientId, int projectId, int goalId) throws IOException {
+    return read(clientId, projectId, goalId, Integer.MIN_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @return the archived records of the project and goal from {@code fromDay} to {@code toDay}, both inclusive
+   */
+  public TrendRecords read(int clientId, int projectId, int goalId, int fromDay, int toDay) throws IOException {
+    return file(new TrendKey(clientId, projectId, goalId)).read(fromDay, toDay);
+  }
+
+  /**
+   * Adds the days of the series after the last archived day of the project and goal. The series covers the epoch
+   * days from {@code fromDay} to {@code toDay}; days without data are part of the archive afterwards as well.
+   *
+   * @throws IllegalArgumentException if {@code fromDay} is after the day following the last archived one
+   */
+  public void append(int clientId, int projectId, int goalId, TrendSeries series, int fromDay, int toDay)
+          throws IOException {
+    file(new TrendKey(clientId, projectId, goalId)).append(series, fromDay, toDay);
+  }
+
+  /**
+   * Replaces the archive of the project and goal by the series, which covers the days from {@code fromDay} to
+   * {@code toDay}.
+   */
+  public void replace(int clientId, int projectId, int goalId, TrendSeries series, int fromDay, int toDay)
+          throws IOException {
+    file(new TrendKey(clientId, projectId, goalId)).replace(series, fromDay, toDay);
+  }
+
+  /**
+   * Deletes the archives of the project, for all goals. Archives that are appended to concurrently are either
+   * deleted afterwards or hold only the days written after the deletion.
+   */
+  public void delete(int clientId, int projectId) throws IOException {
+    Set<Integer> goalIds = new TreeSet<>();
+    for (TrendKey key : files.keySet()) {
+      if (key.clientId == clientId && key.projectId == projectId) {
+        goalIds.add(key.goalId);
+      }
+    }
+    String prefix = clientId + "-" + projectId + "-";
+    if (Files.isDirectory(directory)) {
+      try (DirectoryStream<Path> archived = Files.newDirectoryStream(directory, prefix + "*")) {
+        for (Path file : archived) {
+          Integer goalId = goalOf(file.getFileName().toString(), prefix);
+          if (goalId != null) {
+            goalIds.add(goalId);
+          }
+        }
+      }
+    }
+    for (int goalId : goalIds) {
+      // through the one instance of the files, which stays mapped, so that no second instance writes them
+      file(new TrendKey(clientId, projectId, goalId)).delete();
+    }
+  }
+
+  /**
+   * @return the goal of an archive file of the project, {@code null} for other files
+   */
+  private static Integer goalOf(String fileName, String prefix) {
+    String goal;
+    if (fileName.endsWith(RECORDS)) {
+      goal = fileName.substring(prefix.length(), fileName.length() - RECORDS.length());
+    } else if (fileName.endsWith(DECISIONS)) {
+      goal = fileName.substring(prefix.length(), fileName.length() - DECISIONS.length());
+    } else {
+      return null;
+    }
+    try {
+      return Integer.valueOf(goal);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private ArchiveFile file(TrendKey key) throws IOException {
+    ArchiveFile file = files.get(key);
+    if (file == null) {
+      ArchiveFile opened = ArchiveFile.open(directory.resolve(key + RECORDS), directory.resolve(key + DECISIONS));
+      file = files.putIfAbsent(key, opened);
+      if (file == null) {
+        file = opened;
+      }
+    }
+    return file;
+  }
+}
@@ -0,0 +1,36 @@
+package de.blacktri.restapi.trend;
+
+/**
+ * Identifies the trend of a project for a goal; a goal of 0 stands for the default goal.
+ */
+final class TrendKey {
+
+  final int clientId;
+  final int projectId;
+  final int goalId;
+
+  TrendKey(int clientId, int projectId, int goalId) {
+    this.clientId = clientId;
+    this.projectId = projectId;
+    this.goalId = Math.max(goalId, 0);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof TrendKey)) {
+      return false;
+    }
+    TrendKey key = (TrendKey) o;
+    return clientId == key.clientId && projectId == key.projectId && goalId == key.goalId;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * (31 * clientId + projectId) + goalId;
+  }
+
+  @Override
+  public String toString() {
+    return clientId + "-" + projectId + "-" + goalId;
+  }
+}
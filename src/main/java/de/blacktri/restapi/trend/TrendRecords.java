@@ -0,0 +1,129 @@
+package de.blacktri.restapi.trend;
+
+import de.blacktri.restapi.pojos.TrendSeries;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The archived records of a range of days, read in place from the memory-mapped archive.
+ * <p/>
+ * There is one record per day and decision, in ascending order of the days. The accessors read the mapped file
+ * directly, so a range of years costs no heap beyond this object; {@link #toSeries()} copies the records into a
+ * {@link TrendSeries}. The records stay readable after the archive has been appended to or replaced.
+ */
+public final class TrendRecords {
+
+  private final int firstDay;
+  private final int lastDay;
+  private final ByteBuffer records;
+  private final List<String> ids;
+  private final List<String> names;
+
+  TrendRecords(int firstDay, int lastDay, ByteBuffer records, List<String> ids, List<String> names) {
+    this.firstDay = firstDay;
+    this.lastDay = lastDay;
+    this.records = records;
+    this.ids = ids;
+    this.names = names;
+  }
+
+  /**
+   * The first epoch day of the range that is covered by the archive.
+   */
+  public int getFirstDay() {
+    return firstDay;
+  }
+
+  /**
+   * The last epoch day of the range that is covered by the archive, before the first day if none is.
+   */
+  public int getLastDay() {
+    return lastDay;
+  }
+
+  /**
+   * @return the number of records
+   */
+  public int size() {
+    return records.limit() / ArchiveFile.RECORD;
+  }
+
+  public int getEpochDay(int record) {
+    return records.getInt(record * ArchiveFile.RECORD);
+  }
+
+  public String getExperimentId(int record) {
+    return ids.get(records.getInt(record * ArchiveFile.RECORD + 4));
+  }
+
+  public String getExperimentName(int record) {
+    return names.get(records.getInt(record * ArchiveFile.RECORD + 4));
+  }
+
+  public int getImpressions(int record) {
+    return records.getInt(record * ArchiveFile.RECORD + 8);
+  }
+
+  public int getConversions(int record) {
+    return records.getInt(record * ArchiveFile.RECORD + 12);
+  }
+
+  public float getAggregatedcr(int record) {
+    return records.getFloat(record * ArchiveFile.RECORD + 16);
+  }
+
+  /**
+   * @return the records as a series of the days that have records, with the decisions that appear in them
+   */
+  public TrendSeries toSeries() {
+    int size = size();
+    int dayCount = 0;
+    int[] columns = new int[ids.size()];
+    Arrays.fill(columns, -1);
+    int experimentCount = 0;
+    for (int record = 0; record < size; record++) {
+      if (record == 0 || getEpochDay(record) != getEpochDay(record - 1)) {
+        dayCount++;
+      }
+      int decision = records.getInt(record * ArchiveFile.RECORD + 4);
+      if (columns[decision] < 0) {
+        columns[decision] = experimentCount++;
+      }
+    }
+
+    int[] days = new int[dayCount];
+    String[] experimentIds = new String[experimentCount];
+    String[] experimentNames = new String[experimentCount];
+    for (int decision = 0; decision < columns.length; decision++) {
+      if (columns[decision] >= 0) {
+        experimentIds[columns[decision]] = ids.get(decision);
+        experimentNames[columns[decision]] = names.get(decision);
+      }
+    }
+    int[][] impressions = new int[experimentCount][dayCount];
+    int[][] conversions = new int[experimentCount][dayCount];
+    float[][] aggregatedcr = new float[experimentCount][dayCount];
+    int day = -1;
+    for (int record = 0; record < size; record++) {
+      if (record == 0 || getEpochDay(record) != getEpochDay(record - 1)) {
+        days[++day] = getEpochDay(record);
+      }
+      int column = columns[records.getInt(record * ArchiveFile.RECORD + 4)];
+      impressions[column][day] = getImpressions(record);
+      conversions[column][day] = getConversions(record);
+      aggregatedcr[column][day] = getAggregatedcr(record);
+    }
+    return new TrendSeries(days, experimentIds, experimentNames, impressions, conversions, aggregatedcr);
+  }
+
+  @Override
+  public String toString() {
+    return "TrendRecords{" +
+            "from=" + firstDay +
+            ", through=" + lastDay +
+            ", records=" + size() +
+            '}';
+  }
+}
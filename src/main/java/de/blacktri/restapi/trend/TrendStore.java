@@ -0,0 +1,262 @@
+package de.blacktri.restapi.trend;
+
+import de.blacktri.restapi.ABTest;
+import de.blacktri.restapi.httpclient.CallOptions;
+import de.blacktri.restapi.json.ApiDateFormat;
+import de.blacktri.restapi.pojos.TrendSeries;
+import org.codehaus.jackson.type.TypeReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static de.blacktri.restapi.ABTest.ACCOUNT;
+import static de.blacktri.restapi.ABTest.PROJECT;
+
+/**
+ * Keeps the trends of projects up to date while only downloading the days that changed.
+ * <p/>
+ * The statistics of a day no longer change once the day is over, so the store keeps the completed days of every
+ * project and goal it was asked for. A refresh requests the days after the last completed one up to today, using
+ * the {@code end} and {@code entries} parameters of the trend resource, and merges them; polling a dashboard thus
+ * downloads one day instead of the whole period. Days before the cached ones are requested together with the rest of
+ * the period the first time a longer period is asked for.
+ * <p/>
+ * Days are those of {@link ApiDateFormat#getDefault()}, the zone the trend is decoded in. The completed days are
+ * kept on the heap or, given a {@link TrendArchive}, in the archive, which then also serves them after a restart.
+ * Days missed while the store was not asked are requested with the next refresh, so the cached days stay
+ * contiguous. The cached days are kept until {@link #invalidate(int, int) invalidated}; do so after restarting a
+ * project or deleting decisions, whose statistics would otherwise stay in the completed days. A failing archive is
+ * logged and the days are requested again.
+ * <p/>
+ * Instances are thread safe. Refreshes of the same project and goal are serialized, others run in parallel. An
+ * invalidation waits for the refreshes of its project that are in progress, so none of them writes the forgotten
+ * days back.
+ */
+public class TrendStore {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TrendStore.class);
+
+  private static final TypeReference<TrendSeries> TREND_SERIES = new TypeReference<TrendSeries>() {
+  };
+
+  private final ABTest api;
+  private final Clock clock;
+  private final TrendArchive archive;
+  private final ConcurrentMap<TrendKey, Entry> entries = new ConcurrentHashMap<>();
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder requestedDays = new LongAdder();
+
+  /**
+   * Refreshes hold the read lock of their project's stripe, invalidations the write lock.
+   */
+  private final ReadWriteLock[] stripes = new ReadWriteLock[64];
+
+  public TrendStore(ABTest api) {
+    this(api, Clock.systemDefaultZone());
+  }
+
+  /**
+   * @param clock tells the current day
+   */
+  public TrendStore(ABTest api, Clock clock) {
+    this(api, clock, null);
+  }
+
+  /**
+   * @param clock   tells the current day
+   * @param archive keeps the completed days instead of the heap, and across restarts; may be {@code null}
+   */
+  public TrendStore(ABTest api, Clock clock, TrendArchive archive) {
+    this.api = api;
+    this.clock = clock;
+    this.archive = archive;
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new ReentrantReadWriteLock();
+    }
+  }
+
+  /**
+   * Returns the statistics of the last {@code days} days of the project, today included, like
+   * {@link ABTest#getTrendSeries(int, int, java.util.Calendar, int, int)} with today as the end. Only the days
+   * that are not cached yet and today are requested.
+   *
+   * @param goalId the goal for which conversions are calculated, 0 or less for the default
+   * @return the series, {@code null} if the request failed; the cached days are unchanged in that case
+   */
+  public TrendSeries getTrend(int clientId, int projectId, int goalId, int days) {
+    if (days < 1) {
+      throw new IllegalArgumentException("days must be positive: " + days);
+    }
+    long now = clock.millis();
+    int today = (int) LocalDate.now(clock.withZone(ApiDateFormat.getDefault().getZone())).toEpochDay();
+    int first = today - days + 1;
+    TrendKey key = new TrendKey(clientId, projectId, goalId);
+    Lock lock = stripe(clientId, projectId).readLock();
+    lock.lock();
+    try {
+      Entry entry = entries.computeIfAbsent(key, this::load);
+      synchronized (entry) {
+        boolean extend = entry.cached && entry.from <= first && entry.through < today;
+        TrendSeries cached = extend ? completedDays(key, entry, first) : null;
+        extend = cached != null;
+        int fetchFrom = extend ? entry.through + 1 : first;
+        TrendSeries fetched = fetch(clientId, projectId, goalId, now, today - fetchFrom + 1);
+        if (fetched == null) {
+          return null;
+        }
+        store(key, entry, fetched.between(fetchFrom, today - 1), extend ? entry.from : first, fetchFrom, today - 1);
+        return extend ? cached.merge(fetched).between(first, today) : fetched;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Forgets the cached days of the project, for all goals.
+   */
+  public void invalidate(int clientId, int projectId) {
+    Lock lock = stripe(clientId, projectId).writeLock();
+    lock.lock();
+    try {
+      entries.keySet().removeIf(key -> key.clientId == clientId && key.projectId == projectId);
+      if (archive != null) {
+        try {
+          archive.delete(clientId, projectId);
+        } catch (IOException e) {
+          LOG.warn("Could not delete the archived trends of project {}: {}", projectId, e.toString());
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Forgets the cached days of all projects; archived days are kept.
+   */
+  public void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Number of trend requests made.
+   */
+  public long getRequestCount() {
+    return requests.sum();
+  }
+
+  /**
+   * Number of days requested in total, the {@code entries} of all requests.
+   */
+  public long getRequestedDays() {
+    return requestedDays.sum();
+  }
+
+  private ReadWriteLock stripe(int clientId, int projectId) {
+    int hash = 31 * clientId + projectId;
+    return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+  }
+
+  private TrendSeries fetch(int clientId, int projectId, int goalId, long end, int days) {
+    Map<String, Object> queryParameters = new HashMap<>();
+    queryParameters.put("end", ApiDateFormat.getDefault().format(end));
+    queryParameters.put("entries", days);
+    if (goalId > 0) {
+      queryParameters.put("goalid", goalId);
+    }
+    requests.increment();
+    requestedDays.add(days);
+    CallOptions options = new CallOptions();
+    TrendSeries result = api.getClientContext().callService(HttpMethod.GET, ACCOUNT + clientId + PROJECT + projectId + "/trend/",
+            TREND_SERIES, queryParameters, Collections.<String, String>emptyMap(), null, options);
+    if (result == null) {
+      // the outcome of a coalesced call is only recorded on the options of the call it joined
+      boolean failed = options.getLastFailure() != null || options.isCoalesced();
+      return failed ? null : TrendSeries.EMPTY;
+    }
+    return result;
+  }
+
+  private Entry load(TrendKey key) {
+    Entry entry = new Entry();
+    if (archive != null) {
+      try {
+        TrendRecords archived = archive.read(key.clientId, key.projectId, key.goalId);
+        if (archived.getFirstDay() <= archived.getLastDay()) {
+          entry.cached = true;
+          entry.from = archived.getFirstDay();
+          entry.through = archived.getLastDay();
+        }
+      } catch (IOException e) {
+        LOG.warn("Could not read the archived trend {}: {}", key, e.toString());
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * @return the cached days from {@code first} on, {@code null} if the archive cannot be read
+   */
+  private TrendSeries completedDays(TrendKey key, Entry entry, int first) {
+    if (archive == null) {
+      return entry.completed.between(first, entry.through);
+    }
+    try {
+      return archive.read(key.clientId, key.projectId, key.goalId, first, entry.through).toSeries();
+    } catch (IOException e) {
+      LOG.warn("Could not read the archived trend {}: {}", key, e.toString());
+      return null;
+    }
+  }
+
+  /**
+   * Adds the completed days from {@code fetchFrom} to {@code through} to the cached ones, or replaces them if
+   * {@code from} is {@code fetchFrom}.
+   */
+  private void store(TrendKey key, Entry entry, TrendSeries completed, int from, int fetchFrom, int through) {
+    boolean extend = from < fetchFrom;
+    if (archive != null) {
+      try {
+        if (extend) {
+          archive.append(key.clientId, key.projectId, key.goalId, completed, fetchFrom, through);
+        } else {
+          archive.replace(key.clientId, key.projectId, key.goalId, completed, from, through);
+        }
+      } catch (IOException e) {
+        LOG.warn("Could not archive the trend {}: {}", key, e.toString());
+        return;
+      }
+    } else {
+      entry.completed = extend ? entry.completed.merge(completed) : completed;
+    }
+    entry.cached = true;
+    entry.from = from;
+    entry.through = through;
+  }
+
+  /**
+   * The completed days of a project and goal, covering the days from {@code from} to {@code through}; without an
+   * archive they are kept in {@code completed}.
+   */
+  private static final class Entry {
+
+    private boolean cached;
+    private TrendSeries completed;
+    private int from;
+    private int through;
+  }
+}
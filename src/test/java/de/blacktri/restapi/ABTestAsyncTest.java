@@ -0,0 +1,118 @@
+package de.blacktri.restapi;
+
+import de.blacktri.restapi.httpclient.ABTestingRestConnector;
+import de.blacktri.restapi.httpclient.RemoteServiceException;
+import de.blacktri.restapi.pojos.Account;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.Project;
+import de.blacktri.restapi.simulator.ApiSimulator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs against an {@link ApiSimulator}, without retries and circuit breakers.
+ */
+public class ABTestAsyncTest {
+
+  private ApiSimulator simulator;
+  private ABTestingRestConnector connector;
+  private ABTestAsync api;
+  private int clientId;
+
+  @Before
+  public void setUp() throws Exception {
+    simulator = new ApiSimulator();
+    simulator.getStore().addClient("key", "secret");
+    connector = new ABTestingRestConnector();
+    connector.setServiceEndpoint(simulator.getServiceEndpoint());
+    connector.setRetryPolicy(null);
+    connector.setCircuitBreakerRegistry(null);
+    api = new ABTestAsync("key", "secret", connector);
+    clientId = get(api.loginClient());
+  }
+
+  @After
+  public void tearDown() {
+    connector.close();
+    simulator.close();
+  }
+
+  @Test
+  public void testCompletesWithResult() throws Exception {
+    Assert.assertEquals(clientId, get(api.getAccount(clientId)).getId());
+    int projectId = get(api.createProject(clientId, new Project(Project.ProjectType.VISUAL, "http://localhost/", "*", "Async")));
+    Assert.assertEquals("Async", get(api.getProject(clientId, projectId)).getName());
+
+    int decisionId = get(api.createDecision(clientId, projectId, new Decision("Variant A")));
+    get(api.createDecision(clientId, projectId, new Decision("Variant B")));
+    // the third int is the decision, as in ABTest
+    Decision update = new Decision("Variant C");
+    get(api.updateDecision(clientId, projectId, decisionId, update));
+
+    List<Decision> decisions = get(api.getDecisions(clientId, projectId, "-id", null));
+    // the original and the two variants, newest first
+    Assert.assertEquals(3, decisions.size());
+    Assert.assertEquals("Variant B", decisions.get(0).getName());
+    Assert.assertEquals(decisionId, decisions.get(1).getId());
+    Assert.assertEquals("Variant C", decisions.get(1).getName());
+  }
+
+  @Test
+  public void testCompletesExceptionally() throws Exception {
+    simulator.failNext(1, 500);
+    CompletableFuture<Account> account = api.getAccount(clientId);
+    try {
+      get(account);
+      Assert.fail();
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof RemoteServiceException);
+      Assert.assertEquals(500, ((RemoteServiceException) e.getCause()).getStatusCode());
+    }
+    Assert.assertTrue(account.isCompletedExceptionally());
+
+    ABTestAsync intruder = new ABTestAsync("key", "wrong", connector);
+    try {
+      get(intruder.loginClient());
+      Assert.fail();
+    } catch (ExecutionException e) {
+      Assert.assertEquals(401, ((RemoteServiceException) e.getCause()).getStatusCode());
+    }
+    // the failures did not affect the instance with valid credentials
+    Assert.assertEquals(clientId, get(api.getAccount(clientId)).getId());
+  }
+
+  @Test
+  public void testCancellation() throws Exception {
+    simulator.setLatency(500, 500);
+    CompletableFuture<Account> account = api.getAccount(clientId);
+    Assert.assertTrue(account.cancel(true));
+    Assert.assertTrue(account.isCancelled());
+    try {
+      get(account);
+      Assert.fail();
+    } catch (CancellationException e) {
+      // expected
+    }
+
+    // a cancelled call does not keep a connection or the shared exchange of a later call
+    simulator.resetFaults();
+    Assert.assertEquals(clientId, get(api.getAccount(clientId)).getId());
+  }
+
+  private static <T> T get(CompletableFuture<T> future) throws InterruptedException, ExecutionException {
+    try {
+      return future.get(10, TimeUnit.SECONDS);
+    } catch (TimeoutException e) {
+      throw new AssertionError("no result within 10 seconds", e);
+    }
+  }
+}
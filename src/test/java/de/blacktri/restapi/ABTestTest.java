@@ -1,22 +1,31 @@
 package de.blacktri.restapi;
 
 import de.blacktri.restapi.httpclient.ABTestingRestConnector;
+import de.blacktri.restapi.httpclient.ResponseIterator;
 import de.blacktri.restapi.pojos.Account;
 import de.blacktri.restapi.pojos.Decision;
 import de.blacktri.restapi.pojos.DecisionGroup;
 import de.blacktri.restapi.pojos.Goal;
 import de.blacktri.restapi.pojos.Project;
 import de.blacktri.restapi.pojos.Trend;
+import de.blacktri.restapi.simulator.ApiSimulator;
+import org.junit.AfterClass;
 import org.junit.Assert;
-import org.junit.Ignore;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import javax.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Runs against an {@link ApiSimulator}, so no network access and no account at BlackTri are needed.
+ */
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration({
         "classpath:/framework/spring/ab-testing-services.xml"
@@ -25,6 +34,8 @@ public class ABTestTest {
   private static final String API_KEY = "cr_productdemo";
   private static final String API_SECRET = "4zdget465er3z4";
 
+  private static ApiSimulator simulator;
+
   @Inject
   ABTestingRestConnector restConnector;
 
@@ -32,8 +43,18 @@ public class ABTestTest {
 
   private ABTest testling;
 
+  @BeforeClass
+  public static void startSimulator() throws IOException {
+    simulator = new ApiSimulator();
+    simulator.getStore().addClient(API_KEY, API_SECRET);
+  }
+
+  @AfterClass
+  public static void stopSimulator() {
+    simulator.close();
+  }
+
   @Test
-  @Ignore
   public void testLogin() throws Exception {
     int clientId = getTestling().login("api-client");
     int clientId2 = testling.loginClient();
@@ -41,14 +62,13 @@ public class ABTestTest {
   }
 
   @Test
-  @Ignore
   public void testGetAccount() {
     Account account = getTestling().getAccount(clientId);
     Assert.assertNotNull(account);
+    Assert.assertEquals(clientId, account.getId());
   }
 
   @Test
-  @Ignore
   public void testCreateProject() {
     int projectId = getTestling().createProject(clientId, getVisualProject());
     Project project = getTestling().getProject(clientId, projectId);
@@ -60,21 +80,24 @@ public class ABTestTest {
   }
 
   @Test
-  @Ignore
   public void testStartStopRestartProject() {
     int projectId = getTestling().createProject(clientId, getVisualProject());
     getTestling().startProject(clientId, projectId);
+    Assert.assertEquals("RUNNING", getTestling().getProject(clientId, projectId).getStatus());
     getTestling().stopProject(clientId, projectId);
+    Assert.assertEquals("PAUSED", getTestling().getProject(clientId, projectId).getStatus());
     getTestling().startAutopilot(clientId, projectId);
     getTestling().stopAutopilot(clientId, projectId);
     getTestling().restartProject(clientId, projectId);
+    Project project = getTestling().getProject(clientId, projectId);
+    Assert.assertEquals("RUNNING", project.getStatus());
+    Assert.assertNotNull(project.getRestartdate());
     getTestling().deleteProject(clientId, projectId);
-
   }
 
   @Test
   public void testTeaserTest() throws Exception {
-    /*int projectId = getTestling().createProject(clientId, getTeaserTestProject());
+    int projectId = getTestling().createProject(clientId, getTeaserTestProject());
     Goal goal1 = new Goal();
     goal1.setType(Goal.Type.TIMEONPAGE);
     goal1.setLevel(Goal.Level.SECONDARY);
@@ -87,49 +110,94 @@ public class ABTestTest {
     goal3.setType(Goal.Type.COMBINED);
     goal3.setLevel(Goal.Level.PRIMARY);
     getTestling().createGoal(clientId, projectId, goal3);
-    getTestling().startProject(clientId, projectId);*/
-
-    List<DecisionGroup> groups = getTestling().getDecisionGroups(clientId, 1090, null);
+    Assert.assertEquals(3, getTestling().getGoals(clientId, projectId).size());
+    getTestling().startProject(clientId, projectId);
 
-    for (DecisionGroup group : groups) {
-      System.out.println(group);
-    }
-/*
     DecisionGroup decisionGroup = new DecisionGroup("holy moly");
-    getTestling().createDecisionGroup(clientId, projectId, decisionGroup);
+    int decisionGroupId = getTestling().createDecisionGroup(clientId, projectId, decisionGroup);
+    getTestling().createDecision(clientId, projectId, decisionGroupId, new Decision("Headline A"));
+    getTestling().createDecision(clientId, projectId, decisionGroupId, new Decision("Headline B"));
 
     List<DecisionGroup> decisionGroups = getTestling().getDecisionGroups(clientId, projectId, null);
+    Assert.assertEquals(1, decisionGroups.size());
     for (DecisionGroup group : decisionGroups) {
-      System.out.println(group);
+      Assert.assertEquals("holy moly", group.getName());
       List<Decision> decisions = getTestling().getDecisions(clientId, projectId, group.getId(), null, null);
+      Assert.assertEquals(2, decisions.size());
 
       for (Decision decision : decisions) {
         getTestling().deleteDecision(clientId, projectId, group.getId(), decision.getId());
       }
-
+      Assert.assertNull(getTestling().getDecisions(clientId, projectId, group.getId(), null, null));
 
       getTestling().deleteDecisionGroup(clientId, projectId, group.getId());
     }
-    getTestling().deleteProject(clientId, projectId);*/
+    Assert.assertNull(getTestling().getDecisionGroups(clientId, projectId, null));
+    getTestling().deleteProject(clientId, projectId);
   }
 
   @Test
-  @Ignore
   public void testDeleteAllProjects() {
+    getTestling().createProject(clientId, getVisualProject());
     List<Project> projects = getTestling().getProjects(clientId);
     for (Project project : projects) {
       getTestling().deleteProject(clientId, project.getId());
     }
+    // an empty list is answered with 204 No Content
+    Assert.assertNull(getTestling().getProjects(clientId));
+  }
+
+  @Test
+  public void testStreamProjectsAndDecisions() {
+    ABTest test = getTestling();
+    int visualId = test.createProject(clientId, getVisualProject());
+    int teaserTestId = test.createProject(clientId, getTeaserTestProject());
+    test.createDecision(clientId, visualId, new Decision("Variant A"));
+    test.createDecision(clientId, visualId, new Decision("Variant B"));
+
+    List<Integer> teaserTests = new ArrayList<>();
+    int handled = test.forEachProject(clientId, "TEASERTEST", null, "-id", Collections.<String>emptyList(),
+            project -> teaserTests.add(project.getId()));
+    Assert.assertEquals(teaserTests.size(), handled);
+    Assert.assertTrue(teaserTests.contains(teaserTestId));
+    Assert.assertFalse(teaserTests.contains(visualId));
+    List<Integer> expected = new ArrayList<>();
+    for (Project project : test.getProjects(clientId, "TEASERTEST", null, "-id", Collections.<String>emptyList())) {
+      expected.add(project.getId());
+    }
+    Assert.assertEquals(expected, teaserTests);
+    Assert.assertEquals(test.getProjects(clientId).size(), test.forEachProject(clientId, project -> {
+    }));
+
+    try (ResponseIterator<Project> projects = test.iterateProjects(clientId, "VISUAL", null, null, Collections.<String>emptyList())) {
+      Assert.assertTrue(projects.hasNext());
+      Assert.assertEquals(Project.ProjectType.VISUAL, projects.next().getType());
+    }
+
+    List<Decision> decisions = new ArrayList<>();
+    test.forEachDecision(clientId, visualId, -1, "-id", decisions::add);
+    Assert.assertEquals(3, decisions.size());
+    Assert.assertEquals("Variant B", decisions.get(0).getName());
+    Assert.assertTrue(decisions.get(0).getId() > decisions.get(1).getId());
+    // without a decision group, the third int is the decision
+    test.updateDecision(clientId, visualId, decisions.get(1).getId(), new Decision("Variant C"));
+    Assert.assertEquals("Variant C", test.getDecisions(clientId, visualId, "-id", null).get(1).getName());
+    test.deleteProject(clientId, visualId);
+    test.deleteProject(clientId, teaserTestId);
   }
 
   @Test
-  @Ignore
   public void testGetTrend() {
     ABTest test = getTestling();
+    int projectId = test.createProject(clientId, getVisualProject());
+    test.createDecision(clientId, projectId, new Decision("Variant"));
     List<Project> projects = test.getProjects(clientId);
     for (Project project : projects) {
       Trend trend = test.getTrend(clientId, project.getId(), null, 1, -1);
+      Assert.assertEquals(1, trend.getTrend().size());
+      int decisions = test.getDecisions(clientId, project.getId(), null, null).size();
       for (Trend.TrendEntry entry : trend.getTrend()) {
+        Assert.assertEquals(decisions, entry.getExperiments().size());
         System.out.println("For " + ABTestingRestConnector.DATE_FORMAT.format(entry.getDay().getTime()));
         for (Trend.Experiment o : entry.getExperiments()) {
           System.out.println(o.getId() + ": Name: " + o.getDataSet().getName() + " Conversion: " + o.getDataSet().getConversions() + " Impressions: " + o.getDataSet().getImpressions() + " Aggregatedcr: " + o.getDataSet().getAggregatedcr());
@@ -139,13 +207,13 @@ public class ABTestTest {
     }
   }
 
-
   @Test
-  @Ignore
   public void playground() {
     ABTest test = getTestling();
     int projectId = test.createProject(clientId, getVisualProject());
-    getTestling().createGoal(clientId, projectId, new Goal(Goal.Type.ENGAGEMENT, "NA"));
+    Goal goal = new Goal(Goal.Type.ENGAGEMENT, "NA");
+    goal.setLevel(Goal.Level.PRIMARY);
+    getTestling().createGoal(clientId, projectId, goal);
     Decision decision1 = new Decision("Green");
     decision1.setCssinjection(".cm-teaser--hero .cm-heading2--boxed {\n" +
             "    background-color: #00ff00;\n" +
@@ -160,7 +228,7 @@ public class ABTestTest {
 
 
     test.startProject(clientId, projectId);
-
+    Assert.assertEquals(3, test.getDecisions(clientId, projectId, null, null).size());
   }
 
   private Project getVisualProject() {
@@ -173,6 +241,7 @@ public class ABTestTest {
 
   private ABTest getTestling() {
     if (testling == null) {
+      restConnector.setServiceEndpoint(simulator.getServiceEndpoint());
       this.testling = new ABTest(API_KEY, API_SECRET, restConnector);
       this.clientId = testling.loginClient();
     }
@@ -0,0 +1,129 @@
+package de.blacktri.restapi.crawl;
+
+import de.blacktri.restapi.ABTest;
+import de.blacktri.restapi.httpclient.ABTestingRestConnector;
+import de.blacktri.restapi.httpclient.CallEvent;
+import de.blacktri.restapi.httpclient.CallListener;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.DecisionGroup;
+import de.blacktri.restapi.pojos.Goal;
+import de.blacktri.restapi.pojos.Project;
+import de.blacktri.restapi.simulator.ApiSimulator;
+import org.codehaus.jackson.type.TypeReference;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Crawls an {@link ApiSimulator}, without retries and circuit breakers.
+ */
+public class AccountCrawlerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ApiSimulator simulator;
+  private ABTestingRestConnector connector;
+  private ABTest api;
+  private int clientId;
+
+  @Before
+  public void setUp() throws IOException {
+    simulator = new ApiSimulator();
+    simulator.getStore().addClient("key", "secret");
+    connector = new ABTestingRestConnector();
+    connector.setServiceEndpoint(simulator.getServiceEndpoint());
+    connector.setRetryPolicy(null);
+    connector.setCircuitBreakerRegistry(null);
+    api = new ABTest("key", "secret", connector);
+    clientId = api.loginClient();
+  }
+
+  @After
+  public void tearDown() {
+    connector.close();
+    simulator.close();
+  }
+
+  @Test
+  public void testResumesFailedProjects() throws IOException {
+    int first = createProject("First");
+    final int second = createProject("Second");
+    int third = createProject("Third");
+    Goal goal = new Goal(Goal.Type.ENGAGEMENT, null);
+    goal.setLevel(Goal.Level.PRIMARY);
+    api.createGoal(clientId, first, goal);
+    int groupId = api.createDecisionGroup(clientId, third, new DecisionGroup("Group"));
+    api.createDecision(clientId, third, groupId, new Decision("Variant B"));
+
+    // one call in flight at a time, so the injected fault hits exactly the goals of the second project
+    final AtomicBoolean failSecond = new AtomicBoolean(true);
+    connector.addCallListener(new CallListener() {
+      @Override
+      public void onRequestBuilt(CallEvent event) {
+        if (failSecond.get() && event.getUri().getPath().endsWith("/project/" + second + "/goals")) {
+          simulator.failNext(1, 500);
+        }
+      }
+    });
+    Path target = folder.getRoot().toPath();
+    AccountCrawler crawler = new AccountCrawler(api, target);
+    crawler.setConcurrency(1);
+    crawler.setTrendEntries(7);
+
+    CrawlResult interrupted = crawler.crawlClient("daily");
+    Assert.assertFalse(interrupted.isComplete());
+    Assert.assertEquals(3, interrupted.getProjectCount());
+    Assert.assertEquals(0, interrupted.getResumedCount());
+    Assert.assertEquals(1, interrupted.getFailures().size());
+    Assert.assertTrue(interrupted.getFailures().containsKey(second));
+    Assert.assertEquals(target.resolve(".daily.partial"), interrupted.getDirectory());
+    Assert.assertFalse(Files.exists(target.resolve("daily")));
+
+    failSecond.set(false);
+    long requests = simulator.getRequestCount();
+    CrawlResult resumed = crawler.crawlClient("daily");
+    Assert.assertTrue(resumed.isComplete());
+    Assert.assertEquals(2, resumed.getResumedCount());
+    Assert.assertTrue(resumed.getFailures().isEmpty());
+    // the login and the four calls of the second project; the project list is taken from the first run
+    Assert.assertEquals(5, resumed.getCalls());
+    Assert.assertEquals(requests + 5, simulator.getRequestCount());
+    Assert.assertEquals(target.resolve("daily"), resumed.getDirectory());
+    Assert.assertFalse(Files.exists(target.resolve(".daily.partial")));
+
+    Assert.assertEquals(1, read(resumed.getDirectory(), first).getGoals().size());
+    Assert.assertEquals("Second", read(resumed.getDirectory(), second).getProject().getName());
+    ProjectSnapshot.DecisionGroupSnapshot group = read(resumed.getDirectory(), third).getDecisionGroups().get(0);
+    Assert.assertEquals("Group", group.getDecisionGroup().getName());
+    Assert.assertEquals("Variant B", group.getDecisions().get(0).getName());
+    Assert.assertEquals(7, read(resumed.getDirectory(), third).getTrend().size());
+
+    try {
+      crawler.crawlClient("daily");
+      Assert.fail();
+    } catch (IllegalStateException e) {
+      // already published
+    }
+  }
+
+  private int createProject(String name) {
+    return api.createProject(clientId, new Project(Project.ProjectType.VISUAL, "http://localhost/", "*", name));
+  }
+
+  private ProjectSnapshot read(Path directory, int projectId) throws IOException {
+    try (InputStream in = Files.newInputStream(directory.resolve(SnapshotStore.projectFile(projectId)))) {
+      return connector.getJsonCodec().read(in, new TypeReference<ProjectSnapshot>() {
+      });
+    }
+  }
+}
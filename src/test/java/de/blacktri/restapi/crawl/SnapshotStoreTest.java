@@ -0,0 +1,112 @@
+package de.blacktri.restapi.crawl;
+
+import de.blacktri.restapi.httpclient.JsonCodec;
+import de.blacktri.restapi.json.ApiDateFormat;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.DecisionGroup;
+import de.blacktri.restapi.pojos.Goal;
+import de.blacktri.restapi.pojos.Project;
+import org.codehaus.jackson.type.TypeReference;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+public class SnapshotStoreTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final JsonCodec codec = new JsonCodec(ApiDateFormat.getDefault());
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    Path target = folder.getRoot().toPath();
+    SnapshotStore store = new SnapshotStore(codec, target, "daily");
+    Assert.assertNull(store.readParameters());
+    Assert.assertNull(store.readProjects());
+
+    Properties parameters = new Properties();
+    parameters.setProperty("accountId", "7");
+    store.writeParameters(parameters);
+    store.writeProjects(Arrays.asList(project(1, "First"), project(2, "Second")));
+    Assert.assertFalse(store.hasProject(1));
+
+    ProjectSnapshot snapshot = new ProjectSnapshot();
+    snapshot.setAccountId(7);
+    snapshot.setProject(project(1, "First"));
+    snapshot.setGoals(Collections.singletonList(new Goal(Goal.Type.ENGAGEMENT, null)));
+    snapshot.setDecisions(Collections.singletonList(new Decision("Variant A")));
+    ProjectSnapshot.DecisionGroupSnapshot group = new ProjectSnapshot.DecisionGroupSnapshot(new DecisionGroup("Group"));
+    group.setDecisions(Collections.singletonList(new Decision("Variant B")));
+    snapshot.setDecisionGroups(Collections.singletonList(group));
+    store.writeProject(snapshot);
+    Assert.assertTrue(store.hasProject(1));
+
+    // a second store on the same directory sees what the first one wrote, as a resumed crawl does
+    SnapshotStore reopened = new SnapshotStore(codec, target, "daily");
+    Assert.assertEquals("7", reopened.readParameters().getProperty("accountId"));
+    List<Project> projects = reopened.readProjects();
+    Assert.assertEquals(2, projects.size());
+    Assert.assertEquals("Second", projects.get(1).getName());
+    ProjectSnapshot read = readProject(reopened.getStaging(), 1);
+    Assert.assertEquals(7, read.getAccountId());
+    Assert.assertEquals("First", read.getProject().getName());
+    Assert.assertEquals(Goal.Type.ENGAGEMENT, read.getGoals().get(0).getType());
+    Assert.assertEquals("Variant A", read.getDecisions().get(0).getName());
+    Assert.assertEquals("Group", read.getDecisionGroups().get(0).getDecisionGroup().getName());
+    Assert.assertEquals("Variant B", read.getDecisionGroups().get(0).getDecisions().get(0).getName());
+
+    Assert.assertFalse(reopened.isPublished());
+    reopened.publish(Collections.singletonMap("snapshotId", "daily"));
+    Assert.assertTrue(reopened.isPublished());
+    Assert.assertFalse(Files.exists(reopened.getStaging()));
+    Assert.assertTrue(Files.exists(reopened.getPublished().resolve(SnapshotStore.projectFile(1))));
+    try (InputStream in = Files.newInputStream(reopened.getPublished().resolve(SnapshotStore.MANIFEST))) {
+      Map<String, Object> manifest = codec.read(in, new TypeReference<Map<String, Object>>() {
+      });
+      Assert.assertEquals("daily", manifest.get("snapshotId"));
+    }
+  }
+
+  @Test
+  public void testRemovesTemporaryFiles() throws IOException {
+    SnapshotStore store = new SnapshotStore(codec, folder.getRoot().toPath(), "daily");
+    store.removeTemporaryFiles();
+    store.writeParameters(new Properties());
+    Path leftOver = Files.createTempFile(store.getStaging(), SnapshotStore.projectFile(1), ".tmp");
+
+    store.removeTemporaryFiles();
+    Assert.assertFalse(Files.exists(leftOver));
+    Assert.assertFalse(store.hasProject(1));
+    Assert.assertNotNull(store.readParameters());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsIdOutsideTarget() {
+    new SnapshotStore(codec, folder.getRoot().toPath(), "../daily");
+  }
+
+  private ProjectSnapshot readProject(Path directory, int projectId) throws IOException {
+    try (InputStream in = Files.newInputStream(directory.resolve(SnapshotStore.projectFile(projectId)))) {
+      return codec.read(in, new TypeReference<ProjectSnapshot>() {
+      });
+    }
+  }
+
+  private static Project project(int id, String name) {
+    Project project = new Project(Project.ProjectType.VISUAL, "http://localhost/", "*", name);
+    project.setId(id);
+    return project;
+  }
+}
@@ -0,0 +1,62 @@
+package de.blacktri.restapi.graph;
+
+import de.blacktri.restapi.ABTestAsync;
+import de.blacktri.restapi.httpclient.ABTestingRestConnector;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.DecisionGroup;
+import de.blacktri.restapi.pojos.Goal;
+import de.blacktri.restapi.pojos.Project;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class ProjectGraphLoaderTest {
+
+  @Test
+  public void testStartsQueuedCallsThatCompleteSynchronouslyWithoutNesting() throws Exception {
+    List<DecisionGroup> groups = new ArrayList<>();
+    for (int i = 1; i <= 100000; i++) {
+      DecisionGroup group = new DecisionGroup("group " + i);
+      group.setId(i);
+      groups.add(group);
+    }
+    CompletableFuture<List<Decision>> firstGroup = new CompletableFuture<>();
+    ABTestAsync api = new ABTestAsync("key", "secret", new ABTestingRestConnector()) {
+      @Override
+      public CompletableFuture<Project> getProject(int clientId, int projectId) {
+        return CompletableFuture.completedFuture(new Project());
+      }
+
+      @Override
+      public CompletableFuture<List<Goal>> getGoals(int clientId, int projectId) {
+        return CompletableFuture.completedFuture(Collections.<Goal>emptyList());
+      }
+
+      @Override
+      public CompletableFuture<List<DecisionGroup>> getDecisionGroups(int clientId, int projectId, String filter) {
+        return CompletableFuture.completedFuture(groups);
+      }
+
+      @Override
+      public CompletableFuture<List<Decision>> getDecisions(int clientId, int projectId, int decisionGroupId, String sort, String filter) {
+        // like a cache hit or an open circuit breaker, all but the first call complete before they return
+        return decisionGroupId == 1 ? firstGroup : CompletableFuture.completedFuture(Collections.<Decision>emptyList());
+      }
+    };
+    ProjectGraphLoader loader = new ProjectGraphLoader(api, 1);
+    CompletableFuture<ProjectGraph> graph = loader.load(1, 2);
+    Assert.assertEquals(1, loader.getRunningCalls());
+
+    firstGroup.complete(Collections.<Decision>emptyList());
+    // nested completions would overflow the stack and leave the graph incomplete
+    ProjectGraph loaded = graph.get(30, TimeUnit.SECONDS);
+    Assert.assertTrue(loaded.isComplete());
+    Assert.assertEquals(100000, loaded.getDecisionGroups().get().size());
+    Assert.assertEquals(0, loader.getRunningCalls());
+  }
+}
@@ -0,0 +1,486 @@
+package de.blacktri.restapi.httpclient;
+
+import de.blacktri.restapi.ABTest;
+import de.blacktri.restapi.httpclient.cache.ResponseCache;
+import de.blacktri.restapi.httpclient.cache.ValidatorCache;
+import de.blacktri.restapi.httpclient.circuit.CircuitBreaker;
+import de.blacktri.restapi.httpclient.circuit.CircuitBreakerOpenException;
+import de.blacktri.restapi.httpclient.circuit.CircuitBreakerRegistry;
+import de.blacktri.restapi.httpclient.circuit.CircuitState;
+import de.blacktri.restapi.httpclient.ratelimit.RateLimitExceededException;
+import de.blacktri.restapi.httpclient.ratelimit.RateLimiter;
+import de.blacktri.restapi.pojos.Account;
+import de.blacktri.restapi.pojos.Project;
+import de.blacktri.restapi.simulator.ApiSimulator;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.HttpClient;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.codehaus.jackson.type.TypeReference;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static de.blacktri.restapi.ABTest.ACCOUNT;
+
+/**
+ * Runs the connector against an {@link ApiSimulator}, without retries and circuit breakers unless a test enables
+ * them.
+ */
+public class ABTestingRestConnectorTest {
+
+  private static final TypeReference<Account> ACCOUNT_TYPE = new TypeReference<Account>() {
+  };
+
+  private ApiSimulator simulator;
+  private ABTestingRestConnector connector;
+  private int clientId;
+
+  @Before
+  public void setUp() throws IOException {
+    simulator = new ApiSimulator();
+    clientId = simulator.getStore().addClient("key", "secret");
+    connector = new ABTestingRestConnector();
+    connector.setServiceEndpoint(simulator.getServiceEndpoint());
+    connector.setRetryPolicy(null);
+    connector.setCircuitBreakerRegistry(null);
+  }
+
+  @After
+  public void tearDown() {
+    connector.close();
+    simulator.close();
+  }
+
+  @Test
+  public void testContextsSignWithTheirOwnCredentials() throws Exception {
+    final int otherClientId = simulator.getStore().addClient("other", "other secret");
+    final ClientContext context = connector.createClientContext("key", "secret");
+    final ClientContext other = connector.createClientContext("other", "other secret");
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      // each account answers 403 to the credentials of the other client
+      List<Future<Integer>> accounts = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        final ClientContext caller = i % 2 == 0 ? context : other;
+        final int account = i % 2 == 0 ? clientId : otherClientId;
+        accounts.add(executor.submit(() -> caller.<Account>callService(HttpMethod.GET, ACCOUNT + account, ACCOUNT_TYPE, null).getId()));
+        accounts.add(executor.submit(() -> caller.<Account>callServiceAsync(HttpMethod.GET, ACCOUNT + account, ACCOUNT_TYPE, null)
+                .get(5, TimeUnit.SECONDS).getId()));
+      }
+      for (int i = 0; i < accounts.size(); i++) {
+        Assert.assertEquals(i % 4 < 2 ? clientId : otherClientId, (int) accounts.get(i).get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    Assert.assertEquals(400, simulator.getRequestCount());
+  }
+
+  @Test
+  public void testCachedResponseRequiresSameSecret() {
+    connector.setResponseCache(new ResponseCache());
+    ClientContext authorized = connector.createClientContext("key", "secret");
+    ClientContext wrongSecret = connector.createClientContext("key", "wrong");
+
+    Assert.assertNotNull(authorized.<Account>callService(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null));
+    Assert.assertNotNull(authorized.<Account>callService(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null));
+    Assert.assertEquals(1, simulator.getRequestCount());
+
+    Assert.assertNull(wrongSecret.<Account>callService(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null));
+    Assert.assertEquals(2, simulator.getRequestCount());
+  }
+
+  @Test
+  public void testResponseOfReadOverlappingWriteIsNotCached() throws Exception {
+    connector.setResponseCache(new ResponseCache());
+    ClientContext context = connector.createClientContext("key", "secret");
+    simulator.setLatency(300, 300);
+    CompletableFuture<Account> read = context.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    Thread.sleep(100);
+    connector.invalidate(ACCOUNT + clientId);
+    Assert.assertNotNull(read.get(5, TimeUnit.SECONDS));
+
+    simulator.resetFaults();
+    Assert.assertNotNull(context.<Account>callService(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null));
+    Assert.assertEquals(2, simulator.getRequestCount());
+    Assert.assertNotNull(context.<Account>callService(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null));
+    Assert.assertEquals(2, simulator.getRequestCount());
+  }
+
+  @Test
+  public void testConditionalGetReusesUnmodifiedResult() throws Exception {
+    ValidatorCache validatorCache = new ValidatorCache();
+    connector.setValidatorCache(validatorCache);
+    final List<String> validators = new ArrayList<>();
+    final List<Integer> statusCodes = new ArrayList<>();
+    connector.addCallListener(new CallListener() {
+      @Override
+      public void onRequestBuilt(CallEvent event) {
+        Header ifNoneMatch = event.getRequest().getFirstHeader(HttpHeaders.IF_NONE_MATCH);
+        validators.add(ifNoneMatch != null ? ifNoneMatch.getValue() : null);
+      }
+
+      @Override
+      public void onResponseReceived(CallEvent event) {
+        statusCodes.add(event.getStatusCode());
+      }
+    });
+    ClientContext context = connector.createClientContext("key", "secret");
+
+    Account first = context.callService(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    Assert.assertEquals(1, validatorCache.size());
+
+    Account second = context.callService(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    Account third = context.<Account>callServiceAsync(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null).get(5, TimeUnit.SECONDS);
+    Assert.assertSame(first, second);
+    Assert.assertSame(first, third);
+    Assert.assertEquals(2, validatorCache.getNotModifiedCount());
+
+    // a modification drops the validators, so the next call downloads the resource again
+    connector.invalidate(ACCOUNT + clientId);
+    Assert.assertEquals(0, validatorCache.size());
+    Account fourth = context.callService(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    Assert.assertNotSame(first, fourth);
+    Assert.assertEquals(clientId, fourth.getId());
+    Assert.assertEquals(2, validatorCache.getNotModifiedCount());
+
+    // the second and third call send the ETag of the first response
+    String etag = validators.get(1);
+    Assert.assertNotNull(etag);
+    Assert.assertEquals(Arrays.asList(null, etag, etag, null), validators);
+    Assert.assertEquals(Arrays.asList(200, 304, 304, 200), statusCodes);
+    Assert.assertEquals(4, simulator.getRequestCount());
+  }
+
+  @Test
+  public void testDecodesCompressedResponses() {
+    ABTest api = new ABTest("key", "secret", connector);
+    for (int i = 0; i < 20; i++) {
+      api.createProject(clientId, new Project(Project.ProjectType.VISUAL, "http://localhost/", "*", "Project " + i));
+    }
+    ClientContext context = connector.createClientContext("key", "secret");
+    TypeReference<List<Project>> projectsType = new TypeReference<List<Project>>() {
+    };
+    TransferStats stats = connector.getTransferStats();
+
+    // without compression, the body as received is the JSON handed to the decoder
+    connector.setAcceptEncoding(null);
+    stats.reset();
+    List<Project> plain = context.callService(HttpMethod.GET, ACCOUNT + clientId + "/projects", projectsType, null);
+    Assert.assertEquals(20, plain.size());
+    long json = stats.getDecodedBytesReceived();
+    Assert.assertTrue(json >= 1024);
+    Assert.assertEquals(json, stats.getWireBytesReceived());
+    Assert.assertEquals(0, stats.getCompressedResponseCount());
+
+    for (String encoding : new String[]{ContentEncoding.GZIP, ContentEncoding.DEFLATE}) {
+      connector.setAcceptEncoding(encoding);
+      stats.reset();
+      List<Project> decoded = context.callService(HttpMethod.GET, ACCOUNT + clientId + "/projects", projectsType, null);
+      Assert.assertEquals(encoding, 20, decoded.size());
+      Assert.assertEquals(encoding, plain.get(19).getName(), decoded.get(19).getName());
+      Assert.assertEquals(encoding, 1, stats.getCompressedResponseCount());
+      Assert.assertEquals(encoding, json, stats.getDecodedBytesReceived());
+      Assert.assertTrue(encoding, stats.getWireBytesReceived() > 0 && stats.getWireBytesReceived() < json);
+    }
+  }
+
+  @Test
+  public void testCompressesRequestBodiesAboveThreshold() {
+    connector.setRequestCompressionThreshold(1024);
+    ABTest api = new ABTest("key", "secret", connector);
+    TransferStats stats = connector.getTransferStats();
+
+    stats.reset();
+    api.createProject(clientId, new Project(Project.ProjectType.VISUAL, "http://localhost/", "*", "Small"));
+    Assert.assertEquals(0, stats.getCompressedRequestCount());
+    Assert.assertTrue(stats.getPlainBytesSent() > 0);
+    Assert.assertEquals(stats.getPlainBytesSent(), stats.getWireBytesSent());
+
+    char[] name = new char[2000];
+    Arrays.fill(name, 'x');
+    stats.reset();
+    int projectId = api.createProject(clientId, new Project(Project.ProjectType.VISUAL, "http://localhost/", "*", new String(name)));
+    Assert.assertEquals(1, stats.getCompressedRequestCount());
+    Assert.assertTrue(stats.getPlainBytesSent() > name.length);
+    Assert.assertTrue(stats.getWireBytesSent() < stats.getPlainBytesSent());
+    // the simulator decoded the gzipped body
+    Assert.assertEquals(new String(name), api.getProject(clientId, projectId).getName());
+    // GET requests have no body
+    Assert.assertEquals(1, stats.getCompressedRequestCount());
+  }
+
+  @Test
+  public void testStreamingEndsEmptyOnErrorsAndNoContent() {
+    ClientContext context = connector.createClientContext("key", "secret");
+    ClientContext wrongSecret = connector.createClientContext("key", "wrong");
+    TypeReference<Project> projectType = new TypeReference<Project>() {
+    };
+    // no projects yet, answered with 204 No Content
+    Assert.assertEquals(0, context.callServiceStreaming(HttpMethod.GET, ACCOUNT + clientId + "/projects", projectType,
+            Collections.<String, Object>emptyMap(), project -> Assert.fail()));
+    try (ResponseIterator<Project> projects = wrongSecret.callServiceStreaming(HttpMethod.GET, ACCOUNT + clientId + "/projects",
+            projectType, Collections.<String, Object>emptyMap())) {
+      Assert.assertFalse(projects.hasNext());
+    }
+  }
+
+  @Test
+  public void testListenerEventsInOrder() {
+    final List<String> events = new ArrayList<>();
+    connector.addCallListener(new CallListener() {
+      @Override
+      public void onRequestBuilt(CallEvent event) {
+        events.add("built");
+      }
+
+      @Override
+      public void onRequestSent(CallEvent event) {
+        events.add("sent");
+      }
+
+      @Override
+      public void onResponseReceived(CallEvent event) {
+        events.add("received " + event.getStatusCode());
+      }
+
+      @Override
+      public void onResponseDecoded(CallEvent event) {
+        events.add("decoded");
+      }
+
+      @Override
+      public void onFailure(CallEvent event, Exception failure) {
+        events.add("failed");
+      }
+    });
+    ClientContext context = connector.createClientContext("key", "secret");
+    context.<Account>callService(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    Assert.assertEquals(Arrays.asList("built", "sent", "received 200", "decoded"), events);
+
+    events.clear();
+    connector.createClientContext("key", "wrong").<Account>callService(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    Assert.assertEquals(Arrays.asList("built", "sent", "received 401", "failed"), events);
+
+    ABTest api = new ABTest("key", "secret", connector);
+    api.createProject(clientId, new Project(Project.ProjectType.VISUAL, "http://localhost/", "*", "A"));
+    api.createProject(clientId, new Project(Project.ProjectType.VISUAL, "http://localhost/", "*", "B"));
+    events.clear();
+    try (ResponseIterator<Project> projects = context.callServiceStreaming(HttpMethod.GET, ACCOUNT + clientId + "/projects",
+            new TypeReference<Project>() {
+            }, Collections.<String, Object>emptyMap())) {
+      projects.next();
+      Assert.assertEquals(Arrays.asList("built", "sent", "received 200"), events);
+      projects.next();
+      Assert.assertFalse(projects.hasNext());
+      Assert.assertEquals(Arrays.asList("built", "sent", "received 200", "decoded"), events);
+    }
+    Assert.assertEquals(4, events.size());
+  }
+
+  @Test
+  public void testOpenCircuitFailsBeforeRateLimiter() throws Exception {
+    CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+    registry.setSlidingWindowSize(1);
+    registry.setMinimumNumberOfCalls(1);
+    registry.setPermittedCallsInHalfOpenState(1);
+    registry.setWaitDurationInOpenState(TimeUnit.MINUTES.toMillis(1));
+    connector.setCircuitBreakerRegistry(registry);
+    CircuitBreaker circuitBreaker = registry.getCircuitBreaker(Endpoints.getEndpoint(ACCOUNT + clientId));
+    circuitBreaker.onResult(0, true);
+    RateLimiter limiter = new RateLimiter();
+    limiter.setRate(1);
+    limiter.setBurst(1);
+    limiter.setMaxWait(TimeUnit.SECONDS.toMillis(30));
+    limiter.reserve("key");
+    connector.setRateLimiter(limiter);
+    ClientContext context = connector.createClientContext("key", "secret");
+
+    long started = System.nanoTime();
+    CallOptions options = new CallOptions();
+    Assert.assertNull(context.callService(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, Collections.<String, Object>emptyMap(),
+            Collections.<String, String>emptyMap(), null, options));
+    Assert.assertTrue(options.getLastFailure() instanceof CircuitBreakerOpenException);
+    try {
+      context.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null).get(5, TimeUnit.SECONDS);
+      Assert.fail();
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof CircuitBreakerOpenException);
+    }
+    Assert.assertEquals(0, context.callServiceStreaming(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE,
+            Collections.<String, Object>emptyMap(), account -> Assert.fail()));
+    Assert.assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(500));
+    // only the reservation made above
+    Assert.assertEquals(1, limiter.getWaitTime().getCount());
+    Assert.assertEquals(0, simulator.getRequestCount());
+  }
+
+  @Test
+  public void testRateLimiterRejectionReturnsCircuitBreakerPermission() {
+    CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+    registry.setSlidingWindowSize(1);
+    registry.setMinimumNumberOfCalls(1);
+    registry.setPermittedCallsInHalfOpenState(1);
+    registry.setWaitDurationInOpenState(0);
+    connector.setCircuitBreakerRegistry(registry);
+    CircuitBreaker circuitBreaker = registry.getCircuitBreaker(Endpoints.getEndpoint(ACCOUNT + clientId));
+    circuitBreaker.onResult(0, true);
+    RateLimiter limiter = new RateLimiter();
+    limiter.setRate(1);
+    limiter.setBurst(1);
+    limiter.setMaxWait(0);
+    limiter.reserve("key");
+    connector.setRateLimiter(limiter);
+    ClientContext context = connector.createClientContext("key", "secret");
+
+    CallOptions options = new CallOptions();
+    Assert.assertNull(context.callService(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, Collections.<String, Object>emptyMap(),
+            Collections.<String, String>emptyMap(), null, options));
+    Assert.assertTrue(options.getLastFailure() instanceof RateLimitExceededException);
+    // the single trial call of the half-open circuit is still available
+    Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    Assert.assertEquals(CircuitState.HALF_OPEN, circuitBreaker.getState());
+  }
+
+  @Test
+  public void testStreamingReturnsPermissionWhenClientFails() throws IOException {
+    final CloseableHttpClient closed = HttpClients.createDefault();
+    closed.close();
+    ABTestingRestConnector failing = new ABTestingRestConnector() {
+      @Override
+      protected HttpClient getHttpClient() {
+        return closed;
+      }
+    };
+    failing.setServiceEndpoint(simulator.getServiceEndpoint());
+    CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+    registry.setSlidingWindowSize(1);
+    registry.setMinimumNumberOfCalls(1);
+    registry.setPermittedCallsInHalfOpenState(1);
+    registry.setWaitDurationInOpenState(0);
+    failing.setCircuitBreakerRegistry(registry);
+    CircuitBreaker circuitBreaker = registry.getCircuitBreaker(Endpoints.getEndpoint(ACCOUNT + clientId + "/projects"));
+    circuitBreaker.onResult(0, true);
+    try {
+      ClientContext context = failing.createClientContext("key", "secret");
+      for (int i = 0; i < 3; i++) {
+        // the shut down pool throws an IllegalStateException, the single trial permit must not leak
+        Assert.assertEquals(0, context.callServiceStreaming(HttpMethod.GET, ACCOUNT + clientId + "/projects",
+                new TypeReference<Project>() {
+                }, Collections.<String, Object>emptyMap(), project -> Assert.fail()));
+      }
+      Assert.assertEquals(CircuitState.HALF_OPEN, circuitBreaker.getState());
+      Assert.assertEquals(0, circuitBreaker.getMetrics().getNotPermittedCalls());
+    } finally {
+      failing.close();
+    }
+  }
+
+  @Test
+  public void testCancelledAsyncCallReturnsReservation() throws Exception {
+    RateLimiter limiter = new RateLimiter();
+    limiter.setRate(1);
+    limiter.setBurst(1);
+    limiter.setMaxWait(TimeUnit.SECONDS.toMillis(30));
+    limiter.reserve("key");
+    connector.setRateLimiter(limiter);
+    ClientContext context = connector.createClientContext("key", "secret");
+
+    // due in about a second
+    CompletableFuture<Account> waiting = context.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    Assert.assertTrue(waiting.cancel(true));
+    long wait = limiter.reserve("key");
+    Assert.assertTrue(wait + " ns", wait <= TimeUnit.SECONDS.toNanos(1));
+    Thread.sleep(1500);
+    Assert.assertEquals(0, simulator.getRequestCount());
+  }
+
+  @Test
+  public void testJmxNameIsNotTakenOver() throws Exception {
+    ObjectName blocking = new ObjectName("de.blacktri.restapi:type=ConnectionPool,connector=\"test\",name=\"blocking\"");
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    connector.setJmxName("test");
+    ABTestingRestConnector other = new ABTestingRestConnector();
+    other.setJmxName("test");
+    other.close();
+    Assert.assertTrue(server.isRegistered(blocking));
+    connector.close();
+    Assert.assertFalse(server.isRegistered(blocking));
+  }
+
+  @Test
+  public void testCallersOfSharedCallDoNotAffectEachOther() throws Exception {
+    connector.setCoalesceRequests(true);
+    simulator.setLatency(300, 300);
+    ClientContext context = connector.createClientContext("key", "secret");
+
+    CompletableFuture<Account> leader = context.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    CompletableFuture<Account> completed = context.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    CompletableFuture<Account> joined = context.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    Assert.assertTrue(leader.cancel(true));
+    completed.complete(new Account());
+
+    Account account = joined.get(5, TimeUnit.SECONDS);
+    Assert.assertEquals(clientId, account.getId());
+    Assert.assertEquals(2, connector.getCoalescedCallCount());
+    Assert.assertEquals(1, simulator.getRequestCount());
+  }
+
+  @Test
+  public void testSharedCallIsAbortedWhenAllCallersCancel() throws Exception {
+    connector.setCoalesceRequests(true);
+    simulator.setLatency(300, 300);
+    ClientContext context = connector.createClientContext("key", "secret");
+
+    CompletableFuture<Account> leader = context.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    CompletableFuture<Account> joined = context.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    Assert.assertTrue(leader.cancel(true));
+    Assert.assertTrue(joined.cancel(true));
+
+    // the abandoned exchange is not joined
+    CompletableFuture<Account> next = context.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    Assert.assertEquals(clientId, next.get(5, TimeUnit.SECONDS).getId());
+    Assert.assertEquals(1, connector.getCoalescedCallCount());
+  }
+
+  @Test
+  public void testCoalescedCallRequiresSameSecret() throws Exception {
+    connector.setCoalesceRequests(true);
+    simulator.setLatency(200, 200);
+    ClientContext authorized = connector.createClientContext("key", "secret");
+    ClientContext wrongSecret = connector.createClientContext("key", "wrong");
+
+    CompletableFuture<Account> leader = authorized.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    CompletableFuture<Account> joined = authorized.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+    CompletableFuture<Account> rejected = wrongSecret.callServiceAsync(HttpMethod.GET, ACCOUNT + clientId, ACCOUNT_TYPE, null);
+
+    Assert.assertSame(leader.get(5, TimeUnit.SECONDS), joined.get(5, TimeUnit.SECONDS));
+    try {
+      rejected.get(5, TimeUnit.SECONDS);
+      Assert.fail();
+    } catch (ExecutionException e) {
+      Assert.assertEquals(401, ((RemoteServiceException) e.getCause()).getStatusCode());
+    }
+    Assert.assertEquals(1, connector.getCoalescedCallCount());
+    Assert.assertEquals(2, simulator.getRequestCount());
+  }
+}
@@ -0,0 +1,82 @@
+package de.blacktri.restapi.httpclient;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares the request URIs with those of {@link UriComponentsBuilder}, which built them before.
+ */
+public class ServiceUriTest {
+
+  private static final String ENDPOINT = "https://api.example.com/api/v1";
+
+  private final ServiceUri serviceUri = new ServiceUri(ENDPOINT);
+
+  @Test
+  public void testReservedCharacters() {
+    assertSameAsUriComponentsBuilder("account/1/project/2", parameters("filter", "name=a&b", "sort", "-id;x,y"));
+    assertSameAsUriComponentsBuilder("account/1/project/a:b@c!$'()*", parameters("path", "/a/b?c", "hash", "#top"));
+    assertSameAsUriComponentsBuilder("account/1/projects?status=RUNNING&sort=name", parameters("type", "VISUAL"));
+  }
+
+  @Test
+  public void testSpaces() {
+    assertSameAsUriComponentsBuilder("account/1/project/my project", parameters("name", "My Project", "empty", ""));
+  }
+
+  @Test
+  public void testPlusAndPercent() {
+    assertSameAsUriComponentsBuilder("account/1/project/a+b%c", parameters("name", "a+b", "rate", "100%", "encoded", "%20"));
+  }
+
+  @Test
+  public void testNonAscii() {
+    assertSameAsUriComponentsBuilder("account/1/project/Grüße", parameters("name", "Größe €", "emoji", "😀", "cjk", "試験"));
+  }
+
+  @Test
+  public void testMultiValuedParameters() {
+    assertSameAsUriComponentsBuilder("account/1/decisions?status=WON&status=LOST", parameters("fields", "id,name,status", "sort", "-id"));
+    // a collection is not expanded into repeated parameters but sent as its string form, as before
+    assertSameAsUriComponentsBuilder("account/1/decisions", parameters("result", Arrays.asList("WON", "LOST")));
+    // without a value, only the name is added
+    assertSameAsUriComponentsBuilder("account/1/decisions", parameters("verbose", null));
+  }
+
+  @Test
+  public void testEndpointWithTrailingSlash() {
+    Assert.assertEquals(serviceUri.resolve("account/1", Collections.<String, Object>emptyMap()),
+            new ServiceUri(ENDPOINT + "/").resolve("account/1", Collections.<String, Object>emptyMap()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsEndpointWithQuery() {
+    new ServiceUri(ENDPOINT + "?key=value");
+  }
+
+  private void assertSameAsUriComponentsBuilder(String relativePath, Map<String, Object> queryParameters) {
+    UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(ENDPOINT + "/" + relativePath);
+    for (Map.Entry<String, Object> parameter : queryParameters.entrySet()) {
+      builder.queryParam(parameter.getKey(), parameter.getValue());
+    }
+    URI expected = builder.buildAndExpand().encode().toUri();
+    URI actual = serviceUri.resolve(relativePath, queryParameters);
+    Assert.assertEquals(expected.toASCIIString(), actual.toASCIIString());
+    Assert.assertEquals(expected, actual);
+  }
+
+  private static Map<String, Object> parameters(Object... namesAndValues) {
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      parameters.put((String) namesAndValues[i], namesAndValues[i + 1]);
+    }
+    return parameters;
+  }
+}
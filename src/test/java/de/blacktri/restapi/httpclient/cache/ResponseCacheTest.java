@@ -0,0 +1,81 @@
+package de.blacktri.restapi.httpclient.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class ResponseCacheTest {
+
+  @Test
+  public void testExpiresAfterTimeToLive() throws InterruptedException {
+    ResponseCache cache = new ResponseCache();
+    cache.setDefaultTimeToLive(20);
+    cache.setTimeToLive(Collections.singletonMap("trend", 0L));
+    cache.put("a", "account/1/project/2", "project");
+    cache.put("b", "account/1/project/2/trend", "trend");
+    Assert.assertEquals("project", cache.get("a"));
+    Assert.assertNull(cache.get("b"));
+
+    Thread.sleep(40);
+    Assert.assertNull(cache.get("a"));
+    CacheStats stats = cache.getStats();
+    Assert.assertEquals(1, stats.getHitCount());
+    Assert.assertEquals(2, stats.getMissCount());
+    Assert.assertEquals(1, stats.getExpirationCount());
+    Assert.assertEquals(0, stats.getSize());
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    ResponseCache cache = new ResponseCache();
+    cache.setMaxEntries(2);
+    cache.put("a", "account/1/project/1", "1");
+    cache.put("b", "account/1/project/2", "2");
+    Assert.assertEquals("1", cache.get("a"));
+    cache.put("c", "account/1/project/3", "3");
+
+    Assert.assertNull(cache.get("b"));
+    Assert.assertEquals("1", cache.get("a"));
+    Assert.assertEquals("3", cache.get("c"));
+    Assert.assertEquals(1, cache.getStats().getEvictionCount());
+  }
+
+  @Test
+  public void testInvalidatesPathAndBelow() {
+    ResponseCache cache = new ResponseCache();
+    cache.put("project", "account/1/project/2", "project");
+    cache.put("goals", "/account/1/project/2/goals/", "goals");
+    cache.put("other", "account/1/project/20", "other");
+    cache.invalidate("account/1/project/2/");
+
+    Assert.assertNull(cache.get("project"));
+    Assert.assertNull(cache.get("goals"));
+    Assert.assertEquals("other", cache.get("other"));
+    Assert.assertEquals(2, cache.getStats().getInvalidationCount());
+  }
+
+  @Test
+  public void testDropsResponseRequestedBeforeInvalidation() {
+    ResponseCache cache = new ResponseCache();
+    long generation = cache.getGeneration();
+    // a write completes while the read is in flight
+    cache.invalidate("account/1/project/2");
+    cache.put("project", "account/1/project/2", "before the write", generation);
+    Assert.assertNull(cache.get("project"));
+
+    cache.put("project", "account/1/project/2", "after the write", cache.getGeneration());
+    Assert.assertEquals("after the write", cache.get("project"));
+    cache.clear();
+    cache.put("project", "account/1/project/2", "before clear", generation + 1);
+    Assert.assertNull(cache.get("project"));
+  }
+
+  @Test
+  public void testResourceOf() {
+    Assert.assertEquals("goals", ResponseCache.resourceOf("account/1/project/2/goals"));
+    Assert.assertEquals("project", ResponseCache.resourceOf("account/1/project/2/"));
+    Assert.assertEquals("account", ResponseCache.resourceOf("account/-1"));
+    Assert.assertEquals("", ResponseCache.resourceOf("/"));
+  }
+}
@@ -0,0 +1,149 @@
+package de.blacktri.restapi.httpclient.circuit;
+
+import de.blacktri.restapi.httpclient.RemoteServiceException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class CircuitBreakerTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long SLOW = TimeUnit.SECONDS.toNanos(1);
+
+  @Test
+  public void testOpensAtFailureRateThreshold() {
+    CircuitBreakerRegistry registry = registry();
+    final List<String> transitions = new ArrayList<>();
+    registry.addListener((endpoint, from, to, metrics) -> transitions.add(endpoint + " " + from + " -> " + to));
+    CircuitBreaker circuitBreaker = registry.getCircuitBreaker("account/{id}");
+    Assert.assertSame(circuitBreaker, registry.getCircuitBreaker("account/{id}"));
+
+    // below the minimum number of calls, even a failure rate of 100% keeps the circuit closed
+    circuitBreaker.onResult(FAST, true);
+    circuitBreaker.onResult(FAST, true);
+    circuitBreaker.onResult(FAST, true);
+    Assert.assertEquals(CircuitState.CLOSED, circuitBreaker.getState());
+    circuitBreaker.onResult(FAST, false);
+    // 75% of 4 calls
+    Assert.assertEquals(CircuitState.OPEN, circuitBreaker.getState());
+    Assert.assertEquals(Arrays.asList("account/{id} CLOSED -> OPEN"), transitions);
+
+    Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+    Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+    CircuitBreakerMetrics metrics = circuitBreaker.getMetrics();
+    Assert.assertEquals(2, metrics.getNotPermittedCalls());
+    Assert.assertEquals(1, metrics.getTransitions());
+
+    // a call that started before the circuit opened is not recorded
+    circuitBreaker.onResult(FAST, false);
+    Assert.assertEquals(0, circuitBreaker.getMetrics().getBufferedCalls());
+  }
+
+  @Test
+  public void testStaysClosedBelowThresholds() {
+    CircuitBreakerRegistry registry = registry();
+    CircuitBreaker circuitBreaker = registry.getCircuitBreaker("account/{id}");
+    for (int i = 0; i < 20; i++) {
+      // one failure and one slow call in every four calls
+      circuitBreaker.onResult(i % 4 == 1 ? SLOW : FAST, i % 4 == 0);
+      Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+    Assert.assertEquals(CircuitState.CLOSED, circuitBreaker.getState());
+    Assert.assertEquals(4, circuitBreaker.getMetrics().getBufferedCalls());
+    Assert.assertEquals(25, circuitBreaker.getMetrics().getFailureRate(), 0);
+  }
+
+  @Test
+  public void testOpensAtSlowCallRateThreshold() {
+    CircuitBreakerRegistry registry = registry();
+    registry.setSlowCallRateThreshold(75);
+    CircuitBreaker circuitBreaker = registry.getCircuitBreaker("account/{id}");
+    circuitBreaker.onResult(SLOW, false);
+    circuitBreaker.onResult(SLOW, false);
+    circuitBreaker.onResult(FAST, false);
+    circuitBreaker.onResult(SLOW, false);
+    Assert.assertEquals(CircuitState.OPEN, circuitBreaker.getState());
+  }
+
+  @Test
+  public void testHalfOpenPermitsTrialCalls() throws InterruptedException {
+    CircuitBreakerRegistry registry = registry();
+    final List<CircuitState> states = new ArrayList<>();
+    registry.addListener((endpoint, from, to, metrics) -> states.add(to));
+    CircuitBreaker circuitBreaker = open(registry);
+
+    Thread.sleep(100);
+    Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    Assert.assertEquals(CircuitState.HALF_OPEN, circuitBreaker.getState());
+    Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+    circuitBreaker.onResult(FAST, false);
+    Assert.assertEquals(CircuitState.HALF_OPEN, circuitBreaker.getState());
+    circuitBreaker.onResult(FAST, true);
+    // one failure in two trial calls reaches the 50% threshold
+    Assert.assertEquals(CircuitState.OPEN, circuitBreaker.getState());
+    Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+
+    Thread.sleep(100);
+    Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    circuitBreaker.onResult(FAST, false);
+    circuitBreaker.onResult(FAST, false);
+    Assert.assertEquals(CircuitState.CLOSED, circuitBreaker.getState());
+    Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    Assert.assertEquals(Arrays.asList(CircuitState.OPEN, CircuitState.HALF_OPEN, CircuitState.OPEN, CircuitState.HALF_OPEN,
+            CircuitState.CLOSED), states);
+  }
+
+  @Test
+  public void testIgnoredCallReturnsPermit() throws InterruptedException {
+    CircuitBreaker circuitBreaker = open(registry());
+    Thread.sleep(100);
+    Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+
+    circuitBreaker.onIgnored();
+    Assert.assertTrue(circuitBreaker.tryAcquirePermission());
+    Assert.assertFalse(circuitBreaker.tryAcquirePermission());
+    Assert.assertEquals(CircuitState.HALF_OPEN, circuitBreaker.getState());
+  }
+
+  @Test
+  public void testClassifiesFailures() {
+    CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+    Assert.assertTrue(registry.isFailure(new RemoteServiceException("unavailable", 503, null)));
+    Assert.assertTrue(registry.isFailure(new RemoteServiceException("internal error", 500, null)));
+    Assert.assertFalse(registry.isFailure(new RemoteServiceException("not found", 404, null)));
+    Assert.assertFalse(registry.isFailure(new RemoteServiceException("too many requests", 429, null)));
+    Assert.assertTrue(registry.isFailure(new SocketTimeoutException()));
+    Assert.assertFalse(registry.isFailure(new IllegalStateException()));
+  }
+
+  /**
+   * Four calls, at least half failed or 80% slow, and two trial calls after 50 ms.
+   */
+  private static CircuitBreakerRegistry registry() {
+    CircuitBreakerRegistry registry = new CircuitBreakerRegistry();
+    registry.setSlidingWindowSize(4);
+    registry.setMinimumNumberOfCalls(4);
+    registry.setSlowCallDurationThreshold(100);
+    registry.setWaitDurationInOpenState(50);
+    registry.setPermittedCallsInHalfOpenState(2);
+    return registry;
+  }
+
+  private static CircuitBreaker open(CircuitBreakerRegistry registry) {
+    CircuitBreaker circuitBreaker = registry.getCircuitBreaker("account/{id}");
+    for (int i = 0; i < 4; i++) {
+      circuitBreaker.onResult(FAST, true);
+    }
+    Assert.assertEquals(CircuitState.OPEN, circuitBreaker.getState());
+    return circuitBreaker;
+  }
+}
@@ -0,0 +1,85 @@
+package de.blacktri.restapi.httpclient.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucketsAreContiguous() {
+    long expectedLowest = 0;
+    for (int i = 0; i < LatencyHistogram.BUCKETS; i++) {
+      Assert.assertEquals(i, LatencyHistogram.index(expectedLowest));
+      long highest = LatencyHistogram.highestValue(i);
+      Assert.assertEquals(i, LatencyHistogram.index(highest));
+      expectedLowest = highest + 1;
+    }
+    Assert.assertTrue(expectedLowest > LatencyHistogram.MAX_VALUE);
+  }
+
+  @Test
+  public void testPercentilesWithinRelativeError() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Random random = new Random(42);
+    long[] values = new long[100000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = (long) Math.exp(random.nextDouble() * 20);
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+    HistogramSnapshot snapshot = histogram.snapshot();
+    Assert.assertEquals(values.length, snapshot.getCount());
+    Assert.assertEquals(values[values.length - 1], snapshot.getMax());
+    for (double percentile : new double[]{1, 50, 90, 99, 99.9, 100}) {
+      long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+      long estimate = snapshot.getPercentile(percentile);
+      Assert.assertTrue(percentile + ": " + estimate + " < " + exact, estimate >= exact);
+      Assert.assertTrue(percentile + ": " + estimate + " > " + exact, estimate <= exact + Math.max(1, exact / 32));
+    }
+  }
+
+  @Test
+  public void testSince() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(10);
+    HistogramSnapshot first = histogram.snapshot();
+    histogram.record(1000);
+    histogram.record(2000);
+    HistogramSnapshot delta = histogram.snapshot().since(first);
+    Assert.assertEquals(2, delta.getCount());
+    Assert.assertEquals(1500, delta.getMean(), 0.001);
+    Assert.assertTrue(delta.getPercentile(1) >= 1000);
+  }
+
+  @Test
+  public void testEmptyAndOutOfRange() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    Assert.assertEquals(0, histogram.snapshot().getPercentile(99));
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+    HistogramSnapshot snapshot = histogram.snapshot();
+    Assert.assertEquals(0, snapshot.getPercentile(50));
+    Assert.assertEquals(LatencyHistogram.MAX_VALUE, snapshot.getPercentile(100));
+  }
+
+  @Test
+  public void testSnapshotAndResetStartsNewInterval() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(1000);
+    histogram.record(3000);
+    HistogramSnapshot first = histogram.snapshotAndReset();
+    Assert.assertEquals(2, first.getCount());
+    Assert.assertEquals(3000, first.getMax());
+    Assert.assertEquals(2000, first.getMean(), 0.0);
+
+    histogram.record(10);
+    HistogramSnapshot second = histogram.snapshotAndReset();
+    Assert.assertEquals(1, second.getCount());
+    Assert.assertEquals(10, second.getMax());
+    Assert.assertEquals(10, second.getPercentile(99));
+    Assert.assertEquals(0, histogram.snapshot().getCount());
+  }
+}
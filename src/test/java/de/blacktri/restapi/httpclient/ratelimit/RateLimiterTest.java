@@ -0,0 +1,91 @@
+package de.blacktri.restapi.httpclient.ratelimit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class RateLimiterTest {
+
+  @Test
+  public void testReservationsAreSpacedByRate() {
+    RateLimiter limiter = new RateLimiter();
+    limiter.setRate(100);
+    limiter.setBurst(1);
+    Assert.assertEquals(0, limiter.reserve("a"));
+    long last = 0;
+    for (int i = 1; i <= 10; i++) {
+      last = limiter.reserve("a");
+    }
+    // ten permits borrowed at 100 per second are due within 100 ms
+    Assert.assertTrue(last + " ns", last > TimeUnit.MILLISECONDS.toNanos(90) && last <= TimeUnit.MILLISECONDS.toNanos(100));
+    Assert.assertEquals(11, limiter.getWaitTime().getCount());
+  }
+
+  @Test
+  public void testRejectsBeyondMaxWait() {
+    RateLimiter limiter = new RateLimiter();
+    limiter.setRate(10);
+    limiter.setBurst(1);
+    limiter.setMaxWait(250);
+    int granted = 0;
+    try {
+      while (granted < 100) {
+        limiter.reserve("a");
+        granted++;
+      }
+      Assert.fail();
+    } catch (RateLimitExceededException e) {
+      Assert.assertNull(e.getTenant());
+    }
+    Assert.assertEquals(3, granted);
+    Assert.assertEquals(1, limiter.getRejectedCount());
+  }
+
+  @Test
+  public void testTenantLimitReleasesUnusedGlobalPermit() {
+    RateLimiter limiter = new RateLimiter();
+    limiter.setRate(1000);
+    limiter.setTenantRates(Collections.singletonMap("slow", 1.0));
+    limiter.setMaxWait(0);
+    limiter.reserve("slow");
+    try {
+      limiter.reserve("slow");
+      Assert.fail();
+    } catch (RateLimitExceededException e) {
+      Assert.assertEquals("slow", e.getTenant());
+    }
+    Assert.assertEquals(-1, limiter.getCurrentRate("other"), 0);
+    for (int i = 0; i < 999; i++) {
+      limiter.reserve("other");
+    }
+  }
+
+  @Test
+  public void testAdditiveIncreaseMultiplicativeDecrease() {
+    RateLimiter limiter = new RateLimiter();
+    limiter.setRate(100);
+    limiter.setTenantRate(10);
+    limiter.setAdditiveIncrease(10);
+    limiter.setDecreaseInterval(0);
+
+    limiter.onResponse("a", 503, 0);
+    Assert.assertEquals(50, limiter.getCurrentRate(), 0.001);
+    limiter.onResponse("a", 429, 0);
+    Assert.assertEquals(5, limiter.getCurrentRate("a"), 0.001);
+    Assert.assertEquals(50, limiter.getCurrentRate(), 0.001);
+
+    for (int i = 0; i < 10; i++) {
+      limiter.onResponse("a", 200, 0);
+    }
+    Assert.assertEquals(10, limiter.getCurrentRate("a"), 0.001);
+    Assert.assertTrue(limiter.getCurrentRate() > 51);
+    Assert.assertEquals(2, limiter.getThrottledCount());
+
+    limiter.setLatencyThreshold(1);
+    double before = limiter.getCurrentRate();
+    limiter.onResponse("a", 200, TimeUnit.MILLISECONDS.toNanos(2));
+    Assert.assertEquals(before / 2, limiter.getCurrentRate(), 0.001);
+  }
+}
@@ -0,0 +1,102 @@
+package de.blacktri.restapi.httpclient.retry;
+
+import de.blacktri.restapi.httpclient.RemoteServiceException;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+
+public class RetryPolicyTest {
+
+  @Test
+  public void testClassifiesFailures() {
+    RetryPolicy policy = new RetryPolicy();
+    for (int status : new int[]{408, 429, 502, 503, 504}) {
+      Assert.assertTrue(String.valueOf(status), policy.isRetryable(failure(status, null)));
+    }
+    for (int status : new int[]{400, 401, 404, 409, 500}) {
+      Assert.assertFalse(String.valueOf(status), policy.isRetryable(failure(status, null)));
+    }
+    Assert.assertTrue(policy.isRetryable(new NoHttpResponseException("closed")));
+    Assert.assertTrue(policy.isRetryable(new ConnectTimeoutException()));
+    Assert.assertTrue(policy.isRetryable(new SocketTimeoutException()));
+    Assert.assertTrue(policy.isRetryable(new ConnectException("refused")));
+    Assert.assertFalse(policy.isRetryable(new IOException("malformed response")));
+    Assert.assertFalse(policy.isRetryable(new IllegalStateException()));
+
+    policy.setRetryableStatusCodes(Collections.singleton(500));
+    Assert.assertTrue(policy.isRetryable(failure(500, null)));
+    Assert.assertFalse(policy.isRetryable(failure(503, null)));
+  }
+
+  @Test
+  public void testRetriesIdempotentCallsOnly() {
+    RetryPolicy policy = new RetryPolicy();
+    Exception unavailable = failure(503, null);
+    Assert.assertTrue(policy.getRetryDelay(HttpMethod.GET, null, 1, unavailable) >= 0);
+    Assert.assertTrue(policy.getRetryDelay(HttpMethod.PUT, null, 1, unavailable) >= 0);
+    Assert.assertTrue(policy.getRetryDelay(HttpMethod.DELETE, null, 1, unavailable) >= 0);
+    Assert.assertEquals(-1, policy.getRetryDelay(HttpMethod.POST, null, 1, unavailable));
+    // the explicit flag wins over the method
+    Assert.assertTrue(policy.getRetryDelay(HttpMethod.POST, true, 1, unavailable) >= 0);
+    Assert.assertEquals(-1, policy.getRetryDelay(HttpMethod.PUT, false, 1, unavailable));
+
+    Assert.assertTrue(policy.getRetryDelay(HttpMethod.GET, null, 2, unavailable) >= 0);
+    Assert.assertEquals(-1, policy.getRetryDelay(HttpMethod.GET, null, 3, unavailable));
+    Assert.assertEquals(-1, policy.getRetryDelay(HttpMethod.GET, null, 1, failure(404, null)));
+    Assert.assertEquals(5, policy.getRetryCount());
+  }
+
+  @Test
+  public void testBackoffAndRetryAfterAreCappedByMaxDelay() {
+    RetryPolicy policy = new RetryPolicy();
+    policy.setBaseDelay(100);
+    policy.setMaxDelay(1000);
+    policy.setMaxAttempts(100);
+    policy.getRetryBudget().setMaxRetries(1000);
+    for (int i = 0; i < 100; i++) {
+      Assert.assertTrue(policy.getBackoff(1) <= 100);
+      Assert.assertTrue(policy.getBackoff(3) <= 400);
+      Assert.assertTrue(policy.getBackoff(64) <= 1000);
+    }
+    Assert.assertEquals(1000, policy.getRetryDelay(HttpMethod.GET, null, 1, failure(503, "3600")));
+    long delay = policy.getRetryDelay(HttpMethod.GET, null, 1, failure(429, "Wed, 21 Oct 2015 07:28:00 GMT"));
+    Assert.assertTrue(delay >= 0 && delay <= 100);
+
+    policy.setMaxDelay(5000);
+    Assert.assertEquals(2000, policy.getRetryDelay(HttpMethod.GET, null, 1, failure(429, " 2 ")));
+  }
+
+  @Test
+  public void testBudgetExhaustion() throws InterruptedException {
+    RetryPolicy policy = new RetryPolicy();
+    RetryBudget budget = new RetryBudget();
+    budget.setMaxRetries(2);
+    budget.setWindow(200);
+    policy.setRetryBudget(budget);
+    Exception unavailable = failure(503, null);
+
+    Assert.assertTrue(policy.getRetryDelay(HttpMethod.GET, null, 1, unavailable) >= 0);
+    Assert.assertTrue(policy.getRetryDelay(HttpMethod.GET, null, 1, unavailable) >= 0);
+    Assert.assertEquals(0, budget.getRemaining());
+    Assert.assertEquals(-1, policy.getRetryDelay(HttpMethod.GET, null, 1, unavailable));
+    // calls that are not retried anyway do not count as rejected by the budget
+    Assert.assertEquals(-1, policy.getRetryDelay(HttpMethod.POST, null, 1, unavailable));
+    Assert.assertEquals(2, policy.getRetryCount());
+    Assert.assertEquals(1, policy.getBudgetRejectionCount());
+
+    Thread.sleep(250);
+    Assert.assertEquals(2, budget.getRemaining());
+    Assert.assertTrue(policy.getRetryDelay(HttpMethod.GET, null, 1, unavailable) >= 0);
+  }
+
+  private static RemoteServiceException failure(int status, String retryAfter) {
+    return new RemoteServiceException("status " + status, status, retryAfter);
+  }
+}
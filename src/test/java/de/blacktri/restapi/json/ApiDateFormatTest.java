@@ -0,0 +1,130 @@
+package de.blacktri.restapi.json;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ApiDateFormatTest {
+
+  private static final String[] ZONES = {"UTC", "Europe/Berlin", "America/New_York", "Australia/Lord_Howe"};
+
+  @Test
+  public void testParseAndFormatLikeSimpleDateFormat() throws Exception {
+    for (String zone : ZONES) {
+      ApiDateFormat format = new ApiDateFormat(ZoneId.of(zone));
+      DateFormat reference = referenceFormat(zone);
+      Random random = new Random(zone.hashCode());
+      for (int i = 0; i < 100000; i++) {
+        long epochMilli = randomSecond(random);
+        String text = reference.format(epochMilli);
+        Assert.assertEquals(zone, text, format.format(epochMilli));
+        Assert.assertEquals(zone + " " + text, reference.parse(text).getTime(), format.parse(text));
+      }
+    }
+  }
+
+  @Test
+  public void testLenientAndDaylightSavingTimes() throws Exception {
+    String[] texts = {"2015-13-01 00:00:00", "2015-02-30 25:61:61", "2015-00-00 00:00:00", "2016-02-29 12:00:00",
+            "2015-01-01 00:00:00.123", "2015-03-29 02:30:00", "2015-10-25 02:30:00", "2015-03-08 02:30:00",
+            "2015-11-01 01:30:00"};
+    for (String zone : ZONES) {
+      ApiDateFormat format = new ApiDateFormat(ZoneId.of(zone));
+      DateFormat reference = referenceFormat(zone);
+      for (String text : texts) {
+        Assert.assertEquals(zone + " " + text, reference.parse(text).getTime(), format.parse(text));
+        char[] buffer = ("[\"" + text + "\"]").toCharArray();
+        Assert.assertEquals(zone + " " + text, format.parse(text), format.parse(buffer, 2, text.length()));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseRejectsOtherFormats() {
+    ApiDateFormat.getDefault().parse("2015-01-01T00:00:00");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseRejectsShortInput() {
+    ApiDateFormat.getDefault().parse("2015-01-01".toCharArray(), 0, 10);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testDateFormatViewIsImmutable() {
+    ApiDateFormat.getDefault().toDateFormat().setTimeZone(TimeZone.getTimeZone("UTC"));
+  }
+
+  /**
+   * Parses and formats with one shared codec and one shared {@link DateFormat} view from many threads at once and
+   * compares every result with a thread-confined {@code SimpleDateFormat}.
+   */
+  @Test
+  public void testConcurrentUse() throws Exception {
+    final String zone = "Europe/Berlin";
+    final ApiDateFormat format = new ApiDateFormat(ZoneId.of(zone));
+    final DateFormat sharedView = format.toDateFormat();
+    int threads = 16;
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        final long seed = t;
+        results.add(executor.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() throws Exception {
+            DateFormat reference = referenceFormat(zone);
+            Random random = new Random(seed);
+            start.await();
+            int checked = 0;
+            for (int i = 0; i < 20000; i++) {
+              long epochMilli = randomSecond(random);
+              String text = reference.format(epochMilli);
+              // not epochMilli, an hour that is repeated when daylight saving time ends is read as standard time
+              long parsed = reference.parse(text).getTime();
+              Assert.assertEquals(text, format.format(epochMilli));
+              Assert.assertEquals(text, sharedView.format(epochMilli));
+              Assert.assertEquals(text, parsed, format.parse(text));
+              Assert.assertEquals(text, parsed, sharedView.parse(text).getTime());
+              checked++;
+            }
+            return checked;
+          }
+        }));
+      }
+      start.countDown();
+      for (Future<Integer> result : results) {
+        Assert.assertEquals(20000, result.get().intValue());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static DateFormat referenceFormat(String zone) {
+    DateFormat reference = new SimpleDateFormat(ApiDateFormat.PATTERN);
+    reference.setTimeZone(TimeZone.getTimeZone(zone));
+    return reference;
+  }
+
+  /**
+   * A whole second between 1900 and 2100, where both calendars agree on dates and zone offsets.
+   */
+  private static long randomSecond(Random random) {
+    long from = -2208988800L;
+    long to = 4102444800L;
+    return (from + (long) (random.nextDouble() * (to - from))) * 1000L;
+  }
+}
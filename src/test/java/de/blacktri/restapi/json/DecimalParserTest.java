@@ -0,0 +1,72 @@
+package de.blacktri.restapi.json;
+
+import de.blacktri.restapi.httpclient.JsonCodec;
+import de.blacktri.restapi.pojos.DataSet;
+import org.codehaus.jackson.type.TypeReference;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+public class DecimalParserTest {
+
+  @Test
+  public void testParseFastLikeParseDouble() {
+    Random random = new Random(42);
+    for (int i = 0; i < 200000; i++) {
+      String text = i % 2 == 0 ? Float.toString(random.nextFloat()) : Double.toString(random.nextGaussian() * 1000);
+      double fast = DecimalParser.parseFast(text.toCharArray(), 0, text.length());
+      if (!Double.isNaN(fast)) {
+        Assert.assertEquals(text, Double.parseDouble(text), fast, 0);
+      }
+    }
+    Assert.assertTrue(Double.isNaN(DecimalParser.parseFast("-".toCharArray(), 0, 1)));
+    Assert.assertTrue(Double.isNaN(DecimalParser.parseFast(".".toCharArray(), 0, 1)));
+    Assert.assertTrue(Double.isNaN(DecimalParser.parseFast("e5".toCharArray(), 0, 2)));
+  }
+
+  @Test
+  public void testParseList() {
+    Assert.assertArrayEquals(new double[]{0.1, 2, -3e-4, 12345678901234567890d},
+            DecimalParser.parseList("0.1,2, -3e-4 ,12345678901234567890"), 0);
+    Assert.assertArrayEquals(new double[]{1, 2, 3}, DecimalParser.parseList("[1; \"2\"\n3]"), 0);
+    Assert.assertEquals(0, DecimalParser.parseList(null).length);
+    Assert.assertEquals(0, DecimalParser.parseList(" [ ] ").length);
+
+    double[] withGaps = DecimalParser.parseList("1,null,NaN,x");
+    Assert.assertEquals(4, withGaps.length);
+    Assert.assertEquals(1, withGaps[0], 0);
+    Assert.assertTrue(Double.isNaN(withGaps[1]) && Double.isNaN(withGaps[2]) && Double.isNaN(withGaps[3]));
+
+    PrimitiveIterator.OfDouble iterator = DecimalParser.iterator("4, 5");
+    Assert.assertEquals(4, iterator.nextDouble(), 0);
+    Assert.assertEquals(5, iterator.nextDouble(), 0);
+    Assert.assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void testDataSetValues() throws Exception {
+    JsonCodec codec = new JsonCodec(ApiDateFormat.getDefault());
+    byte[] json = "{\"name\":\"A\",\"impressions\":3,\"conversions\":1,\"aggregatedcr\":0.5,\"values\":\"1,2.5,3\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    DataSet dataSet = codec.read(new ByteArrayInputStream(json), new TypeReference<DataSet>() {
+    });
+    Assert.assertEquals(3, dataSet.getValueCount());
+    Assert.assertEquals(2.5, dataSet.getValue(1), 0);
+    Assert.assertArrayEquals(new double[]{1, 2.5, 3}, dataSet.getValuesAsDoubles(), 0);
+    Assert.assertArrayEquals(new int[]{1, 2, 3}, dataSet.getValuesAsInts());
+    double sum = 0;
+    for (PrimitiveIterator.OfDouble values = dataSet.valuesIterator(); values.hasNext(); ) {
+      sum += values.nextDouble();
+    }
+    Assert.assertEquals(6.5, sum, 0);
+
+    // the decoded views are not part of the JSON, e.g. of crawled snapshots
+    String written = codec.writeAsString(dataSet);
+    Assert.assertFalse(written, written.contains("valueCount") || written.contains("valuesAs")
+            || written.contains("decodedValues"));
+  }
+}
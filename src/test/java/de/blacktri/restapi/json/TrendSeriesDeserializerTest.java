@@ -0,0 +1,122 @@
+package de.blacktri.restapi.json;
+
+import de.blacktri.restapi.ABTest;
+import de.blacktri.restapi.httpclient.ABTestingRestConnector;
+import de.blacktri.restapi.httpclient.JsonCodec;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.Project;
+import de.blacktri.restapi.pojos.Trend;
+import de.blacktri.restapi.pojos.TrendSeries;
+import de.blacktri.restapi.simulator.ApiSimulator;
+import org.codehaus.jackson.type.TypeReference;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+public class TrendSeriesDeserializerTest {
+
+  @Test
+  public void testReadsColumns() throws IOException {
+    ApiDateFormat format = ApiDateFormat.getDefault();
+    long noon = LocalDate.of(2015, 6, 30).atTime(12, 0).atZone(format.getZone()).toInstant().toEpochMilli();
+    String json = "{\"" + format.format(noon) + "\":{"
+            + "\"7\":{\"name\":\"Original\",\"impressions\":10,\"conversions\":1,\"aggregatedcr\":0.1,\"unknown\":[1]},"
+            + "\"8\":{\"name\":\"Variant\",\"impressions\":20,\"conversions\":4,\"aggregatedcr\":0.2}},"
+            + "\"" + format.format(noon + TimeUnit.DAYS.toMillis(1)) + "\":{"
+            + "\"8\":{\"name\":\"Renamed\",\"impressions\":30,\"conversions\":\"6\",\"aggregatedcr\":\"0.2\"}}}";
+
+    TrendSeries series = read(json);
+    Assert.assertEquals(2, series.size());
+    Assert.assertEquals(LocalDate.of(2015, 6, 30), series.getDate(0));
+    Assert.assertEquals(LocalDate.of(2015, 7, 1), series.getDate(1));
+    int original = series.indexOf("7");
+    int variant = series.indexOf("8");
+    Assert.assertEquals("Original", series.getExperimentName(original));
+    // the name is taken from the first day a decision appears
+    Assert.assertEquals("Variant", series.getExperimentName(variant));
+    Assert.assertArrayEquals(new int[]{10, 0}, series.getImpressions(original));
+    Assert.assertArrayEquals(new int[]{20, 30}, series.getImpressions(variant));
+    Assert.assertArrayEquals(new int[]{4, 6}, series.getConversions(variant));
+    Assert.assertArrayEquals(new float[]{0.2f, 0.2f}, series.getAggregatedcr(variant), 0f);
+  }
+
+  @Test
+  public void testSortsDaysOfUnorderedResponse() throws IOException {
+    ApiDateFormat format = ApiDateFormat.getDefault();
+    long noon = LocalDate.of(2015, 6, 30).atTime(12, 0).atZone(format.getZone()).toInstant().toEpochMilli();
+    long day = TimeUnit.DAYS.toMillis(1);
+    String json = "{\"" + format.format(noon + 2 * day) + "\":{\"7\":{\"impressions\":3,\"conversions\":1,\"aggregatedcr\":0.3}},"
+            + "\"" + format.format(noon) + "\":{\"7\":{\"impressions\":1},\"8\":{\"impressions\":10}},"
+            + "\"" + format.format(noon + 3 * day) + "\":{\"7\":{\"impressions\":4}},"
+            + "\"" + format.format(noon + day) + "\":{\"7\":{\"impressions\":0}},"
+            // the same day again, the later entry wins
+            + "\"" + format.format(noon + day + 1000) + "\":{\"7\":{\"impressions\":2}}}";
+
+    TrendSeries series = read(json);
+    int first = (int) LocalDate.of(2015, 6, 30).toEpochDay();
+    Assert.assertArrayEquals(new int[]{first, first + 1, first + 2, first + 3}, series.getEpochDays());
+    int original = series.indexOf("7");
+    int variant = series.indexOf("8");
+    Assert.assertArrayEquals(new int[]{1, 2, 3, 4}, series.getImpressions(original));
+    Assert.assertArrayEquals(new int[]{0, 0, 1, 0}, series.getConversions(original));
+    Assert.assertArrayEquals(new float[]{0, 0, 0.3f, 0}, series.getAggregatedcr(original), 0f);
+    Assert.assertArrayEquals(new int[]{10, 0, 0, 0}, series.getImpressions(variant));
+
+    TrendSeries middle = series.between(first + 1, first + 2);
+    Assert.assertArrayEquals(new int[]{first + 1, first + 2}, middle.getEpochDays());
+    Assert.assertArrayEquals(new int[]{2, 3}, middle.getImpressions(original));
+  }
+
+  @Test
+  public void testReadsEmptyTrend() throws IOException {
+    Assert.assertEquals(0, read("{}").size());
+  }
+
+  @Test
+  public void testSameAsTrend() throws IOException {
+    try (ApiSimulator simulator = new ApiSimulator()) {
+      simulator.getStore().addClient("key", "secret");
+      ABTestingRestConnector connector = new ABTestingRestConnector();
+      connector.setServiceEndpoint(simulator.getServiceEndpoint());
+      try {
+        ABTest test = new ABTest("key", "secret", connector);
+        int clientId = test.loginClient();
+        int projectId = test.createProject(clientId, new Project(Project.ProjectType.VISUAL, "http://localhost/", "*", "Trend"));
+        test.createDecision(clientId, projectId, new Decision("Variant A"));
+        test.createDecision(clientId, projectId, new Decision("Variant B"));
+
+        Trend trend = test.getTrend(clientId, projectId, null, 365, -1);
+        TrendSeries series = test.getTrendSeries(clientId, projectId, null, 365, -1);
+        Assert.assertEquals(365, series.size());
+        Assert.assertEquals(3, series.getExperimentCount());
+        for (int day = 0; day < series.size(); day++) {
+          Trend.TrendEntry entry = trend.getTrend().get(day);
+          LocalDate date = Instant.ofEpochMilli(entry.getDay().getTimeInMillis()).atZone(ZoneId.systemDefault()).toLocalDate();
+          Assert.assertEquals(date, series.getDate(day));
+          for (Trend.Experiment experiment : entry.getExperiments()) {
+            int index = series.indexOf(experiment.getId());
+            Assert.assertEquals(experiment.getDataSet().getName(), series.getExperimentName(index));
+            Assert.assertEquals(experiment.getDataSet().getImpressions(), series.getImpressions(index, day));
+            Assert.assertEquals(experiment.getDataSet().getConversions(), series.getConversions(index, day));
+            Assert.assertEquals(experiment.getDataSet().getAggregatedcr(), series.getAggregatedcr(index, day), 0f);
+          }
+        }
+      } finally {
+        connector.close();
+      }
+    }
+  }
+
+  private static TrendSeries read(String json) throws IOException {
+    JsonCodec codec = new JsonCodec(ApiDateFormat.getDefault());
+    return codec.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), new TypeReference<TrendSeries>() {
+    });
+  }
+}
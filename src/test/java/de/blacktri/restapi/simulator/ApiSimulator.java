@@ -0,0 +1,349 @@
+package de.blacktri.restapi.simulator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-process HTTP server that behaves like the BlackTri API, for tests and benchmarks that must not depend on
+ * the network.
+ * <p/>
+ * It serves all routes used by {@link de.blacktri.restapi.ABTest} from a {@link SimulatorStore}, checks the basic
+ * authentication of every request and answers like the API: {@code 401} for unknown credentials, {@code 404} for
+ * unknown resources and {@code 204 No Content} for empty lists. Responses carry an {@code ETag} and honour
+ * {@code If-None-Match}; bodies of at least 1 KB are gzipped, or deflated if the client only accepts that, and
+ * gzipped request bodies are understood.
+ * <p/>
+ * Faults can be injected to exercise retries, circuit breakers and rate limiting:
+ * <ul>
+ * <li>{@link #setLatency(long, long)} delays every answer,</li>
+ * <li>{@link #setErrorRate(double, int)} and {@link #failNext(int, int)} answer with an error status,</li>
+ * <li>{@link #setThrottleRate(double)} answers {@code 429 Too Many Requests} with a {@code Retry-After} header
+ * once an API key exceeds the given number of requests per second.</li>
+ * </ul>
+ * <pre>
+ * try (ApiSimulator simulator = new ApiSimulator()) {
+ *   int clientId = simulator.getStore().addClient("key", "secret");
+ *   connector.setServiceEndpoint(simulator.getServiceEndpoint());
+ *   ...
+ * }
+ * </pre>
+ */
+public class ApiSimulator implements AutoCloseable {
+
+  static {
+    // without TCP_NODELAY, every small response waits for the delayed ACK of the client on loopback
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+      System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+  }
+
+  private static final int GZIP_THRESHOLD = 1024;
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final SimulatorStore store = new SimulatorStore();
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private volatile long minLatency;
+  private volatile long maxLatency;
+  private volatile double errorRate;
+  private volatile int errorStatus = 503;
+  private final AtomicInteger failNext = new AtomicInteger();
+  private volatile int failNextStatus = 503;
+  private volatile double throttleRate;
+  private final ConcurrentMap<String, Window> throttleWindows = new ConcurrentHashMap<>();
+
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong injectedFaults = new AtomicLong();
+
+  public ApiSimulator() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  public SimulatorStore getStore() {
+    return store;
+  }
+
+  public String getServiceEndpoint() {
+    return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1/";
+  }
+
+  /**
+   * Delays every answer by a random time between the given bounds.
+   */
+  public void setLatency(long minMillis, long maxMillis) {
+    this.minLatency = minMillis;
+    this.maxLatency = Math.max(minMillis, maxMillis);
+  }
+
+  /**
+   * Answers the given share of requests, between 0 and 1, with the given status.
+   */
+  public void setErrorRate(double errorRate, int status) {
+    this.errorRate = errorRate;
+    this.errorStatus = status;
+  }
+
+  /**
+   * Answers the next {@code count} requests with the given status.
+   */
+  public void failNext(int count, int status) {
+    failNextStatus = status;
+    failNext.set(count);
+  }
+
+  /**
+   * Maximum requests per second and API key, 0 for no limit.
+   */
+  public void setThrottleRate(double requestsPerSecond) {
+    this.throttleRate = requestsPerSecond;
+    throttleWindows.clear();
+  }
+
+  /**
+   * Removes latency, errors and throttling.
+   */
+  public void resetFaults() {
+    setLatency(0, 0);
+    setErrorRate(0, 503);
+    failNext(0, 503);
+    setThrottleRate(0);
+  }
+
+  public long getRequestCount() {
+    return requests.get();
+  }
+
+  /**
+   * Number of requests answered with an injected error or {@code 429}.
+   */
+  public long getInjectedFaultCount() {
+    return injectedFaults.get();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      requests.incrementAndGet();
+      delay();
+      String[] credentials = credentials(exchange);
+      Integer fault = fault(credentials != null ? credentials[0] : "");
+      if (fault != null) {
+        injectedFaults.incrementAndGet();
+        // the server closes the connection of an exchange whose request body was not read, so a client reusing it
+        // would see a reset instead of the next answer
+        drain(exchange.getRequestBody());
+        if (fault == 429) {
+          exchange.getResponseHeaders().set("Retry-After", "1");
+        }
+        exchange.sendResponseHeaders(fault, -1);
+        return;
+      }
+
+      String method = exchange.getRequestMethod();
+      List<String> segments = segments(exchange.getRequestURI().getRawPath());
+      Map<String, Object> body;
+      try {
+        body = readBody(exchange);
+      } catch (IOException e) {
+        exchange.sendResponseHeaders(400, -1);
+        return;
+      }
+      SimulatorStore.Response response;
+      Integer caller = credentials != null ? store.authenticate(credentials[0], credentials[1]) : null;
+      if (segments.size() == 1 && "login".equals(segments.get(0)) && "POST".equals(method)) {
+        response = store.login(body);
+      } else if (caller == null) {
+        response = SimulatorStore.Response.status(401);
+      } else {
+        response = store.handle(caller, method, segments, query(exchange.getRequestURI().getRawQuery()), body);
+      }
+      write(exchange, response);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void delay() {
+    long max = maxLatency;
+    if (max <= 0) {
+      return;
+    }
+    long min = minLatency;
+    long latency = min == max ? min : ThreadLocalRandom.current().nextLong(min, max + 1);
+    try {
+      Thread.sleep(latency);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * @return the status of an injected fault, {@code null} to answer the request
+   */
+  private Integer fault(String apiKey) {
+    double rate = throttleRate;
+    if (rate > 0) {
+      Window window = throttleWindows.computeIfAbsent(apiKey, key -> new Window());
+      if (!window.tryAcquire(rate)) {
+        return 429;
+      }
+    }
+    if (failNext.get() > 0 && failNext.getAndDecrement() > 0) {
+      return failNextStatus;
+    }
+    if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+      return errorStatus;
+    }
+    return null;
+  }
+
+  private static String[] credentials(HttpExchange exchange) {
+    String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+    if (authorization == null || !authorization.startsWith("Basic ")) {
+      return null;
+    }
+    String decoded = new String(Base64.getDecoder().decode(authorization.substring(6).trim()), StandardCharsets.UTF_8);
+    int colon = decoded.indexOf(':');
+    return colon < 0 ? null : new String[]{decoded.substring(0, colon), decoded.substring(colon + 1)};
+  }
+
+  private static List<String> segments(String path) throws IOException {
+    String prefix = "/api/v1/";
+    List<String> segments = new ArrayList<>();
+    if (!path.startsWith(prefix)) {
+      return segments;
+    }
+    for (String segment : path.substring(prefix.length()).split("/")) {
+      if (!segment.isEmpty()) {
+        segments.add(URLDecoder.decode(segment, "UTF-8"));
+      }
+    }
+    return segments;
+  }
+
+  private static Map<String, String> query(String rawQuery) throws IOException {
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<String, String> query = new LinkedHashMap<>();
+    for (String parameter : rawQuery.split("&")) {
+      int equals = parameter.indexOf('=');
+      if (equals > 0) {
+        query.put(URLDecoder.decode(parameter.substring(0, equals), "UTF-8"), URLDecoder.decode(parameter.substring(equals + 1), "UTF-8"));
+      }
+    }
+    return query;
+  }
+
+  private static void drain(InputStream in) throws IOException {
+    byte[] buffer = new byte[4096];
+    while (in.read(buffer) > 0) {
+      // discarded
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+    InputStream in = exchange.getRequestBody();
+    if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+      in = new GZIPInputStream(in);
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    for (int read; (read = in.read(buffer)) > 0; ) {
+      bytes.write(buffer, 0, read);
+    }
+    if (bytes.size() == 0) {
+      return new LinkedHashMap<>();
+    }
+    return mapper.readValue(bytes.toByteArray(), LinkedHashMap.class);
+  }
+
+  private void write(HttpExchange exchange, SimulatorStore.Response response) throws IOException {
+    if (response.body == null) {
+      exchange.sendResponseHeaders(response.status, -1);
+      return;
+    }
+    byte[] body = mapper.writeValueAsBytes(response.body);
+    CRC32 crc = new CRC32();
+    crc.update(body);
+    String etag = "\"" + Long.toHexString(crc.getValue()) + "-" + body.length + "\"";
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.getResponseHeaders().set("ETag", etag);
+    if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+      exchange.sendResponseHeaders(304, -1);
+      return;
+    }
+    String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+    if (body.length >= GZIP_THRESHOLD && acceptEncoding != null) {
+      String encoding = acceptEncoding.contains("gzip") ? "gzip" : acceptEncoding.contains("deflate") ? "deflate" : null;
+      if (encoding != null) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (OutputStream out = "gzip".equals(encoding) ? new GZIPOutputStream(compressed) : new DeflaterOutputStream(compressed)) {
+          out.write(body);
+        }
+        body = compressed.toByteArray();
+        exchange.getResponseHeaders().set("Content-Encoding", encoding);
+      }
+    }
+    exchange.sendResponseHeaders(response.status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Requests of one API key in the current second.
+   */
+  private static final class Window {
+
+    private long second;
+    private int count;
+
+    synchronized boolean tryAcquire(double rate) {
+      long now = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+      if (now != second) {
+        second = now;
+        count = 0;
+      }
+      return ++count <= rate;
+    }
+  }
+}
@@ -0,0 +1,403 @@
+package de.blacktri.restapi.simulator;
+
+import de.blacktri.restapi.json.ApiDateFormat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory resources of an {@link ApiSimulator}.
+ * <p/>
+ * Every resource is a JSON object kept as a map with exactly the properties of its pojo, with its sub resources by type, e.g. the {@code decision}s and
+ * {@code decisiongroup}s of a {@code project}. A path like {@code account/7/project/12/decisiongroup/13/decisions}
+ * is resolved by walking these resources, so one set of generic operations serves all routes of the API:
+ * reading, updating and deleting a resource, listing and creating its sub resources, and the
+ * {@code start}/{@code stop}/{@code restart} actions. Ids are unique across all resources.
+ * <p/>
+ * Access is synchronized on the store; it is a test fixture, not a database.
+ */
+public class SimulatorStore {
+
+  private static final List<String> CHILD_TYPES = Arrays.asList("project", "rule", "decisiongroup", "decision", "goal", "condition");
+
+  private final Map<Integer, Resource> accounts = new LinkedHashMap<>();
+  private int nextId = 1000;
+
+  /**
+   * @return the id of the new client account
+   */
+  public synchronized int addClient(String apiKey, String apiSecret) {
+    return addAccount(apiKey, apiSecret, "api-client", 0);
+  }
+
+  /**
+   * @return the id of the new client account, which the given tenant can access as well
+   */
+  public synchronized int addClient(int tenantId, String apiKey, String apiSecret) {
+    return addAccount(apiKey, apiSecret, "api-client", tenantId);
+  }
+
+  /**
+   * @return the id of the new tenant account
+   */
+  public synchronized int addTenant(String apiKey, String apiSecret) {
+    return addAccount(apiKey, apiSecret, "api-tenant", 0);
+  }
+
+  private int addAccount(String apiKey, String apiSecret, String userType, int tenantId) {
+    Resource account = new Resource(null, "account", nextId++);
+    account.fields.put("apikey", apiKey);
+    account.fields.put("apisecret", apiSecret);
+    account.userType = userType;
+    account.tenantId = tenantId;
+    account.fields.put("status", "ACTIVE");
+    account.fields.put("createddate", ApiDateFormat.getDefault().format(System.currentTimeMillis()));
+    account.fields.put("quota", 100000);
+    account.fields.put("usedquota", 0);
+    accounts.put(account.id, account);
+    return account.id;
+  }
+
+  /**
+   * @return the account with these credentials, {@code null} if there is none
+   */
+  synchronized Integer authenticate(String apiKey, String apiSecret) {
+    for (Resource account : accounts.values()) {
+      if (account.fields.get("apikey").equals(apiKey) && account.fields.get("apisecret").equals(apiSecret)) {
+        return account.id;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Handles {@code POST login}.
+   */
+  synchronized Response login(Map<String, Object> body) {
+    Integer accountId = authenticate(String.valueOf(body.get("apikey")), String.valueOf(body.get("apisecret")));
+    if (accountId == null || !accounts.get(accountId).userType.equals(body.get("usertype"))) {
+      return Response.status(401);
+    }
+    return Response.ok(accountId);
+  }
+
+  /**
+   * Handles a request below {@code account/}.
+   *
+   * @param caller   the authenticated account
+   * @param segments the path below the service endpoint, starting with {@code account}
+   */
+  synchronized Response handle(int caller, String method, List<String> segments, Map<String, String> query, Map<String, Object> body) {
+    if (segments.size() < 2 || !"account".equals(segments.get(0)) || !isId(segments.get(1))) {
+      return Response.status(404);
+    }
+    Resource account = accounts.get(Integer.parseInt(segments.get(1)));
+    if (account == null) {
+      return Response.status(404);
+    }
+    if (account.id != caller && account.tenantId != caller) {
+      return Response.status(403);
+    }
+    Resource resource = account;
+    int i = 2;
+    while (i + 1 < segments.size() && CHILD_TYPES.contains(segments.get(i)) && isId(segments.get(i + 1))) {
+      resource = child(resource, segments.get(i), Integer.parseInt(segments.get(i + 1)));
+      if (resource == null) {
+        return Response.status(404);
+      }
+      i += 2;
+    }
+    List<String> rest = segments.subList(i, segments.size());
+    String action = String.join("/", rest);
+
+    if (rest.isEmpty()) {
+      switch (method) {
+        case "GET":
+          return Response.ok(new LinkedHashMap<>(resource.fields));
+        case "PUT":
+          if (resource.parent == null) {
+            return Response.status(405);
+          }
+          body.remove("id");
+          resource.fields.putAll(body);
+          return Response.status(204);
+        case "DELETE":
+          if (resource.parent == null) {
+            return Response.status(405);
+          }
+          resource.parent.children.get(resource.type).remove(resource.id);
+          return Response.status(204);
+        default:
+          return Response.status(405);
+      }
+    }
+    if ("GET".equals(method) && action.endsWith("s") && CHILD_TYPES.contains(action.substring(0, action.length() - 1))) {
+      return list(account, resource, action.substring(0, action.length() - 1), query);
+    }
+    if ("POST".equals(method) && CHILD_TYPES.contains(action)) {
+      return Response.ok(create(resource, action, body).id);
+    }
+    if ("POST".equals(method) && ("project".equals(resource.type) || "decisiongroup".equals(resource.type))) {
+      switch (action) {
+        case "start":
+          resource.fields.put("status", "RUNNING");
+          if (!resource.fields.containsKey("startdate")) {
+            resource.fields.put("startdate", now());
+          }
+          return Response.ok(true);
+        case "stop":
+          resource.fields.put("status", "PAUSED");
+          return Response.ok(true);
+        case "restart":
+          resource.fields.put("status", "RUNNING");
+          resource.fields.put("restartdate", now());
+          return Response.ok(true);
+        case "autopilot/start":
+          resource.fields.put("autopilot", "RUNNING");
+          return Response.ok(true);
+        case "autopilot/stop":
+          resource.fields.put("autopilot", "PAUSED");
+          return Response.ok(true);
+        default:
+          break;
+      }
+    }
+    if ("GET".equals(method) && "trend".equals(action) && "project".equals(resource.type)) {
+      return trend(resource, query);
+    }
+    return Response.status(404);
+  }
+
+  /**
+   * A tenant reaches the projects of its clients through its own account as well.
+   */
+  private Resource child(Resource resource, String type, int id) {
+    Resource child = resource.child(type, id);
+    if (child == null && resource.parent == null && "api-tenant".equals(resource.userType)) {
+      for (Resource client : accounts.values()) {
+        if (client.tenantId == resource.id && client.child(type, id) != null) {
+          return client.child(type, id);
+        }
+      }
+    }
+    return child;
+  }
+
+  private Resource create(Resource parent, String type, Map<String, Object> body) {
+    Resource resource = new Resource(parent, type, nextId++);
+    resource.fields.putAll(body);
+    switch (type) {
+      case "project":
+        resource.fields.put("createddate", now());
+        resource.fields.put("status", "PAUSED");
+        resource.fields.put("autopilot", "PAUSED");
+        resource.fields.put("result", "NONE");
+        resource.fields.put("visitors", 0);
+        resource.fields.put("conversions", 0);
+        resource.fields.put("conversionrate", 0.0);
+        resource.fields.put("remainingdays", -1);
+        // every project starts with its original
+        Map<String, Object> original = new HashMap<>();
+        original.put("name", "Original");
+        original.put("type", "CONTROL");
+        original.put("url", body.get("mainurl"));
+        resource.fields.put("originalid", create(resource, "decision", original).id);
+        break;
+      case "decisiongroup":
+        resource.fields.put("createddate", now());
+        resource.fields.put("status", "PAUSED");
+        resource.fields.put("result", "NONE");
+        break;
+      case "decision":
+        if (!resource.fields.containsKey("type")) {
+          resource.fields.put("type", "VARIANT");
+        }
+        resource.fields.put("result", "NONE");
+        resource.fields.put("visitors", 0);
+        resource.fields.put("conversions", 0);
+        break;
+      default:
+        break;
+    }
+    return resource;
+  }
+
+  /**
+   * Lists sub resources; for a tenant the projects of its clients are included. Supports the {@code sort} and
+   * {@code fields} parameters and filters on any other parameter, e.g. {@code status=RUNNING}. As the API does,
+   * an empty list is answered with {@code 204 No Content}.
+   */
+  private Response list(Resource account, Resource resource, String type, Map<String, String> query) {
+    List<Resource> resources = new ArrayList<>(resource.children(type));
+    if (resource == account && "project".equals(type) && "api-tenant".equals(account.userType)) {
+      for (Resource client : accounts.values()) {
+        if (client.tenantId == account.id) {
+          resources.addAll(client.children(type));
+        }
+      }
+    }
+    List<Map<String, Object>> result = new ArrayList<>();
+    for (Resource child : resources) {
+      if (matches(child, query)) {
+        result.add(select(child.fields, query.get("fields")));
+      }
+    }
+    String sort = query.get("sort");
+    if (sort != null && !sort.isEmpty()) {
+      final boolean descending = sort.startsWith("-");
+      final String field = descending ? sort.substring(1) : sort;
+      Comparator<Map<String, Object>> comparator = (a, b) -> compare(a.get(field), b.get(field));
+      result.sort(descending ? comparator.reversed() : comparator);
+    }
+    return result.isEmpty() ? Response.status(204) : Response.ok(result);
+  }
+
+  private static boolean matches(Resource resource, Map<String, String> query) {
+    for (Map.Entry<String, String> parameter : query.entrySet()) {
+      String name = parameter.getKey();
+      if (!"sort".equals(name) && !"fields".equals(name)
+              && !parameter.getValue().equals(String.valueOf(resource.fields.get(name)))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Map<String, Object> select(Map<String, Object> fields, String names) {
+    if (names == null || names.isEmpty()) {
+      return new LinkedHashMap<>(fields);
+    }
+    Map<String, Object> selected = new LinkedHashMap<>();
+    for (String name : names.split(",")) {
+      if (fields.containsKey(name)) {
+        selected.put(name, fields.get(name));
+      }
+    }
+    return selected;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compare(Object a, Object b) {
+    if (a == null || b == null) {
+      return a == null ? (b == null ? 0 : -1) : 1;
+    }
+    if (a instanceof Number && b instanceof Number) {
+      return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+    }
+    return String.valueOf(a).compareTo(String.valueOf(b));
+  }
+
+  /**
+   * Generates {@code entries} days of statistics up to {@code end} for the decisions of the project. The numbers
+   * are pseudo random but the same for every request.
+   */
+  private Response trend(Resource project, Map<String, String> query) {
+    ApiDateFormat format = ApiDateFormat.getDefault();
+    long end = query.containsKey("end") ? format.parse(query.get("end")) : System.currentTimeMillis();
+    int entries = query.containsKey("entries") ? Integer.parseInt(query.get("entries")) : 30;
+    long day = TimeUnit.DAYS.toMillis(1);
+    long first = end - end % day - (entries - 1) * day;
+
+    Map<String, Object> trend = new LinkedHashMap<>();
+    for (int entry = 0; entry < entries; entry++) {
+      long timestamp = first + entry * day;
+      Map<String, Object> dataSets = new LinkedHashMap<>();
+      for (Resource decision : project.children("decision")) {
+        Random random = new Random(31L * (31L * project.id + decision.id) + timestamp / day);
+        int impressions = 100 + random.nextInt(900);
+        int conversions = random.nextInt(impressions / 10 + 1);
+        Map<String, Object> dataSet = new LinkedHashMap<>();
+        dataSet.put("name", decision.fields.get("name"));
+        dataSet.put("impressions", impressions);
+        dataSet.put("conversions", conversions);
+        dataSet.put("aggregatedcr", (float) conversions / impressions);
+        dataSets.put(String.valueOf(decision.id), dataSet);
+      }
+      trend.put(format.format(timestamp), dataSets);
+    }
+    return Response.ok(trend);
+  }
+
+  private static String now() {
+    return ApiDateFormat.getDefault().format(System.currentTimeMillis());
+  }
+
+  private static boolean isId(String segment) {
+    if (segment.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < segment.length(); i++) {
+      if (!Character.isDigit(segment.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static final class Resource {
+
+    private final Resource parent;
+    private final String type;
+    private final int id;
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+    private final Map<String, Map<Integer, Resource>> children = new HashMap<>();
+    private String userType;
+    private int tenantId;
+
+    private Resource(Resource parent, String type, int id) {
+      this.parent = parent;
+      this.type = type;
+      this.id = id;
+      fields.put("id", id);
+      if (parent != null) {
+        Map<Integer, Resource> siblings = parent.children.get(type);
+        if (siblings == null) {
+          siblings = new LinkedHashMap<>();
+          parent.children.put(type, siblings);
+        }
+        siblings.put(id, this);
+      }
+    }
+
+    Resource child(String type, int id) {
+      Map<Integer, Resource> resources = children.get(type);
+      return resources != null ? resources.get(id) : null;
+    }
+
+    Collection<Resource> children(String type) {
+      Map<Integer, Resource> resources = children.get(type);
+      return resources != null ? resources.values() : Collections.<Resource>emptyList();
+    }
+  }
+
+  /**
+   * Status and JSON body of an answer.
+   */
+  static final class Response {
+
+    final int status;
+    final Object body;
+
+    private Response(int status, Object body) {
+      this.status = status;
+      this.body = body;
+    }
+
+    static Response ok(Object body) {
+      return new Response(200, body);
+    }
+
+    static Response status(int status) {
+      return new Response(status, null);
+    }
+  }
+}
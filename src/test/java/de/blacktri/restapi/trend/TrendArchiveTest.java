@@ -0,0 +1,135 @@
+package de.blacktri.restapi.trend;
+
+import de.blacktri.restapi.pojos.TrendSeries;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class TrendArchiveTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testAppendAndReadRange() throws IOException {
+    TrendArchive archive = new TrendArchive(folder.getRoot().toPath());
+    archive.append(1, 2, 0, series(100, 10, "7", "8"), 100, 109);
+    archive.append(1, 2, 0, series(105, 10, "8", "9"), 105, 114);
+
+    TrendRecords records = archive.read(1, 2, 0, 108, 111);
+    Assert.assertEquals(108, records.getFirstDay());
+    Assert.assertEquals(111, records.getLastDay());
+    // two decisions on 108 and 109, two others from 110 on
+    Assert.assertEquals(8, records.size());
+    Assert.assertEquals("9", records.getExperimentId(7));
+    Assert.assertEquals(111 * 10 + 1, records.getImpressions(7));
+
+    TrendSeries series = records.toSeries();
+    Assert.assertArrayEquals(new int[]{108, 109, 110, 111}, series.getEpochDays());
+    Assert.assertEquals(3, series.getExperimentCount());
+    Assert.assertArrayEquals(new int[]{1080, 1090, 0, 0}, series.getImpressions(series.indexOf("7")));
+    Assert.assertArrayEquals(new int[]{1081, 1091, 1100, 1110}, series.getImpressions(series.indexOf("8")));
+
+    TrendRecords reopened = new TrendArchive(folder.getRoot().toPath()).read(1, 2, 0);
+    Assert.assertEquals(100, reopened.getFirstDay());
+    Assert.assertEquals(114, reopened.getLastDay());
+    Assert.assertEquals(30, reopened.size());
+    Assert.assertEquals("decision 9", reopened.getExperimentName(29));
+  }
+
+  @Test
+  public void testIgnoresUncommittedAppend() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    TrendArchive archive = new TrendArchive(directory);
+    archive.append(1, 2, 3, series(100, 10, "7"), 100, 109);
+    archive.append(1, 2, 3, series(110, 5, "7"), 110, 114);
+
+    try (FileChannel channel = FileChannel.open(directory.resolve("1-2-3.trend"), StandardOpenOption.WRITE)) {
+      // records written after the last commit, and a torn write of the header that would have committed them
+      channel.write(ByteBuffer.allocate(3 * ArchiveFile.RECORD), channel.size());
+      channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4}), 16);
+    }
+    TrendArchive recovered = new TrendArchive(directory);
+    TrendRecords records = recovered.read(1, 2, 3);
+    Assert.assertEquals(109, records.getLastDay());
+    Assert.assertEquals(10, records.size());
+
+    recovered.append(1, 2, 3, series(110, 2, "7"), 110, 111);
+    records = new TrendArchive(directory).read(1, 2, 3);
+    Assert.assertEquals(111, records.getLastDay());
+    Assert.assertEquals(12, records.size());
+    Assert.assertEquals(1110, records.getImpressions(11));
+  }
+
+  @Test
+  public void testReplaceAndDelete() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    TrendArchive archive = new TrendArchive(directory);
+    archive.append(1, 2, 0, series(100, 10, "7"), 100, 109);
+    TrendRecords before = archive.read(1, 2, 0);
+    archive.replace(1, 2, 0, series(90, 5, "8"), 90, 99);
+
+    Assert.assertEquals(10, before.size());
+    Assert.assertEquals("7", before.getExperimentId(9));
+    TrendRecords after = new TrendArchive(directory).read(1, 2, 0);
+    Assert.assertEquals(90, after.getFirstDay());
+    Assert.assertEquals(99, after.getLastDay());
+    Assert.assertEquals(5, after.size());
+    Assert.assertEquals("8", after.getExperimentId(0));
+
+    archive.append(1, 3, 0, series(100, 1, "7"), 100, 100);
+    archive.delete(1, 2);
+    Assert.assertEquals(0, archive.read(1, 2, 0).size());
+    Assert.assertEquals(0, new TrendArchive(directory).read(1, 2, 0).size());
+    Assert.assertEquals(1, new TrendArchive(directory).read(1, 3, 0).size());
+  }
+
+  @Test
+  public void testAppendAfterDeleteStartsOver() throws IOException {
+    Path directory = folder.getRoot().toPath();
+    TrendArchive archive = new TrendArchive(directory);
+    archive.append(1, 2, 0, series(100, 10, "7"), 100, 109);
+    archive.read(1, 2, 0);
+    new TrendArchive(directory).append(1, 2, 4, series(100, 1, "7"), 100, 100);
+    Files.createFile(directory.resolve("1-2-0.trend123.tmp"));
+
+    // deletes goal 4 as well, which this instance has not opened yet
+    archive.delete(1, 2);
+    archive.append(1, 2, 0, series(120, 2, "8"), 120, 121);
+    TrendRecords records = new TrendArchive(directory).read(1, 2, 0);
+    Assert.assertEquals(120, records.getFirstDay());
+    Assert.assertEquals(2, records.size());
+    Assert.assertEquals("8", records.getExperimentId(0));
+    Assert.assertEquals(0, new TrendArchive(directory).read(1, 2, 4).size());
+    Assert.assertFalse(Files.exists(directory.resolve("1-2-0.trend123.tmp")));
+  }
+
+  /**
+   * Days from {@code first} with the given decisions; impressions are the day times ten plus the decision's index.
+   */
+  private static TrendSeries series(int first, int days, String... ids) {
+    int[] epochDays = new int[days];
+    String[] names = new String[ids.length];
+    int[][] impressions = new int[ids.length][days];
+    int[][] conversions = new int[ids.length][days];
+    float[][] aggregatedcr = new float[ids.length][days];
+    for (int e = 0; e < ids.length; e++) {
+      names[e] = "decision " + ids[e];
+      for (int day = 0; day < days; day++) {
+        epochDays[day] = first + day;
+        impressions[e][day] = (first + day) * 10 + e;
+        conversions[e][day] = first + day;
+        aggregatedcr[e][day] = 0.1f;
+      }
+    }
+    return new TrendSeries(epochDays, ids, names, impressions, conversions, aggregatedcr);
+  }
+}
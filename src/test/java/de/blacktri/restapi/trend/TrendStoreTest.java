@@ -0,0 +1,199 @@
+package de.blacktri.restapi.trend;
+
+import de.blacktri.restapi.ABTest;
+import de.blacktri.restapi.httpclient.ABTestingRestConnector;
+import de.blacktri.restapi.pojos.Decision;
+import de.blacktri.restapi.pojos.Project;
+import de.blacktri.restapi.pojos.TrendSeries;
+import de.blacktri.restapi.simulator.ApiSimulator;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs against an {@link ApiSimulator} with a clock that the tests move forward, without retries and circuit
+ * breakers.
+ */
+public class TrendStoreTest {
+
+  private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ApiSimulator simulator;
+  private ABTestingRestConnector connector;
+  private ABTest api;
+  private int clientId;
+  private int projectId;
+  private MovingClock clock;
+
+  @Before
+  public void setUp() throws IOException {
+    simulator = new ApiSimulator();
+    simulator.getStore().addClient("key", "secret");
+    connector = new ABTestingRestConnector();
+    connector.setServiceEndpoint(simulator.getServiceEndpoint());
+    connector.setRetryPolicy(null);
+    connector.setCircuitBreakerRegistry(null);
+    api = new ABTest("key", "secret", connector);
+    clientId = api.loginClient();
+    projectId = api.createProject(clientId, new Project(Project.ProjectType.VISUAL, "http://localhost/", "*", "Trend"));
+    api.createDecision(clientId, projectId, new Decision("Variant A"));
+    Instant noon = LocalDate.of(2015, 6, 30).atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant();
+    clock = new MovingClock(new AtomicLong(noon.toEpochMilli()), ZoneId.systemDefault());
+  }
+
+  @After
+  public void tearDown() {
+    connector.close();
+    simulator.close();
+  }
+
+  @Test
+  public void testRequestsTodayOnceCached() {
+    TrendStore store = new TrendStore(api, clock);
+    assertSameTrend(expected(90), store.getTrend(clientId, projectId, -1, 90));
+    Assert.assertEquals(90, store.getRequestedDays());
+
+    assertSameTrend(expected(90), store.getTrend(clientId, projectId, -1, 90));
+    assertSameTrend(expected(30), store.getTrend(clientId, projectId, -1, 30));
+    Assert.assertEquals(3, store.getRequestCount());
+    Assert.assertEquals(92, store.getRequestedDays());
+  }
+
+  @Test
+  public void testRequestsMissedDays() {
+    TrendStore store = new TrendStore(api, clock);
+    store.getTrend(clientId, projectId, -1, 90);
+    clock.advance(5);
+
+    assertSameTrend(expected(90), store.getTrend(clientId, projectId, -1, 90));
+    // the day that was today before, four missed days and today
+    Assert.assertEquals(90 + 6, store.getRequestedDays());
+  }
+
+  @Test
+  public void testReplacesWithLongerPeriod() throws IOException {
+    TrendArchive archive = new TrendArchive(folder.getRoot().toPath());
+    TrendStore store = new TrendStore(api, clock, archive);
+    store.getTrend(clientId, projectId, -1, 30);
+    assertSameTrend(expected(90), store.getTrend(clientId, projectId, -1, 90));
+    Assert.assertEquals(30 + 90, store.getRequestedDays());
+
+    TrendRecords archived = archive.read(clientId, projectId, 0);
+    Assert.assertEquals(today() - 89, archived.getFirstDay());
+    Assert.assertEquals(today() - 1, archived.getLastDay());
+    assertSameTrend(expected(60), store.getTrend(clientId, projectId, -1, 60));
+    Assert.assertEquals(30 + 90 + 1, store.getRequestedDays());
+  }
+
+  @Test
+  public void testKeepsCachedDaysWhenRequestFails() {
+    TrendStore store = new TrendStore(api, clock);
+    store.getTrend(clientId, projectId, -1, 90);
+    clock.advance(2);
+    simulator.failNext(1, 503);
+
+    Assert.assertNull(store.getTrend(clientId, projectId, -1, 90));
+    assertSameTrend(expected(90), store.getTrend(clientId, projectId, -1, 90));
+    Assert.assertEquals(90 + 3 + 3, store.getRequestedDays());
+  }
+
+  @Test
+  public void testArchiveServesDaysAfterRestart() throws IOException {
+    new TrendStore(api, clock, new TrendArchive(folder.getRoot().toPath())).getTrend(clientId, projectId, -1, 90);
+
+    TrendStore store = new TrendStore(api, clock, new TrendArchive(folder.getRoot().toPath()));
+    assertSameTrend(expected(60), store.getTrend(clientId, projectId, -1, 60));
+    Assert.assertEquals(1, store.getRequestedDays());
+
+    store.invalidate(clientId, projectId);
+    Assert.assertEquals(0, new TrendArchive(folder.getRoot().toPath()).read(clientId, projectId, 0).size());
+    store.getTrend(clientId, projectId, -1, 60);
+    Assert.assertEquals(1 + 60, store.getRequestedDays());
+  }
+
+  @Test
+  public void testInvalidateWaitsForRefresh() throws Exception {
+    TrendArchive archive = new TrendArchive(folder.getRoot().toPath());
+    TrendStore store = new TrendStore(api, clock, archive);
+    simulator.setLatency(300, 300);
+    CompletableFuture<TrendSeries> refresh = CompletableFuture.supplyAsync(() -> store.getTrend(clientId, projectId, -1, 30));
+    Thread.sleep(100);
+
+    store.invalidate(clientId, projectId);
+    Assert.assertTrue(refresh.isDone());
+    Assert.assertEquals(30, refresh.get().size());
+    Assert.assertEquals(0, new TrendArchive(folder.getRoot().toPath()).read(clientId, projectId, 0).size());
+  }
+
+  private int today() {
+    return (int) LocalDate.now(clock).toEpochDay();
+  }
+
+  /**
+   * The trend as requested directly, for the days up to today.
+   */
+  private TrendSeries expected(int days) {
+    Calendar end = Calendar.getInstance();
+    end.setTimeInMillis(clock.millis());
+    return api.getTrendSeries(clientId, projectId, end, days, -1);
+  }
+
+  private static void assertSameTrend(TrendSeries expected, TrendSeries actual) {
+    Assert.assertArrayEquals(expected.getEpochDays(), actual.getEpochDays());
+    Assert.assertEquals(expected.getExperimentIds(), actual.getExperimentIds());
+    for (int e = 0; e < expected.getExperimentCount(); e++) {
+      Assert.assertArrayEquals(expected.getImpressions(e), actual.getImpressions(e));
+      Assert.assertArrayEquals(expected.getConversions(e), actual.getConversions(e));
+      Assert.assertArrayEquals(expected.getAggregatedcr(e), actual.getAggregatedcr(e), 0f);
+    }
+  }
+
+  /**
+   * A clock that the test moves forward by whole days.
+   */
+  private static final class MovingClock extends Clock {
+
+    private final AtomicLong millis;
+    private final ZoneId zone;
+
+    private MovingClock(AtomicLong millis, ZoneId zone) {
+      this.millis = millis;
+      this.zone = zone;
+    }
+
+    void advance(int days) {
+      millis.addAndGet(days * DAY);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return new MovingClock(millis, zone);
+    }
+
+    @Override
+    public Instant instant() {
+      return Instant.ofEpochMilli(millis.get());
+    }
+  }
+}